@@ -1,6 +1,8 @@
 package de.tum.bgu.msm;
 
 import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.input.ColumnarFileReader;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
@@ -25,7 +27,7 @@ public class TripCSVToMATSimPlan {
 
     private static final double SPEED_WALK_KMH = 5.;
     private static final double SPEED_BICYCLE_KMH = 12.;
-    // This class will read trip lists in CSV from MITO and creates a MATSim XML
+    // This class will read trip lists in CSV or in the columnar format (.mcol) from MITO and creates a MATSim XML
     // plan file
     private static String delimiter = ",";
 
@@ -76,6 +78,19 @@ public class TripCSVToMATSimPlan {
         Population population = PopulationUtils.createPopulation(config);
         factory = population.getFactory();
 
+        if (filename.endsWith(ColumnarFileFormat.FILE_SUFFIX)) {
+            readColumnarTrips(population);
+        } else {
+            readCsvTrips(population);
+        }
+
+        PopulationWriter popwriter = new PopulationWriter(population);
+        popwriter.write("externalDemand/sd_trips" + ".xml.gz");
+
+        System.out.println("done.");
+    }
+
+    private static void readCsvTrips(Population population) {
         try {
             FileReader in = null;
             BufferedReader br = null;
@@ -105,7 +120,7 @@ public class TripCSVToMATSimPlan {
 
 
                 while ((line = br.readLine()) != null) {
-                    Person p = createPersonFromTrip(i++, line);
+                    Person p = createPersonFromTrip(i++, new Trip(line));
                     if (p != null) {
                         population.addPerson(p);
                     }
@@ -122,16 +137,46 @@ public class TripCSVToMATSimPlan {
         } catch (IOException e) {
             e.printStackTrace();
         }
-
-        PopulationWriter popwriter = new PopulationWriter(population);
-        popwriter.write("externalDemand/sd_trips" + ".xml.gz");
-
-        System.out.println("done.");
     }
 
-    private static Person createPersonFromTrip(int i, String line) {
+    /**
+     * Reads the trips row group by row group, loading only the columns needed for the plans.
+     */
+    private static void readColumnarTrips(Population population) {
+        try (ColumnarFileReader reader = new ColumnarFileReader(filename)) {
+            int i = 0;
+            for (int group = 0; group < reader.getNumberOfRowGroups(); group++) {
+                int[] ids = reader.readInts("id", group, -1);
+                double[] originX = reader.readDoubles("originX", group);
+                double[] originY = reader.readDoubles("originY", group);
+                double[] destinationX = reader.readDoubles("destinationX", group);
+                double[] destinationY = reader.readDoubles("destinationY", group);
+                String[] purposes = reader.readStrings("purpose", group);
+                int[] persons = reader.readInts("person", group, -1);
+                double[] distances = reader.readDoubles("distance", group);
+                String[] modes = reader.readStrings("mode", group);
+                double[] timesCar = reader.readDoubles("time_auto", group);
+                double[] timesBus = reader.readDoubles("time_bus", group);
+                double[] timesTramMetro = reader.readDoubles("time_tram_metro", group);
+                double[] timesTrain = reader.readDoubles("time_train", group);
+                int[] departureTimes = reader.readInts("departure_time", group, 0);
+                boolean[] noReturnTrip = reader.readNulls("departure_time_return", group);
+                int[] departureTimesReturn = reader.readInts("departure_time_return", group, 0);
+                for (int row = 0; row < reader.getRowGroupSize(group); row++) {
+                    Trip trip = new Trip(ids[row], originX[row], originY[row], destinationX[row], destinationY[row],
+                            purposes[row], String.valueOf(persons[row]), distances[row], String.valueOf(modes[row]),
+                            timesCar[row] * 60, timesBus[row] * 60, timesTramMetro[row] * 60, timesTrain[row] * 60,
+                            departureTimes[row] * 60., noReturnTrip[row] ? -1. : departureTimesReturn[row] * 60.);
+                    Person p = createPersonFromTrip(i++, trip);
+                    if (p != null) {
+                        population.addPerson(p);
+                    }
+                }
+            }
+        }
+    }
 
-        Trip t = new Trip(line);
+    private static Person createPersonFromTrip(int i, Trip t) {
 
         String mode = decodeMode(t.mode);
 
@@ -280,6 +325,26 @@ public class TripCSVToMATSimPlan {
         public double departure_time_return;
 
 
+        public Trip(long id, double originX, double originY, double destinationX, double destinationY,
+                    String purpose, String person, double distance, String mode, double timeCar_s, double timeBus_s,
+                    double timeTramMetro_s, double timeTrain_s, double departure_time, double departure_time_return) {
+            this.id = id;
+            this.originX = originX;
+            this.originY = originY;
+            this.destinationX = destinationX;
+            this.destinationY = destinationY;
+            this.purpose = purpose;
+            this.person = person;
+            this.distance = distance;
+            this.mode = mode;
+            this.timeCar_s = timeCar_s;
+            this.timeBus_s = timeBus_s;
+            this.timeTramMetro_s = timeTramMetro_s;
+            this.timeTrain_s = timeTrain_s;
+            this.departure_time = departure_time;
+            this.departure_time_return = departure_time_return;
+        }
+
         public Trip(String line) {
             String[] data = line.split(delimiter);
             this.originX = Double.parseDouble(data[posOriginX]);
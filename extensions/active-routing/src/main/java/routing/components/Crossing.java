@@ -1,5 +1,4 @@
 package routing.components;
-import org.matsim.api.core.v01.network.Link;
 
 public enum Crossing {
     UNCONTROLLED,
@@ -7,8 +6,13 @@ public enum Crossing {
     SIGNAL_MIXED,
     SIGNAL_ACTIVE;
 
-    public static Crossing getType(Link link, String mode) {
-        String name = (String) link.getToNode().getAttributes().getAttribute(mode + "Crossing");
+    /**
+     * Returns the type of the crossing with the given name of the node attribute, e.g. {@code walkCrossing}.
+     */
+    static Crossing getType(String name) {
+        if (name == null) {
+            return UNCONTROLLED;
+        }
         switch (name) {
             case "null":
                 return UNCONTROLLED;
@@ -21,4 +25,4 @@ public enum Crossing {
                 return SIGNAL_ACTIVE;
         }
     }
-}
\ No newline at end of file
+}
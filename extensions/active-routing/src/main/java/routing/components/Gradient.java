@@ -12,4 +12,8 @@ public class Gradient {
         }
         return gradient;
     }
+
+    public static double getGradient (LinkAttributes attributes, Link link){
+        return attributes.getGradient(link);
+    }
 }
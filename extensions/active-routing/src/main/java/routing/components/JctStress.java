@@ -7,30 +7,30 @@ import static routing.components.Crossing.*;
 
 public class JctStress {
 
-    public static double getStressProp(Link link, String mode) {
+    public static double getStressProp(LinkAttributes attributes, Link link, String mode) {
         double jctStress = 0;
-        if((boolean) link.getAttributes().getAttribute("crossVehicles")) {
-            double junctionWidth = Math.min(link.getLength(),(double) link.getAttributes().getAttribute("crossWidth"));
-            jctStress = (junctionWidth / link.getLength()) * JctStress.getStress(link,mode);
+        if(attributes.crossesVehicles(link)) {
+            double junctionWidth = Math.min(link.getLength(),attributes.getCrossWidth(link));
+            jctStress = (junctionWidth / link.getLength()) * JctStress.getStress(attributes,link,mode);
         }
         return jctStress;
     }
 
-    public static double getStress(Link link, String mode) {
+    public static double getStress(LinkAttributes attributes, Link link, String mode) {
 
         if(!mode.equals("walk") && !mode.equals("bike")) {
             throw new RuntimeException("unknown mode " + mode);
-        } else if(!link.getAllowedModes().contains(mode)) {
+        } else if(!attributes.allows(link,mode)) {
             return Double.NaN;
-        } else if((boolean) link.getAttributes().getAttribute("crossVehicles")) {
+        } else if(attributes.crossesVehicles(link)) {
             double stress = 0;
-            Double crossingAadt = (Double) link.getAttributes().getAttribute("crossAadt") * 0.865;
-            double crossingLanes = (double) link.getAttributes().getAttribute("crossLanes");
-            double crossingSpeed = (double) link.getAttributes().getAttribute("crossSpeedLimitMPH");
-            double crossingSpeed85perc = (double) link.getAttributes().getAttribute("cross85PercSpeed") * 0.621371;
-            if(crossingAadt.isNaN()) crossingAadt = 800.;
+            double crossingAadt = attributes.getCrossAadt(link) * 0.865;
+            double crossingLanes = attributes.getCrossLanes(link);
+            double crossingSpeed = attributes.getCrossSpeedLimitMph(link);
+            double crossingSpeed85perc = attributes.getCross85PercSpeed(link) * 0.621371;
+            if(Double.isNaN(crossingAadt)) crossingAadt = 800.;
 
-            Crossing crossingType = Crossing.getType(link,mode);
+            Crossing crossingType = attributes.getCrossing(link,mode);
 
             if(crossingSpeed85perc >= crossingSpeed*1.1) {
                 crossingSpeed = crossingSpeed85perc;
@@ -50,7 +50,7 @@ public class JctStress {
                 }
             } else if(crossingType.equals(SIGNAL_MIXED)) {
                 if(crossingSpeed < 60) {
-                    stress = LinkStress.getStress(link,mode);
+                    stress = LinkStress.getStress(attributes,link,mode);
                 } else {
                     stress = 1.;
                 }
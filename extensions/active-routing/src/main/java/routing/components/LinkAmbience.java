@@ -5,42 +5,42 @@ import org.matsim.api.core.v01.network.Link;
 public class LinkAmbience {
 
 
-    public static double getVgviFactor (Link link){
-        return (double) link.getAttributes().getAttribute("vgvi");
+    public static double getVgviFactor (LinkAttributes attributes, Link link){
+        return attributes.getVgvi(link);
     }
 
-    public static double getDarknessFactor(Link link){
-        int lights = (int) link.getAttributes().getAttribute("streetLights");
-        int idealSpacing = (boolean) link.getAttributes().getAttribute("primary") ? 30 : 15;
+    public static double getDarknessFactor(LinkAttributes attributes, Link link){
+        int lights = attributes.getStreetLights(link);
+        int idealSpacing = attributes.isPrimary(link) ? 30 : 15;
         return 1 - Math.min(1., idealSpacing * lights / link.getLength());
     }
 
-    public static double getShannonFactor (Link link){
-        double shannon = (double) link.getAttributes().getAttribute("shannon");
+    public static double getShannonFactor (LinkAttributes attributes, Link link){
+        double shannon = attributes.getShannon(link);
         return Math.min(1., shannon / 1.6);
     }
 
-    public static double getPoiFactor (Link link){
-        int pois = (int) link.getAttributes().getAttribute("POIs");
+    public static double getPoiFactor (LinkAttributes attributes, Link link){
+        int pois = attributes.getPois(link);
         return Math.min(1., 5 * pois / link.getLength());
     }
 
-    public static double getNegativePoiFactor (Link link){
-        int negPois = (int) link.getAttributes().getAttribute("negPOIs");
+    public static double getNegativePoiFactor (LinkAttributes attributes, Link link){
+        int negPois = attributes.getNegativePois(link);
         return Math.min(1., 5 * negPois / link.getLength());
     }
 
-    public static double getCrimeFactor (Link link){
-        int crime = (int) link.getAttributes().getAttribute("crime");
+    public static double getCrimeFactor (LinkAttributes attributes, Link link){
+        int crime = attributes.getCrime(link);
         return Math.min(1., 4 * crime / link.getLength());
     }
 
-    public static double getDayAmbience(Link link){
-        double vgvi = getVgviFactor(link);
-        double pois = getPoiFactor(link);
-        double shannon = getShannonFactor(link);
-        double negativePois = getNegativePoiFactor(link);
-        double crime = getCrimeFactor(link);
+    public static double getDayAmbience(LinkAttributes attributes, Link link){
+        double vgvi = getVgviFactor(attributes, link);
+        double pois = getPoiFactor(attributes, link);
+        double shannon = getShannonFactor(attributes, link);
+        double negativePois = getNegativePoiFactor(attributes, link);
+        double crime = getCrimeFactor(attributes, link);
 
         double good = 0.5 * vgvi + Math.min(0.5,0.5 * pois + 0.5 * shannon);
         double bad = 0.5 * negativePois + 0.5 * crime;
@@ -48,13 +48,13 @@ public class LinkAmbience {
         return Math.max(0.,Math.min(1.,0.5 - good + bad));
     }
 
-    public static double getNightAmbience(Link link){
-        double vgvi = getVgviFactor(link);
-        double pois = getPoiFactor(link);
-        double shannon = getShannonFactor(link);
-        double negativePois = getNegativePoiFactor(link);
-        double crime = getCrimeFactor(link);
-        double darkness = getDarknessFactor(link);
+    public static double getNightAmbience(LinkAttributes attributes, Link link){
+        double vgvi = getVgviFactor(attributes, link);
+        double pois = getPoiFactor(attributes, link);
+        double shannon = getShannonFactor(attributes, link);
+        double negativePois = getNegativePoiFactor(attributes, link);
+        double crime = getCrimeFactor(attributes, link);
+        double darkness = getDarknessFactor(attributes, link);
 
         double good = 0.25 * vgvi + Math.min(0.5,0.5 * pois + 0.5 * shannon);
         double bad = 0.25 * darkness + 0.5 * negativePois + 0.5 * crime;
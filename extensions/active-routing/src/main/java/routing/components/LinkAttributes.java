@@ -0,0 +1,304 @@
+package routing.components;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The link attributes read by the routing components, compiled once from a network into primitive columns indexed by
+ * {@link Id#index()}. The components read a column instead of looking up and unboxing
+ * {@code link.getAttributes().getAttribute(...)} for every link, mode and class of persons.
+ * <p>
+ * Missing attributes are defaulted when compiling: decimal numbers to NaN, counts to 0, flags to false and categories
+ * to the type of a link without the attribute. How often an attribute is missing is logged. Compiled attributes are
+ * not changed anymore and can be read by all routing threads.
+ */
+public final class LinkAttributes {
+
+    private static final Logger logger = LogManager.getLogger(LinkAttributes.class);
+
+    private static final Protection[] PROTECTIONS = Protection.values();
+    private static final Crossing[] CROSSINGS = Crossing.values();
+    private static final byte NO_PROTECTION = -1;
+
+    private final int size;
+    private final Map<String, Integer> missingCounts = new LinkedHashMap<>();
+
+    private final boolean[] allowsWalk;
+    private final boolean[] allowsBike;
+    private final boolean[] allowsCar;
+    private final boolean[] roundabout;
+    private final boolean[] primary;
+    private final double[] gradient;
+    private final double[] speedLimitMph;
+    private final double[] speed85PercKph;
+    private final int[] aadt;
+    private final int[] hgvPois;
+    private final byte[] protection;
+    private final double[] vgvi;
+    private final double[] shannon;
+    private final int[] streetLights;
+    private final int[] pois;
+    private final int[] negativePois;
+    private final int[] crime;
+    private final boolean[] crossVehicles;
+    private final double[] crossWidth;
+    private final double[] crossAadt;
+    private final double[] crossLanes;
+    private final double[] crossSpeedLimitMph;
+    private final double[] cross85PercSpeed;
+    private final byte[] walkCrossing;
+    private final byte[] bikeCrossing;
+
+    private LinkAttributes(int size) {
+        this.size = size;
+        allowsWalk = new boolean[size];
+        allowsBike = new boolean[size];
+        allowsCar = new boolean[size];
+        roundabout = new boolean[size];
+        primary = new boolean[size];
+        gradient = new double[size];
+        speedLimitMph = new double[size];
+        speed85PercKph = new double[size];
+        aadt = new int[size];
+        hgvPois = new int[size];
+        protection = new byte[size];
+        Arrays.fill(protection, NO_PROTECTION);
+        vgvi = new double[size];
+        shannon = new double[size];
+        streetLights = new int[size];
+        pois = new int[size];
+        negativePois = new int[size];
+        crime = new int[size];
+        crossVehicles = new boolean[size];
+        crossWidth = new double[size];
+        crossAadt = new double[size];
+        crossLanes = new double[size];
+        crossSpeedLimitMph = new double[size];
+        cross85PercSpeed = new double[size];
+        walkCrossing = new byte[size];
+        bikeCrossing = new byte[size];
+    }
+
+    /**
+     * Compiles the attributes of all links of the network.
+     */
+    public static LinkAttributes compile(Network network) {
+        final long start = System.currentTimeMillis();
+        final LinkAttributes attributes = new LinkAttributes(Id.getNumberOfIds(Link.class));
+        for (Link link : network.getLinks().values()) {
+            attributes.set(link);
+        }
+        for (Map.Entry<String, Integer> missing : attributes.missingCounts.entrySet()) {
+            logger.warn("Attribute " + missing.getKey() + " is missing on " + missing.getValue() + " of " +
+                    network.getLinks().size() + " links; using its default for routing.");
+        }
+        logger.info("Compiled routing attributes of " + network.getLinks().size() + " links in " +
+                (System.currentTimeMillis() - start) + " ms.");
+        return attributes;
+    }
+
+    private void set(Link link) {
+        final int i = link.getId().index();
+        final Set<String> modes = link.getAllowedModes();
+        allowsWalk[i] = modes.contains(TransportMode.walk);
+        allowsBike[i] = modes.contains(TransportMode.bike);
+        allowsCar[i] = getBoolean(link, "allowsCar");
+        final String junction = getString(link, "junction");
+        roundabout[i] = "roundabout".equals(junction) || "circular".equals(junction);
+        primary[i] = getBoolean(link, "primary");
+        gradient[i] = Gradient.getGradient(link);
+        speedLimitMph[i] = getDouble(link, "speedLimitMPH");
+        speed85PercKph[i] = getDouble(link, "veh85percSpeedKPH");
+        aadt[i] = getInt(link, "aadt");
+        hgvPois[i] = getInt(link, "hgvPOIs");
+        if (allowsWalk[i] || allowsBike[i]) {
+            protection[i] = (byte) Protection.getType(getString(link, "cycleosm"), getString(link, "cycleway")).ordinal();
+        }
+        vgvi[i] = getDouble(link, "vgvi");
+        shannon[i] = getDouble(link, "shannon");
+        streetLights[i] = getInt(link, "streetLights");
+        pois[i] = getInt(link, "POIs");
+        negativePois[i] = getInt(link, "negPOIs");
+        crime[i] = getInt(link, "crime");
+        crossVehicles[i] = getBoolean(link, "crossVehicles");
+        crossWidth[i] = getDouble(link, "crossWidth");
+        crossAadt[i] = getDouble(link, "crossAadt");
+        crossLanes[i] = getDouble(link, "crossLanes");
+        crossSpeedLimitMph[i] = getDouble(link, "crossSpeedLimitMPH");
+        cross85PercSpeed[i] = getDouble(link, "cross85PercSpeed");
+        walkCrossing[i] = (byte) Crossing.getType(getCrossingName(link, TransportMode.walk)).ordinal();
+        bikeCrossing[i] = (byte) Crossing.getType(getCrossingName(link, TransportMode.bike)).ordinal();
+    }
+
+    private Object get(Link link, String name) {
+        final Object value = link.getAttributes().getAttribute(name);
+        if (value == null) {
+            missingCounts.merge(name, 1, Integer::sum);
+        }
+        return value;
+    }
+
+    private boolean getBoolean(Link link, String name) {
+        final Object value = get(link, name);
+        return value != null && (value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString()));
+    }
+
+    private double getDouble(Link link, String name) {
+        final Object value = get(link, name);
+        return value == null ? Double.NaN : ((Number) value).doubleValue();
+    }
+
+    private int getInt(Link link, String name) {
+        final Object value = get(link, name);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private String getString(Link link, String name) {
+        final Object value = get(link, name);
+        return value == null ? null : value.toString();
+    }
+
+    private static String getCrossingName(Link link, String mode) {
+        final Object value = link.getToNode().getAttributes().getAttribute(mode + "Crossing");
+        return value == null ? null : value.toString();
+    }
+
+    private int index(Link link) {
+        final int index = link.getId().index();
+        if (index >= size) {
+            throw new IllegalArgumentException("Link " + link.getId() + " was created after the link attributes were compiled");
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether the link allows the mode, reading a column for walk and bike.
+     */
+    public boolean allows(Link link, String mode) {
+        switch (mode) {
+            case TransportMode.walk:
+                return allowsWalk[index(link)];
+            case TransportMode.bike:
+                return allowsBike[index(link)];
+            default:
+                return link.getAllowedModes().contains(mode);
+        }
+    }
+
+    public boolean allowsCar(Link link) {
+        return allowsCar[index(link)];
+    }
+
+    /**
+     * Returns whether the link is part of a roundabout or circular junction.
+     */
+    public boolean isRoundabout(Link link) {
+        return roundabout[index(link)];
+    }
+
+    public boolean isPrimary(Link link) {
+        return primary[index(link)];
+    }
+
+    public double getGradient(Link link) {
+        return gradient[index(link)];
+    }
+
+    public double getSpeedLimitMph(Link link) {
+        return speedLimitMph[index(link)];
+    }
+
+    public double get85PercSpeedKph(Link link) {
+        return speed85PercKph[index(link)];
+    }
+
+    public int getAadt(Link link) {
+        return aadt[index(link)];
+    }
+
+    public int getHgvPois(Link link) {
+        return hgvPois[index(link)];
+    }
+
+    /**
+     * Returns the protection of cyclists, or null if the link allows neither walk nor bike.
+     */
+    public Protection getProtection(Link link) {
+        final byte type = protection[index(link)];
+        return type == NO_PROTECTION ? null : PROTECTIONS[type];
+    }
+
+    public double getVgvi(Link link) {
+        return vgvi[index(link)];
+    }
+
+    public double getShannon(Link link) {
+        return shannon[index(link)];
+    }
+
+    public int getStreetLights(Link link) {
+        return streetLights[index(link)];
+    }
+
+    public int getPois(Link link) {
+        return pois[index(link)];
+    }
+
+    public int getNegativePois(Link link) {
+        return negativePois[index(link)];
+    }
+
+    public int getCrime(Link link) {
+        return crime[index(link)];
+    }
+
+    /**
+     * Returns whether the link crosses a road used by motor vehicles at its end.
+     */
+    public boolean crossesVehicles(Link link) {
+        return crossVehicles[index(link)];
+    }
+
+    public double getCrossWidth(Link link) {
+        return crossWidth[index(link)];
+    }
+
+    public double getCrossAadt(Link link) {
+        return crossAadt[index(link)];
+    }
+
+    public double getCrossLanes(Link link) {
+        return crossLanes[index(link)];
+    }
+
+    public double getCrossSpeedLimitMph(Link link) {
+        return crossSpeedLimitMph[index(link)];
+    }
+
+    public double getCross85PercSpeed(Link link) {
+        return cross85PercSpeed[index(link)];
+    }
+
+    /**
+     * Returns the type of crossing at the end of the link for walk or bike.
+     */
+    public Crossing getCrossing(Link link, String mode) {
+        switch (mode) {
+            case TransportMode.walk:
+                return CROSSINGS[walkCrossing[index(link)]];
+            case TransportMode.bike:
+                return CROSSINGS[bikeCrossing[index(link)]];
+            default:
+                throw new IllegalArgumentException("No crossings for mode " + mode);
+        }
+    }
+}
@@ -7,22 +7,21 @@ import static routing.components.Protection.*;
 
 public class LinkStress {
 
-    public static double getStress(Link link, String mode) {
+    public static double getStress(LinkAttributes attributes, Link link, String mode) {
 
         if (!mode.equals("walk") && !mode.equals("bike")) {
             throw new RuntimeException("unknown mode " + mode);
-        } else if (!link.getAllowedModes().contains(mode)) {
+        } else if (!attributes.allows(link, mode)) {
             return Double.NaN;
-        } else if ((boolean) link.getAttributes().getAttribute("allowsCar")) {
-            String junction = (String) link.getAttributes().getAttribute("junction");
-            if (mode.equals("bike") && (junction.equals("roundabout") || junction.equals("circular"))) {
+        } else if (attributes.allowsCar(link)) {
+            if (mode.equals("bike") && attributes.isRoundabout(link)) {
                 return 1;
             } else {
                 double stress;
-                double speedLimit = (double) link.getAttributes().getAttribute("speedLimitMPH");
-                double speed85perc = (double) link.getAttributes().getAttribute("veh85percSpeedKPH") * 0.621371;
-                double aadt = ((int) link.getAttributes().getAttribute("aadt")) * 0.865;
-                Protection protection = Protection.getType(link);
+                double speedLimit = attributes.getSpeedLimitMph(link);
+                double speed85perc = attributes.get85PercSpeedKph(link) * 0.621371;
+                double aadt = attributes.getAadt(link) * 0.865;
+                Protection protection = attributes.getProtection(link);
 
                 if (speed85perc >= speedLimit * 1.1) {
                     speedLimit = speed85perc;
@@ -50,7 +49,7 @@ public class LinkStress {
                     aadtFactor = 0.000167;
                 }
 
-                double freightPoiFactor = getFreightPoiFactor(link);
+                double freightPoiFactor = getFreightPoiFactor(attributes, link);
 
                 stress = intercept + speedFactor * speedLimit + aadtFactor * aadt + 0.2 * freightPoiFactor;
 
@@ -63,8 +62,8 @@ public class LinkStress {
         } else return 0;
     }
 
-    public static double getFreightPoiFactor (Link link){
-        int hgvPois = (int) link.getAttributes().getAttribute("hgvPOIs");
+    public static double getFreightPoiFactor (LinkAttributes attributes, Link link){
+        int hgvPois = attributes.getHgvPois(link);
         return Math.min(1., 24 * hgvPois / link.getLength());
     }
 
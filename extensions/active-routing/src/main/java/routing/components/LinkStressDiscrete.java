@@ -9,19 +9,18 @@ public enum LinkStressDiscrete {
     AMBER,
     RED;
 
-    public static LinkStressDiscrete getCycleStress(Link link) {
+    public static LinkStressDiscrete getCycleStress(LinkAttributes attributes, Link link) {
 
-        if (!link.getAllowedModes().contains("bike")) {
+        if (!attributes.allows(link, "bike")) {
             return null;
-        } else if ((boolean) link.getAttributes().getAttribute("allowsCar")) {
-            String junction = (String) link.getAttributes().getAttribute("junction");
-            if (junction.equals("roundabout") || junction.equals("circular")) {
+        } else if (attributes.allowsCar(link)) {
+            if (attributes.isRoundabout(link)) {
                 return RED;
             } else {
-                double speedLimit = (double) link.getAttributes().getAttribute("speedLimitMPH");
-                double speed85perc = (double) link.getAttributes().getAttribute("veh85percSpeedKPH") * 0.621371;
-                double aadt = ((int) link.getAttributes().getAttribute("aadt")) * 0.865;
-                Protection protection = Protection.getType(link);
+                double speedLimit = attributes.getSpeedLimitMph(link);
+                double speed85perc = attributes.get85PercSpeedKph(link) * 0.621371;
+                double aadt = attributes.getAadt(link) * 0.865;
+                Protection protection = attributes.getProtection(link);
 
                 if (speed85perc >= speedLimit * 1.1) {
                     speedLimit = speed85perc;
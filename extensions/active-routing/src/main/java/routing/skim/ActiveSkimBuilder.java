@@ -0,0 +1,229 @@
+package routing.skim;
+
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import de.tum.bgu.msm.util.skim.LeastCostTree;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.vehicles.Vehicle;
+import routing.ActiveConfigGroup;
+import routing.travelDisutility.ActiveDisutilityPrecalc;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Builds zone-to-zone skims of an active mode for classes of persons, e.g. by purpose, sex and age. For each class, a
+ * least cost tree is calculated from the node of every origin zone to all zones with the disutility of the class, and
+ * the cost, and optionally the travel time and distance, along the least cost paths are stored in matrices in seconds
+ * and meters. Travel time classes skim the fastest paths instead, independent of the weights of the mode. The network
+ * of the mode, its precalculated link values and the nodes of the zones are shared by all classes, and trees are
+ * calculated in parallel over classes and origins.
+ */
+public final class ActiveSkimBuilder {
+
+    private final static Logger logger = LogManager.getLogger(ActiveSkimBuilder.class);
+
+    private final ActiveConfigGroup activeConfigGroup;
+    private final TravelTime travelTime;
+    private final List<MitoZone> zones;
+    private final LeastCostTree.Graph graph;
+    private final ActiveDisutilityPrecalc.LinkValues linkValues;
+    private final int[] zoneNodes;
+    private final Map<String, SkimClass> classes = new LinkedHashMap<>();
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param network the network of the mode, e.g. filtered by the {@link routing.TransportModeNetworkFilter} and
+     *                cleaned, so that every zone can be reached
+     * @param travelTime the travel time of the mode, e.g. {@link routing.travelTime.BicycleTravelTime}
+     * @param zones the zones, connected to the network at the node nearest to their centroid. Zones without centroid
+     *              are connected at a random point of their geometry, drawn with the zone id as seed so that the skims
+     *              do not depend on the state of the model's random number generator
+     */
+    public ActiveSkimBuilder(Network network, ActiveConfigGroup activeConfigGroup, TravelTime travelTime,
+                             Collection<MitoZone> zones) {
+        this.activeConfigGroup = activeConfigGroup;
+        this.travelTime = travelTime;
+        this.zones = new ArrayList<>(zones);
+        this.graph = new LeastCostTree.Graph(network);
+        this.linkValues = new ActiveDisutilityPrecalc.LinkValues(network, activeConfigGroup);
+        this.zoneNodes = new int[this.zones.size()];
+        for (int z = 0; z < this.zones.size(); z++) {
+            final MitoZone zone = this.zones.get(z);
+            final Coord coord = zone.getCentroid() != null ?
+                    CoordUtils.createCoord(zone.getCentroid().getCoordinate()) :
+                    CoordUtils.createCoord(zone.getRandomCoord(new Random(zone.getId())));
+            zoneNodes[z] = graph.getIndex(NetworkUtils.getNearestLink(network, coord).getToNode());
+        }
+        logger.info("Assigned " + activeConfigGroup.getMode() + " network nodes to " + zoneNodes.length + " zones");
+    }
+
+    public ActiveSkimBuilder setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive but is " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
+    /**
+     * Adds a class of persons to skim.
+     * @param name the name of the class, e.g. the name of the skim in the demand model
+     * @param person a person with the attributes the weights of the mode depend on
+     * @param vehicle the vehicle with the speed of the class, or null for the default speed of the mode
+     * @param timeAndDistance whether to also skim the travel time and distance along the least cost paths
+     */
+    public ActiveSkimBuilder addClass(String name, Person person, Vehicle vehicle, boolean timeAndDistance) {
+        if (classes.containsKey(name)) {
+            throw new IllegalArgumentException("Skim class " + name + " was added twice");
+        }
+        classes.put(name, new SkimClass(person, vehicle, timeAndDistance, false));
+        return this;
+    }
+
+    /**
+     * Adds a class that skims the travel time and distance along the fastest paths. The cost of the class is its
+     * travel time.
+     * @param name the name of the class
+     * @param vehicle the vehicle with the speed of the class, or null for the default speed of the mode
+     */
+    public ActiveSkimBuilder addTravelTimeClass(String name, Vehicle vehicle) {
+        if (classes.containsKey(name)) {
+            throw new IllegalArgumentException("Skim class " + name + " was added twice");
+        }
+        classes.put(name, new SkimClass(null, vehicle, true, true));
+        return this;
+    }
+
+    /**
+     * Calculates the skims of all classes.
+     * @return the skims by class name, in the order the classes were added
+     */
+    public Map<String, Skim> build() {
+        final long start = System.currentTimeMillis();
+        final String mode = activeConfigGroup.getMode();
+        final List<SkimClass> skimClasses = new ArrayList<>(classes.values());
+        if (skimClasses.isEmpty()) {
+            throw new IllegalStateException("No classes to skim for mode " + mode);
+        }
+        final List<Skim> skims = new ArrayList<>();
+        for (SkimClass skimClass : skimClasses) {
+            skims.add(new Skim(zones, skimClass.timeAndDistance));
+        }
+        final int[] rowIndices = new int[zones.size()];
+        final int[] columnIndices = new int[zones.size()];
+        for (int z = 0; z < zones.size(); z++) {
+            rowIndices[z] = skims.get(0).cost.getInternalRowIndexForId(zones.get(z).getId());
+            columnIndices[z] = skims.get(0).cost.getInternalColumnIndexForId(zones.get(z).getId());
+        }
+
+        final int numberOfTrees = skimClasses.size() * zones.size();
+        final AtomicInteger nextTree = new AtomicInteger();
+        final AtomicIntegerArray remainingTrees = new AtomicIntegerArray(skimClasses.size());
+        for (int c = 0; c < skimClasses.size(); c++) {
+            remainingTrees.set(c, zones.size());
+        }
+        final AtomicInteger finishedClasses = new AtomicInteger();
+        final boolean anyTravelTimeClass = skimClasses.stream().anyMatch(skimClass -> skimClass.travelTime);
+        final ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            executor.addTaskToQueue(() -> {
+                final LeastCostTree leastCostTree = new LeastCostTree(graph,
+                        new ActiveDisutilityPrecalc(linkValues, activeConfigGroup, travelTime), travelTime);
+                final LeastCostTree fastestTree = anyTravelTimeClass ?
+                        new LeastCostTree(graph, new OnlyTimeDependentTravelDisutility(travelTime), travelTime) : null;
+                final boolean[] targets = new boolean[graph.getNumberOfNodes()];
+                final int numberOfTargets = LeastCostTree.markTargets(zoneNodes, targets);
+                int next;
+                while ((next = nextTree.getAndIncrement()) < numberOfTrees) {
+                    final int c = next / zones.size();
+                    final SkimClass skimClass = skimClasses.get(c);
+                    final Skim skim = skims.get(c);
+                    final int origin = next % zones.size();
+                    final LeastCostTree tree = skimClass.travelTime ? fastestTree : leastCostTree;
+                    tree.calculate(zoneNodes[origin], 0., skimClass.person, skimClass.vehicle, targets, numberOfTargets);
+                    for (int destination = 0; destination < zones.size(); destination++) {
+                        final int node = zoneNodes[destination];
+                        skim.cost.setByInternalIndex(rowIndices[origin], columnIndices[destination], tree.getCost(node));
+                        if (skim.time != null) {
+                            skim.time.setByInternalIndex(rowIndices[origin], columnIndices[destination], tree.getTime(node));
+                            skim.distance.setByInternalIndex(rowIndices[origin], columnIndices[destination], tree.getDistance(node));
+                        }
+                    }
+                    if (remainingTrees.decrementAndGet(c) == 0) {
+                        logger.info("Calculated " + mode + " trees of " + finishedClasses.incrementAndGet() + " of "
+                                + skimClasses.size() + " classes");
+                    }
+                }
+                return null;
+            });
+        }
+        executor.execute();
+
+        final Map<String, Skim> skimsByName = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : classes.keySet()) {
+            skimsByName.put(name, skims.get(i++));
+        }
+        logger.info("Built " + mode + " skims of " + skimClasses.size() + " classes for " + zones.size() + " zones in "
+                + (System.currentTimeMillis() - start) / 1000 + " seconds");
+        return skimsByName;
+    }
+
+    private static final class SkimClass {
+        private final Person person;
+        private final Vehicle vehicle;
+        private final boolean timeAndDistance;
+        private final boolean travelTime;
+
+        private SkimClass(Person person, Vehicle vehicle, boolean timeAndDistance, boolean travelTime) {
+            this.person = person;
+            this.vehicle = vehicle;
+            this.timeAndDistance = timeAndDistance;
+            this.travelTime = travelTime;
+        }
+    }
+
+    /**
+     * The skim of one class. Cost and time are in seconds and distance is in meters.
+     */
+    public static final class Skim {
+        private final IndexedDoubleMatrix2D cost;
+        private final IndexedDoubleMatrix2D time;
+        private final IndexedDoubleMatrix2D distance;
+
+        private Skim(List<MitoZone> zones, boolean timeAndDistance) {
+            cost = new IndexedDoubleMatrix2D(zones, zones);
+            time = timeAndDistance ? new IndexedDoubleMatrix2D(zones, zones) : null;
+            distance = timeAndDistance ? new IndexedDoubleMatrix2D(zones, zones) : null;
+        }
+
+        public IndexedDoubleMatrix2D getCost() {
+            return cost;
+        }
+
+        /**
+         * @return the travel time, or null if it was not skimmed for the class
+         */
+        public IndexedDoubleMatrix2D getTime() {
+            return time;
+        }
+
+        /**
+         * @return the distance, or null if it was not skimmed for the class
+         */
+        public IndexedDoubleMatrix2D getDistance() {
+            return distance;
+        }
+    }
+}
@@ -13,6 +13,11 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.ToDoubleFunction;
 
+/**
+ * Travel time multiplied by a street environment adjustment of 1 plus the weighted link attributes. The weights depend
+ * on the person and are evaluated once per person: a router searches the path of one person at a time and asks for
+ * the disutility of many links in a row. Like the routers using them, instances are not thread safe.
+ */
 public class ActiveDisutility implements TravelDisutility {
 
     private final static Logger logger = LogManager.getLogger(ActiveDisutility.class);
@@ -23,6 +28,10 @@ public class ActiveDisutility implements TravelDisutility {
     final List<ToDoubleFunction<Link>> attributes;
     final int attributeCount;
 
+    private boolean weightsEvaluated = false;
+    private Person lastPerson;
+    private double[] weights;
+
     public ActiveDisutility(ActiveConfigGroup activeConfigGroup, TravelTime timeCalculator) {
         this.activeConfigGroup = activeConfigGroup;
         this.timeCalculator = timeCalculator;
@@ -34,33 +43,42 @@ public class ActiveDisutility implements TravelDisutility {
         return attributes.get(i).applyAsDouble(link);
     }
 
+    /**
+     * Called when the weights change from one person to the next.
+     * @param weights the checked weights, or null if the disutility is the travel time only
+     */
+    void setWeights(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Returns the factor by which the street environment of the link increases the travel time for the current weights.
+     */
+    double getStreetEnvironmentAdjustment(Link link) {
+        double streetEnvironmentAdjustment = 1.;
+        for(int i = 0; i < attributeCount ; i++) {
+            streetEnvironmentAdjustment += weights[i] * getAttribute(i, link);
+        }
+        return streetEnvironmentAdjustment;
+    }
+
     @Override
     public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
         if(link.getAllowedModes().contains(activeConfigGroup.getMode())) {
 
             double linkTime = timeCalculator.getLinkTravelTime(link, 0., person, vehicle);
-            double[] weights = activeConfigGroup.getWeights().apply(person);
+            if(!weightsEvaluated || person != lastPerson) {
+                setWeights(checkWeights(activeConfigGroup.getWeights().apply(person)));
+                lastPerson = person;
+                weightsEvaluated = true;
+            }
 
             if(weights == null) {
                 // return travel time only
                 return linkTime;
             } else {
-                // Check size matches
-                if(weights.length != attributeCount) {
-                    throw new RuntimeException("Size of marginal weights array (" + weights.length + ") does not match size of attributes list (" + attributeCount + ")");
-                }
-
-                // compute expansion
-                double streetEnvironmentAdjustment = 1.;
-                for(int i = 0; i < attributeCount ; i++) {
-                    if(weights[i] < 0) {
-                        throw new RuntimeException("All active travel disutility weights must be positive!");
-                    }
-                    streetEnvironmentAdjustment += weights[i] * getAttribute(i, link);
-                }
-
                 // return adjusted disutility
-                return linkTime * streetEnvironmentAdjustment;
+                return linkTime * getStreetEnvironmentAdjustment(link);
             }
         } else {
             // This link cannot be traversed by the routed mode, so the routing network should
@@ -76,10 +94,24 @@ public class ActiveDisutility implements TravelDisutility {
         }
     }
 
+    private double[] checkWeights(double[] weights) {
+        if(weights != null) {
+            // Check size matches
+            if(weights.length != attributeCount) {
+                throw new RuntimeException("Size of marginal weights array (" + weights.length + ") does not match size of attributes list (" + attributeCount + ")");
+            }
+            for(double weight : weights) {
+                if(weight < 0) {
+                    throw new RuntimeException("All active travel disutility weights must be positive!");
+                }
+            }
+        }
+        return weights;
+    }
+
     @Override
     public double getLinkMinimumTravelDisutility(Link link) {
         return 0;
     }
 
 }
-
@@ -7,44 +7,116 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.router.util.TravelTime;
 import routing.ActiveConfigGroup;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
+
+/**
+ * {@link ActiveDisutility} with the street environment adjustment of every link precalculated for each class of
+ * persons, i.e. for each distinct set of weights, so that routing reads one value per link.
+ */
 public class ActiveDisutilityPrecalc extends ActiveDisutility {
 
-    private final double[] disutilities;
+    private final LinkValues linkValues;
+    private double[] adjustments;
 
     // Custom parameters
     public ActiveDisutilityPrecalc(Network network, ActiveConfigGroup activeConfigGroup, TravelTime timeCalculator) {
+        this(new LinkValues(network, activeConfigGroup), activeConfigGroup, timeCalculator);
+    }
+
+    /**
+     * @param linkValues the precalculated values, shared by the disutilities of all routing threads
+     */
+    public ActiveDisutilityPrecalc(LinkValues linkValues, ActiveConfigGroup activeConfigGroup, TravelTime timeCalculator) {
         super(activeConfigGroup, timeCalculator);
-        this.disutilities = new double[Id.getNumberOfIds(Link.class) * attributeCount];
-        precalculateAttributeValues(network, activeConfigGroup.getMode());
+        this.linkValues = linkValues;
     }
 
-    private void precalculateAttributeValues(Network network, String mode) {
-        for(int i = 0 ; i < attributeCount ; i++) {
-            int nonFiniteCount = 0;
-            for(Link link : network.getLinks().values()) {
-                double value = attributes.get(i).applyAsDouble(link);
-                // A non-finite attribute (e.g. from a NaN link attribute in the network data)
-                // would make the disutility non-finite and corrupt least-cost path search.
-                // Treat it as 0 (no street environment penalty) and report how often it happened.
-                if (!Double.isFinite(value)) {
-                    value = 0.;
-                    nonFiniteCount++;
+    @Override
+    double getAttribute(int i, Link link) {
+        return linkValues.attributeValues[link.getId().index() * attributeCount + i];
+    }
+
+    @Override
+    void setWeights(double[] weights) {
+        super.setWeights(weights);
+        adjustments = weights == null ? null : linkValues.getAdjustments(weights);
+    }
+
+    @Override
+    double getStreetEnvironmentAdjustment(Link link) {
+        return adjustments[link.getId().index()];
+    }
+
+    /**
+     * Attribute values of the links of a network that allow the routed mode and, computed on first use for each
+     * distinct set of weights, their street environment adjustments. Thread safe.
+     */
+    public static final class LinkValues {
+
+        private final Network network;
+        private final String mode;
+        private final int attributeCount;
+        private final double[] attributeValues;
+        private final Map<List<Double>, double[]> adjustmentsByWeights = new ConcurrentHashMap<>();
+
+        public LinkValues(Network network, ActiveConfigGroup activeConfigGroup) {
+            this.network = network;
+            this.mode = activeConfigGroup.getMode();
+            final List<ToDoubleFunction<Link>> attributes = activeConfigGroup.getAttributes();
+            this.attributeCount = attributes.size();
+            this.attributeValues = new double[Id.getNumberOfIds(Link.class) * attributeCount];
+            precalculateAttributeValues(attributes);
+        }
+
+        private void precalculateAttributeValues(List<ToDoubleFunction<Link>> attributes) {
+            for(int i = 0 ; i < attributeCount ; i++) {
+                int nonFiniteCount = 0;
+                for(Link link : network.getLinks().values()) {
+                    if(!link.getAllowedModes().contains(mode)) {
+                        continue;
+                    }
+                    double value = attributes.get(i).applyAsDouble(link);
+                    // A non-finite attribute (e.g. from a NaN link attribute in the network data)
+                    // would make the disutility non-finite and corrupt least-cost path search.
+                    // Treat it as 0 (no street environment penalty) and report how often it happened.
+                    if (!Double.isFinite(value)) {
+                        value = 0.;
+                        nonFiniteCount++;
+                    }
+                    attributeValues[link.getId().index() * attributeCount + i] = value;
+                }
+                if (nonFiniteCount > 0) {
+                    LogManager.getLogger(ActiveDisutilityPrecalc.class).warn("Attribute " + i + " for mode '" +
+                            mode + "' was NaN or infinite on " + nonFiniteCount + " of " +
+                            network.getLinks().size() + " links; treated as 0 for routing disutility.");
                 }
-                disutilities[link.getId().index() * attributeCount + i] = value;
-            }
-            if (nonFiniteCount > 0) {
-                LogManager.getLogger(ActiveDisutilityPrecalc.class).warn("Attribute " + i + " for mode '" +
-                        mode + "' was NaN or infinite on " + nonFiniteCount + " of " +
-                        network.getLinks().size() + " links; treated as 0 for routing disutility.");
             }
         }
-    }
 
-    @Override
-    double getAttribute(int i, Link link) {
-        return disutilities[link.getId().index() * attributeCount + i];
+        double[] getAdjustments(double[] weights) {
+            final List<Double> key = Arrays.stream(weights).boxed().collect(Collectors.toList());
+            return adjustmentsByWeights.computeIfAbsent(key, k -> calculateAdjustments(weights));
+        }
+
+        private double[] calculateAdjustments(double[] weights) {
+            final double[] adjustments = new double[Id.getNumberOfIds(Link.class)];
+            Arrays.fill(adjustments, 1.);
+            for(Link link : network.getLinks().values()) {
+                final int index = link.getId().index();
+                for(int i = 0; i < attributeCount ; i++) {
+                    adjustments[index] += weights[i] * attributeValues[index * attributeCount + i];
+                }
+            }
+            LogManager.getLogger(ActiveDisutilityPrecalc.class).info("Precalculated " + mode +
+                    " disutilities for weights " + Arrays.toString(weights));
+            return adjustments;
+        }
     }
 
 }
-
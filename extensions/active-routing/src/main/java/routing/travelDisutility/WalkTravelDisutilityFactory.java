@@ -21,6 +21,7 @@ package routing.travelDisutility;
 import com.google.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
@@ -40,12 +41,28 @@ public final class WalkTravelDisutilityFactory implements TravelDisutilityFactor
 	@Inject
 	WalkConfigGroup walkConfigGroup;
 
+	@Inject(optional = true)
+	Network network;
+
+	private ActiveDisutilityPrecalc.LinkValues linkValues;
+
 	/* package-private */ WalkTravelDisutilityFactory(){}
 	public WalkTravelDisutilityFactory(WalkConfigGroup walkConfigGroup){
 		this.walkConfigGroup = walkConfigGroup;
 	}
+
+	/**
+	 * Creates a disutility per router. With an injected network, all disutilities share the link values precalculated
+	 * once for the network and each class of persons.
+	 */
 	@Override
-	public TravelDisutility createTravelDisutility(TravelTime timeCalculator) {
-		return new ActiveDisutility(walkConfigGroup, timeCalculator);
+	public synchronized TravelDisutility createTravelDisutility(TravelTime timeCalculator) {
+		if (network == null) {
+			return new ActiveDisutility(walkConfigGroup, timeCalculator);
+		}
+		if (linkValues == null) {
+			linkValues = new ActiveDisutilityPrecalc.LinkValues(network, walkConfigGroup);
+		}
+		return new ActiveDisutilityPrecalc(linkValues, walkConfigGroup, timeCalculator);
 	}
 }
@@ -0,0 +1,121 @@
+package routing.components;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class LinkAttributesTest {
+
+    private static Link link(Network network, String id, Node from, Node to, String... modes) {
+        final Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId(id), from, to, 200., 10., 1000., 1.);
+        link.setAllowedModes(new HashSet<>(Arrays.asList(modes)));
+        return link;
+    }
+
+    @Test
+    public final void testAttributesAreCompiledAsReadFromLinks() {
+        final Network network = NetworkUtils.createNetwork();
+        final Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("attributesA"), new Coord(0., 0., 10.));
+        final Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("attributesB"), new Coord(200., 0., 14.));
+        b.getAttributes().putAttribute("walkCrossing", "crossing point");
+        b.getAttributes().putAttribute("bikeCrossing", "Car signal");
+
+        final Link full = link(network, "full", a, b, TransportMode.walk, TransportMode.bike);
+        full.getAttributes().putAttribute("allowsCar", "true");
+        full.getAttributes().putAttribute("junction", "roundabout");
+        full.getAttributes().putAttribute("primary", true);
+        full.getAttributes().putAttribute("speedLimitMPH", 30.);
+        full.getAttributes().putAttribute("veh85percSpeedKPH", 52.5);
+        full.getAttributes().putAttribute("aadt", 12000.);
+        full.getAttributes().putAttribute("hgvPOIs", 3);
+        full.getAttributes().putAttribute("cycleosm", "painted");
+        full.getAttributes().putAttribute("vgvi", 0.4);
+        full.getAttributes().putAttribute("shannon", 1.2);
+        full.getAttributes().putAttribute("streetLights", 7);
+        full.getAttributes().putAttribute("POIs", 5);
+        full.getAttributes().putAttribute("negPOIs", 2);
+        full.getAttributes().putAttribute("crime", 4);
+        full.getAttributes().putAttribute("crossVehicles", true);
+        full.getAttributes().putAttribute("crossWidth", 8.);
+        full.getAttributes().putAttribute("crossAadt", 3000.);
+        full.getAttributes().putAttribute("crossLanes", 2.);
+        full.getAttributes().putAttribute("crossSpeedLimitMPH", 20.);
+        full.getAttributes().putAttribute("cross85PercSpeed", 25.);
+
+        final Link bare = link(network, "bare", b, a, TransportMode.bike);
+        bare.getAttributes().putAttribute("cycleway", "track");
+        final Link car = link(network, "car", a, b, TransportMode.car);
+
+        final LinkAttributes attributes = LinkAttributes.compile(network);
+
+        assertTrue(attributes.allows(full, TransportMode.walk));
+        assertTrue(attributes.allows(full, TransportMode.bike));
+        assertFalse(attributes.allows(full, TransportMode.car));
+        assertTrue(attributes.allows(car, TransportMode.car));
+        assertTrue(attributes.allowsCar(full));
+        assertTrue(attributes.isRoundabout(full));
+        assertTrue(attributes.isPrimary(full));
+        assertEquals(0.02, attributes.getGradient(full), 1e-12);
+        assertEquals(30., attributes.getSpeedLimitMph(full), 0.);
+        assertEquals(52.5, attributes.get85PercSpeedKph(full), 0.);
+        assertEquals(12000, attributes.getAadt(full));
+        assertEquals(3, attributes.getHgvPois(full));
+        assertEquals(Protection.LANE, attributes.getProtection(full));
+        assertEquals(0.4, attributes.getVgvi(full), 0.);
+        assertEquals(1.2, attributes.getShannon(full), 0.);
+        assertEquals(7, attributes.getStreetLights(full));
+        assertEquals(5, attributes.getPois(full));
+        assertEquals(2, attributes.getNegativePois(full));
+        assertEquals(4, attributes.getCrime(full));
+        assertTrue(attributes.crossesVehicles(full));
+        assertEquals(8., attributes.getCrossWidth(full), 0.);
+        assertEquals(3000., attributes.getCrossAadt(full), 0.);
+        assertEquals(2., attributes.getCrossLanes(full), 0.);
+        assertEquals(20., attributes.getCrossSpeedLimitMph(full), 0.);
+        assertEquals(25., attributes.getCross85PercSpeed(full), 0.);
+        assertEquals(Crossing.ZEBRA, attributes.getCrossing(full, TransportMode.walk));
+        assertEquals(Crossing.SIGNAL_MIXED, attributes.getCrossing(full, TransportMode.bike));
+
+        // missing attributes get their defaults
+        assertFalse(attributes.allowsCar(bare));
+        assertFalse(attributes.isRoundabout(bare));
+        assertEquals(-0.02, attributes.getGradient(bare), 1e-12);
+        assertTrue(Double.isNaN(attributes.getSpeedLimitMph(bare)));
+        assertEquals(0, attributes.getAadt(bare));
+        assertEquals(Protection.PROTECTED, attributes.getProtection(bare));
+        assertTrue(Double.isNaN(attributes.getVgvi(bare)));
+        assertEquals(0, attributes.getStreetLights(bare));
+        assertFalse(attributes.crossesVehicles(bare));
+        assertEquals(Crossing.UNCONTROLLED, attributes.getCrossing(bare, TransportMode.walk));
+        assertNull(attributes.getProtection(car));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testLinkCreatedAfterCompilingIsRejected() {
+        final Network network = NetworkUtils.createNetwork();
+        final Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("lateA"), new Coord(0., 0.));
+        final Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("lateB"), new Coord(100., 0.));
+        final LinkAttributes attributes = LinkAttributes.compile(network);
+        final Link late = link(network, "lateLinkCreatedAfterCompiling", a, b, TransportMode.walk);
+        attributes.getAadt(late);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testCrossingOfOtherModeIsRejected() {
+        final Network network = NetworkUtils.createNetwork();
+        final Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("crossingA"), new Coord(0., 0.));
+        final Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("crossingB"), new Coord(100., 0.));
+        final Link link = link(network, "crossing", a, b, TransportMode.walk);
+        LinkAttributes.compile(network).getCrossing(link, TransportMode.car);
+    }
+}
@@ -0,0 +1,159 @@
+package routing.skim;
+
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.MitoZone;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.geometry.CoordUtils;
+import routing.WalkConfigGroup;
+import routing.travelDisutility.ActiveDisutility;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ActiveSkimBuilderTest {
+
+    private static final int GRID = 5;
+
+    private static final TravelTime TRAVEL_TIME = (link, time, person, vehicle) -> link.getLength() / 1.5;
+
+    /**
+     * Grid of two way walk links with random lengths and attributes, so that least cost and fastest paths differ and
+     * are unique.
+     */
+    private static Network network() {
+        final Random random = new Random(25);
+        final Network network = NetworkUtils.createNetwork();
+        final Node[][] nodes = new Node[GRID][GRID];
+        for (int x = 0; x < GRID; x++) {
+            for (int y = 0; y < GRID; y++) {
+                nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId("skim" + x + "_" + y),
+                        new Coord(100. * x, 100. * y));
+            }
+        }
+        for (int x = 0; x < GRID; x++) {
+            for (int y = 0; y < GRID; y++) {
+                if (x + 1 < GRID) {
+                    link(network, nodes[x][y], nodes[x + 1][y], random);
+                    link(network, nodes[x + 1][y], nodes[x][y], random);
+                }
+                if (y + 1 < GRID) {
+                    link(network, nodes[x][y], nodes[x][y + 1], random);
+                    link(network, nodes[x][y + 1], nodes[x][y], random);
+                }
+            }
+        }
+        return network;
+    }
+
+    private static void link(Network network, Node from, Node to, Random random) {
+        final Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()),
+                from, to, 100. + 50. * random.nextDouble(), 1.5, 1000., 1.);
+        link.setAllowedModes(Collections.singleton(TransportMode.walk));
+        link.getAttributes().putAttribute("stress", random.nextDouble());
+        link.getAttributes().putAttribute("noise", random.nextDouble());
+    }
+
+    private static List<MitoZone> zones() {
+        final Random random = new Random(7);
+        final List<MitoZone> zones = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final MitoZone zone = new MitoZone(100 + i, AreaTypes.SGType.CORE_CITY);
+            zone.setCentroid(new Coordinate(400. * random.nextDouble(), 400. * random.nextDouble()));
+            zones.add(zone);
+        }
+        return zones;
+    }
+
+    private static Person person(String name) {
+        return PopulationUtils.getFactory().createPerson(Id.createPersonId(name));
+    }
+
+    @Test
+    public final void testSkimsMatchDijkstra() {
+        final Network network = network();
+        final List<MitoZone> zones = zones();
+        final Person calm = person("calm");
+        final Person quiet = person("quiet");
+        final Map<Person, double[]> weights = new HashMap<>();
+        weights.put(calm, new double[]{4., 0.});
+        weights.put(quiet, new double[]{0.5, 3.});
+        final WalkConfigGroup walkConfigGroup = new WalkConfigGroup();
+        walkConfigGroup.setAttributes(Arrays.asList(
+                link -> (double) link.getAttributes().getAttribute("stress"),
+                link -> (double) link.getAttributes().getAttribute("noise")));
+        walkConfigGroup.setWeights(weights::get);
+
+        final Map<String, ActiveSkimBuilder.Skim> skims = new ActiveSkimBuilder(network, walkConfigGroup, TRAVEL_TIME, zones)
+                .setNumberOfThreads(3)
+                .addClass("calm", calm, null, true)
+                .addTravelTimeClass("walk", null)
+                .addClass("quiet", quiet, null, true)
+                .build();
+        assertEquals(Arrays.asList("calm", "walk", "quiet"), new ArrayList<>(skims.keySet()));
+
+        final ActiveDisutility disutility = new ActiveDisutility(walkConfigGroup, TRAVEL_TIME);
+        assertSameSkim(network, zones, disutility, calm, skims.get("calm"));
+        assertSameSkim(network, zones, disutility, quiet, skims.get("quiet"));
+        assertSameSkim(network, zones, new OnlyTimeDependentTravelDisutility(TRAVEL_TIME), null, skims.get("walk"));
+
+        // the weights make some least cost paths slower than the fastest paths
+        int slowerPaths = 0;
+        for (MitoZone origin : zones) {
+            for (MitoZone destination : zones) {
+                if (skims.get("calm").getTime().getIndexed(origin.getId(), destination.getId())
+                        > skims.get("walk").getTime().getIndexed(origin.getId(), destination.getId()) + 1e-9) {
+                    slowerPaths++;
+                }
+            }
+        }
+        assertTrue(slowerPaths > 0);
+    }
+
+    private static void assertSameSkim(Network network, List<MitoZone> zones, TravelDisutility disutility,
+                                       Person person, ActiveSkimBuilder.Skim skim) {
+        final LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, disutility, TRAVEL_TIME);
+        for (MitoZone origin : zones) {
+            for (MitoZone destination : zones) {
+                final Node from = node(network, origin);
+                final Node to = node(network, destination);
+                double cost = 0;
+                double time = 0;
+                double distance = 0;
+                if (from != to) {
+                    final LeastCostPathCalculator.Path path = dijkstra.calcLeastCostPath(from, to, 0., person, null);
+                    cost = path.travelCost;
+                    time = path.travelTime;
+                    for (Link link : path.links) {
+                        distance += link.getLength();
+                    }
+                }
+                assertEquals(cost, skim.getCost().getIndexed(origin.getId(), destination.getId()), 1e-9);
+                if (skim.getTime() != null) {
+                    assertEquals(time, skim.getTime().getIndexed(origin.getId(), destination.getId()), 1e-9);
+                    assertEquals(distance, skim.getDistance().getIndexed(origin.getId(), destination.getId()), 1e-9);
+                }
+            }
+        }
+    }
+
+    private static Node node(Network network, MitoZone zone) {
+        return NetworkUtils.getNearestLink(network, CoordUtils.createCoord(zone.getCentroid().getCoordinate())).getToNode();
+    }
+}
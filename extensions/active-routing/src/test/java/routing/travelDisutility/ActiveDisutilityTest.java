@@ -0,0 +1,121 @@
+package routing.travelDisutility;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.util.TravelTime;
+import routing.WalkConfigGroup;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ActiveDisutilityTest {
+
+    private static final TravelTime TRAVEL_TIME = (link, time, person, vehicle) -> link.getLength() / 1.5;
+
+    private final Network network = NetworkUtils.createNetwork();
+    private final List<Link> links = new ArrayList<>();
+    private final Person calm = PopulationUtils.getFactory().createPerson(Id.createPersonId("disutilityCalm"));
+    private final Person quiet = PopulationUtils.getFactory().createPerson(Id.createPersonId("disutilityQuiet"));
+    private final Person fast = PopulationUtils.getFactory().createPerson(Id.createPersonId("disutilityFast"));
+    private final Map<Person, Integer> weightEvaluations = new HashMap<>();
+    private final WalkConfigGroup walkConfigGroup = new WalkConfigGroup();
+
+    public ActiveDisutilityTest() {
+        final Random random = new Random(23);
+        Node from = NetworkUtils.createAndAddNode(network, Id.createNodeId("disutility0"), new Coord(0., 0.));
+        for (int i = 1; i <= 10; i++) {
+            final Node to = NetworkUtils.createAndAddNode(network, Id.createNodeId("disutility" + i), new Coord(100. * i, 0.));
+            final Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId("disutility" + i), from, to,
+                    50. + 100. * random.nextDouble(), 1.5, 1000., 1.);
+            link.setAllowedModes(Collections.singleton(TransportMode.walk));
+            link.getAttributes().putAttribute("stress", random.nextDouble());
+            link.getAttributes().putAttribute("noise", random.nextDouble());
+            links.add(link);
+            from = to;
+        }
+        final Map<Person, double[]> weights = new HashMap<>();
+        weights.put(calm, new double[]{4., 0.});
+        weights.put(quiet, new double[]{0.5, 3.});
+        weights.put(fast, null);
+        walkConfigGroup.setAttributes(Arrays.asList(
+                link -> (double) link.getAttributes().getAttribute("stress"),
+                link -> (double) link.getAttributes().getAttribute("noise")));
+        walkConfigGroup.setWeights(person -> {
+            weightEvaluations.merge(person, 1, Integer::sum);
+            return weights.get(person);
+        });
+    }
+
+    private static double expected(Link link, double[] weights) {
+        final double stress = (double) link.getAttributes().getAttribute("stress");
+        final double noise = (double) link.getAttributes().getAttribute("noise");
+        return link.getLength() / 1.5 * (1. + weights[0] * stress + weights[1] * noise);
+    }
+
+    @Test
+    public final void testPrecalculatedDisutilityMatchesPlainForAlternatingPersons() {
+        final ActiveDisutility plain = new ActiveDisutility(walkConfigGroup, TRAVEL_TIME);
+        final ActiveDisutility precalc = new ActiveDisutilityPrecalc(network, walkConfigGroup, TRAVEL_TIME);
+        // switch persons on every link, so the weights of the last person must never be reused for another
+        final Person[] persons = {calm, quiet, calm, fast, quiet};
+        for (Link link : links) {
+            for (Person person : persons) {
+                final double disutility = plain.getLinkTravelDisutility(link, 0., person, null);
+                assertEquals(disutility, precalc.getLinkTravelDisutility(link, 0., person, null), 1e-9);
+                if (person == calm) {
+                    assertEquals(expected(link, new double[]{4., 0.}), disutility, 1e-9);
+                } else if (person == quiet) {
+                    assertEquals(expected(link, new double[]{0.5, 3.}), disutility, 1e-9);
+                } else {
+                    assertEquals(link.getLength() / 1.5, disutility, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public final void testWeightsAreEvaluatedOncePerPerson() {
+        final ActiveDisutility disutility = new ActiveDisutilityPrecalc(network, walkConfigGroup, TRAVEL_TIME);
+        for (Person person : new Person[]{calm, quiet, calm, fast}) {
+            for (Link link : links) {
+                disutility.getLinkTravelDisutility(link, 0., person, null);
+            }
+        }
+        assertEquals(Integer.valueOf(2), weightEvaluations.get(calm));
+        assertEquals(Integer.valueOf(1), weightEvaluations.get(quiet));
+        assertEquals(Integer.valueOf(1), weightEvaluations.get(fast));
+    }
+
+    @Test
+    public final void testAdjustmentsAreSharedByEqualWeights() {
+        final ActiveDisutilityPrecalc.LinkValues linkValues = new ActiveDisutilityPrecalc.LinkValues(network, walkConfigGroup);
+        final double[] adjustments = linkValues.getAdjustments(new double[]{4., 0.});
+        assertSame(adjustments, linkValues.getAdjustments(new double[]{4., 0.}));
+        assertNotSame(adjustments, linkValues.getAdjustments(new double[]{0.5, 3.}));
+
+        // disutilities of several routing threads share the values and get the same results
+        final ActiveDisutility first = new ActiveDisutilityPrecalc(linkValues, walkConfigGroup, TRAVEL_TIME);
+        final ActiveDisutility second = new ActiveDisutilityPrecalc(linkValues, walkConfigGroup, TRAVEL_TIME);
+        for (Link link : links) {
+            assertEquals(first.getLinkTravelDisutility(link, 0., calm, null),
+                    second.getLinkTravelDisutility(link, 0., calm, null), 0.);
+            assertEquals(first.getLinkTravelDisutility(link, 0., quiet, null),
+                    second.getLinkTravelDisutility(link, 0., quiet, null), 0.);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testWeightsOfWrongSizeAreRejected() {
+        walkConfigGroup.setWeights(person -> new double[]{1.});
+        new ActiveDisutility(walkConfigGroup, TRAVEL_TIME).getLinkTravelDisutility(links.get(0), 0., calm, null);
+    }
+}
@@ -0,0 +1,33 @@
+package de.tum.bgu.msm.data;
+
+/**
+ * Flyweight view of one row of a {@link TripTable} of a multi-day model. The departure day is held in the day column
+ * of the table.
+ */
+public final class ColumnarMitoTrip7days extends ColumnarMitoTrip implements MitoTrip7days {
+
+    private static final Day[] DAYS = Day.values();
+    private static final TripTable.ViewFactory VIEWS = ColumnarMitoTrip7days::new;
+
+    private ColumnarMitoTrip7days(TripTable table, int row) {
+        super(table, row);
+    }
+
+    /**
+     * Makes the given table return views of this type. Must be called before the first trip is added.
+     */
+    public static void useFor(TripTable table) {
+        table.setViewFactory(VIEWS);
+    }
+
+    @Override
+    public Day getDepartureDay() {
+        final int day = getTable().getDay(getRow());
+        return day < 0 ? null : DAYS[day];
+    }
+
+    @Override
+    public void setDepartureDay(Day departureDay) {
+        getTable().setDay(getRow(), departureDay == null ? -1 : departureDay.ordinal());
+    }
+}
@@ -2,8 +2,25 @@ package de.tum.bgu.msm.data;
 
 public class MitoTripFactory7days implements MitoTripFactory {
 
+    private final TripTable tripTable;
+
+    public MitoTripFactory7days() {
+        this.tripTable = null;
+    }
+
+    /**
+     * Creates trips as rows of the given table, see {@link ColumnarMitoTripFactory}.
+     */
+    public MitoTripFactory7days(TripTable tripTable) {
+        ColumnarMitoTrip7days.useFor(tripTable);
+        this.tripTable = tripTable;
+    }
+
     @Override
     public MitoTrip createTrip(int tripId, Purpose tripPurpose) {
-        return new MitoTrip7days(new MitoTripImpl(tripId, tripPurpose));
+        if (tripTable != null) {
+            return tripTable.addTrip(tripId, tripPurpose);
+        }
+        return new MitoTrip7daysImpl(new MitoTripImpl(tripId, tripPurpose));
     }
 }
@@ -5,7 +5,6 @@ import com.google.common.collect.Multiset;
 import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.io.output.SummarizeData;
-import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.charts.Histogram;
@@ -147,7 +146,7 @@ public class SummarizeData7days {
                 pwh.print(((MicroLocation) origin).getCoordinate().y);
                 pwh.print(",");
             } else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
+                if (Resources.instance.isFillMicroDataWithMicroLocation() &&
                         origin != null){
                     Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
                     pwh.print(coordinate.getX());
@@ -178,7 +177,7 @@ public class SummarizeData7days {
                 pwh.print(((MicroLocation) destination).getCoordinate().y);
                 pwh.print(",");
             }else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
+                if (Resources.instance.isFillMicroDataWithMicroLocation() &&
                         destination != null){
                     Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
                     pwh.print(coordinate.getX());
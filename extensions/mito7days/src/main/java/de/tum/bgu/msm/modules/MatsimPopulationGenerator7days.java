@@ -15,6 +15,7 @@ import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordUtils;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,11 +26,14 @@ public final class MatsimPopulationGenerator7days extends Module {
     private static final Logger logger = LogManager.getLogger(MatsimPopulationGenerator.class);
 
     private final Set<Mode> modeSet = new HashSet<>();
+    private final int airportZoneId;
 
     public MatsimPopulationGenerator7days(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
-        String[] networkModes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, new String[]{"autoDriver"});
-        String[] teleportedModes = Resources.instance.getArray(Properties.MATSIM_TELEPORTED_MODES, new String[]{});
+        // -1 never matches a zone, trips of models without airport are not affected
+        this.airportZoneId = Resources.instance.getInt(Properties.AIRPORT_ZONE, -1);
+        List<String> networkModes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, Collections.singletonList("autoDriver"));
+        List<String> teleportedModes = Resources.instance.getArray(Properties.MATSIM_TELEPORTED_MODES, Collections.emptyList());
         for (String mode : networkModes){
             modeSet.add(Mode.valueOf(mode));
         }
@@ -118,14 +122,14 @@ public final class MatsimPopulationGenerator7days extends Module {
     }
 
 
-    private static String getOriginActivity(MitoTrip trip){
+    private String getOriginActivity(MitoTrip trip){
         Purpose purpose = trip.getTripPurpose();
         if (purpose.equals(Purpose.NHBW)){
             return "work";
         } else if (purpose.equals(Purpose.NHBO)){
             return "other";
         } else if (purpose.equals(Purpose.AIRPORT)) {
-            if (trip.getTripOrigin().getZoneId() == Resources.instance.getInt(Properties.AIRPORT_ZONE)){
+            if (trip.getTripOrigin().getZoneId() == airportZoneId){
                 return "airport";
             } else {
                 return "home";
@@ -135,7 +139,7 @@ public final class MatsimPopulationGenerator7days extends Module {
         }
     }
 
-    private static String getDestinationActivity(MitoTrip trip){
+    private String getDestinationActivity(MitoTrip trip){
         Purpose purpose = trip.getTripPurpose();
         if (purpose.equals(Purpose.HBW)){
             return "work";
@@ -146,7 +150,7 @@ public final class MatsimPopulationGenerator7days extends Module {
         } else if (purpose.equals(Purpose.HBR)) {
             return "recreation";
         } else if (purpose.equals(Purpose.AIRPORT)) {
-            if (trip.getTripDestination().getZoneId() == Resources.instance.getInt(Properties.AIRPORT_ZONE)) {
+            if (trip.getTripDestination().getZoneId() == airportZoneId) {
                 return "airport";
             } else {
                 return "home";
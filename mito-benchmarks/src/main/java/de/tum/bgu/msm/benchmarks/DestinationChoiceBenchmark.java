@@ -0,0 +1,67 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.modules.tripDistribution.DestinationUtilityFixture;
+import de.tum.bgu.msm.modules.tripDistribution.TripDistribution;
+import de.tum.bgu.msm.modules.tripDistribution.tripDistributors.AbstractDistributor;
+import org.openjdk.jmh.annotations.*;
+import uk.cam.mrc.phm.calculators.DestinationUtilityCalculatorMCR;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws destinations of home-based trips with {@link AbstractDistributor#findDestination}. With a large cache all
+ * utility rows stay cached after warm-up, with a small one most draws pay for recalculating an evicted row.
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DestinationChoiceBenchmark {
+
+    private static final int TRIPS = 4096;
+
+    @Param({"2048", "4"})
+    public int cacheMb;
+
+    private BenchmarkDistributor distributor;
+    private final MitoTrip[] trips = new MitoTrip[TRIPS];
+    private int next;
+
+    @Setup
+    public void setup(ScenarioState state) {
+        final DataSet dataSet = state.scenario.getDataSet();
+        final EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData =
+                DestinationUtilityFixture.createDistributionData(dataSet, Purpose.HBW,
+                        new DestinationUtilityCalculatorMCR(Purpose.HBW), cacheMb * 1024L * 1024L);
+        distributor = new BenchmarkDistributor(dataSet, distributionData);
+
+        final Random random = new Random(ScenarioState.SEED);
+        final List<MitoHousehold> households = state.scenario.getHouseholds();
+        for (int i = 0; i < TRIPS; i++) {
+            final MitoHousehold household = households.get(random.nextInt(households.size()));
+            final MitoTrip trip = new MitoTripImpl(i, Purpose.HBW);
+            trip.setTripOrigin(household);
+            trips[i] = trip;
+        }
+    }
+
+    @Benchmark
+    public Location findDestination() {
+        return distributor.findDestination(trips[next++ & (TRIPS - 1)]);
+    }
+
+    private static final class BenchmarkDistributor extends AbstractDistributor {
+
+        private BenchmarkDistributor(DataSet dataSet, EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData) {
+            super(Purpose.HBW, Collections.emptyList(), dataSet, distributionData, null, ScenarioState.SEED);
+        }
+
+        private Location findDestination(MitoTrip trip) {
+            return findDestination(trip, 0);
+        }
+    }
+}
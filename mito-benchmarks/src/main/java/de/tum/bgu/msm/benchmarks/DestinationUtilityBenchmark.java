@@ -0,0 +1,50 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.travelDistances.TravelDistances;
+import de.tum.bgu.msm.modules.tripDistribution.AbstractDestinationUtilityCalculator;
+import org.openjdk.jmh.annotations.*;
+import uk.cam.mrc.phm.calculators.DestinationUtilityCalculatorMCR;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates a full row of destination utilities, which is what trip distribution does on the first request of an
+ * origin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DestinationUtilityBenchmark {
+
+    private AbstractDestinationUtilityCalculator calculator;
+    private TravelDistances distances;
+    private MitoZone[] zones;
+    private double[] attractions;
+    private int origin;
+
+    @Setup
+    public void setup(ScenarioState state) {
+        calculator = new DestinationUtilityCalculatorMCR(Purpose.HBW);
+        distances = state.scenario.getDataSet().getTravelDistancesNMT();
+        zones = state.scenario.getZones();
+        attractions = new double[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            attractions[i] = zones[i].getTripAttraction(Purpose.HBW);
+        }
+    }
+
+    @Benchmark
+    public double calculateUtilityRow() {
+        final int originId = zones[origin++ % zones.length].getId();
+        double sum = 0;
+        for (int i = 0; i < zones.length; i++) {
+            sum += calculator.calculateUtility(attractions[i], distances.getTravelDistance(originId, zones[i].getId()), 0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,42 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Skim lookups by zone id in random order, as done by the distributors and mode choice for every trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexedMatrixBenchmark {
+
+    private static final int PAIRS = 4096;
+
+    private IndexedDoubleMatrix2D matrix;
+    private final int[] origins = new int[PAIRS];
+    private final int[] destinations = new int[PAIRS];
+    private int next;
+
+    @Setup
+    public void setup(ScenarioState state) {
+        matrix = state.scenario.getDistances();
+        final Random random = new Random(ScenarioState.SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            origins[i] = state.scenario.getZones()[random.nextInt(state.zones)].getId();
+            destinations[i] = state.scenario.getZones()[random.nextInt(state.zones)].getId();
+        }
+    }
+
+    @Benchmark
+    public double getIndexed() {
+        final int i = next++ & (PAIRS - 1);
+        return matrix.getIndexed(origins[i], destinations[i]);
+    }
+}
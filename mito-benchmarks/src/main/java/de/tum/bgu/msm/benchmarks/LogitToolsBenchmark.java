@@ -0,0 +1,80 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.util.LogitTools;
+import org.matsim.core.utils.collections.Tuple;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static de.tum.bgu.msm.data.Mode.*;
+
+/**
+ * Nested logit probabilities and utility maximisation over the modes, comparing the EnumMap based API with the
+ * primitive one.
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LogitToolsBenchmark {
+
+    private static final EnumSet<Mode> AVAILABLE_MODES = EnumSet.of(autoDriver, autoPassenger, bicycle, bus, train, tramOrMetro, walk, taxi);
+
+    private final LogitTools<Mode> logitTools = new LogitTools<>(Mode.class);
+    private final List<Tuple<EnumSet<Mode>, Double>> nests = new ArrayList<>();
+
+    private EnumMap<Mode, Double> utilityMap;
+    private EnumMap<Mode, Double> errorTermMap;
+    private double[] utilities;
+    private boolean[] available;
+    private double[] errorTerms;
+    private double[] probabilities;
+
+    @Setup
+    public void setup() {
+        nests.add(new Tuple<>(EnumSet.of(autoDriver, autoPassenger), 0.25));
+        nests.add(new Tuple<>(EnumSet.of(train, tramOrMetro, bus, taxi), 0.25));
+        nests.add(new Tuple<>(EnumSet.of(walk, bicycle), 1.));
+
+        final Random random = new Random(ScenarioState.SEED);
+        final int modes = Mode.values().length;
+        utilities = new double[modes];
+        available = new boolean[modes];
+        errorTerms = new double[modes];
+        probabilities = new double[modes];
+        utilityMap = new EnumMap<>(Mode.class);
+        errorTermMap = new EnumMap<>(Mode.class);
+        for (Mode mode : AVAILABLE_MODES) {
+            utilities[mode.ordinal()] = -3 * random.nextDouble();
+            errorTerms[mode.ordinal()] = random.nextGaussian();
+            available[mode.ordinal()] = true;
+            utilityMap.put(mode, utilities[mode.ordinal()]);
+            errorTermMap.put(mode, errorTerms[mode.ordinal()]);
+        }
+    }
+
+    @Benchmark
+    public EnumMap<Mode, Double> probabilitiesNL() {
+        return logitTools.getProbabilitiesNL(utilityMap, nests);
+    }
+
+    @Benchmark
+    public double[] probabilitiesNLPrimitive() {
+        logitTools.getProbabilitiesNL(utilities, available, nests, probabilities);
+        return probabilities;
+    }
+
+    @Benchmark
+    public Mode highest() {
+        return LogitTools.getHighest(utilityMap, errorTermMap);
+    }
+
+    @Benchmark
+    public int highestPrimitive() {
+        return LogitTools.getHighest(utilities, available, errorTerms);
+    }
+}
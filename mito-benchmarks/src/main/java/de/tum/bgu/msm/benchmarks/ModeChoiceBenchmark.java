@@ -0,0 +1,108 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.modules.modeChoice.ModeUtilities;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import org.openjdk.jmh.annotations.*;
+import uk.cam.mrc.phm.calculators.ModeChoiceCalculatorMCR;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode choice utilities of the Manchester model for trips between random zones, comparing the EnumMap based API with
+ * the primitive one. The coefficients are synthetic and written to a temporary directory.
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModeChoiceBenchmark {
+
+    private static final int TRIPS = 4096;
+    private static final Purpose PURPOSE = Purpose.HBW;
+    private static final String[] VARIABLES = {"asc", "age_5_14", "age_15_24", "age_40_54", "age_55_69", "age_70",
+            "female", "occupation_worker", "income_low", "income_high", "recreation_trip", "other_trip",
+            "cars_0", "cars_2", "cars_3", "cost"};
+    private static final Mode[] MODES = {Mode.autoDriver, Mode.autoPassenger, Mode.pt, Mode.bicycle, Mode.walk};
+
+    private ModeChoiceCalculatorMCR calculator;
+    private TravelTimes travelTimes;
+    private double peakHour;
+    private final MitoPerson[] persons = new MitoPerson[TRIPS];
+    private final MitoZone[] origins = new MitoZone[TRIPS];
+    private final MitoZone[] destinations = new MitoZone[TRIPS];
+    private final ModeUtilities utilities = new ModeUtilities();
+    private int next;
+
+    @Setup
+    public void setup(ScenarioState state) throws IOException {
+        final Random random = new Random(ScenarioState.SEED);
+        final Path directory = Files.createTempDirectory("mito-benchmarks");
+        writeCoefficients(directory.resolve("mc_coefficients_" + PURPOSE.toString().toLowerCase() + ".csv"), random);
+        final Path properties = directory.resolve("benchmark.properties");
+        Files.writeString(properties, Properties.MC_COEFFICIENTS + " = mc_coefficients\n");
+        Resources.initializeResources(properties.toString());
+
+        final DataSet dataSet = state.scenario.getDataSet();
+        calculator = new ModeChoiceCalculatorMCR(PURPOSE, dataSet);
+        travelTimes = dataSet.getTravelTimes();
+        peakHour = dataSet.getPeakHour();
+
+        final List<MitoPerson7days> scenarioPersons = state.scenario.getPersons();
+        final MitoZone[] zones = state.scenario.getZones();
+        for (int i = 0; i < TRIPS; i++) {
+            persons[i] = scenarioPersons.get(random.nextInt(scenarioPersons.size()));
+            origins[i] = persons[i].getHousehold().getHomeZone();
+            destinations[i] = zones[random.nextInt(zones.length)];
+        }
+    }
+
+    private static void writeCoefficients(Path file, Random random) {
+        final StringBuilder csv = new StringBuilder("variable");
+        for (Mode mode : MODES) {
+            csv.append(',').append(mode.toString().toLowerCase());
+        }
+        csv.append('\n');
+        for (String variable : VARIABLES) {
+            csv.append(variable);
+            for (Mode ignored : MODES) {
+                final double value = variable.equals("cost") ? -0.05 : random.nextGaussian() * 0.5;
+                csv.append(',').append(value);
+            }
+            csv.append('\n');
+        }
+        try {
+            Files.writeString(file, csv);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public EnumMap<Mode, Double> calculateUtilities() {
+        final int i = next++ & (TRIPS - 1);
+        final MitoPerson person = persons[i];
+        return calculator.calculateUtilities(PURPOSE, person.getHousehold(), person, origins[i], destinations[i],
+                travelTimes, 0., 0., peakHour);
+    }
+
+    @Benchmark
+    public ModeUtilities calculateUtilitiesPrimitive() {
+        final int i = next++ & (TRIPS - 1);
+        final MitoPerson person = persons[i];
+        calculator.calculateUtilities(PURPOSE, person.getHousehold(), person, origins[i], destinations[i],
+                travelTimes, 0., 0., peakHour, utilities);
+        return utilities;
+    }
+}
@@ -0,0 +1,25 @@
+package de.tum.bgu.msm.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark state holding a {@link SyntheticScenario}, shared by all threads of a benchmark.
+ */
+@State(Scope.Benchmark)
+public class ScenarioState {
+
+    static final long SEED = 42L;
+
+    @Param({"2000"})
+    public int zones;
+
+    @Param({"10000"})
+    public int households;
+
+    public SyntheticScenario scenario;
+
+    @Setup(Level.Trial)
+    public void createScenario() {
+        scenario = SyntheticScenario.create(zones, households, SEED);
+    }
+}
@@ -0,0 +1,47 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.util.MitoUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws from discrete distributions of different sizes, as done for destination, time of day and micro location
+ * choice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectBenchmark {
+
+    @Param({"10", "1440", "10000"})
+    public int size;
+
+    private double[] probabilities;
+    private double sum;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        random = new Random(ScenarioState.SEED);
+        probabilities = new double[size];
+        for (int i = 0; i < size; i++) {
+            probabilities[i] = random.nextDouble();
+            sum += probabilities[i];
+        }
+    }
+
+    @Benchmark
+    public int select() {
+        return MitoUtil.select(probabilities, random);
+    }
+
+    @Benchmark
+    public int selectWithKnownSum() {
+        return MitoUtil.select(probabilities, random, sum);
+    }
+}
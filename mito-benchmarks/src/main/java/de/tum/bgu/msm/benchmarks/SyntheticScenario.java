@@ -0,0 +1,121 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic zone system and population for benchmarks, so that they run without any licensed input data.
+ * <p>
+ * Zones are laid out on a square grid with a spacing of one kilometre. Distances are euclidean, travel times are
+ * derived from distances by mode-specific speeds (see {@link SyntheticTravelTimes}), and trip attractions as well
+ * as household and person attributes are drawn from a seeded random number generator, so that every run of a
+ * benchmark uses the same scenario.
+ */
+public final class SyntheticScenario {
+
+    private static final double ZONE_SPACING_KM = 1.;
+
+    private final DataSet dataSet;
+    private final MitoZone[] zones;
+    private final List<MitoHousehold> households;
+    private final List<MitoPerson7days> persons;
+    private final IndexedDoubleMatrix2D distances;
+
+    private SyntheticScenario(DataSet dataSet, MitoZone[] zones, List<MitoHousehold> households,
+                              List<MitoPerson7days> persons, IndexedDoubleMatrix2D distances) {
+        this.dataSet = dataSet;
+        this.zones = zones;
+        this.households = households;
+        this.persons = persons;
+        this.distances = distances;
+    }
+
+    public static SyntheticScenario create(int numberOfZones, int numberOfHouseholds, long seed) {
+        final Random random = new Random(seed);
+        final DataSet dataSet = new DataSetImpl();
+        final int gridSize = (int) Math.ceil(Math.sqrt(numberOfZones));
+
+        final MitoZone[] zones = new MitoZone[numberOfZones];
+        final AreaTypes.SGType[] areaTypes = AreaTypes.SGType.values();
+        final AreaTypes.RType[] rTypes = AreaTypes.RType.values();
+        for (int i = 0; i < numberOfZones; i++) {
+            final MitoZone zone = new MitoZone(i + 1, areaTypes[random.nextInt(areaTypes.length)]);
+            zone.setAreaTypeR(rTypes[random.nextInt(rTypes.length)]);
+            zone.setCentroid(new Coordinate((i % gridSize) * ZONE_SPACING_KM * 1000, (i / gridSize) * ZONE_SPACING_KM * 1000));
+            for (Purpose purpose : Purpose.values()) {
+                // Some zones attract no trips, as in real zone systems
+                zone.setTripAttraction(purpose, random.nextDouble() < 0.1 ? 0. : random.nextDouble() * 1000);
+            }
+            zones[i] = zone;
+            dataSet.addZone(zone);
+        }
+
+        final List<MitoZone> zoneList = List.of(zones);
+        final IndexedDoubleMatrix2D distances = new IndexedDoubleMatrix2D(zoneList, zoneList);
+        for (int i = 0; i < numberOfZones; i++) {
+            for (int j = 0; j < numberOfZones; j++) {
+                final double dx = (i % gridSize) - (j % gridSize);
+                final double dy = (i / gridSize) - (j / gridSize);
+                // Intrazonal distances are half the zone spacing
+                final double distance = i == j ? ZONE_SPACING_KM / 2 : Math.sqrt(dx * dx + dy * dy) * ZONE_SPACING_KM;
+                distances.setIndexed(zones[i].getId(), zones[j].getId(), distance);
+            }
+        }
+        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distances));
+        dataSet.setTravelDistancesNMT(new MatrixTravelDistances(distances));
+        dataSet.setTravelTimes(new SyntheticTravelTimes(distances));
+        dataSet.setPeakHour(8 * 3600);
+
+        final List<MitoHousehold> households = new ArrayList<>(numberOfHouseholds);
+        final List<MitoPerson7days> persons = new ArrayList<>();
+        final MitoOccupationStatus[] occupationStatuses = MitoOccupationStatus.values();
+        final ModeSet[] modeSets = ModeSet.values();
+        int personId = 1;
+        for (int i = 0; i < numberOfHouseholds; i++) {
+            final MitoHousehold household = new MitoHousehold(i + 1, random.nextInt(8000), random.nextInt(4), true);
+            household.setHomeZone(zones[random.nextInt(numberOfZones)]);
+            household.setEconomicStatus(1 + random.nextInt(5));
+            final int size = 1 + random.nextInt(5);
+            for (int j = 0; j < size; j++) {
+                final int age = j < 2 ? 18 + random.nextInt(70) : random.nextInt(18);
+                final MitoPerson7days person = new MitoPerson7days(personId++, household,
+                        occupationStatuses[random.nextInt(occupationStatuses.length)], null, age,
+                        random.nextBoolean() ? MitoGender.MALE : MitoGender.FEMALE, age >= 18 && random.nextBoolean());
+                person.setHasBicycle(random.nextBoolean());
+                person.setModeSet(modeSets[random.nextInt(modeSets.length)]);
+                household.addPerson(person);
+                dataSet.addPerson(person);
+                persons.add(person);
+            }
+            households.add(household);
+            dataSet.addHousehold(household);
+        }
+        return new SyntheticScenario(dataSet, zones, households, persons, distances);
+    }
+
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    public MitoZone[] getZones() {
+        return zones;
+    }
+
+    public List<MitoHousehold> getHouseholds() {
+        return households;
+    }
+
+    public List<MitoPerson7days> getPersons() {
+        return persons;
+    }
+
+    public IndexedDoubleMatrix2D getDistances() {
+        return distances;
+    }
+}
@@ -0,0 +1,78 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+
+/**
+ * Travel times derived from a distance matrix in kilometres by a fixed speed per mode. Skim names that start with
+ * "walk" or "bike", such as the purpose-specific active mode skims of Manchester, use walking and cycling speeds,
+ * all other modes use car or public transport speeds.
+ */
+final class SyntheticTravelTimes implements TravelTimes {
+
+    private static final double CAR_KMH = 40.;
+    private static final double PT_KMH = 25.;
+    private static final double BIKE_KMH = 15.;
+    private static final double WALK_KMH = 5.;
+
+    private final IndexedDoubleMatrix2D distances;
+
+    SyntheticTravelTimes(IndexedDoubleMatrix2D distances) {
+        this.distances = distances;
+    }
+
+    @Override
+    public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+        return distances.getIndexed(origin.getZoneId(), destination.getZoneId()) / getSpeed(mode) * 60.;
+    }
+
+    private static double getSpeed(String mode) {
+        if (mode.startsWith("walk")) {
+            return WALK_KMH;
+        } else if (mode.startsWith("bike") || mode.startsWith("bicycle")) {
+            return BIKE_KMH;
+        } else if (mode.equals("car")) {
+            return CAR_KMH;
+        } else {
+            return PT_KMH;
+        }
+    }
+
+    /**
+     * Returns the minimal travel time from the zones of the region, as {@link SkimTravelTimes} does.
+     */
+    @Override
+    public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+        double min = Double.MAX_VALUE;
+        for (Zone zone : origin.getZones()) {
+            min = Math.min(min, distances.getIndexed(zone.getZoneId(), destination.getZoneId()));
+        }
+        return min / getSpeed(mode) * 60.;
+    }
+
+    /**
+     * Returns the minimal travel time to the zones of the region, as {@link SkimTravelTimes} does.
+     */
+    @Override
+    public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+        double min = Double.MAX_VALUE;
+        for (Zone zone : destination.getZones()) {
+            min = Math.min(min, distances.getIndexed(origin.getZoneId(), zone.getZoneId()));
+        }
+        return min / getSpeed(mode) * 60.;
+    }
+
+    @Override
+    public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+        return distances.copy().assign(distance -> distance / getSpeed(mode) * 60.);
+    }
+
+    @Override
+    public TravelTimes duplicate() {
+        return this;
+    }
+}
@@ -0,0 +1,32 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.Purpose;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Sets up the trip distribution data of a purpose as {@link TripDistribution} does, so that distributors can be
+ * benchmarked without running the whole module.
+ */
+public final class DestinationUtilityFixture {
+
+    private DestinationUtilityFixture() {
+    }
+
+    public static EnumMap<Purpose, List<TripDistribution.tripDistributionData>> createDistributionData(
+            DataSet dataSet, Purpose purpose, AbstractDestinationUtilityCalculator calculator, long cacheBytes) {
+        final DestinationUtilityRowCache cache = new DestinationUtilityRowCache(cacheBytes);
+        final List<TripDistribution.tripDistributionData> categoryData = new ArrayList<>();
+        for (int i = 0; i < calculator.getCategories().size(); i++) {
+            final TripDistribution.tripDistributionData data = new TripDistribution.tripDistributionData(calculator.getCategories().get(i));
+            data.setUtilities(new DestinationUtilityRows(purpose, dataSet, calculator, i, cache, false));
+            categoryData.add(data);
+        }
+        final EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData = new EnumMap<>(Purpose.class);
+        distributionData.put(purpose, categoryData);
+        return distributionData;
+    }
+}
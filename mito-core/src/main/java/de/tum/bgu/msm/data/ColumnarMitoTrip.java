@@ -0,0 +1,151 @@
+package de.tum.bgu.msm.data;
+
+import org.matsim.api.core.v01.population.Person;
+
+/**
+ * Flyweight view of one row of a {@link TripTable}. The view holds no trip state itself, all getters and setters
+ * read and write the columns of the table. Views of the same row are equal. Model extensions may subclass the view
+ * to expose further columns, see {@link TripTable#setViewFactory(TripTable.ViewFactory)}.
+ */
+public class ColumnarMitoTrip implements MitoTrip {
+
+    private final TripTable table;
+    private final int row;
+
+    protected ColumnarMitoTrip(TripTable table, int row) {
+        this.table = table;
+        this.row = row;
+    }
+
+    public final TripTable getTable() {
+        return table;
+    }
+
+    public final int getRow() {
+        return row;
+    }
+
+    @Override
+    public int getId() {
+        return table.getTripId(row);
+    }
+
+    @Override
+    public Location getTripOrigin() {
+        return table.getOrigin(row);
+    }
+
+    @Override
+    public void setTripOrigin(Location origin) {
+        table.setOrigin(row, origin);
+    }
+
+    @Override
+    public Purpose getTripPurpose() {
+        return table.getPurpose(row);
+    }
+
+    @Override
+    public Location getTripDestination() {
+        return table.getDestination(row);
+    }
+
+    @Override
+    public void setTripDestination(Location destination) {
+        table.setDestination(row, destination);
+    }
+
+    @Override
+    public MitoPerson getPerson() {
+        return table.getPerson(row);
+    }
+
+    @Override
+    public void setPerson(MitoPerson person) {
+        table.setPerson(row, person);
+    }
+
+    @Override
+    public Mode getTripMode() {
+        return table.getMode(row);
+    }
+
+    @Override
+    public void setTripMode(Mode tripMode) {
+        table.setMode(row, tripMode);
+    }
+
+    @Override
+    public void setDepartureInMinutes(int departureInMinutes) {
+        table.setDepartureInMinutes(row, departureInMinutes);
+    }
+
+    @Override
+    public void setDepartureInMinutesReturnTrip(int departureInMinutesReturnTrip) {
+        table.setDepartureInMinutesReturnTrip(row, departureInMinutesReturnTrip);
+    }
+
+    @Override
+    public int getDepartureInMinutes() {
+        return table.getDepartureInMinutes(row);
+    }
+
+    @Override
+    public int getDepartureInMinutesReturnTrip() {
+        return table.getDepartureInMinutesReturnTrip(row);
+    }
+
+    @Override
+    public int getTripId() {
+        return table.getTripId(row);
+    }
+
+    @Override
+    public Person getMatsimPerson() {
+        return table.getMatsimPerson(row);
+    }
+
+    @Override
+    public void setMatsimPerson(Person matsimPerson) {
+        table.setMatsimPerson(row, matsimPerson);
+    }
+
+    @Override
+    public boolean isHomeBased() {
+        final Purpose purpose = table.getPurpose(row);
+        return purpose != Purpose.RRT &&
+                purpose != Purpose.NHBW &&
+                purpose != Purpose.NHBO &&
+                purpose != Purpose.AIRPORT;
+    }
+
+    @Override
+    public int getActivityDurationInMinutes() {
+        return table.getActivityDurationInMinutes(row);
+    }
+
+    @Override
+    public void setActivityDurationInMinutes(int activityDurationInMinutes) {
+        table.setActivityDurationInMinutes(row, activityDurationInMinutes);
+    }
+
+    @Override
+    public String toString() {
+        return "Trip [id: " + getTripId() + " purpose: " + getTripPurpose() + "]";
+    }
+
+    @Override
+    public final int hashCode() {
+        return getTripId();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof ColumnarMitoTrip) {
+            final ColumnarMitoTrip other = (ColumnarMitoTrip) o;
+            return table == other.table && row == other.row;
+        } else {
+            return false;
+        }
+    }
+}
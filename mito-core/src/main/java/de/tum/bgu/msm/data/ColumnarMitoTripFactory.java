@@ -0,0 +1,18 @@
+package de.tum.bgu.msm.data;
+
+/**
+ * Creates trips as rows of a {@link TripTable} and returns their flyweight views.
+ */
+public class ColumnarMitoTripFactory implements MitoTripFactory {
+
+    private final TripTable tripTable;
+
+    public ColumnarMitoTripFactory(TripTable tripTable) {
+        this.tripTable = tripTable;
+    }
+
+    @Override
+    public MitoTrip createTrip(int tripId, Purpose tripPurpose) {
+        return tripTable.addTrip(tripId, tripPurpose);
+    }
+}
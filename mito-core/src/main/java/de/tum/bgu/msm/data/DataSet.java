@@ -37,6 +37,12 @@ public interface DataSet {
 
     Map<Integer, MitoTrip> getTripSubsample();
 
+    /**
+     * Columnar storage of trips created by a {@link ColumnarMitoTripFactory}. Empty if trips are plain objects. Trips
+     * of this table are held by their rows in the trips of the data set, households and persons.
+     */
+    TripTable getTripTable();
+
     void addTrip(MitoTrip trip);
 
     void addTrips(Collection<MitoTrip> addedTrips);
@@ -25,8 +25,9 @@ public class DataSetImpl implements DataSet {
     private final Map<Integer, MitoSchool> schools = new LinkedHashMap<>();
     private final Map<Integer, MitoJob> jobs = new LinkedHashMap<>();
 
-    private final Map<Integer, MitoTrip> trips = new LinkedHashMap<>();
-    private final Map<Integer, MitoTrip> tripSubsample = new LinkedHashMap<>();
+    private final TripTable tripTable = new TripTable();
+    private final TripMap trips = new TripMap(tripTable);
+    private final TripMap tripSubsample = new TripMap(tripTable);
 
 
     private final Table<Purpose, Mode, Double> modeSharesByPurpose
@@ -99,10 +100,14 @@ public class DataSetImpl implements DataSet {
         return Collections.unmodifiableMap(tripSubsample);
     }
 
+    @Override
+    public TripTable getTripTable() {
+        return tripTable;
+    }
+
     @Override
     public void addTrip(final MitoTrip trip) {
-        MitoTrip test = trips.putIfAbsent(trip.getId(), trip);
-        if(test != null) {
+        if(!trips.add(trip)) {
             throw new IllegalArgumentException("MitoTrip id " + trip.getId() + " already exists!");
         }
     }
@@ -116,8 +121,7 @@ public class DataSetImpl implements DataSet {
 
     @Override
     public void addTripToSubsample(final MitoTrip trip) {
-        MitoTrip test = tripSubsample.putIfAbsent(trip.getId(), trip);
-        if(test != null) {
+        if(!tripSubsample.add(trip)) {
             throw new IllegalArgumentException("MitoTrip id " + trip.getId() + " already exists!");
         }
     }
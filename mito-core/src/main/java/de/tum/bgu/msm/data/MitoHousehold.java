@@ -86,7 +86,7 @@ public class MitoHousehold implements Id, MicroLocation {
     }
 
     public synchronized void setTripsByPurpose(List<MitoTrip> trips, Purpose purpose) {
-            tripsByPurpose.put(purpose, trips);
+            tripsByPurpose.put(purpose, TripRows.compact(trips));
     }
 
     public List<MitoTrip> getTripsForPurpose(Purpose purpose) {
@@ -98,8 +98,12 @@ public class MitoHousehold implements Id, MicroLocation {
     }
 
     public void addTripsForPurpose(Purpose purpose, MitoTrip trip) {
-        tripsByPurpose.computeIfAbsent(purpose, k -> new ArrayList<>());
-        tripsByPurpose.get(purpose).add(trip);
+        List<MitoTrip> trips = tripsByPurpose.computeIfAbsent(purpose, k -> TripRows.listFor(trip));
+        if (trips instanceof TripRows && !((TripRows) trips).accepts(trip)) {
+            trips = new ArrayList<>(trips);
+            tripsByPurpose.put(purpose, trips);
+        }
+        trips.add(trip);
     }
 
     public synchronized void setTravelTimeBudgetByPurpose(Purpose purpose, double budget) {
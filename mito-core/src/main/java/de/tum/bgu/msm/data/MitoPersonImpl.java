@@ -24,7 +24,10 @@ public class MitoPersonImpl implements MitoPerson {
     private final boolean driversLicense;
     private final MitoHousehold household;
     private Optional<Boolean> hasBicycle = Optional.empty();
-    private Set<MitoTrip> trips = new LinkedHashSet<>();
+    /**
+     * A set of trip objects, or the rows of the trips if they are stored in a {@link TripTable}
+     */
+    private Collection<MitoTrip> trips = Collections.emptySet();
     private EnumMap<Mode,Double> errorTerms;
 
     public MitoPersonImpl(int id, MitoHousehold household, MitoOccupationStatus mitoOccupationStatus, MitoOccupation occupation, int age, MitoGender mitoGender, boolean driversLicense) {
@@ -79,12 +82,22 @@ public class MitoPersonImpl implements MitoPerson {
 
     @Override
     public Set<MitoTrip> getTrips() {
-        return Collections.unmodifiableSet(this.trips);
+        if (trips instanceof TripRows) {
+            return ((TripRows) trips).asSet();
+        }
+        return Collections.unmodifiableSet((Set<MitoTrip>) this.trips);
     }
 
     @Override
     public void addTrip(MitoTrip trip) {
-        this.trips.add(trip);
+        if (trips.isEmpty()) {
+            trips = trip instanceof ColumnarMitoTrip ? TripRows.listFor(trip) : new LinkedHashSet<>();
+        } else if (trips instanceof TripRows && !((TripRows) trips).accepts(trip)) {
+            trips = new LinkedHashSet<>(trips);
+        }
+        if (!trips.contains(trip)) {
+            this.trips.add(trip);
+        }
         if(trip.getPerson() != this) {
             trip.setPerson(this);
         }
@@ -0,0 +1,235 @@
+package de.tum.bgu.msm.data;
+
+import java.util.*;
+
+/**
+ * Trips of a data set by id, in the order they were added. Trips stored in the {@link TripTable} of the data set are
+ * held by their rows and their views are created when they are accessed, other trips are held as objects. Ids are
+ * looked up in a primitive hash table of entries, so a trip costs 12 to 24 bytes of this map instead of a map entry
+ * and a boxed id.
+ * <p>
+ * Not synchronized, like the maps it replaces.
+ */
+final class TripMap extends AbstractMap<Integer, MitoTrip> {
+
+    private static final int REMOVED = -1;
+    private static final int EMPTY = 0;
+
+    private final TripTable table;
+    private final List<MitoTrip> objects = new ArrayList<>();
+
+    /**
+     * Per trip in the order of adding: the table row of stored trips, -(index + 2) of trip objects, or REMOVED.
+     */
+    private int[] entries = new int[16];
+    private int numberOfEntries;
+    private int size;
+    private int modCount;
+
+    /**
+     * Open addressing hash table of trip ids with linear probing. Slots hold the entry index + 1 of a trip, EMPTY, or
+     * REMOVED for trips that were removed.
+     */
+    private int[] hashedEntries = new int[32];
+    private int usedHashSlots;
+
+    TripMap(TripTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Adds the trip and returns true, or returns false if there is a trip with the same id already.
+     */
+    boolean add(MitoTrip trip) {
+        final int id = trip.getId();
+        if (findEntry(id) != REMOVED) {
+            return false;
+        }
+        if (numberOfEntries == entries.length) {
+            entries = Arrays.copyOf(entries, numberOfEntries * 2);
+        }
+        if (trip instanceof ColumnarMitoTrip && ((ColumnarMitoTrip) trip).getTable() == table) {
+            entries[numberOfEntries] = ((ColumnarMitoTrip) trip).getRow();
+        } else {
+            objects.add(trip);
+            entries[numberOfEntries] = -(objects.size() + 1);
+        }
+        if (2 * (usedHashSlots + 1) > hashedEntries.length) {
+            rehash(4 * (size + 1) > hashedEntries.length ? hashedEntries.length * 2 : hashedEntries.length);
+        }
+        insert(id, numberOfEntries);
+        numberOfEntries++;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public MitoTrip get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        final int entry = findEntry((Integer) key);
+        return entry == REMOVED ? null : trip(entry);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && findEntry((Integer) key) != REMOVED;
+    }
+
+    @Override
+    public MitoTrip remove(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        final int id = (Integer) key;
+        final int mask = hashedEntries.length - 1;
+        for (int i = hash(id) & mask; hashedEntries[i] != EMPTY; i = (i + 1) & mask) {
+            if (hashedEntries[i] != REMOVED && id(hashedEntries[i] - 1) == id) {
+                final int entry = hashedEntries[i] - 1;
+                final MitoTrip trip = trip(entry);
+                if (entries[entry] < REMOVED) {
+                    objects.set(-entries[entry] - 2, null);
+                }
+                entries[entry] = REMOVED;
+                hashedEntries[i] = REMOVED;
+                size--;
+                modCount++;
+                return trip;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Collection<MitoTrip> values() {
+        return new AbstractCollection<MitoTrip>() {
+            @Override
+            public Iterator<MitoTrip> iterator() {
+                return new EntryIterator<MitoTrip>() {
+                    @Override
+                    MitoTrip get(int entry) {
+                        return trip(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, MitoTrip>> entrySet() {
+        return new AbstractSet<Entry<Integer, MitoTrip>>() {
+            @Override
+            public Iterator<Entry<Integer, MitoTrip>> iterator() {
+                return new EntryIterator<Entry<Integer, MitoTrip>>() {
+                    @Override
+                    Entry<Integer, MitoTrip> get(int entry) {
+                        final MitoTrip trip = trip(entry);
+                        return new SimpleImmutableEntry<>(trip.getId(), trip);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private MitoTrip trip(int entry) {
+        final int value = entries[entry];
+        return value >= 0 ? table.getTrip(value) : objects.get(-value - 2);
+    }
+
+    private int id(int entry) {
+        final int value = entries[entry];
+        return value >= 0 ? table.getTripId(value) : objects.get(-value - 2).getId();
+    }
+
+    /**
+     * Returns the entry index of the given id, or REMOVED if there is no trip with this id.
+     */
+    private int findEntry(int id) {
+        final int mask = hashedEntries.length - 1;
+        for (int i = hash(id) & mask; hashedEntries[i] != EMPTY; i = (i + 1) & mask) {
+            if (hashedEntries[i] != REMOVED && id(hashedEntries[i] - 1) == id) {
+                return hashedEntries[i] - 1;
+            }
+        }
+        return REMOVED;
+    }
+
+    private void insert(int id, int entry) {
+        final int mask = hashedEntries.length - 1;
+        int i = hash(id) & mask;
+        while (hashedEntries[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        hashedEntries[i] = entry + 1;
+        usedHashSlots++;
+    }
+
+    /**
+     * Rebuilds the hash table without the ids of removed trips.
+     */
+    private void rehash(int capacity) {
+        final int[] hashed = hashedEntries;
+        hashedEntries = new int[capacity];
+        usedHashSlots = 0;
+        for (int slot : hashed) {
+            if (slot != EMPTY && slot != REMOVED) {
+                insert(id(slot - 1), slot - 1);
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        final int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private abstract class EntryIterator<T> implements Iterator<T> {
+
+        private final int expectedModCount = modCount;
+        private int next = skipRemoved(0);
+
+        abstract T get(int entry);
+
+        private int skipRemoved(int entry) {
+            while (entry < numberOfEntries && entries[entry] == REMOVED) {
+                entry++;
+            }
+            return entry;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < numberOfEntries;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= numberOfEntries) {
+                throw new NoSuchElementException();
+            }
+            final T value = get(next);
+            next = skipRemoved(next + 1);
+            return value;
+        }
+    }
+}
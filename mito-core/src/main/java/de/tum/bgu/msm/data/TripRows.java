@@ -0,0 +1,153 @@
+package de.tum.bgu.msm.data;
+
+import java.util.*;
+
+/**
+ * List of trips that are stored in a {@link TripTable}, held as the rows of the trips. A trip costs four bytes of the
+ * list instead of a reference to a trip object that has to be kept alive, and the views of the trips are created
+ * when they are accessed. Only views of rows of the same table can be added.
+ */
+public final class TripRows extends AbstractList<MitoTrip> implements RandomAccess {
+
+    private final TripTable table;
+    private int[] rows = new int[4];
+    private int size;
+
+    public TripRows(TripTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Returns an empty list for trips like the given one: rows if the trip is stored in a table, otherwise a plain
+     * list.
+     */
+    public static List<MitoTrip> listFor(MitoTrip trip) {
+        if (trip instanceof ColumnarMitoTrip) {
+            return new TripRows(((ColumnarMitoTrip) trip).getTable());
+        } else {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the given trips as rows if all of them are stored in the same table, otherwise the given list.
+     */
+    public static List<MitoTrip> compact(List<MitoTrip> trips) {
+        if (trips instanceof TripRows || trips.isEmpty() || !(trips.get(0) instanceof ColumnarMitoTrip)) {
+            return trips;
+        }
+        final TripRows rows = new TripRows(((ColumnarMitoTrip) trips.get(0)).getTable());
+        for (MitoTrip trip : trips) {
+            if (!rows.accepts(trip)) {
+                return trips;
+            }
+            rows.add(trip);
+        }
+        return rows;
+    }
+
+    public TripTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns true if the given trip is a view of a row of the table of this list and can be added.
+     */
+    public boolean accepts(Object trip) {
+        return trip instanceof ColumnarMitoTrip && ((ColumnarMitoTrip) trip).getTable() == table;
+    }
+
+    /**
+     * Returns the table row of the trip at the given index.
+     */
+    public int getRow(int index) {
+        Objects.checkIndex(index, size);
+        return rows[index];
+    }
+
+    @Override
+    public MitoTrip get(int index) {
+        return table.getTrip(getRow(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MitoTrip set(int index, MitoTrip trip) {
+        final MitoTrip previous = get(index);
+        rows[index] = rowOf(trip);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, MitoTrip trip) {
+        Objects.checkIndex(index, size + 1);
+        final int row = rowOf(trip);
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        rows[index] = row;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public MitoTrip remove(int index) {
+        final MitoTrip previous = get(index);
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (accepts(o)) {
+            final int row = ((ColumnarMitoTrip) o).getRow();
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns an unmodifiable view of this list as a set, for holders of trips that do not add a trip twice.
+     */
+    public Set<MitoTrip> asSet() {
+        return new AbstractSet<MitoTrip>() {
+            @Override
+            public Iterator<MitoTrip> iterator() {
+                return Collections.unmodifiableList(TripRows.this).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return TripRows.this.contains(o);
+            }
+        };
+    }
+
+    private int rowOf(MitoTrip trip) {
+        if (!accepts(trip)) {
+            throw new IllegalArgumentException("Trip " + trip + " is not stored in the trip table of this list");
+        }
+        return ((ColumnarMitoTrip) trip).getRow();
+    }
+}
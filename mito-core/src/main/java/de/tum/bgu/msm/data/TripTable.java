@@ -0,0 +1,325 @@
+package de.tum.bgu.msm.data;
+
+import org.matsim.api.core.v01.population.Person;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Columnar storage of trips. Every attribute of a trip is held in a primitive column at the row of the trip, so a
+ * trip costs a few dozen bytes instead of an object with headers and references, and modules that scan many trips
+ * read contiguous arrays. Locations are stored as indices into a registry of the distinct locations, with the zone
+ * ids of origin and destination in their own columns.
+ * <p>
+ * {@link ColumnarMitoTrip} is a flyweight view of a single row that implements {@link MitoTrip}, so modules can keep
+ * working on trip objects and migrate to the columns one at a time. Views are created when a trip is accessed and
+ * are not meant to be kept: the data set, households and persons hold the rows of their trips in {@link TripRows}.
+ * Model extensions with additional trip attributes can create views of their own type, see
+ * {@link #setViewFactory(ViewFactory)}.
+ * <p>
+ * Columns are allocated in blocks of fixed size, so rows never move while the table grows. Adding trips is
+ * synchronized. Reading and writing different rows from different threads is as safe as for separate trip objects.
+ */
+public final class TripTable {
+
+    private static final int BLOCK_BITS = 14;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    static final int NONE = -1;
+
+    private static final Purpose[] PURPOSES = Purpose.values();
+    private static final Mode[] MODES = Mode.values();
+
+    private volatile Block[] blocks = new Block[0];
+    private volatile int size;
+    private volatile ViewFactory viewFactory = ColumnarMitoTrip::new;
+
+    private final Registry<Location> locations = new Registry<>();
+
+    /**
+     * Creates the flyweight view of a row.
+     */
+    public interface ViewFactory {
+        ColumnarMitoTrip create(TripTable table, int row);
+    }
+
+    private static final class Block {
+        private final int[] tripId = new int[BLOCK_SIZE];
+        private final byte[] purpose = new byte[BLOCK_SIZE];
+        private final MitoPerson[] person = new MitoPerson[BLOCK_SIZE];
+        private final int[] originZone = new int[BLOCK_SIZE];
+        private final int[] originLocation = new int[BLOCK_SIZE];
+        private final int[] destinationZone = new int[BLOCK_SIZE];
+        private final int[] destinationLocation = new int[BLOCK_SIZE];
+        private final byte[] mode = new byte[BLOCK_SIZE];
+        private final short[] departure = new short[BLOCK_SIZE];
+        private final short[] departureReturnTrip = new short[BLOCK_SIZE];
+        private final short[] activityDuration = new short[BLOCK_SIZE];
+        private final byte[] day = new byte[BLOCK_SIZE];
+        private Person[] matsimPerson;
+    }
+
+    /**
+     * Appends a trip without person, locations and mode and returns its flyweight view.
+     */
+    public ColumnarMitoTrip addTrip(int tripId, Purpose purpose) {
+        return viewFactory.create(this, addRow(tripId, purpose));
+    }
+
+    /**
+     * Sets the factory of the views returned for the rows of this table. Must be set before the first trip is added,
+     * so that all views of a table have the same type.
+     */
+    public synchronized void setViewFactory(ViewFactory viewFactory) {
+        if (viewFactory != this.viewFactory && size > 0) {
+            throw new IllegalStateException("Cannot change the views of a trip table with " + size + " trips");
+        }
+        this.viewFactory = viewFactory;
+    }
+
+    private synchronized int addRow(int tripId, Purpose purpose) {
+        final int row = size;
+        final int blockIndex = row >>> BLOCK_BITS;
+        Block[] current = blocks;
+        if (blockIndex == current.length) {
+            current = Arrays.copyOf(current, blockIndex + 1);
+            current[blockIndex] = new Block();
+            blocks = current;
+        }
+        final Block block = current[blockIndex];
+        final int i = row & BLOCK_MASK;
+        block.tripId[i] = tripId;
+        block.purpose[i] = (byte) purpose.ordinal();
+        block.originZone[i] = NONE;
+        block.originLocation[i] = NONE;
+        block.destinationZone[i] = NONE;
+        block.destinationLocation[i] = NONE;
+        block.mode[i] = NONE;
+        block.departureReturnTrip[i] = NONE;
+        block.activityDuration[i] = NONE;
+        block.day[i] = NONE;
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a flyweight view of the given row. Views of the same row are equal.
+     */
+    public ColumnarMitoTrip getTrip(int row) {
+        checkRow(row);
+        return viewFactory.create(this, row);
+    }
+
+    private Block block(int row) {
+        return blocks[row >>> BLOCK_BITS];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not in trip table of size " + size);
+        }
+    }
+
+    public int getTripId(int row) {
+        return block(row).tripId[row & BLOCK_MASK];
+    }
+
+    public Purpose getPurpose(int row) {
+        return PURPOSES[block(row).purpose[row & BLOCK_MASK]];
+    }
+
+    public MitoPerson getPerson(int row) {
+        return block(row).person[row & BLOCK_MASK];
+    }
+
+    public void setPerson(int row, MitoPerson person) {
+        block(row).person[row & BLOCK_MASK] = person;
+    }
+
+    /**
+     * Returns the zone id of the origin, or -1 if the trip has no origin.
+     */
+    public int getOriginZoneId(int row) {
+        return block(row).originZone[row & BLOCK_MASK];
+    }
+
+    public Location getOrigin(int row) {
+        return locations.get(block(row).originLocation[row & BLOCK_MASK]);
+    }
+
+    public void setOrigin(int row, Location origin) {
+        final Block block = block(row);
+        final int i = row & BLOCK_MASK;
+        block.originLocation[i] = locations.index(origin);
+        block.originZone[i] = origin == null ? NONE : origin.getZoneId();
+    }
+
+    /**
+     * Returns the zone id of the destination, or -1 if the trip has no destination.
+     */
+    public int getDestinationZoneId(int row) {
+        return block(row).destinationZone[row & BLOCK_MASK];
+    }
+
+    public Location getDestination(int row) {
+        return locations.get(block(row).destinationLocation[row & BLOCK_MASK]);
+    }
+
+    public void setDestination(int row, Location destination) {
+        final Block block = block(row);
+        final int i = row & BLOCK_MASK;
+        block.destinationLocation[i] = locations.index(destination);
+        block.destinationZone[i] = destination == null ? NONE : destination.getZoneId();
+    }
+
+    /**
+     * Returns the index of the origin in the registry of distinct locations of this table, or -1 if the trip has
+     * no origin. Indices are stable and can be used to address arrays of precomputed location attributes.
+     */
+    public int getOriginLocationIndex(int row) {
+        return block(row).originLocation[row & BLOCK_MASK];
+    }
+
+    /**
+     * Returns the index of the destination in the registry of distinct locations of this table, or -1 if the trip
+     * has no destination.
+     */
+    public int getDestinationLocationIndex(int row) {
+        return block(row).destinationLocation[row & BLOCK_MASK];
+    }
+
+    /**
+     * Returns the location with the given index in the registry of distinct locations of this table.
+     */
+    public Location getLocation(int locationIndex) {
+        return locations.get(locationIndex);
+    }
+
+    /**
+     * Returns the ordinal of the mode, or -1 if no mode has been chosen yet.
+     */
+    public int getModeOrdinal(int row) {
+        return block(row).mode[row & BLOCK_MASK];
+    }
+
+    public Mode getMode(int row) {
+        final int mode = getModeOrdinal(row);
+        return mode == NONE ? null : MODES[mode];
+    }
+
+    public void setMode(int row, Mode mode) {
+        block(row).mode[row & BLOCK_MASK] = mode == null ? NONE : (byte) mode.ordinal();
+    }
+
+    public int getDepartureInMinutes(int row) {
+        return block(row).departure[row & BLOCK_MASK];
+    }
+
+    public void setDepartureInMinutes(int row, int departureInMinutes) {
+        block(row).departure[row & BLOCK_MASK] = toShort(departureInMinutes, "Departure");
+    }
+
+    public int getDepartureInMinutesReturnTrip(int row) {
+        return block(row).departureReturnTrip[row & BLOCK_MASK];
+    }
+
+    public void setDepartureInMinutesReturnTrip(int row, int departureInMinutesReturnTrip) {
+        block(row).departureReturnTrip[row & BLOCK_MASK] = toShort(departureInMinutesReturnTrip, "Departure of return trip");
+    }
+
+    public int getActivityDurationInMinutes(int row) {
+        return block(row).activityDuration[row & BLOCK_MASK];
+    }
+
+    public void setActivityDurationInMinutes(int row, int activityDurationInMinutes) {
+        block(row).activityDuration[row & BLOCK_MASK] = toShort(activityDurationInMinutes, "Activity duration");
+    }
+
+    /**
+     * Returns the day of the trip, or -1 if not set. The meaning of the value is up to the model extension that
+     * sets it, e.g. the ordinal of the day of the week in multi-day models.
+     */
+    public int getDay(int row) {
+        return block(row).day[row & BLOCK_MASK];
+    }
+
+    public void setDay(int row, int day) {
+        if (day < NONE || day > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Day " + day + " cannot be stored in the trip table");
+        }
+        block(row).day[row & BLOCK_MASK] = (byte) day;
+    }
+
+    /**
+     * MATSim persons are only attached to trips when writing plans, so this column is allocated per block on first
+     * use.
+     */
+    public Person getMatsimPerson(int row) {
+        final Person[] matsimPersons = block(row).matsimPerson;
+        return matsimPersons == null ? null : matsimPersons[row & BLOCK_MASK];
+    }
+
+    public void setMatsimPerson(int row, Person matsimPerson) {
+        final Block block = block(row);
+        synchronized (block) {
+            if (block.matsimPerson == null) {
+                if (matsimPerson == null) {
+                    return;
+                }
+                block.matsimPerson = new Person[BLOCK_SIZE];
+            }
+        }
+        block.matsimPerson[row & BLOCK_MASK] = matsimPerson;
+    }
+
+    private static short toShort(int minutes, String name) {
+        if (minutes < Short.MIN_VALUE || minutes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " of " + minutes + " minutes cannot be stored in the trip table");
+        }
+        return (short) minutes;
+    }
+
+    /**
+     * Assigns consecutive indices to distinct objects, compared by equals. Objects that are registered already are
+     * looked up without locking, so that threads setting locations of different trips do not contend.
+     * Lookups by index are not synchronized either. An index is only ever read after the write of the column that
+     * holds it, which publishes the registry entry as well.
+     */
+    private static final class Registry<T> {
+
+        private final ConcurrentHashMap<T, Integer> indices = new ConcurrentHashMap<>();
+        private volatile Object[] objects = new Object[64];
+        private int size;
+
+        private int index(T object) {
+            if (object == null) {
+                return NONE;
+            }
+            final Integer index = indices.get(object);
+            return index != null ? index : indices.computeIfAbsent(object, this::add);
+        }
+
+        private synchronized int add(T object) {
+            Object[] current = objects;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = object;
+            objects = current;
+            return size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int index) {
+            return index == NONE ? null : (T) objects[index];
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package de.tum.bgu.msm.data.travelDistances;
+
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+
+/**
+ * Travel distances backed by a read-only {@link FloatSkimMatrix}.
+ */
+public class FloatMatrixTravelDistances implements TravelDistances {
+
+    private final FloatSkimMatrix matrix;
+
+    public FloatMatrixTravelDistances(FloatSkimMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    @Override
+    public double getTravelDistance(int origin, int destination) {
+        return matrix.get(origin, destination);
+    }
+
+    public FloatSkimMatrix getMatrix() {
+        return matrix;
+    }
+}
@@ -0,0 +1,390 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+import de.tum.bgu.msm.data.Id;
+import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.io.input.AbstractOmxReader;
+import de.tum.bgu.msm.io.input.OmxSkimBatchReader;
+import de.tum.bgu.msm.io.input.readers.CsvGzSkimMatrixReader;
+import de.tum.bgu.msm.util.matrices.DenseIdIndex;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memory-saving alternative to {@link SkimTravelTimes}. Skims are stored as read-only {@link FloatSkimMatrix}
+ * instances with float precision, either on the heap or in direct memory, and zone ids are resolved by array
+ * lookups instead of hash maps. Since the matrices cannot be modified, {@link #duplicate()} shares them instead of
+ * creating deep copies.
+ */
+public class CompactSkimTravelTimes implements SkimBasedTravelTimes {
+
+    private final static Logger logger = LogManager.getLogger(CompactSkimTravelTimes.class);
+
+    private final boolean offHeap;
+
+    private final Map<String, FloatSkimMatrix> matricesByMode = new ConcurrentHashMap<>();
+    private final Map<String, TimeSlicedFloatSkim> timeSlicedSkimsByMode = new ConcurrentHashMap<>();
+
+    /**
+     * Counts reads and updates of skims, so that skim handles notice when to resolve their matrices again.
+     */
+    private final AtomicInteger skimVersion = new AtomicInteger();
+    private final Map<String, FloatSkimHandle> handlesByMode = new ConcurrentHashMap<>();
+
+    private final Map<String, IndexedDoubleMatrix2D> travelTimesFromRegion = new ConcurrentHashMap<>();
+    private final Map<String, IndexedDoubleMatrix2D> travelTimesToRegion = new ConcurrentHashMap<>();
+
+    /**
+     * @param offHeap whether skims are stored in direct memory outside of the java heap
+     */
+    public CompactSkimTravelTimes(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    public void readSkim(String mode, String file, String matrixName, double factor) {
+        logger.info("Reading {} skim ({}: {}) with float precision", mode, file, matrixName);
+        matricesByMode.put(mode, AbstractOmxReader.readCachedFloatMatrix(file, matrixName, factor, offHeap));
+        timeSlicedSkimsByMode.remove(mode);
+        skimVersion.incrementAndGet();
+        clearRegionalMatrices();
+    }
+
+    @Override
+    public void readSkims(OmxSkimBatchReader skims) {
+        logger.info("Reading {} skims with float precision", skims.size());
+        final Map<String, FloatSkimMatrix> matrices = skims.readFloatMatrices(offHeap);
+        matricesByMode.putAll(matrices);
+        matrices.keySet().forEach(timeSlicedSkimsByMode::remove);
+        skimVersion.incrementAndGet();
+        clearRegionalMatrices();
+    }
+
+    @Override
+    public void readSkimFromCsvGz(String mode, String file, double factor, Collection<? extends Id> zoneLookup) {
+        logger.info("Reading " + mode + " skim with float precision");
+        matricesByMode.put(mode, new CsvGzSkimMatrixReader().readAndConvertToFloatMatrix(file, factor, zoneLookup, offHeap));
+        timeSlicedSkimsByMode.remove(mode);
+        skimVersion.incrementAndGet();
+        clearRegionalMatrices();
+    }
+
+    /**
+     * Updates a skim matrix from an external source
+     * @param mode the mode for which the travel times are read
+     * @param skim the skim matrix with travel times in minutes
+     */
+    public void updateSkimMatrix(FloatSkimMatrix skim, String mode) {
+        matricesByMode.put(mode, skim);
+        timeSlicedSkimsByMode.remove(mode);
+        skimVersion.incrementAndGet();
+        logger.warn("The skim matrix for mode " + mode + " has been updated");
+        travelTimesFromRegion.remove(mode);
+        travelTimesToRegion.remove(mode);
+    }
+
+    /**
+     * Updates a skim matrix from an external source, converting it to float precision.
+     * @param skim the skim matrix with travel times in minutes
+     * @param mode the mode for which the travel times are updated
+     */
+    @Override
+    public void updateSkimMatrix(IndexedDoubleMatrix2D skim, String mode) {
+        updateSkimMatrix(FloatSkimMatrix.fromIndexedDoubleMatrix2D(skim, offHeap), mode);
+    }
+
+    /**
+     * Updates the skim matrices of a mode by time of day from an external source, converting every slice to float
+     * precision. The slice containing the peak hour serves as peak skim.
+     * @param skims the skim matrices with travel times in minutes by time slice
+     * @param mode the mode for which the travel times are updated
+     * @param peakHour_s the peak hour in seconds after midnight
+     */
+    @Override
+    public void updateSkimMatrices(TimeSlicedSkim skims, String mode, double peakHour_s) {
+        final FloatSkimMatrix[] matrices = new FloatSkimMatrix[skims.getNumberOfSlices()];
+        for (int slice = 0; slice < matrices.length; slice++) {
+            matrices[slice] = FloatSkimMatrix.fromIndexedDoubleMatrix2D(skims.getMatrix(slice), offHeap);
+        }
+        final TimeSlicedFloatSkim timeSlicedSkim = new TimeSlicedFloatSkim(skims.getSlices(), matrices);
+        matricesByMode.put(mode, timeSlicedSkim.getMatrix(peakHour_s));
+        timeSlicedSkimsByMode.put(mode, timeSlicedSkim);
+        skimVersion.incrementAndGet();
+        logger.warn("The skim matrices for mode " + mode + " have been updated for " + matrices.length + " time slices");
+        travelTimesFromRegion.remove(mode);
+        travelTimesToRegion.remove(mode);
+    }
+
+    private void clearRegionalMatrices() {
+        travelTimesFromRegion.clear();
+        travelTimesToRegion.clear();
+    }
+
+    public void updateRegionalTravelTimes(Collection<Region> regions, Collection<Zone> zones) {
+        logger.info("Updating minimal zone to region travel times...");
+        IndexedDoubleMatrix2D travelTimesFromRegionCar = new IndexedDoubleMatrix2D(regions, zones);
+        IndexedDoubleMatrix2D travelTimesToRegionCar = new IndexedDoubleMatrix2D(zones, regions);
+        IndexedDoubleMatrix2D travelTimesFromRegionPt = new IndexedDoubleMatrix2D(regions, zones);
+        IndexedDoubleMatrix2D travelTimesToRegionPt = new IndexedDoubleMatrix2D(zones, regions);
+
+        final FloatSkimMatrix carMatrix = matricesByMode.get(TransportMode.car);
+        final FloatSkimMatrix ptMatrix = matricesByMode.get(TransportMode.pt);
+
+        regions.parallelStream().forEach(r -> {
+            for (Zone zone : zones) {
+                int zoneId = zone.getZoneId();
+                double minFromCar = Double.MAX_VALUE;
+                double minToCar = Double.MAX_VALUE;
+                double minFromPt = Double.MAX_VALUE;
+                double minToPt = Double.MAX_VALUE;
+
+                for (Zone zoneInRegion : r.getZones()) {
+                    int regionZoneId = zoneInRegion.getZoneId();
+                    minFromCar = Math.min(minFromCar, carMatrix.get(regionZoneId, zoneId));
+                    minToCar = Math.min(minToCar, carMatrix.get(zoneId, regionZoneId));
+                    minFromPt = Math.min(minFromPt, ptMatrix.get(regionZoneId, zoneId));
+                    minToPt = Math.min(minToPt, ptMatrix.get(zoneId, regionZoneId));
+                }
+                travelTimesFromRegionCar.setIndexed(r.getId(), zoneId, minFromCar);
+                travelTimesToRegionCar.setIndexed(zoneId, r.getId(), minToCar);
+                travelTimesFromRegionPt.setIndexed(r.getId(), zoneId, minFromPt);
+                travelTimesToRegionPt.setIndexed(zoneId, r.getId(), minToPt);
+            }
+        });
+        travelTimesFromRegion.put(TransportMode.car, travelTimesFromRegionCar);
+        travelTimesFromRegion.put(TransportMode.pt, travelTimesFromRegionPt);
+        travelTimesToRegion.put(TransportMode.car, travelTimesToRegionCar);
+        travelTimesToRegion.put(TransportMode.pt, travelTimesToRegionPt);
+    }
+
+    @Override
+    public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+        return handlesByMode.computeIfAbsent(mode, m -> new FloatSkimHandle(m, Double.NaN))
+                .getTravelTime(origin.getZoneId(), destination.getZoneId(), timeOfDay_s);
+    }
+
+    @Override
+    public SkimHandle getSkimHandle(String mode, double timeOfDay_s) {
+        return new FloatSkimHandle(mode, timeOfDay_s);
+    }
+
+    @Override
+    public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+        IndexedDoubleMatrix2D matrix = travelTimesFromRegion.get(mode);
+        if (matrix == null) {
+            throw new RuntimeException("Travel time to regions not initialized. " +
+                    "Make sure to call updateZoneToRegionTravelTimes() first");
+        }
+        return matrix.getIndexed(origin.getId(), destination.getId());
+    }
+
+    @Override
+    public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+        IndexedDoubleMatrix2D matrix = travelTimesToRegion.get(mode);
+        if (matrix == null) {
+            throw new RuntimeException("Travel time to regions not initialized. " +
+                    "Make sure to call updateZoneToRegionTravelTimes() first");
+        }
+        return matrix.getIndexed(origin.getId(), destination.getId());
+    }
+
+    /**
+     * Returns a double precision copy of the skim for the given mode. Note that this allocates a full colt matrix
+     * on every call; use {@link #getFloatSkim(String)} for read access.
+     */
+    @Override
+    public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+        FloatSkimMatrix matrix = matricesByMode.get(mode);
+        return matrix == null ? null : matrix.toIndexedDoubleMatrix2D();
+    }
+
+    public FloatSkimMatrix getFloatSkim(String mode) {
+        return matricesByMode.get(mode);
+    }
+
+    /**
+     * Creates a duplicate that shares the read-only skims of this object. Updating a skim of either object
+     * replaces the matrix only in that object.
+     */
+    @Override
+    public TravelTimes duplicate() {
+        CompactSkimTravelTimes travelTimes = new CompactSkimTravelTimes(offHeap);
+        travelTimes.matricesByMode.putAll(matricesByMode);
+        travelTimes.timeSlicedSkimsByMode.putAll(timeSlicedSkimsByMode);
+        travelTimes.travelTimesFromRegion.putAll(travelTimesFromRegion);
+        travelTimes.travelTimesToRegion.putAll(travelTimesToRegion);
+        return travelTimes;
+    }
+
+    /**
+     * Handle on the skim of a mode at a time of day. The matrices are resolved again once skims were read or updated.
+     */
+    private final class FloatSkimHandle implements SkimHandle {
+
+        private final String mode;
+        private final double timeOfDay_s;
+        private volatile ResolvedSkim resolved;
+
+        private FloatSkimHandle(String mode, double timeOfDay_s) {
+            this.mode = mode;
+            this.timeOfDay_s = timeOfDay_s;
+            this.resolved = resolve();
+        }
+
+        @Override
+        public int getIndex(int zoneId) {
+            return current().getIndex(zoneId);
+        }
+
+        @Override
+        public double get(int originIndex, int destinationIndex) {
+            return current().get(originIndex, destinationIndex);
+        }
+
+        /**
+         * Returns the travel time in the slice of the given time of day for modes with skims by time of day, and in
+         * the skim of the handle otherwise.
+         */
+        private double getTravelTime(int originZoneId, int destinationZoneId, double timeOfDay_s) {
+            final ResolvedSkim current = current();
+            if (current.timeSlicedSkim != null && !Double.isNaN(timeOfDay_s)) {
+                return current.getInSlice(originZoneId, destinationZoneId, timeOfDay_s);
+            }
+            return current.get(current.getIndex(originZoneId), current.getIndex(destinationZoneId));
+        }
+
+        private ResolvedSkim current() {
+            ResolvedSkim current = resolved;
+            if (current.version != skimVersion.get()) {
+                current = resolve();
+                resolved = current;
+            }
+            return current;
+        }
+
+        private ResolvedSkim resolve() {
+            // the version is read first, so that an update during resolution leads to another resolution
+            final int version = skimVersion.get();
+            final TimeSlicedFloatSkim timeSlicedSkim = timeSlicedSkimsByMode.get(mode);
+            if (timeSlicedSkim != null) {
+                return Double.isNaN(timeOfDay_s) ?
+                        new ResolvedSkim(version, timeSlicedSkim, matricesByMode.get(mode)) :
+                        new ResolvedSkim(version, null, timeSlicedSkim.getMatrix(timeOfDay_s));
+            }
+            final FloatSkimMatrix matrix = matricesByMode.get(mode);
+            if (matrix != null) {
+                return new ResolvedSkim(version, null, matrix);
+            }
+            if (mode.equals("pt")) {
+                final FloatSkimMatrix bus = matricesByMode.get("bus");
+                final FloatSkimMatrix tramMetro = matricesByMode.get("tramMetro");
+                final FloatSkimMatrix train = matricesByMode.get("train");
+                if (bus == null || tramMetro == null || train == null) {
+                    throw new RuntimeException("define transit travel modes!!");
+                }
+                return new ResolvedSkim(version, null, bus, tramMetro, train);
+            }
+            throw new RuntimeException("Travel time for mode " + mode + " not found. Available modes: " + matricesByMode.keySet());
+        }
+    }
+
+    /**
+     * The matrices of a skim handle. Travel times of several matrices, i.e. of the transit submodes, are their minimum.
+     * The peak handle of a mode with skims by time of day also keeps the time sliced skim, so that travel times by time
+     * of day are looked up without resolving the mode again.
+     * <p>
+     * If all matrices have the same zones in the same order, zone indices are their array indices. Otherwise, e.g. for
+     * transit submodes read from omx files with differently ordered lookups, zone indices are the zone ids and every
+     * matrix looks up its own array indices.
+     */
+    private static final class ResolvedSkim {
+
+        private final int version;
+        private final TimeSlicedFloatSkim timeSlicedSkim;
+        private final boolean slicesShareIndex;
+        private final FloatSkimMatrix[] matrices;
+        private final DenseIdIndex index;
+
+        private ResolvedSkim(int version, TimeSlicedFloatSkim timeSlicedSkim, FloatSkimMatrix... matrices) {
+            this.version = version;
+            this.timeSlicedSkim = timeSlicedSkim;
+            this.matrices = matrices;
+            final int[] ids = matrices[0].getIndex().getIds();
+            boolean sameIndex = true;
+            for (FloatSkimMatrix matrix : matrices) {
+                sameIndex &= Arrays.equals(ids, matrix.getIndex().getIds());
+            }
+            this.index = sameIndex ? matrices[0].getIndex() : null;
+            boolean slicesShareIndex = sameIndex && timeSlicedSkim != null;
+            for (int slice = 0; slicesShareIndex && slice < timeSlicedSkim.matrices.length; slice++) {
+                slicesShareIndex = Arrays.equals(ids, timeSlicedSkim.matrices[slice].getIndex().getIds());
+            }
+            this.slicesShareIndex = slicesShareIndex;
+        }
+
+        /**
+         * Returns the travel time between the zones with the given ids in the slice of the given time of day.
+         */
+        private double getInSlice(int originZoneId, int destinationZoneId, double timeOfDay_s) {
+            final FloatSkimMatrix matrix = timeSlicedSkim.getMatrix(timeOfDay_s);
+            if (slicesShareIndex) {
+                return matrix.getByIndex(getIndex(originZoneId), getIndex(destinationZoneId));
+            }
+            return matrix.get(originZoneId, destinationZoneId);
+        }
+
+        private int getIndex(int zoneId) {
+            if (index == null) {
+                return zoneId;
+            }
+            final int zoneIndex = index.getIndex(zoneId);
+            if (zoneIndex < 0) {
+                throw new IllegalArgumentException("Zone " + zoneId + " is not part of the skim");
+            }
+            return zoneIndex;
+        }
+
+        private double get(int originIndex, int destinationIndex) {
+            if (index == null) {
+                double travelTime = matrices[0].get(originIndex, destinationIndex);
+                for (int i = 1; i < matrices.length; i++) {
+                    travelTime = Math.min(travelTime, matrices[i].get(originIndex, destinationIndex));
+                }
+                return travelTime;
+            }
+            double travelTime = matrices[0].getByIndex(originIndex, destinationIndex);
+            for (int i = 1; i < matrices.length; i++) {
+                travelTime = Math.min(travelTime, matrices[i].getByIndex(originIndex, destinationIndex));
+            }
+            return travelTime;
+        }
+    }
+
+    /**
+     * The float skims of a mode by time of day.
+     */
+    private static final class TimeSlicedFloatSkim {
+
+        private final TimeSlices slices;
+        private final FloatSkimMatrix[] matrices;
+
+        private TimeSlicedFloatSkim(TimeSlices slices, FloatSkimMatrix[] matrices) {
+            this.slices = slices;
+            this.matrices = matrices;
+        }
+
+        private FloatSkimMatrix getMatrix(double timeOfDay_s) {
+            return matrices[slices.getSliceIndex(timeOfDay_s)];
+        }
+    }
+}
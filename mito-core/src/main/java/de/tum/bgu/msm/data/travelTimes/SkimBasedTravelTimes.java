@@ -0,0 +1,66 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+import de.tum.bgu.msm.data.Id;
+import de.tum.bgu.msm.io.input.OmxSkimBatchReader;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+
+import java.util.Collection;
+
+/**
+ * Travel times that are read from zone-to-zone skim matrices, independent of how the matrices are stored.
+ */
+public interface SkimBasedTravelTimes extends TravelTimes {
+
+    /**
+     * Reads a skim matrix from an omx file and stores it for the given mode. To allow conversion between units
+     * use the factor to multiply all values.
+     * @param mode the mode for which the travel times are read
+     * @param file the path to the omx file
+     * @param matrixName the name of the matrix inside the omx file
+     * @param factor a scalar factor which every entry is multiplied with
+     */
+    void readSkim(String mode, String file, String matrixName, double factor);
+
+    /**
+     * Reads all skim matrices requested from the given batch and stores each for the mode it was requested under.
+     * Each omx file is opened only once, and the matrices are converted concurrently.
+     * @param skims the matrices to read, requested by mode
+     */
+    void readSkims(OmxSkimBatchReader skims);
+
+    /**
+     * Updates a skim matrix from an external source, e.g. the car skim after a traffic assignment. Implementations
+     * that store skims with a lower precision convert the matrix.
+     * @param skim the skim matrix with travel times in minutes
+     * @param mode the mode for which the travel times are updated
+     */
+    void updateSkimMatrix(IndexedDoubleMatrix2D skim, String mode);
+
+    /**
+     * Updates the skim matrices of a mode by time of day from an external source. Travel times are looked up in the
+     * slice of the given time of day. The slice containing the peak hour serves as peak skim, for regional travel
+     * times and for look ups without time of day (NaN).
+     * @param skims the skim matrices with travel times in minutes by time slice
+     * @param mode the mode for which the travel times are updated
+     * @param peakHour_s the peak hour in seconds after midnight
+     */
+    void updateSkimMatrices(TimeSlicedSkim skims, String mode, double peakHour_s);
+
+    /**
+     * Returns a handle on the skim that {@link #getTravelTime} uses for the given mode and time of day. Calculators
+     * that look up travel times for many trips resolve their handles once instead of passing the mode by name.
+     * @param timeOfDay_s the time of day in seconds, or NaN for the peak skim
+     * @throws RuntimeException if there is no skim for the mode
+     */
+    SkimHandle getSkimHandle(String mode, double timeOfDay_s);
+
+    /**
+     * Reads a skim matrix from an csv.gz file and stores it for the given mode. To allow conversion between units
+     * use the factor to multiply all values.
+     * @param mode the mode for which the travel times are read
+     * @param file the path to the file
+     * @param factor a scalar factor which every entry is multiplied with
+     * @param zoneLookup the zones the matrix is defined for
+     */
+    void readSkimFromCsvGz(String mode, String file, double factor, Collection<? extends Id> zoneLookup);
+}
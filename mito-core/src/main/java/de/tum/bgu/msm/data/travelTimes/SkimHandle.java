@@ -0,0 +1,31 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+/**
+ * The skim of one mode, resolved by name from {@link SkimBasedTravelTimes} once, e.g. when a calculator is set up.
+ * Travel times are then read by zone index without looking up the mode. Zone indices belong to the handle and are
+ * obtained with {@link #getIndex(int)}.
+ * <p>
+ * A handle follows updates of the skims it was resolved from, as long as the updated skims cover the same zones in
+ * the same order.
+ * Handles are thread safe.
+ */
+public interface SkimHandle {
+
+    /**
+     * Returns the index of the zone with the given id.
+     * @throws IllegalArgumentException if the skim does not cover the zone
+     */
+    int getIndex(int zoneId);
+
+    /**
+     * Returns the travel time in minutes between the zones with the given indices.
+     */
+    double get(int originIndex, int destinationIndex);
+
+    /**
+     * Returns the travel time in minutes between the zones with the given ids.
+     */
+    default double getByZoneIds(int originZoneId, int destinationZoneId) {
+        return get(getIndex(originZoneId), getIndex(destinationZoneId));
+    }
+}
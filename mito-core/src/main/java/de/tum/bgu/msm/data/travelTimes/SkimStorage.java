@@ -0,0 +1,84 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+import de.tum.bgu.msm.data.travelDistances.FloatMatrixTravelDistances;
+import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
+import de.tum.bgu.msm.data.travelDistances.TravelDistances;
+import de.tum.bgu.msm.io.input.AbstractOmxReader;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.matrices.BinarySkimCache;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Defines how skim matrices are kept in memory, configured by {@link Properties#SKIM_STORAGE}.
+ */
+public enum SkimStorage {
+
+    /**
+     * Double precision colt matrices ({@link SkimTravelTimes}, {@link MatrixTravelDistances})
+     */
+    COLT,
+    /**
+     * Float precision matrices on the java heap ({@link CompactSkimTravelTimes}, {@link FloatMatrixTravelDistances})
+     */
+    FLOAT,
+    /**
+     * Float precision matrices in direct memory outside of the java heap
+     */
+    FLOAT_OFF_HEAP;
+
+    private static final Logger logger = LogManager.getLogger(SkimStorage.class);
+
+    public static SkimStorage fromProperties() {
+        String value = Resources.instance.getString(Properties.SKIM_STORAGE);
+        return value == null ? COLT : SkimStorage.valueOf(value.trim().toUpperCase());
+    }
+
+    public SkimBasedTravelTimes createTravelTimes() {
+        switch (this) {
+            case FLOAT:
+                return new CompactSkimTravelTimes(false);
+            case FLOAT_OFF_HEAP:
+                return new CompactSkimTravelTimes(true);
+            default:
+                if (BinarySkimCache.fromProperties() != null) {
+                    logger.warn("The skim cache is not used for " + this + " skim storage, which keeps double precision. "
+                            + "Use " + FLOAT + " storage to read skims from the cache.");
+                }
+                return new SkimTravelTimes();
+        }
+    }
+
+    /**
+     * Reads a distance matrix from an omx file and wraps it according to this storage. Float storage uses the
+     * {@link BinarySkimCache} if one is configured.
+     */
+    public TravelDistances readTravelDistances(String file, String matrixName, double factor) {
+        switch (this) {
+            case FLOAT:
+                return new FloatMatrixTravelDistances(AbstractOmxReader.readCachedFloatMatrix(file, matrixName, factor, false));
+            case FLOAT_OFF_HEAP:
+                return new FloatMatrixTravelDistances(AbstractOmxReader.readCachedFloatMatrix(file, matrixName, factor, true));
+            default:
+                return new MatrixTravelDistances(AbstractOmxReader.readAndConvertToDoubleMatrix(file, matrixName, factor));
+        }
+    }
+
+    /**
+     * Wraps the given distance matrix according to this storage. For float storage the values are copied, so the
+     * given matrix can be garbage collected afterwards.
+     */
+    public TravelDistances createTravelDistances(IndexedDoubleMatrix2D matrix) {
+        switch (this) {
+            case FLOAT:
+                return new FloatMatrixTravelDistances(FloatSkimMatrix.fromIndexedDoubleMatrix2D(matrix, false));
+            case FLOAT_OFF_HEAP:
+                return new FloatMatrixTravelDistances(FloatSkimMatrix.fromIndexedDoubleMatrix2D(matrix, true));
+            default:
+                return new MatrixTravelDistances(matrix);
+        }
+    }
+}
@@ -4,14 +4,15 @@ import de.tum.bgu.msm.data.Id;
 import de.tum.bgu.msm.data.Location;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.io.input.AbstractOmxReader;
+import de.tum.bgu.msm.io.input.OmxSkimBatchReader;
 import de.tum.bgu.msm.io.input.readers.CsvGzSkimMatrixReader;
 import de.tum.bgu.msm.io.output.OmxMatrixWriter;
+import de.tum.bgu.msm.util.matrices.DenseIdIndex;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import de.tum.bgu.msm.util.matrices.Matrices;
 import omx.OmxFile;
 import omx.OmxLookup;
-import omx.OmxMatrix;
-import omx.hdf5.OmxHdf5Datatype;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.TransportMode;
@@ -19,12 +20,20 @@ import org.matsim.api.core.v01.TransportMode;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class SkimTravelTimes implements TravelTimes {
+public class SkimTravelTimes implements SkimBasedTravelTimes {
 
     private final static Logger logger = LogManager.getLogger(SkimTravelTimes.class);
 
     private final ConcurrentMap<String, IndexedDoubleMatrix2D> matricesByMode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TimeSlicedSkim> timeSlicedSkimsByMode = new ConcurrentHashMap<>();
+
+    /**
+     * Counts reads and updates of skims, so that skim handles notice when to resolve their matrices again.
+     */
+    private final AtomicInteger skimVersion = new AtomicInteger();
+    private final ConcurrentMap<String, MatrixSkimHandle> peakHandlesByMode = new ConcurrentHashMap<>();
 
     private Map<String, IndexedDoubleMatrix2D> travelTimesFromRegion = new HashMap<>();
     private final Map<String, IndexedDoubleMatrix2D> travelTimesToRegion = new HashMap<>();
@@ -37,42 +46,28 @@ public class SkimTravelTimes implements TravelTimes {
      * @param matrixName the name of the matrix inside the omx file
      * @param factor a scalar factor which every entry is multiplied with
      */
+    @Override
     public final void readSkim(final String mode, final String file, final String matrixName, final double factor) {
         logger.info("Reading {} skim ({}: {})", mode, file, matrixName);
         try (OmxFile omx = new OmxFile(file)) {
             omx.openReadOnly();
-            final Set<String> lookupNames = omx.getLookupNames();
-            OmxLookup<?, ?> lookup = null;
-            if (!lookupNames.isEmpty()) {
-                final Iterator<String> iterator = omx.getLookupNames().iterator();
-                final String next = iterator.next();
-                lookup = omx.getLookup(next);
-                if (!lookup.getOmxJavaType().equals(OmxHdf5Datatype.OmxJavaType.INT)) {
-                    throw new IllegalArgumentException("Provided omx matrix lookup " +
-                            "is not of type int but of type: " + lookup.getOmxJavaType().name() +
-                            " please use int.");
-                }
-                if (iterator.hasNext()) {
-                    logger.warn("More than one lookup was provided. Will use the first one (name: {})", next);
-                }
-            }
-
-            // Create matrix and immediately convert - don't hold references longer than necessary
-            final OmxMatrix<?, ?> timeOmxSkimTransit = omx.getMatrix(matrixName);
-            final IndexedDoubleMatrix2D skim = Matrices.convertOmxToDoubleMatrix2D(timeOmxSkimTransit, lookup, factor);
-
-            // Store the matrix result
-            matricesByMode.put(mode, skim);
-
-            // Clear regional matrices to free memory
+            final OmxLookup lookup = AbstractOmxReader.readLookup(omx);
+            matricesByMode.put(mode, Matrices.convertOmxToDoubleMatrix2D(omx.getMatrix(matrixName), lookup, factor));
+            timeSlicedSkimsByMode.remove(mode);
+            skimVersion.incrementAndGet();
             clearRegionalMatrices();
-
-        } finally {
-            // Force garbage collection
-            System.gc();
         }
     }
 
+    @Override
+    public final void readSkims(OmxSkimBatchReader skims) {
+        final Map<String, IndexedDoubleMatrix2D> matrices = skims.readDoubleMatrices();
+        matricesByMode.putAll(matrices);
+        matrices.keySet().forEach(timeSlicedSkimsByMode::remove);
+        skimVersion.incrementAndGet();
+        clearRegionalMatrices();
+    }
+
     /**
      * Clear regional matrices more aggressively to help with memory management
      */
@@ -92,10 +87,13 @@ public class SkimTravelTimes implements TravelTimes {
      * @param file the path to the file
      * @param factor a scalar factor which every entry is multiplied with
      */
+    @Override
     public final void readSkimFromCsvGz(final String mode, final String file, final double factor,Collection<? extends Id> zoneLookup) {
         logger.info("Reading " + mode + " skim");
-        IndexedDoubleMatrix2D skim = new CsvGzSkimMatrixReader().readAndConvertToDoubleMatrix2D(file, factor, zoneLookup);
+        final IndexedDoubleMatrix2D skim = new CsvGzSkimMatrixReader().readAndConvertToDoubleMatrix2D(file, factor, zoneLookup);
         matricesByMode.put(mode, skim);
+        timeSlicedSkimsByMode.remove(mode);
+        skimVersion.incrementAndGet();
         clearRegionalMatrices();
     }
 
@@ -158,37 +156,39 @@ public class SkimTravelTimes implements TravelTimes {
      * @param mode the mode for which the travel times are read
      * @param skim the skim matrix with travel times in minutes
      */
+    @Override
     public void updateSkimMatrix(IndexedDoubleMatrix2D skim, String mode){
         matricesByMode.put(mode, skim);
+        timeSlicedSkimsByMode.remove(mode);
+        skimVersion.incrementAndGet();
         logger.warn("The skim matrix for mode " + mode + " has been updated");
         travelTimesFromRegion.remove(mode);
         travelTimesToRegion.remove(mode);
     }
 
-    private double getMinimumPtTravelTime(int origin, int destination, double timeOfDay_s) {
-        // Cache matrix lookups to avoid repeated ConcurrentHashMap access
-        final IndexedDoubleMatrix2D busMatrix = matricesByMode.get("bus");
-        final IndexedDoubleMatrix2D tramMetroMatrix = matricesByMode.get("tramMetro");
-        final IndexedDoubleMatrix2D trainMatrix = matricesByMode.get("train");
-
-        double travelTime = Double.MAX_VALUE;
-
-        double busTime = busMatrix.getIndexed(origin, destination);
-        if (busTime < travelTime) {
-            travelTime = busTime;
-        }
-
-        double tramMetroTime = tramMetroMatrix.getIndexed(origin, destination);
-        if (tramMetroTime < travelTime) {
-            travelTime = tramMetroTime;
-        }
-
-        double trainTime = trainMatrix.getIndexed(origin, destination);
-        if (trainTime < travelTime) {
-            travelTime = trainTime;
-        }
+    /**
+     * Updates the skim matrices of a mode by time of day from an external source. Travel times are looked up in the
+     * slice of the given time of day. The slice containing the peak hour serves as peak skim, for regional travel
+     * times and for look ups without time of day (NaN).
+     * @param skims the skim matrices with travel times in minutes by time slice
+     * @param mode the mode for which the travel times are updated
+     * @param peakHour_s the peak hour in seconds after midnight
+     */
+    @Override
+    public void updateSkimMatrices(TimeSlicedSkim skims, String mode, double peakHour_s) {
+        matricesByMode.put(mode, skims.getMatrix(peakHour_s));
+        timeSlicedSkimsByMode.put(mode, skims);
+        skimVersion.incrementAndGet();
+        logger.warn("The skim matrices for mode " + mode + " have been updated for " + skims.getNumberOfSlices() + " time slices");
+        travelTimesFromRegion.remove(mode);
+        travelTimesToRegion.remove(mode);
+    }
 
-        return travelTime;
+    /**
+     * Returns the skim matrices of the mode by time of day, or null if the mode has a single skim only.
+     */
+    public TimeSlicedSkim getTimeSlicedSkim(String mode) {
+        return timeSlicedSkimsByMode.get(mode);
     }
 
     public void printOutCarSkim(String mode, String filePath, String matrixName) {
@@ -199,28 +199,14 @@ public class SkimTravelTimes implements TravelTimes {
 
 	@Override
 	public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
-		int originZone = origin.getZoneId();
-		int destinationZone = destination.getZoneId();
-	
-		// Currently, the time of day is not used here, but it could. E.g. if there are multiple matrices for
-		// different "time-of-day slices" the argument could be used to select the correct matrix, nk/dz, jan'18
-		if (mode.equals("pt")) {
-			if (matricesByMode.containsKey("pt")) {
-				return matricesByMode.get(mode).getIndexed(originZone, destinationZone);
-			} else if (matricesByMode.containsKey("bus") && matricesByMode.containsKey("tramMetro") && matricesByMode.containsKey("train")){
-				return getMinimumPtTravelTime(originZone, destinationZone, timeOfDay_s);
-			} else {
-				throw new RuntimeException("define transit travel modes!!");
-			}
-		} else {
-            IndexedDoubleMatrix2D matrix = matricesByMode.get(mode);
-            if (matrix == null) {
-                logger.warn("Travel time for mode {} not found. Available modes: {}", mode, matricesByMode.keySet());
-            }
-            assert matrix != null;
-            return matrix.getIndexed(originZone, destinationZone);
-		}
+		return peakHandlesByMode.computeIfAbsent(mode, m -> new MatrixSkimHandle(m, Double.NaN))
+				.getTravelTime(origin.getZoneId(), destination.getZoneId(), timeOfDay_s);
 	}
+
+    @Override
+    public SkimHandle getSkimHandle(String mode, double timeOfDay_s) {
+        return new MatrixSkimHandle(mode, timeOfDay_s);
+    }
 	
 	@Override
 	public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
@@ -248,8 +234,18 @@ public class SkimTravelTimes implements TravelTimes {
     @Override
     public TravelTimes duplicate() {
         SkimTravelTimes travelTimes = new SkimTravelTimes();
+        for(Map.Entry<String, TimeSlicedSkim> skims: this.timeSlicedSkimsByMode.entrySet()) {
+            final TimeSlicedSkim copy = skims.getValue().copy();
+            travelTimes.timeSlicedSkimsByMode.put(skims.getKey(), copy);
+            // the peak skim of the copy is the copy of the peak slice
+            for (int slice = 0; slice < copy.getNumberOfSlices(); slice++) {
+                if (skims.getValue().getMatrix(slice) == matricesByMode.get(skims.getKey())) {
+                    travelTimes.matricesByMode.put(skims.getKey(), copy.getMatrix(slice));
+                }
+            }
+        }
         for(Map.Entry<String, IndexedDoubleMatrix2D> skims: this.matricesByMode.entrySet()) {
-            travelTimes.matricesByMode.put(skims.getKey(), skims.getValue().copy());
+            travelTimes.matricesByMode.computeIfAbsent(skims.getKey(), mode -> skims.getValue().copy());
         }
         for(Map.Entry<String, IndexedDoubleMatrix2D> entry: travelTimesFromRegion.entrySet()) {
             travelTimes.travelTimesFromRegion.put(entry.getKey(), entry.getValue().copy());
@@ -264,5 +260,163 @@ public class SkimTravelTimes implements TravelTimes {
 	public IndexedDoubleMatrix2D getMatrixForMode(String mode) {
 			return matricesByMode.get(mode);
 	}
-}
 
+    /**
+     * Handle on the skim of a mode at a time of day. The matrices are resolved again once skims were read or updated.
+     */
+    private final class MatrixSkimHandle implements SkimHandle {
+
+        private final String mode;
+        private final double timeOfDay_s;
+        private volatile ResolvedSkim resolved;
+
+        private MatrixSkimHandle(String mode, double timeOfDay_s) {
+            this.mode = mode;
+            this.timeOfDay_s = timeOfDay_s;
+            this.resolved = resolve();
+        }
+
+        @Override
+        public int getIndex(int zoneId) {
+            return current().getIndex(zoneId);
+        }
+
+        @Override
+        public double get(int originIndex, int destinationIndex) {
+            return current().get(originIndex, destinationIndex);
+        }
+
+        /**
+         * Returns the travel time in the slice of the given time of day for modes with skims by time of day, and in
+         * the skim of the handle otherwise.
+         */
+        private double getTravelTime(int originZoneId, int destinationZoneId, double timeOfDay_s) {
+            final ResolvedSkim current = current();
+            if (current.timeSlicedSkim != null && !Double.isNaN(timeOfDay_s)) {
+                return current.getInSlice(originZoneId, destinationZoneId, timeOfDay_s);
+            }
+            return current.get(current.getIndex(originZoneId), current.getIndex(destinationZoneId));
+        }
+
+        private ResolvedSkim current() {
+            ResolvedSkim current = resolved;
+            if (current.version != skimVersion.get()) {
+                current = resolve();
+                resolved = current;
+            }
+            return current;
+        }
+
+        private ResolvedSkim resolve() {
+            // the version is read first, so that an update during resolution leads to another resolution
+            final int version = skimVersion.get();
+            final TimeSlicedSkim timeSlicedSkim = timeSlicedSkimsByMode.get(mode);
+            if (timeSlicedSkim != null) {
+                return Double.isNaN(timeOfDay_s) ?
+                        new ResolvedSkim(version, timeSlicedSkim, matricesByMode.get(mode)) :
+                        new ResolvedSkim(version, null, timeSlicedSkim.getMatrix(timeOfDay_s));
+            }
+            final IndexedDoubleMatrix2D matrix = matricesByMode.get(mode);
+            if (matrix != null) {
+                return new ResolvedSkim(version, null, matrix);
+            }
+            if (mode.equals("pt")) {
+                final IndexedDoubleMatrix2D bus = matricesByMode.get("bus");
+                final IndexedDoubleMatrix2D tramMetro = matricesByMode.get("tramMetro");
+                final IndexedDoubleMatrix2D train = matricesByMode.get("train");
+                if (bus == null || tramMetro == null || train == null) {
+                    throw new RuntimeException("define transit travel modes!!");
+                }
+                return new ResolvedSkim(version, null, bus, tramMetro, train);
+            }
+            throw new RuntimeException("Travel time for mode " + mode + " not found. Available modes: " + matricesByMode.keySet());
+        }
+    }
+
+    /**
+     * The matrices of a skim handle. Travel times of several matrices, i.e. of the transit submodes, are their minimum.
+     * The peak handle of a mode with skims by time of day also keeps the time sliced skim, so that travel times by time
+     * of day are looked up without resolving the mode again.
+     * <p>
+     * If all matrices have the same zones in the same order as rows and columns, zone indices are their internal
+     * indices. Otherwise, e.g. for transit submodes read from omx files with differently ordered lookups or for
+     * rectangular skims, zone indices are the zone ids and every matrix looks up its own internal indices.
+     */
+    private static final class ResolvedSkim {
+
+        private final int version;
+        private final TimeSlicedSkim timeSlicedSkim;
+        private final boolean slicesShareIndex;
+        private final IndexedDoubleMatrix2D[] matrices;
+        private final boolean byId;
+        private final DenseIdIndex index;
+
+        private ResolvedSkim(int version, TimeSlicedSkim timeSlicedSkim, IndexedDoubleMatrix2D... matrices) {
+            this.version = version;
+            this.timeSlicedSkim = timeSlicedSkim;
+            this.matrices = matrices;
+            final int[] lookup = matrices[0].getRowLookupArray();
+            boolean sameLookups = true;
+            for (IndexedDoubleMatrix2D matrix : matrices) {
+                sameLookups &= Arrays.equals(lookup, matrix.getRowLookupArray()) && Arrays.equals(lookup, matrix.getColumnLookupArray());
+            }
+            this.byId = !sameLookups;
+            DenseIdIndex index = null;
+            if (sameLookups) {
+                try {
+                    index = new DenseIdIndex(lookup);
+                } catch (IllegalArgumentException e) {
+                    // zone ids too sparse for an array, look them up in the hash map of the matrix
+                }
+            }
+            this.index = index;
+            boolean slicesShareIndex = sameLookups && timeSlicedSkim != null;
+            for (int slice = 0; slicesShareIndex && slice < timeSlicedSkim.getNumberOfSlices(); slice++) {
+                final IndexedDoubleMatrix2D matrix = timeSlicedSkim.getMatrix(slice);
+                slicesShareIndex = Arrays.equals(lookup, matrix.getRowLookupArray()) && Arrays.equals(lookup, matrix.getColumnLookupArray());
+            }
+            this.slicesShareIndex = slicesShareIndex;
+        }
+
+        /**
+         * Returns the travel time between the zones with the given ids in the slice of the given time of day.
+         */
+        private double getInSlice(int originZoneId, int destinationZoneId, double timeOfDay_s) {
+            final IndexedDoubleMatrix2D matrix = timeSlicedSkim.getMatrix(timeOfDay_s);
+            if (slicesShareIndex) {
+                return matrix.getByInternalIndex(getIndex(originZoneId), getIndex(destinationZoneId));
+            }
+            return matrix.getIndexed(originZoneId, destinationZoneId);
+        }
+
+        private int getIndex(int zoneId) {
+            if (byId) {
+                return zoneId;
+            }
+            if (index == null) {
+                return matrices[0].getInternalRowIndexForId(zoneId);
+            }
+            final int zoneIndex = index.getIndex(zoneId);
+            if (zoneIndex < 0) {
+                throw new IllegalArgumentException("Zone " + zoneId + " is not part of the skim");
+            }
+            return zoneIndex;
+        }
+
+        private double get(int originIndex, int destinationIndex) {
+            if (matrices.length == 1) {
+                return byId ? matrices[0].getIndexed(originIndex, destinationIndex) :
+                        matrices[0].getByInternalIndex(originIndex, destinationIndex);
+            }
+            double travelTime = Double.MAX_VALUE;
+            for (IndexedDoubleMatrix2D matrix : matrices) {
+                final double time = byId ? matrix.getIndexed(originIndex, destinationIndex) :
+                        matrix.getByInternalIndex(originIndex, destinationIndex);
+                if (time < travelTime) {
+                    travelTime = time;
+                }
+            }
+            return travelTime;
+        }
+    }
+}
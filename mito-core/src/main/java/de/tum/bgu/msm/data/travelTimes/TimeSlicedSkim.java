@@ -0,0 +1,78 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+
+/**
+ * Skim matrices of one mode for consecutive time slices of a day, e.g. hourly or AM/IP/PM/OP. A slice lasts from its
+ * start until the start of the next slice; the last slice lasts until the start of the first slice on the next day.
+ * Times of day are taken modulo 24 hours. The slice for a time is looked up in a table by minute of the day, so
+ * slices should start at full minutes.
+ */
+public final class TimeSlicedSkim {
+
+    private final TimeSlices slices;
+    private final IndexedDoubleMatrix2D[] matrices;
+
+    /**
+     * @param sliceStarts_s the start of each slice in seconds after midnight, ascending and below 24 hours
+     * @param matrices the skim matrix of each slice
+     */
+    public TimeSlicedSkim(int[] sliceStarts_s, IndexedDoubleMatrix2D[] matrices) {
+        if (sliceStarts_s.length == 0 || sliceStarts_s.length != matrices.length) {
+            throw new IllegalArgumentException("Need one matrix for each of at least one time slice but got "
+                    + sliceStarts_s.length + " slices and " + matrices.length + " matrices");
+        }
+        this.slices = new TimeSlices(sliceStarts_s);
+        this.matrices = matrices.clone();
+    }
+
+    private TimeSlicedSkim(TimeSlices slices, IndexedDoubleMatrix2D[] matrices) {
+        this.slices = slices;
+        this.matrices = matrices;
+    }
+
+    /**
+     * Returns the index of the slice that contains the given time of day in seconds.
+     */
+    public int getSliceIndex(double timeOfDay_s) {
+        return slices.getSliceIndex(timeOfDay_s);
+    }
+
+    /**
+     * Returns the skim matrix of the slice that contains the given time of day in seconds.
+     */
+    public IndexedDoubleMatrix2D getMatrix(double timeOfDay_s) {
+        return matrices[slices.getSliceIndex(timeOfDay_s)];
+    }
+
+    public IndexedDoubleMatrix2D getMatrix(int slice) {
+        return matrices[slice];
+    }
+
+    public int getNumberOfSlices() {
+        return matrices.length;
+    }
+
+    public int getSliceStart_s(int slice) {
+        return slices.getSliceStart_s(slice);
+    }
+
+    /**
+     * Returns the middle of the given slice in seconds after midnight, within 0 and 24 hours.
+     */
+    public double getSliceMiddle_s(int slice) {
+        return slices.getSliceMiddle_s(slice);
+    }
+
+    TimeSlices getSlices() {
+        return slices;
+    }
+
+    public TimeSlicedSkim copy() {
+        final IndexedDoubleMatrix2D[] copies = new IndexedDoubleMatrix2D[matrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            copies[i] = matrices[i].copy();
+        }
+        return new TimeSlicedSkim(slices, copies);
+    }
+}
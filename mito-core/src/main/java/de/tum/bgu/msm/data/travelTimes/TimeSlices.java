@@ -0,0 +1,69 @@
+package de.tum.bgu.msm.data.travelTimes;
+
+import java.util.Arrays;
+
+/**
+ * The time slices of a {@link TimeSlicedSkim}, with the table that looks up the slice by minute of the day. Shared
+ * with the float skims of {@link CompactSkimTravelTimes}, which keep the slices but not the double matrices.
+ */
+final class TimeSlices {
+
+    private static final int SECONDS_PER_DAY = 24 * 3600;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int[] sliceStarts_s;
+    private final int[] sliceByMinute = new int[MINUTES_PER_DAY];
+
+    /**
+     * @param sliceStarts_s the start of each slice in seconds after midnight, ascending and below 24 hours
+     */
+    TimeSlices(int[] sliceStarts_s) {
+        if (sliceStarts_s.length == 0) {
+            throw new IllegalArgumentException("Need at least one time slice");
+        }
+        for (int i = 0; i < sliceStarts_s.length; i++) {
+            if (sliceStarts_s[i] < 0 || sliceStarts_s[i] >= SECONDS_PER_DAY || (i > 0 && sliceStarts_s[i] <= sliceStarts_s[i - 1])) {
+                throw new IllegalArgumentException("Time slices must start in ascending order within a day: "
+                        + Arrays.toString(sliceStarts_s));
+            }
+        }
+        this.sliceStarts_s = sliceStarts_s.clone();
+        // until the first slice starts, the last slice of the previous day continues
+        int slice = sliceStarts_s.length - 1;
+        int next = 0;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            while (next < sliceStarts_s.length && sliceStarts_s[next] <= minute * 60) {
+                slice = next++;
+            }
+            sliceByMinute[minute] = slice;
+        }
+    }
+
+    /**
+     * Returns the index of the slice that contains the given time of day in seconds.
+     */
+    int getSliceIndex(double timeOfDay_s) {
+        int minute = (int) Math.floor(timeOfDay_s / 60.) % MINUTES_PER_DAY;
+        if (minute < 0) {
+            minute += MINUTES_PER_DAY;
+        }
+        return sliceByMinute[minute];
+    }
+
+    int getNumberOfSlices() {
+        return sliceStarts_s.length;
+    }
+
+    int getSliceStart_s(int slice) {
+        return sliceStarts_s[slice];
+    }
+
+    /**
+     * Returns the middle of the given slice in seconds after midnight. The last slice ends when the first slice
+     * starts on the next day, so its middle may fall after midnight and is then wrapped into the day.
+     */
+    double getSliceMiddle_s(int slice) {
+        final int end_s = slice + 1 < sliceStarts_s.length ? sliceStarts_s[slice + 1] : sliceStarts_s[0] + SECONDS_PER_DAY;
+        return ((sliceStarts_s[slice] + end_s) / 2.) % SECONDS_PER_DAY;
+    }
+}
@@ -1,6 +1,8 @@
 package de.tum.bgu.msm.io.input;
 
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.util.matrices.BinarySkimCache;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import de.tum.bgu.msm.util.matrices.Matrices;
 import omx.OmxFile;
@@ -26,6 +28,42 @@ public abstract class AbstractOmxReader extends AbstractInputReader{
     public static IndexedDoubleMatrix2D readAndConvertToDoubleMatrix(String fileName, String matrixName, double factor) {
         OmxFile omx = new OmxFile(fileName);
         omx.openReadOnly();
+        OmxLookup lookup = readLookup(omx);
+        IndexedDoubleMatrix2D matrix = Matrices.convertOmxToDoubleMatrix2D(omx.getMatrix(matrixName), lookup, factor);
+        omx.close();
+        return matrix;
+    }
+
+    /**
+     * Reads a matrix from an omx file into a read-only float matrix. Values are multiplied with the given factor.
+     * @param offHeap whether to store the values in direct memory outside of the java heap
+     */
+    public static FloatSkimMatrix readAndConvertToFloatMatrix(String fileName, String matrixName, double factor, boolean offHeap) {
+        try (OmxFile omx = new OmxFile(fileName)) {
+            omx.openReadOnly();
+            OmxLookup lookup = readLookup(omx);
+            return Matrices.convertOmxToFloatSkimMatrix(omx.getMatrix(matrixName), lookup, factor, offHeap);
+        }
+    }
+
+    /**
+     * Same as {@link #readAndConvertToFloatMatrix(String, String, double, boolean)}, but maps the matrix from the
+     * {@link BinarySkimCache} if one is configured. In that case the matrix is backed by the mapped cache file
+     * and offHeap has no effect.
+     */
+    public static FloatSkimMatrix readCachedFloatMatrix(String fileName, String matrixName, double factor, boolean offHeap) {
+        final BinarySkimCache cache = BinarySkimCache.fromProperties();
+        if (cache == null) {
+            return readAndConvertToFloatMatrix(fileName, matrixName, factor, offHeap);
+        }
+        return cache.getOrCreate(fileName, matrixName, factor,
+                () -> readAndConvertToFloatMatrix(fileName, matrixName, factor, false));
+    }
+
+    /**
+     * Returns the first (int) lookup of the given omx file or null if the file does not define any lookup.
+     */
+    public static OmxLookup readLookup(OmxFile omx) {
         final Set<String> lookupNames = omx.getLookupNames();
         OmxLookup lookup = null;
         if(!lookupNames.isEmpty()) {
@@ -41,8 +79,6 @@ public abstract class AbstractOmxReader extends AbstractInputReader{
                 logger.warn("More than one lookup was provided. Will use the first one (name: " + next + ")");
             }
         }
-        IndexedDoubleMatrix2D matrix = Matrices.convertOmxToDoubleMatrix2D(omx.getMatrix(matrixName), lookup, factor);
-        omx.close();
-        return matrix;
+        return lookup;
     }
 }
@@ -0,0 +1,381 @@
+package de.tum.bgu.msm.io.input;
+
+import de.tum.bgu.msm.io.output.ColumnarFileFormat;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.Encoding;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Reads files in the {@link ColumnarFileFormat}. Only the chunks of the requested columns are read from disk, either
+ * row group by row group or for the whole file at once. Row group statistics allow skipping row groups without
+ * reading them.
+ * <p>
+ * Readers are not thread safe.
+ */
+public final class ColumnarFileReader implements Closeable {
+
+    private final String fileName;
+    private final RandomAccessFile file;
+    private final List<String> columnNames = new ArrayList<>();
+    private final Map<String, Integer> columnIndices = new HashMap<>();
+    private final List<ColumnType> types = new ArrayList<>();
+    private final List<Encoding> encodings = new ArrayList<>();
+    private final int[] rowGroupSizes;
+    private final long[][] chunkPositions;
+    private final int[][] chunkLengths;
+    private final ColumnStatistics[][] statistics;
+    private final long rows;
+
+    public ColumnarFileReader(String fileName) {
+        this.fileName = fileName;
+        try {
+            file = new RandomAccessFile(fileName, "r");
+            final int tailLength = Long.BYTES + ColumnarFileFormat.MAGIC.length;
+            if (file.length() < ColumnarFileFormat.MAGIC.length + tailLength) {
+                throw new RuntimeException(fileName + " is not a columnar micro data file");
+            }
+            final byte[] magic = new byte[ColumnarFileFormat.MAGIC.length];
+            file.readFully(magic);
+            file.seek(file.length() - tailLength);
+            final long footerPosition = file.readLong();
+            final byte[] endMagic = new byte[ColumnarFileFormat.MAGIC.length];
+            file.readFully(endMagic);
+            if (!Arrays.equals(magic, ColumnarFileFormat.MAGIC) || !Arrays.equals(endMagic, ColumnarFileFormat.MAGIC)) {
+                throw new RuntimeException(fileName + " is not a columnar micro data file");
+            }
+            final DataInputStream footer = new DataInputStream(new ByteArrayInputStream(
+                    readBytes(footerPosition, (int) (file.length() - tailLength - footerPosition))));
+
+            final int numberOfColumns = (int) ColumnarFileFormat.readVarLong(footer);
+            for (int i = 0; i < numberOfColumns; i++) {
+                final String name = footer.readUTF();
+                columnIndices.put(name, i);
+                columnNames.add(name);
+                types.add(ColumnType.values()[footer.readByte()]);
+                encodings.add(Encoding.values()[footer.readByte()]);
+            }
+            final int numberOfRowGroups = (int) ColumnarFileFormat.readVarLong(footer);
+            rowGroupSizes = new int[numberOfRowGroups];
+            chunkPositions = new long[numberOfRowGroups][numberOfColumns];
+            chunkLengths = new int[numberOfRowGroups][numberOfColumns];
+            statistics = new ColumnStatistics[numberOfRowGroups][numberOfColumns];
+            long rows = 0;
+            for (int group = 0; group < numberOfRowGroups; group++) {
+                rowGroupSizes[group] = (int) ColumnarFileFormat.readVarLong(footer);
+                rows += rowGroupSizes[group];
+                for (int column = 0; column < numberOfColumns; column++) {
+                    chunkPositions[group][column] = footer.readLong();
+                    chunkLengths[group][column] = footer.readInt();
+                    statistics[group][column] = readStatistics(footer, types.get(column), rowGroupSizes[group]);
+                }
+            }
+            this.rows = rows;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read " + fileName, e);
+        }
+    }
+
+    private static ColumnStatistics readStatistics(DataInput in, ColumnType type, int rows) throws IOException {
+        final int nullCount = (int) ColumnarFileFormat.readVarLong(in);
+        if (type == ColumnType.STRING) {
+            return new ColumnStatistics(type, nullCount, Double.NaN, Double.NaN, 0, 0, (int) ColumnarFileFormat.readVarLong(in));
+        } else if (nullCount == rows) {
+            return new ColumnStatistics(type, nullCount, Double.NaN, Double.NaN, 0, 0, -1);
+        } else if (type == ColumnType.DOUBLE) {
+            return new ColumnStatistics(type, nullCount, in.readDouble(), in.readDouble(), 0, 0, -1);
+        } else {
+            final long min = ColumnarFileFormat.readVarLong(in);
+            final long max = ColumnarFileFormat.readVarLong(in);
+            return new ColumnStatistics(type, nullCount, min, max, min, max, -1);
+        }
+    }
+
+    private byte[] readBytes(long position, int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        file.seek(position);
+        file.readFully(bytes);
+        return bytes;
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames);
+    }
+
+    public boolean hasColumn(String column) {
+        return columnIndices.containsKey(column);
+    }
+
+    public ColumnType getColumnType(String column) {
+        return types.get(index(column));
+    }
+
+    public long getNumberOfRows() {
+        return rows;
+    }
+
+    public int getNumberOfRowGroups() {
+        return rowGroupSizes.length;
+    }
+
+    public int getRowGroupSize(int rowGroup) {
+        return rowGroupSizes[rowGroup];
+    }
+
+    public ColumnStatistics getStatistics(int rowGroup, String column) {
+        return statistics[rowGroup][index(column)];
+    }
+
+    private int index(String column) {
+        final Integer index = columnIndices.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Column " + column + " does not exist in " + fileName);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the rows of a row group that are null in the given column.
+     */
+    public boolean[] readNulls(String column, int rowGroup) {
+        return decode(column, rowGroup, null).nulls;
+    }
+
+    /**
+     * Reads a column of type INT of a row group. Null rows get the given null value.
+     */
+    public int[] readInts(String column, int rowGroup, int nullValue) {
+        final long[] longs = readLongs(column, rowGroup, nullValue, ColumnType.INT);
+        final int[] values = new int[longs.length];
+        for (int i = 0; i < longs.length; i++) {
+            values[i] = (int) longs[i];
+        }
+        return values;
+    }
+
+    /**
+     * Reads a column of type LONG of a row group. Null rows get the given null value.
+     */
+    public long[] readLongs(String column, int rowGroup, long nullValue) {
+        return readLongs(column, rowGroup, nullValue, ColumnType.LONG);
+    }
+
+    private long[] readLongs(String column, int rowGroup, long nullValue, ColumnType type) {
+        final Chunk chunk = decode(column, rowGroup, type);
+        for (int i = 0; i < chunk.nulls.length; i++) {
+            if (chunk.nulls[i]) {
+                chunk.longs[i] = nullValue;
+            }
+        }
+        return chunk.longs;
+    }
+
+    /**
+     * Reads a column of type DOUBLE of a row group. Null rows are NaN.
+     */
+    public double[] readDoubles(String column, int rowGroup) {
+        return decode(column, rowGroup, ColumnType.DOUBLE).doubles;
+    }
+
+    /**
+     * Reads a column of type STRING of a row group. Null rows are null. Equal values of a row group share the same
+     * string instance.
+     */
+    public String[] readStrings(String column, int rowGroup) {
+        return decode(column, rowGroup, ColumnType.STRING).strings;
+    }
+
+    public int[] readInts(String column, int nullValue) {
+        final int[] values = new int[totalRows()];
+        int offset = 0;
+        for (int group = 0; group < rowGroupSizes.length; group++) {
+            System.arraycopy(readInts(column, group, nullValue), 0, values, offset, rowGroupSizes[group]);
+            offset += rowGroupSizes[group];
+        }
+        return values;
+    }
+
+    public long[] readLongs(String column, long nullValue) {
+        final long[] values = new long[totalRows()];
+        int offset = 0;
+        for (int group = 0; group < rowGroupSizes.length; group++) {
+            System.arraycopy(readLongs(column, group, nullValue), 0, values, offset, rowGroupSizes[group]);
+            offset += rowGroupSizes[group];
+        }
+        return values;
+    }
+
+    public double[] readDoubles(String column) {
+        final double[] values = new double[totalRows()];
+        int offset = 0;
+        for (int group = 0; group < rowGroupSizes.length; group++) {
+            System.arraycopy(readDoubles(column, group), 0, values, offset, rowGroupSizes[group]);
+            offset += rowGroupSizes[group];
+        }
+        return values;
+    }
+
+    public String[] readStrings(String column) {
+        final String[] values = new String[totalRows()];
+        int offset = 0;
+        for (int group = 0; group < rowGroupSizes.length; group++) {
+            System.arraycopy(readStrings(column, group), 0, values, offset, rowGroupSizes[group]);
+            offset += rowGroupSizes[group];
+        }
+        return values;
+    }
+
+    private int totalRows() {
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalStateException(fileName + " has too many rows to read whole columns. Read by row group instead.");
+        }
+        return (int) rows;
+    }
+
+    private Chunk decode(String column, int rowGroup, ColumnType expectedType) {
+        final int index = index(column);
+        final ColumnType type = types.get(index);
+        if (expectedType != null && type != expectedType) {
+            throw new IllegalArgumentException("Column " + column + " is of type " + type + ", not " + expectedType);
+        }
+        final int rows = rowGroupSizes[rowGroup];
+        final Chunk chunk = new Chunk(rows);
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    readBytes(chunkPositions[rowGroup][index], chunkLengths[rowGroup][index])));
+            if (statistics[rowGroup][index].getNullCount() > 0) {
+                final byte[] bitmap = new byte[(rows + 7) / 8];
+                in.readFully(bitmap);
+                for (int i = 0; i < rows; i++) {
+                    chunk.nulls[i] = (bitmap[i >>> 3] & (1 << (i & 7))) != 0;
+                }
+            }
+            switch (type) {
+                case INT:
+                case LONG:
+                    chunk.longs = new long[rows];
+                    long previous = 0;
+                    for (int i = 0; i < rows; i++) {
+                        if (!chunk.nulls[i]) {
+                            final long value = ColumnarFileFormat.readVarLong(in);
+                            chunk.longs[i] = encodings.get(index) == Encoding.DELTA ? previous + value : value;
+                            previous = chunk.longs[i];
+                        }
+                    }
+                    break;
+                case DOUBLE:
+                    chunk.doubles = new double[rows];
+                    for (int i = 0; i < rows; i++) {
+                        chunk.doubles[i] = chunk.nulls[i] ? Double.NaN : in.readDouble();
+                    }
+                    break;
+                case STRING:
+                    final String[] dictionary = new String[(int) ColumnarFileFormat.readVarLong(in)];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = in.readUTF();
+                    }
+                    chunk.strings = new String[rows];
+                    for (int i = 0; i < rows; i++) {
+                        if (!chunk.nulls[i]) {
+                            chunk.strings[i] = dictionary[(int) ColumnarFileFormat.readVarLong(in)];
+                        }
+                    }
+                    break;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read column " + column + " from " + fileName, e);
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close " + fileName, e);
+        }
+    }
+
+    private static final class Chunk {
+        private final boolean[] nulls;
+        private long[] longs;
+        private double[] doubles;
+        private String[] strings;
+
+        private Chunk(int rows) {
+            nulls = new boolean[rows];
+        }
+    }
+
+    /**
+     * Statistics of a column in a row group. Minimum and maximum are NaN for strings and for columns without values.
+     * Minimum and maximum of INT and LONG columns are also kept exactly, as doubles cannot represent every long.
+     */
+    public static final class ColumnStatistics {
+
+        private final ColumnType type;
+        private final int nullCount;
+        private final double min;
+        private final double max;
+        private final long longMin;
+        private final long longMax;
+        private final int distinctValues;
+
+        private ColumnStatistics(ColumnType type, int nullCount, double min, double max, long longMin, long longMax,
+                                 int distinctValues) {
+            this.type = type;
+            this.nullCount = nullCount;
+            this.min = min;
+            this.max = max;
+            this.longMin = longMin;
+            this.longMax = longMax;
+            this.distinctValues = distinctValues;
+        }
+
+        public int getNullCount() {
+            return nullCount;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the exact minimum of an INT or LONG column with values.
+         */
+        public long getLongMin() {
+            checkLongValues();
+            return longMin;
+        }
+
+        /**
+         * Returns the exact maximum of an INT or LONG column with values.
+         */
+        public long getLongMax() {
+            checkLongValues();
+            return longMax;
+        }
+
+        private void checkLongValues() {
+            if (type != ColumnType.INT && type != ColumnType.LONG) {
+                throw new IllegalStateException("Column of type " + type + " has no long statistics");
+            }
+            if (Double.isNaN(min)) {
+                throw new IllegalStateException("Column has no values in the row group");
+            }
+        }
+
+        /**
+         * Returns the number of distinct values of a string column, or -1 for numbers.
+         */
+        public int getDistinctValues() {
+            return distinctValues;
+        }
+    }
+}
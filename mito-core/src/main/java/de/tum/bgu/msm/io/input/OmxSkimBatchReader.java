@@ -0,0 +1,287 @@
+package de.tum.bgu.msm.io.input;
+
+import de.tum.bgu.msm.util.matrices.BinarySkimCache;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import de.tum.bgu.msm.util.matrices.Matrices;
+import omx.OmxFile;
+import omx.OmxLookup;
+import omx.OmxMatrix;
+import omx.hdf5.OmxHdf5Datatype;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads a batch of skim matrices from omx files. Each file is opened once and its lookup is read once for all
+ * matrices requested from it. Matrices are read from the files one after another, as the HDF5 library must not be
+ * accessed concurrently, while the matrices already read are converted concurrently in blocks of rows on a bounded
+ * pool of threads. At most two matrices wait for conversion at a time to bound the memory of the raw omx data.
+ * <p>
+ * If a {@link BinarySkimCache} is configured, float matrices with a valid cache file are mapped from the cache.
+ * Only the others are read as a batch from the omx files and are then written to the cache.
+ */
+public final class OmxSkimBatchReader {
+
+    private static final Logger logger = LogManager.getLogger(OmxSkimBatchReader.class);
+
+    private static final int ROWS_PER_BLOCK = 256;
+    private static final int MAX_PENDING_MATRICES = 2;
+
+    private final int numberOfThreads;
+    private final Map<String, List<Request>> requestsByFile = new LinkedHashMap<>();
+    private final Set<String> names = new HashSet<>();
+
+    public OmxSkimBatchReader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public OmxSkimBatchReader(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive but is " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Requests a matrix of an omx file. Values are multiplied with the given factor.
+     * @param name the name under which the matrix is returned, e.g. the mode
+     */
+    public OmxSkimBatchReader add(String name, String file, String matrixName, double factor) {
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("Skim " + name + " was requested twice");
+        }
+        requestsByFile.computeIfAbsent(file, f -> new ArrayList<>()).add(new Request(name, file, matrixName, factor));
+        return this;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Reads all requested matrices.
+     * @return the matrices by requested name, in the order of request per file
+     */
+    public Map<String, IndexedDoubleMatrix2D> readDoubleMatrices() {
+        return read((lookup, rows) -> new DoubleTarget(Matrices.getZoneIds(lookup, rows)));
+    }
+
+    /**
+     * Reads all requested matrices into read-only float matrices.
+     * @param offHeap whether to store the values in direct memory outside of the java heap
+     * @return the matrices by requested name, in the order of request per file
+     */
+    public Map<String, FloatSkimMatrix> readFloatMatrices(boolean offHeap) {
+        final BinarySkimCache cache = BinarySkimCache.fromProperties();
+        if (cache == null) {
+            return readUncachedFloatMatrices(offHeap);
+        }
+        final Map<String, FloatSkimMatrix> matrices = new LinkedHashMap<>();
+        final OmxSkimBatchReader misses = new OmxSkimBatchReader(numberOfThreads);
+        for (Request request : requests()) {
+            final FloatSkimMatrix cached = cache.get(request.file, request.matrixName, request.factor);
+            matrices.put(request.name, cached);
+            if (cached == null) {
+                misses.add(request.name, request.file, request.matrixName, request.factor);
+            }
+        }
+        if (misses.size() > 0) {
+            // the values are copied into the cache file and mapped from there, so they stay on the heap until then
+            final Map<String, FloatSkimMatrix> read = misses.readUncachedFloatMatrices(false);
+            for (Request request : misses.requests()) {
+                matrices.put(request.name, cache.put(request.file, request.matrixName, request.factor, read.get(request.name)));
+            }
+        }
+        return matrices;
+    }
+
+    private Map<String, FloatSkimMatrix> readUncachedFloatMatrices(boolean offHeap) {
+        return read((lookup, rows) -> new FloatTarget(FloatSkimMatrix.builder(Matrices.getZoneIds(lookup, rows), offHeap)));
+    }
+
+    private List<Request> requests() {
+        final List<Request> requests = new ArrayList<>();
+        requestsByFile.values().forEach(requests::addAll);
+        return requests;
+    }
+
+    private <M> Map<String, M> read(TargetFactory<M> targetFactory) {
+        final long start = System.currentTimeMillis();
+        final int total = size();
+        final AtomicInteger converted = new AtomicInteger();
+        final Map<String, Future<M>> results = new LinkedHashMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        final Semaphore pendingMatrices = new Semaphore(MAX_PENDING_MATRICES);
+        try {
+            for (Map.Entry<String, List<Request>> file : requestsByFile.entrySet()) {
+                try (OmxFile omx = new OmxFile(file.getKey())) {
+                    omx.openReadOnly();
+                    final OmxLookup lookup = AbstractOmxReader.readLookup(omx);
+                    final int[] lookupArray = lookup == null ? null : (int[]) lookup.getLookup();
+                    for (Request request : file.getValue()) {
+                        pendingMatrices.acquire();
+                        final long readStart = System.currentTimeMillis();
+                        final OmxMatrix omxMatrix = omx.getMatrix(request.matrixName);
+                        final OmxHdf5Datatype.OmxJavaType type = omxMatrix.getOmxJavaType();
+                        if (!type.equals(OmxHdf5Datatype.OmxJavaType.DOUBLE) && !type.equals(OmxHdf5Datatype.OmxJavaType.FLOAT)) {
+                            throw new IllegalArgumentException("Omx matrix " + request.matrixName + " in " + request.file
+                                    + " is not a double or float matrix but is of type: " + type.name());
+                        }
+                        final Object data = omxMatrix.getData();
+                        final long readTime = System.currentTimeMillis() - readStart;
+                        final int rows = omxMatrix.getShape()[0];
+                        final Target<M> target = targetFactory.create(lookupArray, rows);
+                        results.put(request.name, convert(executor, request, data, rows, target, pendingMatrices, () ->
+                            logger.info("Read {} skim ({}: {}) in {} ms and converted it in {} ms ({}/{})", request.name,
+                                    request.file, request.matrixName, readTime,
+                                    System.currentTimeMillis() - readStart - readTime, converted.incrementAndGet(), total)));
+                    }
+                }
+            }
+            final Map<String, M> matrices = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<M>> result : results.entrySet()) {
+                matrices.put(result.getKey(), result.getValue().get());
+            }
+            logger.info("Read {} skims from {} omx files in {} seconds", total, requestsByFile.size(),
+                    (System.currentTimeMillis() - start) / 1000.);
+            return matrices;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Could not read skims", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the conversion of a matrix into blocks of rows. The returned future completes with the matrix once the
+     * last block is converted, which also releases the permit of the matrix.
+     */
+    private <M> Future<M> convert(ExecutorService executor, Request request, Object data, int rows, Target<M> target,
+                                  Semaphore pendingMatrices, Runnable onCompletion) {
+        final CompletableFuture<M> result = new CompletableFuture<>();
+        final int blocks = Math.max(1, (rows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK);
+        final AtomicInteger remainingBlocks = new AtomicInteger(blocks);
+        for (int block = 0; block < blocks; block++) {
+            final int fromRow = block * ROWS_PER_BLOCK;
+            final int toRow = Math.min(rows, fromRow + ROWS_PER_BLOCK);
+            executor.execute(() -> {
+                try {
+                    if (data instanceof double[][]) {
+                        target.setRows((double[][]) data, fromRow, toRow, request.factor);
+                    } else {
+                        target.setRows((float[][]) data, fromRow, toRow, request.factor);
+                    }
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    if (remainingBlocks.decrementAndGet() == 0) {
+                        pendingMatrices.release();
+                        if (!result.isDone()) {
+                            onCompletion.run();
+                            result.complete(target.finish());
+                        }
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private static final class Request {
+        private final String name;
+        private final String file;
+        private final String matrixName;
+        private final double factor;
+
+        private Request(String name, String file, String matrixName, double factor) {
+            this.name = name;
+            this.file = file;
+            this.matrixName = matrixName;
+            this.factor = factor;
+        }
+    }
+
+    private interface TargetFactory<M> {
+        /**
+         * @param lookup the zone ids of the omx file, or null if the file has no lookup
+         */
+        Target<M> create(int[] lookup, int rows);
+    }
+
+    /**
+     * A matrix under construction. Disjoint blocks of rows are set concurrently.
+     */
+    private interface Target<M> {
+        void setRows(double[][] data, int fromRow, int toRow, double factor);
+
+        void setRows(float[][] data, int fromRow, int toRow, double factor);
+
+        M finish();
+    }
+
+    private static final class DoubleTarget implements Target<IndexedDoubleMatrix2D> {
+
+        private final IndexedDoubleMatrix2D matrix;
+
+        private DoubleTarget(int[] lookup) {
+            matrix = new IndexedDoubleMatrix2D(lookup);
+        }
+
+        @Override
+        public void setRows(double[][] data, int fromRow, int toRow, double factor) {
+            for (int i = fromRow; i < toRow; i++) {
+                final double[] row = data[i];
+                for (int j = 0; j < row.length; j++) {
+                    matrix.setByInternalIndex(i, j, row[j] * factor);
+                }
+            }
+        }
+
+        @Override
+        public void setRows(float[][] data, int fromRow, int toRow, double factor) {
+            for (int i = fromRow; i < toRow; i++) {
+                final float[] row = data[i];
+                for (int j = 0; j < row.length; j++) {
+                    matrix.setByInternalIndex(i, j, row[j] * factor);
+                }
+            }
+        }
+
+        @Override
+        public IndexedDoubleMatrix2D finish() {
+            return matrix;
+        }
+    }
+
+    private static final class FloatTarget implements Target<FloatSkimMatrix> {
+
+        private final FloatSkimMatrix.Builder builder;
+
+        private FloatTarget(FloatSkimMatrix.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void setRows(double[][] data, int fromRow, int toRow, double factor) {
+            for (int i = fromRow; i < toRow; i++) {
+                builder.setRow(i, data[i], factor);
+            }
+        }
+
+        @Override
+        public void setRows(float[][] data, int fromRow, int toRow, double factor) {
+            for (int i = fromRow; i < toRow; i++) {
+                builder.setRow(i, data[i], factor);
+            }
+        }
+
+        @Override
+        public FloatSkimMatrix finish() {
+            return builder.build();
+        }
+    }
+}
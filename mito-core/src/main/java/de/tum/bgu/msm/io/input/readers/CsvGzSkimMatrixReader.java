@@ -2,6 +2,8 @@ package de.tum.bgu.msm.io.input.readers;
 
 import de.tum.bgu.msm.data.Id;
 import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.matrices.BinarySkimCache;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +17,9 @@ import java.util.List;
 import java.util.zip.GZIPInputStream;
 
 public class CsvGzSkimMatrixReader {
+
+    private static final String CACHE_MATRIX_NAME = "csv";
+
     private int positionOrigin;
 
     private int positionDestination;
@@ -30,10 +35,23 @@ public class CsvGzSkimMatrixReader {
         matrix = new IndexedDoubleMatrix2D(zoneLookup, zoneLookup);
         //the csv files do not include the cells without values. They need to set up to a very high number
         matrix.assign(Double.MAX_VALUE);
-        read(fileName, ",", factor);
+        read(fileName, ',', factor);
         return matrix;
     }
 
+    /**
+     * Reads the skim into a read-only float matrix. If a {@link BinarySkimCache} is configured, the matrix is
+     * mapped from the cache and the csv.gz file is only parsed if the cache is missing or outdated.
+     * @param offHeap whether to store the values in direct memory if the matrix is not backed by the cache
+     */
+    public FloatSkimMatrix readAndConvertToFloatMatrix(String fileName, double factor, Collection<? extends Id> zoneLookup, boolean offHeap) {
+        final BinarySkimCache cache = BinarySkimCache.fromProperties();
+        if (cache == null) {
+            return FloatSkimMatrix.fromIndexedDoubleMatrix2D(readAndConvertToDoubleMatrix2D(fileName, factor, zoneLookup), offHeap);
+        }
+        return cache.getOrCreate(fileName, CACHE_MATRIX_NAME, factor,
+                () -> FloatSkimMatrix.fromIndexedDoubleMatrix2D(readAndConvertToDoubleMatrix2D(fileName, factor, zoneLookup), false));
+    }
 
     private void processHeader(String[] header) {
         positionOrigin = MitoUtil.findPositionInArray("FROM", header);
@@ -41,10 +59,32 @@ public class CsvGzSkimMatrixReader {
         positionvalue = MitoUtil.findPositionInArray("VALUE", header);
     }
 
-    private void processRecord(String[] record, double factor) {
-        int origin = Integer.parseInt(record[positionOrigin]);
-        int destination = Integer.parseInt(record[positionDestination]);
-        double time = Double.parseDouble(record[positionvalue]) * factor;
+    /**
+     * Parses the record in place by scanning for delimiters instead of splitting it, which avoids creating
+     * an array and a string per field for the millions of records of a skim.
+     */
+    private void processRecord(String record, char delimiter, double factor) {
+        int origin = 0;
+        int destination = 0;
+        double time = 0;
+        int start = 0;
+        int column = 0;
+        final int length = record.length();
+        while (start <= length) {
+            int end = record.indexOf(delimiter, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (column == positionOrigin) {
+                origin = Integer.parseInt(record, start, end, 10);
+            } else if (column == positionDestination) {
+                destination = Integer.parseInt(record, start, end, 10);
+            } else if (column == positionvalue) {
+                time = Double.parseDouble(record.substring(start, end)) * factor;
+            }
+            start = end + 1;
+            column++;
+        }
 
         matrix.setIndexed(origin, destination, time);
 
@@ -52,13 +92,13 @@ public class CsvGzSkimMatrixReader {
 
     private IndexedDoubleMatrix2D matrix;
 
-    private void read(String filePath, String delimiter, double factor) {
-        initializeReader(filePath, delimiter);
+    private void read(String filePath, char delimiter, double factor) {
+        initializeReader(filePath, String.valueOf(delimiter));
         try {
             String record;
             while ((record = reader.readLine()) != null) {
                 numberOfRecords++;
-                processRecord(record.split(delimiter), factor);
+                processRecord(record, delimiter, factor);
             }
         } catch (IOException e) {
             logger.error("Error parsing record number " + numberOfRecords + ": " + e.getMessage(), e);
@@ -76,8 +116,8 @@ public class CsvGzSkimMatrixReader {
     private void initializeReader(String filePath, String delimiter) {
         try {
 
-            GZIPInputStream in = new GZIPInputStream(new FileInputStream(filePath));
-            reader = new BufferedReader(new InputStreamReader(in));
+            GZIPInputStream in = new GZIPInputStream(new FileInputStream(filePath), 1 << 16);
+            reader = new BufferedReader(new InputStreamReader(in), 1 << 16);
             processHeader(reader.readLine().split(delimiter));
         } catch (IOException e) {
             logger.error("Error initializing csv.gz reader: " + e.getMessage(), e);
@@ -1,12 +1,11 @@
 package de.tum.bgu.msm.io.input.readers;
 
 import de.tum.bgu.msm.data.DataSet;
-import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimBasedTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.AbstractOmxReader;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -26,19 +25,17 @@ public class OmxSkimsReader extends AbstractOmxReader implements SkimsReader {
     }
 
     public void readSkimDistancesAuto(){
-        IndexedDoubleMatrix2D distanceSkimAuto = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),"distanceByTime", 1. / 1000.);
-        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distanceSkimAuto));
+        dataSet.setTravelDistancesAuto(SkimStorage.fromProperties().readTravelDistances(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),"distanceByTime", 1. / 1000.));
     }
 
     public void readSkimDistancesNMT(){
-        IndexedDoubleMatrix2D distanceSkimNMT = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.NMT_TRAVEL_DISTANCE_SKIM).toString(),"distanceByDistance", 1. / 1000.);
-        dataSet.setTravelDistancesNMT(new MatrixTravelDistances(distanceSkimNMT));
+        dataSet.setTravelDistancesNMT(SkimStorage.fromProperties().readTravelDistances(Resources.instance.getRelativePath(Properties.NMT_TRAVEL_DISTANCE_SKIM).toString(),"distanceByDistance", 1. / 1000.));
     }
 
     public void readOnlyTransitTravelTimes(){
         //todo has to be probably in silo
-        SkimTravelTimes skimTravelTimes;
-        skimTravelTimes = (SkimTravelTimes) dataSet.getTravelTimes();
+        SkimBasedTravelTimes skimTravelTimes;
+        skimTravelTimes = (SkimBasedTravelTimes) dataSet.getTravelTimes();
         skimTravelTimes.readSkim("bus", Resources.instance.getRelativePath(Properties.BUS_TRAVEL_TIME_SKIM).toString(),
                 Resources.instance.getString(Properties.BUS_TRAVEL_TIME_SKIM_MATRIX), 1/60.);
         skimTravelTimes.readSkim("tramMetro", Resources.instance.getRelativePath(Properties.TRAM_METRO_TRAVEL_TIME_SKIM).toString(),
@@ -48,22 +45,20 @@ public class OmxSkimsReader extends AbstractOmxReader implements SkimsReader {
     }
 
     private void readTravelTimeSkims() {
-        ((SkimTravelTimes) dataSet.getTravelTimes()).readSkim("car", Resources.instance.getRelativePath(Properties.AUTO_PEAK_SKIM).toString(),
+        ((SkimBasedTravelTimes) dataSet.getTravelTimes()).readSkim("car", Resources.instance.getRelativePath(Properties.AUTO_PEAK_SKIM).toString(),
                 Resources.instance.getString(Properties.AUTO_PEAK_SKIM_MATRIX), 1/60.);
-        ((SkimTravelTimes) dataSet.getTravelTimes()).readSkim("bus", Resources.instance.getRelativePath(Properties.BUS_TRAVEL_TIME_SKIM).toString(),
+        ((SkimBasedTravelTimes) dataSet.getTravelTimes()).readSkim("bus", Resources.instance.getRelativePath(Properties.BUS_TRAVEL_TIME_SKIM).toString(),
                 Resources.instance.getString(Properties.BUS_TRAVEL_TIME_SKIM_MATRIX), 1/60.);
-        ((SkimTravelTimes) dataSet.getTravelTimes()).readSkim("tramMetro", Resources.instance.getRelativePath(Properties.TRAM_METRO_TRAVEL_TIME_SKIM).toString(),
+        ((SkimBasedTravelTimes) dataSet.getTravelTimes()).readSkim("tramMetro", Resources.instance.getRelativePath(Properties.TRAM_METRO_TRAVEL_TIME_SKIM).toString(),
                 Resources.instance.getString(Properties.TRAM_METRO_TRAVEL_TIME_SKIM_MATRIX), 1/60.);
-        ((SkimTravelTimes) dataSet.getTravelTimes()).readSkim("train", Resources.instance.getRelativePath(Properties.TRAIN_TRAVEL_TIME_SKIM).toString(),
+        ((SkimBasedTravelTimes) dataSet.getTravelTimes()).readSkim("train", Resources.instance.getRelativePath(Properties.TRAIN_TRAVEL_TIME_SKIM).toString(),
                 Resources.instance.getString(Properties.TRAIN_TRAVEL_TIME_SKIM_MATRIX), 1/60.);
     }
 
     private void readTravelDistances(){
-        IndexedDoubleMatrix2D distanceSkimAuto = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),
-                Resources.instance.getString(Properties.AUTO_TRAVEL_DISTANCE_SKIM_MATRIX), 1. / 1000.);
-        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distanceSkimAuto));
-        IndexedDoubleMatrix2D distanceSkimNMT = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.NMT_TRAVEL_DISTANCE_SKIM).toString(),
-                Resources.instance.getString(Properties.NMT_TRAVEL_DISTANCE_SKIM_MATRIX), 1. / 1000.);
-        dataSet.setTravelDistancesNMT(new MatrixTravelDistances(distanceSkimNMT));
+        dataSet.setTravelDistancesAuto(SkimStorage.fromProperties().readTravelDistances(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),
+                Resources.instance.getString(Properties.AUTO_TRAVEL_DISTANCE_SKIM_MATRIX), 1. / 1000.));
+        dataSet.setTravelDistancesNMT(SkimStorage.fromProperties().readTravelDistances(Resources.instance.getRelativePath(Properties.NMT_TRAVEL_DISTANCE_SKIM).toString(),
+                Resources.instance.getString(Properties.NMT_TRAVEL_DISTANCE_SKIM_MATRIX), 1. / 1000.));
     }
 }
@@ -0,0 +1,94 @@
+package de.tum.bgu.msm.io.output;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary column oriented file format for micro data, written by {@link ColumnarFileWriter} and read by
+ * {@link de.tum.bgu.msm.io.input.ColumnarFileReader}.
+ * <p>
+ * A file starts with {@link #MAGIC}, followed by row groups. A row group stores one chunk per column: a bitmap of
+ * null rows if the chunk has any, followed by the values of the rows that are not null in the encoding of the column.
+ * The footer at the end of the file holds the columns, and for every row group the number of rows and, per column,
+ * the position and length of the chunk and its statistics. The footer is followed by its position as a long and
+ * {@link #MAGIC} again, so readers can find it and read the chunks of the columns they need only.
+ * <p>
+ * Numbers are big endian as in {@link java.io.DataOutputStream}. Integer values are written as zig-zag variable
+ * length integers.
+ */
+public final class ColumnarFileFormat {
+
+    public static final String FILE_SUFFIX = ".mcol";
+    public static final byte[] MAGIC = "MITOCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    public enum ColumnType {
+        INT, LONG, DOUBLE, STRING
+    }
+
+    public enum Encoding {
+        /**
+         * Values as they are. Integers as variable length integers, doubles with eight bytes.
+         */
+        PLAIN,
+        /**
+         * Differences to the preceding value in the chunk as variable length integers. Meant for sorted ids.
+         */
+        DELTA,
+        /**
+         * Distinct values of the chunk followed by the index of the value of each row. Meant for strings with few
+         * distinct values such as purposes and modes.
+         */
+        DICTIONARY
+    }
+
+    private ColumnarFileFormat() {
+    }
+
+    /**
+     * Returns the name of the columnar file written next to the given csv file, e.g. trips.mcol for trips.csv.
+     */
+    public static String fileName(String csvFileName) {
+        final String name = csvFileName.endsWith(".csv") ? csvFileName.substring(0, csvFileName.length() - 4) : csvFileName;
+        return name + FILE_SUFFIX;
+    }
+
+    static boolean supports(ColumnType type, Encoding encoding) {
+        switch (type) {
+            case INT:
+            case LONG:
+                return encoding == Encoding.PLAIN || encoding == Encoding.DELTA;
+            case DOUBLE:
+                return encoding == Encoding.PLAIN;
+            case STRING:
+                return encoding == Encoding.DICTIONARY;
+            default:
+                return false;
+        }
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable length integer");
+            }
+            b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
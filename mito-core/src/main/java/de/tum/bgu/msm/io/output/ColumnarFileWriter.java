@@ -0,0 +1,321 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.Encoding;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes micro data in the {@link ColumnarFileFormat}. Columns are added before the first row. Rows are written by
+ * setting the values of their columns and calling {@link #endRow()}; columns without a value are null in that row.
+ * Rows are buffered until a row group is complete.
+ * <pre>
+ * try (ColumnarFileWriter writer = new ColumnarFileWriter("trips.mcol")) {
+ *     int id = writer.addColumn("t.id", ColumnType.INT, Encoding.DELTA);
+ *     int mode = writer.addColumn("mode", ColumnType.STRING, Encoding.DICTIONARY);
+ *     for (MitoTrip trip : trips) {
+ *         writer.setInt(id, trip.getId()).setString(mode, String.valueOf(trip.getTripMode())).endRow();
+ *     }
+ * }
+ * </pre>
+ */
+public final class ColumnarFileWriter implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ColumnarFileWriter.class);
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 1 << 16;
+
+    private final String fileName;
+    private final int rowGroupSize;
+    private final OutputStream out;
+    private final List<Column> columns = new ArrayList<>();
+    private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream chunk = new DataOutputStream(chunkBytes);
+    private final ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+    private final DataOutputStream footer = new DataOutputStream(footerBytes);
+
+    private long position;
+    private int rowsInGroup;
+    private int rowGroups;
+    private long rows;
+    private boolean closed;
+
+    public ColumnarFileWriter(String fileName) {
+        this(fileName, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    public ColumnarFileWriter(String fileName, int rowGroupSize) {
+        if (rowGroupSize < 1) {
+            throw new IllegalArgumentException("Row group size must be positive but is " + rowGroupSize);
+        }
+        this.fileName = fileName;
+        this.rowGroupSize = rowGroupSize;
+        final File file = new File(fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+            out.write(ColumnarFileFormat.MAGIC);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open " + fileName, e);
+        }
+        position = ColumnarFileFormat.MAGIC.length;
+    }
+
+    /**
+     * Adds a column and returns its index, which is used to set its values.
+     */
+    public int addColumn(String name, ColumnType type, Encoding encoding) {
+        if (rows > 0 || rowsInGroup > 0) {
+            throw new IllegalStateException("Columns must be added before the first row");
+        }
+        if (!ColumnarFileFormat.supports(type, encoding)) {
+            throw new IllegalArgumentException("Column " + name + " of type " + type + " cannot be encoded as " + encoding);
+        }
+        for (Column column : columns) {
+            if (column.name.equals(name)) {
+                throw new IllegalArgumentException("Column " + name + " was added twice");
+            }
+        }
+        columns.add(new Column(name, type, encoding, rowGroupSize));
+        return columns.size() - 1;
+    }
+
+    public ColumnarFileWriter setInt(int column, int value) {
+        return setLong(column, value, ColumnType.INT);
+    }
+
+    public ColumnarFileWriter setLong(int column, long value) {
+        return setLong(column, value, ColumnType.LONG);
+    }
+
+    private ColumnarFileWriter setLong(int index, long value, ColumnType type) {
+        final Column column = column(index, type);
+        column.longs[rowsInGroup] = value;
+        column.nulls[rowsInGroup] = false;
+        return this;
+    }
+
+    /**
+     * Sets a double value. NaN is stored as null.
+     */
+    public ColumnarFileWriter setDouble(int index, double value) {
+        final Column column = column(index, ColumnType.DOUBLE);
+        column.doubles[rowsInGroup] = value;
+        column.nulls[rowsInGroup] = Double.isNaN(value);
+        return this;
+    }
+
+    /**
+     * Sets a string value. Null strings are stored as null.
+     */
+    public ColumnarFileWriter setString(int index, String value) {
+        final Column column = column(index, ColumnType.STRING);
+        if (value == null) {
+            column.nulls[rowsInGroup] = true;
+        } else {
+            column.codes[rowsInGroup] = column.dictionary.computeIfAbsent(value, v -> column.dictionary.size());
+            column.nulls[rowsInGroup] = false;
+        }
+        return this;
+    }
+
+    private Column column(int index, ColumnType type) {
+        final Column column = columns.get(index);
+        if (column.type != type) {
+            throw new IllegalArgumentException("Column " + column.name + " is of type " + column.type + ", not " + type);
+        }
+        return column;
+    }
+
+    /**
+     * Completes the current row. Columns that were not set are null.
+     */
+    public void endRow() {
+        rowsInGroup++;
+        if (rowsInGroup == rowGroupSize) {
+            writeRowGroup();
+        }
+        for (Column column : columns) {
+            column.nulls[rowsInGroup] = true;
+        }
+    }
+
+    private void writeRowGroup() {
+        try {
+            ColumnarFileFormat.writeVarLong(footer, rowsInGroup);
+            for (Column column : columns) {
+                chunkBytes.reset();
+                column.writeChunk(chunk, rowsInGroup);
+                chunk.flush();
+                chunkBytes.writeTo(out);
+                footer.writeLong(position);
+                footer.writeInt(chunkBytes.size());
+                column.writeStatistics(footer, rowsInGroup);
+                position += chunkBytes.size();
+                column.dictionary.clear();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write " + fileName, e);
+        }
+        rows += rowsInGroup;
+        rowsInGroup = 0;
+        rowGroups++;
+    }
+
+    public long getNumberOfRows() {
+        return rows + rowsInGroup;
+    }
+
+    /**
+     * Writes the last row group and the footer.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (rowsInGroup > 0) {
+            writeRowGroup();
+        }
+        try {
+            final DataOutputStream tail = new DataOutputStream(out);
+            ColumnarFileFormat.writeVarLong(tail, columns.size());
+            for (Column column : columns) {
+                tail.writeUTF(column.name);
+                tail.writeByte(column.type.ordinal());
+                tail.writeByte(column.encoding.ordinal());
+            }
+            ColumnarFileFormat.writeVarLong(tail, rowGroups);
+            footer.flush();
+            footerBytes.writeTo(tail);
+            tail.writeLong(position);
+            tail.write(ColumnarFileFormat.MAGIC);
+            tail.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write " + fileName, e);
+        }
+        logger.info("  Wrote " + rows + " rows in " + rowGroups + " row groups to " + fileName);
+    }
+
+    private static final class Column {
+
+        private final String name;
+        private final ColumnType type;
+        private final Encoding encoding;
+        private final boolean[] nulls;
+        private final long[] longs;
+        private final double[] doubles;
+        private final int[] codes;
+        private final Map<String, Integer> dictionary;
+
+        private Column(String name, ColumnType type, Encoding encoding, int rowGroupSize) {
+            this.name = name;
+            this.type = type;
+            this.encoding = encoding;
+            this.nulls = new boolean[rowGroupSize];
+            Arrays.fill(nulls, true);
+            this.longs = type == ColumnType.INT || type == ColumnType.LONG ? new long[rowGroupSize] : null;
+            this.doubles = type == ColumnType.DOUBLE ? new double[rowGroupSize] : null;
+            this.codes = type == ColumnType.STRING ? new int[rowGroupSize] : null;
+            this.dictionary = new LinkedHashMap<>();
+        }
+
+        private int nullCount(int rows) {
+            int count = 0;
+            for (int i = 0; i < rows; i++) {
+                if (nulls[i]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void writeChunk(DataOutputStream out, int rows) throws IOException {
+            if (nullCount(rows) > 0) {
+                final byte[] bitmap = new byte[(rows + 7) / 8];
+                for (int i = 0; i < rows; i++) {
+                    if (nulls[i]) {
+                        bitmap[i >>> 3] |= 1 << (i & 7);
+                    }
+                }
+                out.write(bitmap);
+            }
+            switch (type) {
+                case INT:
+                case LONG:
+                    long previous = 0;
+                    for (int i = 0; i < rows; i++) {
+                        if (!nulls[i]) {
+                            if (encoding == Encoding.DELTA) {
+                                ColumnarFileFormat.writeVarLong(out, longs[i] - previous);
+                                previous = longs[i];
+                            } else {
+                                ColumnarFileFormat.writeVarLong(out, longs[i]);
+                            }
+                        }
+                    }
+                    break;
+                case DOUBLE:
+                    for (int i = 0; i < rows; i++) {
+                        if (!nulls[i]) {
+                            out.writeDouble(doubles[i]);
+                        }
+                    }
+                    break;
+                case STRING:
+                    ColumnarFileFormat.writeVarLong(out, dictionary.size());
+                    for (String value : dictionary.keySet()) {
+                        out.writeUTF(value);
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        if (!nulls[i]) {
+                            ColumnarFileFormat.writeVarLong(out, codes[i]);
+                        }
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * Writes the number of nulls and, for numbers, the minimum and maximum or, for strings, the number of
+         * distinct values.
+         */
+        private void writeStatistics(DataOutputStream out, int rows) throws IOException {
+            final int nullCount = nullCount(rows);
+            ColumnarFileFormat.writeVarLong(out, nullCount);
+            if (type == ColumnType.STRING) {
+                ColumnarFileFormat.writeVarLong(out, dictionary.size());
+            } else if (nullCount < rows) {
+                if (type == ColumnType.DOUBLE) {
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int i = 0; i < rows; i++) {
+                        if (!nulls[i]) {
+                            min = Math.min(min, doubles[i]);
+                            max = Math.max(max, doubles[i]);
+                        }
+                    }
+                    out.writeDouble(min);
+                    out.writeDouble(max);
+                } else {
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (int i = 0; i < rows; i++) {
+                        if (!nulls[i]) {
+                            min = Math.min(min, longs[i]);
+                            max = Math.max(max, longs[i]);
+                        }
+                    }
+                    ColumnarFileFormat.writeVarLong(out, min);
+                    ColumnarFileFormat.writeVarLong(out, max);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package de.tum.bgu.msm.io.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that CSV rows are formatted into. Integers are written digit by digit without creating
+ * strings, and doubles with an integral value below 10^7 as well. The text of every value is the same as
+ * printed by {@link java.io.PrintWriter}, so files do not change when writers move to this buffer.
+ * <p>
+ * Buffers are reused across chunks of rows and are not thread safe.
+ */
+public final class CsvRowBuffer {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final double MAX_INTEGRAL_FAST_PATH = 1e7;
+
+    private byte[] bytes;
+    private int size;
+
+    public CsvRowBuffer() {
+        this(1 << 16);
+    }
+
+    public CsvRowBuffer(int initialCapacity) {
+        bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+
+    /**
+     * Appends the column separator.
+     */
+    public CsvRowBuffer separator() {
+        ensureCapacity(1);
+        bytes[size++] = ',';
+        return this;
+    }
+
+    /**
+     * Ends the current row with the line separator of the platform, as {@link java.io.PrintWriter#println()}.
+     */
+    public CsvRowBuffer endRow() {
+        return append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    public CsvRowBuffer append(byte[] value, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(value, offset, bytes, size, length);
+        size += length;
+        return this;
+    }
+
+    public CsvRowBuffer append(String value) {
+        if (value == null) {
+            return append(NULL, 0, NULL.length);
+        }
+        final int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x80) {
+                // fall back to the encoder for the remaining non-ASCII text
+                final byte[] encoded = value.substring(i).getBytes(StandardCharsets.UTF_8);
+                return append(encoded, 0, encoded.length);
+            }
+            bytes[size++] = (byte) c;
+        }
+        return this;
+    }
+
+    public CsvRowBuffer append(Object value) {
+        return append(String.valueOf(value));
+    }
+
+    public CsvRowBuffer append(boolean value) {
+        return value ? append(TRUE, 0, TRUE.length) : append(FALSE, 0, FALSE.length);
+    }
+
+    public CsvRowBuffer append(int value) {
+        return append((long) value);
+    }
+
+    public CsvRowBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(MIN_LONG, 0, MIN_LONG.length);
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        final int digits = numberOfDigits(value);
+        int position = size + digits;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        size += digits;
+        return this;
+    }
+
+    /**
+     * Appends a double as {@link Double#toString(double)}. Integral values below 10^7, which that method prints
+     * without exponent, are written without creating a string.
+     */
+    public CsvRowBuffer append(double value) {
+        if (value == (long) value && Math.abs(value) < MAX_INTEGRAL_FAST_PATH
+                && (value != 0 || Double.doubleToRawLongBits(value) == 0)) {
+            append((long) value);
+            ensureCapacity(2);
+            bytes[size++] = '.';
+            bytes[size++] = '0';
+            return this;
+        }
+        return append(Double.toString(value));
+    }
+
+    private static int numberOfDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives direct access to the formatted bytes, which are valid from index 0 to {@link #size()}.
+     */
+    byte[] array() {
+        return bytes;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+}
@@ -17,17 +17,50 @@ import org.knowm.xchart.style.Styler;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class DistancePlots {
 
     private final static Logger logger = LogManager.getLogger(DistancePlots.class);
 
+    /**
+     * Collects the auto distances of all trips with origin and destination by purpose and by mode, as a visitor of
+     * a {@link TripScan}.
+     */
+    public static final class TripDistances implements Consumer<MitoTrip> {
+
+        private final DataSet dataSet;
+        private final Map<Purpose, List<Double>> distancesByPurpose = new EnumMap<>(Purpose.class);
+        private final Map<Mode, List<Double>> distancesByMode = new EnumMap<>(Mode.class);
+
+        public TripDistances(DataSet dataSet) {
+            this.dataSet = dataSet;
+        }
+
+        @Override
+        public void accept(MitoTrip trip) {
+            if (trip.getTripOrigin() != null && trip.getTripDestination() != null) {
+                double travelDistance = dataSet.getTravelDistancesAuto()
+                        .getTravelDistance(trip.getTripOrigin().getZoneId(), trip.getTripDestination().getZoneId());
+                distancesByPurpose.computeIfAbsent(trip.getTripPurpose(), purpose -> new ArrayList<>()).add(travelDistance);
+                if (trip.getTripMode() != null) {
+                    distancesByMode.computeIfAbsent(trip.getTripMode(), mode -> new ArrayList<>()).add(travelDistance);
+                }
+            }
+        }
+    }
+
     public static void writeDistanceDistributions(DataSet dataSet, String scenarioName) {
+        final TripDistances tripDistances = new TripDistances(dataSet);
+        dataSet.getTrips().values().forEach(tripDistances);
+        writeDistanceDistributions(dataSet, scenarioName, tripDistances);
+    }
+
+    /**
+     * Writes the trip length distributions from the distances collected by a completed trip scan.
+     */
+    public static void writeDistanceDistributions(DataSet dataSet, String scenarioName, TripDistances tripDistances) {
 
         final String directory = Resources.instance.getBaseDirectory().toString()
                 + "/scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/tripLengths/";
@@ -47,12 +80,10 @@ public class DistancePlots {
         stackedChartByPurpose.getStyler().setStacked(true);
         stackedChartByPurpose.getStyler().setXAxisLabelRotation(90);
 
-        final Map<Purpose, List<MitoTrip>> tripsByPurpose = dataSet.getTrips().values().stream()
-                .filter(trip -> trip.getTripOrigin() != null && trip.getTripDestination() != null)
-                .collect(Collectors.groupingBy(MitoTrip::getTripPurpose));
+        final Map<Purpose, List<Double>> distancesByPurpose = tripDistances.distancesByPurpose;
 
         for(Purpose purpose: Purpose.values()) {
-            if(tripsByPurpose.containsKey(purpose)) {
+            if(distancesByPurpose.containsKey(purpose)) {
 
                 // Create Chart
                 CategoryChart individualChart = new CategoryChartBuilder().width(800).height(600).xAxisTitle("Trip Length").yAxisTitle("Frequency").theme(Styler.ChartTheme.GGPlot2).build();
@@ -62,12 +93,7 @@ public class DistancePlots {
                 individualChart.getStyler().setAvailableSpaceFill(1);
                 individualChart.getStyler().setXAxisLabelRotation(90);
 
-                List<Double> distances = new ArrayList<>();
-                for (MitoTrip t : tripsByPurpose.get(purpose)) {
-                    double travelDistance = dataSet.getTravelDistancesAuto()
-                            .getTravelDistance(t.getTripOrigin().getZoneId(), t.getTripDestination().getZoneId());
-                    distances.add(travelDistance);
-                }
+                List<Double> distances = distancesByPurpose.get(purpose);
                 Histogram histogram = new Histogram(distances, 50, 0, 100);
                 stackedChartByPurpose.addSeries(purpose.name(), histogram.getxAxisData(), histogram.getyAxisData());
                 individualChart.addSeries(purpose.name(), histogram.getxAxisData(), histogram.getyAxisData());
@@ -88,12 +114,10 @@ public class DistancePlots {
         stackedChartByMode.getStyler().setStacked(true);
         stackedChartByMode.getStyler().setXAxisLabelRotation(90);
 
-        final Map<Mode, List<MitoTrip>> tripsByMode = dataSet.getTrips().values().stream()
-                .filter(trip -> trip.getTripOrigin() != null && trip.getTripDestination() != null)
-                .collect(Collectors.groupingBy(MitoTrip::getTripMode));
+        final Map<Mode, List<Double>> distancesByMode = tripDistances.distancesByMode;
 
         for(Mode mode: Mode.values()) {
-            if(tripsByMode.containsKey(mode)) {
+            if(distancesByMode.containsKey(mode)) {
 
                 // Create Chart
                 CategoryChart individualChart = new CategoryChartBuilder().width(800).height(600).xAxisTitle("Trip Length").yAxisTitle("Frequency").theme(Styler.ChartTheme.GGPlot2).build();
@@ -103,12 +127,7 @@ public class DistancePlots {
                 individualChart.getStyler().setAvailableSpaceFill(1);
                 individualChart.getStyler().setXAxisLabelRotation(90);
 
-                List<Double> distances = new ArrayList<>();
-                for (MitoTrip t : tripsByMode.get(mode)) {
-                    double travelDistance = dataSet.getTravelDistancesAuto()
-                            .getTravelDistance(t.getTripOrigin().getZoneId(), t.getTripDestination().getZoneId());
-                    distances.add(travelDistance);
-                }
+                List<Double> distances = distancesByMode.get(mode);
                 Histogram histogram = new Histogram(distances, 50, 0, 100);
                 stackedChartByMode.addSeries(mode.name(), histogram.getxAxisData(), histogram.getyAxisData());
 
@@ -0,0 +1,117 @@
+package de.tum.bgu.msm.io.output;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs output tasks such as writers and plots concurrently. Every task starts as soon as all tasks it depends on
+ * have finished, so the output stage takes about as long as its longest chain of dependent tasks.
+ * <p>
+ * Dependencies have to be added before the tasks that depend on them, which rules out cycles. If a task fails,
+ * the tasks depending on it are skipped, all other tasks still run, and {@link #run()} throws once all tasks are
+ * done.
+ */
+public final class OutputScheduler {
+
+    private static final Logger logger = LogManager.getLogger(OutputScheduler.class);
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final int numberOfThreads;
+
+    private static final class Task {
+        private final Runnable runnable;
+        private final String[] dependencies;
+
+        private Task(Runnable runnable, String[] dependencies) {
+            this.runnable = runnable;
+            this.dependencies = dependencies;
+        }
+    }
+
+    public OutputScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public OutputScheduler(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive but is " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Adds a task that runs once all given tasks have finished.
+     * @param name unique name of the task, used in log messages and to declare dependencies
+     * @param dependencies names of previously added tasks
+     */
+    public void addTask(String name, Runnable task, String... dependencies) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Output task " + name + " already exists!");
+        }
+        for (String dependency : dependencies) {
+            if (!tasks.containsKey(dependency)) {
+                throw new IllegalArgumentException("Output task " + name + " depends on unknown task " + dependency);
+            }
+        }
+        tasks.put(name, new Task(task, dependencies.clone()));
+    }
+
+    /**
+     * Runs all tasks and waits for their completion.
+     */
+    public void run() {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, tasks.size()));
+        final long start = System.currentTimeMillis();
+        try {
+            final Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Task> entry : tasks.entrySet()) {
+                final String name = entry.getKey();
+                final Task task = entry.getValue();
+                final CompletableFuture<?>[] dependencies = new CompletableFuture[task.dependencies.length];
+                for (int i = 0; i < dependencies.length; i++) {
+                    dependencies[i] = futures.get(task.dependencies[i]);
+                }
+                final CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> runTask(name, task), executor);
+                futures.put(name, future);
+            }
+            final List<String> failed = new ArrayList<>();
+            RuntimeException firstFailure = null;
+            for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().join();
+                } catch (CompletionException e) {
+                    failed.add(entry.getKey());
+                    if (firstFailure == null) {
+                        firstFailure = new RuntimeException("Output task " + entry.getKey() + " failed", e.getCause());
+                    }
+                }
+            }
+            if (firstFailure != null) {
+                logger.error("Output tasks failed or were skipped: " + failed);
+                throw firstFailure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Finished " + tasks.size() + " output tasks in " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+
+    private static void runTask(String name, Task task) {
+        final long start = System.currentTimeMillis();
+        task.runnable.run();
+        logger.info("  Output task " + name + " took " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+}
@@ -0,0 +1,272 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes large CSV files such as trip and person micro data. Rows are formatted in parallel in chunks into reusable
+ * {@link CsvRowBuffer}s, and the chunks are written in their original order through a single output stream, so the
+ * file is identical to one written sequentially.
+ * <p>
+ * Files whose name ends with .gz are compressed. Every chunk is deflated by the thread that formatted it into a
+ * gzip member of its own. Concatenated members form a valid gzip file that gunzip, {@link java.util.zip.GZIPInputStream}
+ * and common CSV readers decompress as a whole.
+ * <p>
+ * Formatters that need random numbers get a random number stream per chunk derived from the seed given with
+ * {@link #withRandomSeed(long)}, so results are reproducible for a fixed seed and chunk size.
+ */
+public final class ParallelCsvWriter {
+
+    private static final Logger logger = LogManager.getLogger(ParallelCsvWriter.class);
+
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /**
+     * Formats single rows. Called concurrently for rows of different chunks.
+     */
+    public interface RowFormatter<T> {
+        /**
+         * @param random the random number stream of the chunk, or null if the writer has no random seed
+         */
+        void format(T item, CsvRowBuffer row, Random random);
+    }
+
+    /**
+     * Visits single rows sequentially, e.g. to write them to another output.
+     */
+    public interface RowVisitor<T> {
+        /**
+         * @param random the random number stream the formatter gets for the row, or null if the writer has no random
+         *               seed
+         */
+        void visit(T item, Random random);
+    }
+
+    private final int numberOfThreads;
+    private final int chunkSize;
+    private Long randomSeed;
+
+    public ParallelCsvWriter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelCsvWriter(int numberOfThreads, int chunkSize) {
+        if (numberOfThreads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Number of threads and chunk size must be positive but are "
+                    + numberOfThreads + " and " + chunkSize);
+        }
+        this.numberOfThreads = numberOfThreads;
+        this.chunkSize = chunkSize;
+    }
+
+    public ParallelCsvWriter withRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+        return this;
+    }
+
+    /**
+     * Returns the random number stream that the formatter gets for the rows of the chunk with the given index, or
+     * null if the writer has no random seed.
+     */
+    private Random chunkRandom(long chunkIndex) {
+        return randomSeed == null ? null : new Random(MitoUtil.deriveSeed(randomSeed, chunkIndex));
+    }
+
+    /**
+     * Visits the items in order with the random number streams of the chunks that {@link #write} formats them in. A
+     * visitor that draws the same random numbers per row as the formatter lets another output of the same rows,
+     * such as a columnar file, hold the same random values as the csv file.
+     */
+    public <T> void forEachRow(Iterable<? extends T> items, RowVisitor<T> visitor) {
+        Random random = null;
+        long row = 0;
+        for (T item : items) {
+            if (row % chunkSize == 0) {
+                random = chunkRandom(row / chunkSize);
+            }
+            row++;
+            visitor.visit(item, random);
+        }
+    }
+
+    /**
+     * Appends .gz to the given file name if micro data are to be compressed.
+     */
+    public static String microDataFileName(String fileName) {
+        return Resources.instance.getBoolean(Properties.COMPRESS_MICRO_DATA, false) ? fileName + GZIP_SUFFIX : fileName;
+    }
+
+    /**
+     * Writes the header line and one row per item.
+     * @param header the header without line separator
+     * @return the number of rows written, excluding the header
+     */
+    @SuppressWarnings("unchecked")
+    public <T> long write(String fileName, String header, Iterable<? extends T> items, RowFormatter<T> formatter) {
+        final File file = new File(fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        final boolean compress = fileName.endsWith(GZIP_SUFFIX);
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        final BlockingQueue<Chunk> freeChunks = new LinkedBlockingQueue<>();
+        final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+        long rows = 0;
+        try (OutputStream out = new FileOutputStream(file)) {
+            final Chunk headerChunk = new Chunk(compress);
+            headerChunk.text.append(header).endRow();
+            headerChunk.finish();
+            headerChunk.writeTo(out);
+            headerChunk.clear();
+            freeChunks.add(headerChunk);
+
+            final Iterator<? extends T> iterator = items.iterator();
+            int chunkIndex = 0;
+            while (iterator.hasNext()) {
+                final Object[] chunkItems = new Object[chunkSize];
+                int count = 0;
+                while (count < chunkSize && iterator.hasNext()) {
+                    chunkItems[count++] = iterator.next();
+                }
+                rows += count;
+                final int size = count;
+                final Random random = chunkRandom(chunkIndex++);
+                pending.add(executor.submit(() -> {
+                    Chunk chunk = freeChunks.poll();
+                    if (chunk == null) {
+                        chunk = new Chunk(compress);
+                    }
+                    for (int i = 0; i < size; i++) {
+                        formatter.format((T) chunkItems[i], chunk.text, random);
+                    }
+                    chunk.finish();
+                    return chunk;
+                }));
+                // keep every thread busy while bounding the memory of formatted chunks waiting to be written
+                if (pending.size() >= 2 * numberOfThreads) {
+                    writeNext(pending, freeChunks, out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeNext(pending, freeChunks, out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write " + fileName, e);
+        } finally {
+            executor.shutdownNow();
+            for (Chunk chunk : freeChunks) {
+                chunk.end();
+            }
+        }
+        logger.info("  Wrote " + rows + " rows to " + fileName + " in " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+        return rows;
+    }
+
+    private static void writeNext(Deque<Future<Chunk>> pending, BlockingQueue<Chunk> freeChunks, OutputStream out) throws IOException {
+        final Chunk chunk;
+        try {
+            chunk = pending.poll().get();
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            throw new RuntimeException(e);
+        }
+        chunk.writeTo(out);
+        chunk.clear();
+        freeChunks.add(chunk);
+    }
+
+    /**
+     * Formatted rows of one chunk and, for compressed files, their gzip member. Reused for later chunks.
+     */
+    private static final class Chunk {
+
+        private final CsvRowBuffer text = new CsvRowBuffer();
+        private final CsvRowBuffer compressed;
+        private final Deflater deflater;
+        private final CRC32 crc;
+        private final byte[] deflateBuffer;
+
+        private Chunk(boolean compress) {
+            if (compress) {
+                compressed = new CsvRowBuffer();
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                crc = new CRC32();
+                deflateBuffer = new byte[1 << 16];
+            } else {
+                compressed = null;
+                deflater = null;
+                crc = null;
+                deflateBuffer = null;
+            }
+        }
+
+        /**
+         * Compresses the formatted rows into a gzip member if the file is compressed.
+         */
+        private void finish() {
+            if (deflater == null) {
+                return;
+            }
+            crc.reset();
+            crc.update(text.array(), 0, text.size());
+            deflater.reset();
+            deflater.setInput(text.array(), 0, text.size());
+            deflater.finish();
+            compressed.append(GZIP_HEADER, 0, GZIP_HEADER.length);
+            while (!deflater.finished()) {
+                final int length = deflater.deflate(deflateBuffer);
+                compressed.append(deflateBuffer, 0, length);
+            }
+            appendIntLittleEndian((int) crc.getValue());
+            appendIntLittleEndian(text.size());
+        }
+
+        private void appendIntLittleEndian(int value) {
+            for (int i = 0; i < 4; i++) {
+                deflateBuffer[i] = (byte) (value >>> (8 * i));
+            }
+            compressed.append(deflateBuffer, 0, 4);
+        }
+
+        private void writeTo(OutputStream out) throws IOException {
+            if (compressed != null) {
+                compressed.writeTo(out);
+            } else {
+                text.writeTo(out);
+            }
+        }
+
+        private void clear() {
+            text.clear();
+            if (compressed != null) {
+                compressed.clear();
+            }
+        }
+
+        private void end() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+}
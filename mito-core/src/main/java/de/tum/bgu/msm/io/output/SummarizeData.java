@@ -4,6 +4,8 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.Encoding;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
@@ -26,62 +28,113 @@ import java.util.*;
  */
 public class SummarizeData {
     private static final Logger LOGGER = LogManager.getLogger(SummarizeData.class);
+    private static final String[] TRIP_SKIM_COLUMNS = {"distance", "time_auto", "time_bus", "time_train", "time_tram_metro"};
+    private static final String[] TRIP_SKIM_MODES = {"car", "bus", "train", "tramMetro"};
 
     public static void writeOutSyntheticPopulationWithTrips(DataSet dataSet) {
 
         LOGGER.info("  Writing household file");
-        Path filehh = Resources.instance.getOutputHouseholdPath();
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(filehh.toAbsolutePath().toString(), false);
-        pwh.println("id,zone,homeX,homeY,hhSize,autos,trips,workTrips");
+        final List<MitoHousehold> households = new ArrayList<>();
         for (MitoHousehold hh : dataSet.getHouseholds().values()) {
-            final MitoZone homeZone = hh.getHomeZone();
-            if(homeZone == null) {
+            if(hh.getHomeZone() == null) {
                 LOGGER.warn("Skipping household " + hh.getId() + " as no home zone is defined");
                 break;
             }
-            pwh.print(hh.getId());
-            pwh.print(",");
-            pwh.print(homeZone.getZoneId());
-            pwh.print(",");
-            pwh.print(hh.getCoordinate().x);
-            pwh.print(",");
-            pwh.print(hh.getCoordinate().y);
-            pwh.print(",");
-            pwh.print(hh.getHhSize());
-            pwh.print(",");
-            pwh.print(hh.getAutos());
-            pwh.print(",");
-            int totalNumber = 0;
-            for(Purpose purpose: Purpose.values()) {
-                totalNumber += hh.getTripsForPurpose(purpose).size();
-            }
-            pwh.print(totalNumber);
-            pwh.print(",");
-            pwh.println(hh.getTripsForPurpose(Purpose.HBW).size());
+            households.add(hh);
+        }
+        Path filehh = Resources.instance.getOutputHouseholdPath();
+        new ParallelCsvWriter().write(ParallelCsvWriter.microDataFileName(filehh.toAbsolutePath().toString()),
+                "id,zone,homeX,homeY,hhSize,autos,trips,workTrips", households, (hh, row, random) -> {
+                    row.append(hh.getId()).separator()
+                            .append(hh.getHomeZone().getZoneId()).separator()
+                            .append(hh.getCoordinate().x).separator()
+                            .append(hh.getCoordinate().y).separator()
+                            .append(hh.getHhSize()).separator()
+                            .append(hh.getAutos()).separator();
+                    int totalNumber = 0;
+                    for(Purpose purpose: Purpose.values()) {
+                        totalNumber += hh.getTripsForPurpose(purpose).size();
+                    }
+                    row.append(totalNumber).separator()
+                            .append(hh.getTripsForPurpose(Purpose.HBW).size()).endRow();
+                });
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarHouseholds(ColumnarFileFormat.fileName(filehh.toAbsolutePath().toString()), households);
         }
-        pwh.close();
 
         LOGGER.info("  Writing person file");
-        Path filepp = Resources.instance.getOutputPersonsPath();
-        PrintWriter pwp = MitoUtil.openFileForSequentialWriting(filepp.toAbsolutePath().toString(), false);
-        pwp.println("id,hhID,hhSize,hhTrips,avTrips,bicycle");
+        final List<MitoPerson> persons = new ArrayList<>();
         for(MitoHousehold hh: dataSet.getHouseholds().values()) {
-            for (MitoPerson pp : hh.getPersons().values()) {
-                    pwp.print(pp.getId());
-                    pwp.print(",");
-                    pwp.print(hh.getId());
-                    pwp.print(",");
-                    pwp.print(hh.getHhSize());
-                    pwp.print(",");
+            persons.addAll(hh.getPersons().values());
+        }
+        Path filepp = Resources.instance.getOutputPersonsPath();
+        new ParallelCsvWriter().write(ParallelCsvWriter.microDataFileName(filepp.toAbsolutePath().toString()),
+                "id,hhID,hhSize,hhTrips,avTrips,bicycle", persons, (pp, row, random) -> {
+                    final MitoHousehold hh = pp.getHousehold();
                     long hhTrips = Arrays.stream(Purpose.values()).mapToLong(purpose -> hh.getTripsForPurpose(purpose).size()).sum();
-                    pwp.print(hhTrips);
-                    pwp.print(",");
-                    pwp.print(hhTrips / hh.getHhSize());
-                    pwp.print(",");
-                    pwp.println(pp.getHasBicycle().get());
+                    row.append(pp.getId()).separator()
+                            .append(hh.getId()).separator()
+                            .append(hh.getHhSize()).separator()
+                            .append(hhTrips).separator()
+                            .append(hhTrips / hh.getHhSize()).separator()
+                            .append(pp.getHasBicycle().get()).endRow();
+                });
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarPersons(ColumnarFileFormat.fileName(filepp.toAbsolutePath().toString()), persons);
+        }
+    }
+
+    private static void writeColumnarHouseholds(String file, List<MitoHousehold> households) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int id = writer.addColumn("id", ColumnType.INT, Encoding.DELTA);
+            final int zone = writer.addColumn("zone", ColumnType.INT, Encoding.PLAIN);
+            final int homeX = writer.addColumn("homeX", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int homeY = writer.addColumn("homeY", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int hhSize = writer.addColumn("hhSize", ColumnType.INT, Encoding.PLAIN);
+            final int autos = writer.addColumn("autos", ColumnType.INT, Encoding.PLAIN);
+            final int trips = writer.addColumn("trips", ColumnType.INT, Encoding.PLAIN);
+            final int workTrips = writer.addColumn("workTrips", ColumnType.INT, Encoding.PLAIN);
+            for (MitoHousehold hh : households) {
+                int totalNumber = 0;
+                for(Purpose purpose: Purpose.values()) {
+                    totalNumber += hh.getTripsForPurpose(purpose).size();
                 }
+                writer.setInt(id, hh.getId())
+                        .setInt(zone, hh.getHomeZone().getZoneId())
+                        .setDouble(homeX, hh.getCoordinate().x)
+                        .setDouble(homeY, hh.getCoordinate().y)
+                        .setInt(hhSize, hh.getHhSize())
+                        .setInt(autos, hh.getAutos())
+                        .setInt(trips, totalNumber)
+                        .setInt(workTrips, hh.getTripsForPurpose(Purpose.HBW).size())
+                        .endRow();
+            }
+        }
+    }
+
+    /**
+     * Writes the persons in the columnar format, with the bicycle ownership as 0 or 1.
+     */
+    private static void writeColumnarPersons(String file, List<MitoPerson> persons) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int id = writer.addColumn("id", ColumnType.INT, Encoding.DELTA);
+            final int hhId = writer.addColumn("hhID", ColumnType.INT, Encoding.DELTA);
+            final int hhSize = writer.addColumn("hhSize", ColumnType.INT, Encoding.PLAIN);
+            final int hhTrips = writer.addColumn("hhTrips", ColumnType.LONG, Encoding.PLAIN);
+            final int avTrips = writer.addColumn("avTrips", ColumnType.LONG, Encoding.PLAIN);
+            final int bicycle = writer.addColumn("bicycle", ColumnType.INT, Encoding.PLAIN);
+            for (MitoPerson pp : persons) {
+                final MitoHousehold hh = pp.getHousehold();
+                long trips = Arrays.stream(Purpose.values()).mapToLong(purpose -> hh.getTripsForPurpose(purpose).size()).sum();
+                writer.setInt(id, pp.getId())
+                        .setInt(hhId, hh.getId())
+                        .setInt(hhSize, hh.getHhSize())
+                        .setLong(hhTrips, trips)
+                        .setLong(avTrips, trips / hh.getHhSize())
+                        .setInt(bicycle, pp.getHasBicycle().get() ? 1 : 0)
+                        .endRow();
             }
-        pwp.close();
+        }
     }
 
     public static void writeOutTrips(DataSet dataSet, String scenarioName) {
@@ -89,105 +142,156 @@ public class SummarizeData {
 
         LOGGER.info("  Writing trips file");
         String file = Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/microData/trips.csv";
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(file, false);
-        pwh.println("id,origin,originX,originY,destination,destinationX,destinationY,purpose,person,distance,time_auto,time_bus,time_train,time_tram_metro,mode,departure_time,departure_time_return");
-        for (MitoTrip trip : dataSet.getTrips().values()) {
-            pwh.print(trip.getId());
-            pwh.print(",");
+        final boolean fillMicroLocations = Resources.instance.isFillMicroDataWithMicroLocation();
+        final ParallelCsvWriter writer = new ParallelCsvWriter();
+        if (fillMicroLocations) {
+            writer.withRandomSeed(MitoUtil.getRandomObject().nextLong());
+        }
+        writer.write(ParallelCsvWriter.microDataFileName(file),
+                "id,origin,originX,originY,destination,destinationX,destinationY,purpose,person,distance,time_auto,time_bus,time_train,time_tram_metro,mode,departure_time,departure_time_return",
+                dataSet.getTrips().values(), (trip, row, random) -> {
+            row.append(trip.getId()).separator();
             Location origin = trip.getTripOrigin();
-            String originId = "null";
-            if(origin != null) {
-                originId = String.valueOf(origin.getZoneId());
-            }
-            pwh.print(originId);
-            pwh.print(",");
-
-            if(origin instanceof MicroLocation){
-                pwh.print(((MicroLocation) origin).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) origin).getCoordinate().y);
-                pwh.print(",");
-            } else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        origin != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
-                }
-            }
+            formatLocation(dataSet, origin, fillMicroLocations, row, random);
 
             Location destination = trip.getTripDestination();
-            String destinationId = "null";
-            if(destination != null) {
-                destinationId = String.valueOf(destination.getZoneId());
-            }
-            pwh.print(destinationId);
-            pwh.print(",");
-            if(destination instanceof MicroLocation){
-                pwh.print(((MicroLocation) destination).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) destination).getCoordinate().y);
-                pwh.print(",");
-            }else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        destination != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
-                }
-            }
+            formatLocation(dataSet, destination, fillMicroLocations, row, random);
 
-            pwh.print(trip.getTripPurpose());
-            pwh.print(",");
-            pwh.print(trip.getPerson().getId());
-            pwh.print(",");
+            row.append(trip.getTripPurpose()).separator()
+                    .append(trip.getPerson().getId()).separator();
             if(origin != null && destination != null) {
-                double distance = dataSet.getTravelDistancesAuto().getTravelDistance(origin.getZoneId(), destination.getZoneId());
-                pwh.print(distance);
-                pwh.print(",");
-                double timeAuto = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "car");
-                pwh.print(timeAuto);
-                pwh.print(",");
-                double timeBus = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "bus");
-                pwh.print(timeBus);
-                pwh.print(",");
-                double timeTrain = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "train");
-                pwh.print(timeTrain);
-                pwh.print(",");
-                double timeTramMetro = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "tramMetro");
-                pwh.print(timeTramMetro);
+                final double[] skims = getTripSkims(dataSet, origin, destination);
+                for (int i = 0; i < skims.length; i++) {
+                    if (i > 0) {
+                        row.separator();
+                    }
+                    row.append(skims[i]);
+                }
             } else {
-                pwh.print("NA,NA,NA,NA,NA");
+                row.append("NA,NA,NA,NA,NA");
             }
-            pwh.print(",");
-            pwh.print(trip.getTripMode());
-            pwh.print(",");
-            pwh.print(trip.getDepartureInMinutes());
+            row.separator()
+                    .append(trip.getTripMode()).separator()
+                    .append(trip.getDepartureInMinutes()).separator();
             int departureOfReturnTrip = trip.getDepartureInMinutesReturnTrip();
             if (departureOfReturnTrip != -1){
-                pwh.print(",");
-                pwh.println(departureOfReturnTrip);
+                row.append(departureOfReturnTrip);
             } else {
-                pwh.print(",");
-                pwh.println("NA");
+                row.append("NA");
+            }
+            row.endRow();
+        });
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarTrips(dataSet, ColumnarFileFormat.fileName(file), fillMicroLocations, writer);
+        }
+    }
+
+    /**
+     * Writes the trips in the columnar format. Random coordinates of trips without micro location are drawn from the
+     * same random number streams as for the csv file, so both files hold the same coordinates.
+     */
+    private static void writeColumnarTrips(DataSet dataSet, String file, boolean fillMicroLocations, ParallelCsvWriter csvWriter) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int id = writer.addColumn("id", ColumnType.INT, Encoding.DELTA);
+            final int origin = writer.addColumn("origin", ColumnType.INT, Encoding.PLAIN);
+            final int originX = writer.addColumn("originX", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int originY = writer.addColumn("originY", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int destination = writer.addColumn("destination", ColumnType.INT, Encoding.PLAIN);
+            final int destinationX = writer.addColumn("destinationX", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int destinationY = writer.addColumn("destinationY", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int purpose = writer.addColumn("purpose", ColumnType.STRING, Encoding.DICTIONARY);
+            final int person = writer.addColumn("person", ColumnType.INT, Encoding.PLAIN);
+            final int[] skimColumns = new int[TRIP_SKIM_COLUMNS.length];
+            for (int i = 0; i < TRIP_SKIM_COLUMNS.length; i++) {
+                skimColumns[i] = writer.addColumn(TRIP_SKIM_COLUMNS[i], ColumnType.DOUBLE, Encoding.PLAIN);
             }
+            final int mode = writer.addColumn("mode", ColumnType.STRING, Encoding.DICTIONARY);
+            final int departureTime = writer.addColumn("departure_time", ColumnType.INT, Encoding.PLAIN);
+            final int departureTimeReturn = writer.addColumn("departure_time_return", ColumnType.INT, Encoding.PLAIN);
+            csvWriter.forEachRow(dataSet.getTrips().values(), (trip, random) -> {
+                writer.setInt(id, trip.getId());
+                Location tripOrigin = trip.getTripOrigin();
+                setLocation(dataSet, tripOrigin, fillMicroLocations, random, writer, origin, originX, originY);
+                Location tripDestination = trip.getTripDestination();
+                setLocation(dataSet, tripDestination, fillMicroLocations, random, writer, destination, destinationX, destinationY);
+                if (trip.getTripPurpose() != null) {
+                    writer.setString(purpose, trip.getTripPurpose().toString());
+                }
+                writer.setInt(person, trip.getPerson().getId());
+                if (tripOrigin != null && tripDestination != null) {
+                    final double[] skims = getTripSkims(dataSet, tripOrigin, tripDestination);
+                    for (int i = 0; i < skims.length; i++) {
+                        writer.setDouble(skimColumns[i], skims[i]);
+                    }
+                }
+                if (trip.getTripMode() != null) {
+                    writer.setString(mode, trip.getTripMode().toString());
+                }
+                writer.setInt(departureTime, trip.getDepartureInMinutes());
+                if (trip.getDepartureInMinutesReturnTrip() != -1) {
+                    writer.setInt(departureTimeReturn, trip.getDepartureInMinutesReturnTrip());
+                }
+                writer.endRow();
+            });
+        }
+    }
+
+    /**
+     * Returns the auto distance and the peak hour travel times by car, bus, train and tram or metro between origin
+     * and destination, in the order of {@link #TRIP_SKIM_COLUMNS}.
+     */
+    private static double[] getTripSkims(DataSet dataSet, Location origin, Location destination) {
+        final double[] skims = new double[TRIP_SKIM_COLUMNS.length];
+        skims[0] = dataSet.getTravelDistancesAuto().getTravelDistance(origin.getZoneId(), destination.getZoneId());
+        for (int i = 1; i < skims.length; i++) {
+            skims[i] = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), TRIP_SKIM_MODES[i - 1]);
+        }
+        return skims;
+    }
+
+    /**
+     * Sets the zone and the coordinates of a trip origin or destination in the columnar format, drawing random
+     * coordinates in the same cases as {@link #formatLocation}.
+     */
+    private static void setLocation(DataSet dataSet, Location location, boolean fillMicroLocations, Random random,
+                                    ColumnarFileWriter writer, int zoneColumn, int xColumn, int yColumn) {
+        if (location == null) {
+            return;
+        }
+        writer.setInt(zoneColumn, location.getZoneId());
+        if (location instanceof MicroLocation) {
+            writer.setDouble(xColumn, ((MicroLocation) location).getCoordinate().x)
+                    .setDouble(yColumn, ((MicroLocation) location).getCoordinate().y);
+        } else if (fillMicroLocations) {
+            Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(location.getZoneId()).getRandomCoord(random));
+            writer.setDouble(xColumn, coordinate.getX())
+                    .setDouble(yColumn, coordinate.getY());
+        }
+    }
+
+    /**
+     * Formats the zone and the coordinates of a trip origin or destination, each followed by a separator.
+     */
+    private static void formatLocation(DataSet dataSet, Location location, boolean fillMicroLocations, CsvRowBuffer row, Random random) {
+        String locationId = "null";
+        if(location != null) {
+            locationId = String.valueOf(location.getZoneId());
+        }
+        row.append(locationId).separator();
 
+        if(location instanceof MicroLocation){
+            row.append(((MicroLocation) location).getCoordinate().x).separator()
+                    .append(((MicroLocation) location).getCoordinate().y).separator();
+        } else{
+            if (fillMicroLocations && location != null){
+                Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(location.getZoneId()).getRandomCoord(random));
+                row.append(coordinate.getX()).separator()
+                        .append(coordinate.getY()).separator();
+            } else {
+                row.append("null").separator()
+                        .append("null").separator();
+            }
         }
-        pwh.close();
     }
 
 
@@ -9,6 +9,7 @@ import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Created by matthewokrah on 12/03/2018.
@@ -99,12 +100,65 @@ public class SummarizeDataToVisualize {
         }
     }
 
+    /**
+     * Aggregates trip level results, as a visitor of a {@link TripScan}
+     */
+    public static final class TripSummary implements Consumer<MitoTrip> {
+
+        private final DataSet dataSet;
+        private final Map<Integer, Map<Purpose, Integer>> distanceByPurpose = new HashMap<>();
+        private final Map<Integer, Map<Purpose, Integer>> timeByPurpose = new HashMap<>();
+        private final Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp;
+        private final Map<Integer, Map<Purpose, Double>> avDistByZoneAndPurp;
+        private final Map<Integer, Map<Purpose, Double>> avTimeByZoneAndPurp;
+
+        public TripSummary(DataSet dataSet) {
+            this.dataSet = dataSet;
+            this.tripProdByZoneAndPurp = initializedIntMap(dataSet);
+            this.avDistByZoneAndPurp = initializedDoubleMap(dataSet);
+            this.avTimeByZoneAndPurp = initializedDoubleMap(dataSet);
+        }
+
+        @Override
+        public void accept(MitoTrip trip) {
+            if (trip.getTripOrigin() != null && trip.getTripDestination() != null) {
+                Purpose purpose = trip.getTripPurpose();
+                Location tripOrigin = trip.getTripOrigin();
+                //TODO: use NMT distance instead of auto distance
+                double rawDistance = dataSet.getTravelDistancesAuto().getTravelDistance(tripOrigin.getZoneId(), trip.getTripDestination().getZoneId());
+                int refinedDistance = (int) Math.round(rawDistance);
+                double rawTime = dataSet.getTravelTimes().getTravelTime(tripOrigin, trip.getTripDestination(), dataSet.getPeakHour(), "car");
+                int refinedTime = (int) Math.round(rawTime);
+
+                // updating the intitalized HashMaps
+                updateMap(distanceByPurpose, refinedDistance, purpose);
+                updateMap(timeByPurpose, refinedTime, purpose);
+                updateMap(tripProdByZoneAndPurp, tripOrigin.getZoneId(), purpose);
+                updateSpatialMap(avDistByZoneAndPurp, tripOrigin.getZoneId(), purpose, rawDistance);
+                updateSpatialMap(avTimeByZoneAndPurp, tripOrigin.getZoneId(), purpose, rawTime);
+            }
+        }
+    }
+
     /**
      * Writes all summaries to their respective result files
      *
      * @param dataSet
      */
     public static void writeFinalSummary(DataSet dataSet, String scenarioName) {
+        // Looping through trips to get trip level results
+        final TripSummary tripSummary = new TripSummary(dataSet);
+        dataSet.getTrips().values().forEach(tripSummary);
+        writeFinalSummary(dataSet, scenarioName, tripSummary);
+    }
+
+    /**
+     * Writes all summaries to their respective result files, using the trip level results of a completed trip scan
+     *
+     * @param dataSet
+     * @param tripSummary the trip level results
+     */
+    public static void writeFinalSummary(DataSet dataSet, String scenarioName, TripSummary tripSummary) {
         year = dataSet.getYear();
         // opening aspatial result file and writing out the header
         resultFile("open", scenarioName);
@@ -122,32 +176,11 @@ public class SummarizeDataToVisualize {
         }
         resultFileSpatial(hdSpatial, scenarioName);
 
-        // initializing HashMaps to hold results
-        Map<Integer, Map<Purpose, Integer>> distanceByPurpose = new HashMap<>();
-        Map<Integer, Map<Purpose, Integer>> timeByPurpose = new HashMap<>();
-        Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp = initializedIntMap(dataSet);
-        Map<Integer, Map<Purpose, Double>> avDistByZoneAndPurp = initializedDoubleMap(dataSet);
-        Map<Integer, Map<Purpose, Double>> avTimeByZoneAndPurp = initializedDoubleMap(dataSet);
-
-        // Looping through trips to get trip level results
-        for (MitoTrip trip : dataSet.getTrips().values()) {
-            if (trip.getTripOrigin() != null && trip.getTripDestination() != null) {
-                Purpose purpose = trip.getTripPurpose();
-                Location tripOrigin = trip.getTripOrigin();
-                //TODO: use NMT distance instead of auto distance
-                double rawDistance = dataSet.getTravelDistancesAuto().getTravelDistance(tripOrigin.getZoneId(), trip.getTripDestination().getZoneId());
-                int refinedDistance = (int) Math.round(rawDistance);
-                double rawTime = dataSet.getTravelTimes().getTravelTime(tripOrigin, trip.getTripDestination(), dataSet.getPeakHour(), "car");
-                int refinedTime = (int) Math.round(rawTime);
-
-                // updating the intitalized HashMaps
-                updateMap(distanceByPurpose, refinedDistance, purpose);
-                updateMap(timeByPurpose, refinedTime, purpose);
-                updateMap(tripProdByZoneAndPurp, tripOrigin.getZoneId(), purpose);
-                updateSpatialMap(avDistByZoneAndPurp, tripOrigin.getZoneId(), purpose, rawDistance);
-                updateSpatialMap(avTimeByZoneAndPurp, tripOrigin.getZoneId(), purpose, rawTime);
-            }
-        }
+        Map<Integer, Map<Purpose, Integer>> distanceByPurpose = tripSummary.distanceByPurpose;
+        Map<Integer, Map<Purpose, Integer>> timeByPurpose = tripSummary.timeByPurpose;
+        Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp = tripSummary.tripProdByZoneAndPurp;
+        Map<Integer, Map<Purpose, Double>> avDistByZoneAndPurp = tripSummary.avDistByZoneAndPurp;
+        Map<Integer, Map<Purpose, Double>> avTimeByZoneAndPurp = tripSummary.avTimeByZoneAndPurp;
 
         // writing out aspatial results
         writeAspatialSummary(distanceByPurpose, "Distance_", scenarioName);
@@ -13,7 +13,9 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Created by Nico on 26/07/2017.
@@ -22,8 +24,47 @@ public class TripGenerationWriter {
 
     private static final Logger logger = LogManager.getLogger(TripGenerationWriter.class);
 
+    /**
+     * Counts the trips with origin and destination by origin zone and purpose, as a visitor of a {@link TripScan}.
+     */
+    public static final class TripProductions implements Consumer<MitoTrip> {
+
+        private final Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp;
+
+        public TripProductions(DataSet dataSet) {
+            final List<Purpose> purposes = Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES));
+            tripProdByZoneAndPurp = new HashMap<>(dataSet.getZones().size());
+            for(Integer zoneId: dataSet.getZones().keySet()) {
+                Map<Purpose, Integer> initialValues = new HashMap<>(purposes.size());
+                for(Purpose purpose: purposes) {
+                    initialValues.put(purpose, 0);
+                }
+                tripProdByZoneAndPurp.put(zoneId, initialValues);
+            }
+        }
+
+        @Override
+        public void accept(MitoTrip trip) {
+            if(trip.getTripOrigin() != null && trip.getTripDestination() != null) {
+                Purpose purpose = trip.getTripPurpose();
+                int number = tripProdByZoneAndPurp.get(trip.getTripOrigin().getZoneId()).getOrDefault(purpose,0);
+                tripProdByZoneAndPurp.get(trip.getTripOrigin().getZoneId()).replace(purpose, (number + 1));
+            }
+        }
+    }
+
     public static void writeTripsByPurposeAndZone(DataSet dataSet, String scenarioName) {
+        final TripProductions productions = new TripProductions(dataSet);
+        dataSet.getTrips().values().forEach(productions);
+        writeTripsByPurposeAndZone(dataSet, scenarioName, productions);
+    }
+
+    /**
+     * Writes the number of trips by purpose and zone from the counts of a completed trip scan.
+     */
+    public static void writeTripsByPurposeAndZone(DataSet dataSet, String scenarioName, TripProductions productions) {
         // write number of trips by purpose and zone to output file
+        final List<Purpose> purposes = Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES));
 
         String fileNameProd = generateOutputFileName(Resources.instance.getString(Properties.TRIP_PRODUCTION_OUTPUT), dataSet.getYear(), scenarioName);
         PrintWriter pwProd = MitoUtil.openFileForSequentialWriting(fileNameProd, false);
@@ -31,28 +72,12 @@ public class TripGenerationWriter {
         PrintWriter pwAttr = MitoUtil.openFileForSequentialWriting(fileNameAttr, false);
         pwProd.print("MitoZone");
         pwAttr.print("MitoZone");
-        for (Purpose purpose: Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES))) {
+        for (Purpose purpose: purposes) {
             pwProd.print("," + purpose + "P");
             pwAttr.print("," + purpose + "A");
         }
 
-        Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp = new HashMap<>(dataSet.getZones().size());
-
-        for(Integer zoneId: dataSet.getZones().keySet()) {
-            Map<Purpose, Integer> initialValues = new HashMap<>(Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES)).size());
-            for(Purpose purpose: Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES))) {
-                initialValues.put(purpose, 0);
-            }
-            tripProdByZoneAndPurp.put(zoneId, initialValues);
-        }
-
-        for (MitoTrip trip: dataSet.getTrips().values()) {
-            if(trip.getTripOrigin() != null && trip.getTripDestination() != null) {
-                Purpose purpose = trip.getTripPurpose();
-                int number = tripProdByZoneAndPurp.get(trip.getTripOrigin().getZoneId()).getOrDefault(purpose,0);
-                tripProdByZoneAndPurp.get(trip.getTripOrigin().getZoneId()).replace(purpose, (number + 1));
-            }
-        }
+        Map<Integer, Map<Purpose, Integer>> tripProdByZoneAndPurp = productions.tripProdByZoneAndPurp;
 
         int totalTrips = 0;
         pwProd.println();
@@ -61,7 +86,7 @@ public class TripGenerationWriter {
             final int zoneId = zone.getId();
             pwProd.print(zoneId);
             pwAttr.print(zoneId);
-            for (Purpose purpose: Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES))) {
+            for (Purpose purpose: purposes) {
                 int tripProdTmp = tripProdByZoneAndPurp.get(zoneId).get(purpose);
                 totalTrips += tripProdTmp;
                 pwProd.print("," + tripProdTmp);
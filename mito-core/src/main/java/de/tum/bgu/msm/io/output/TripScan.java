@@ -0,0 +1,49 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.MitoTrip;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single pass over all trips that feeds every registered visitor, so that summaries which only aggregate trips do
+ * not each iterate over the trips themselves. Visitors are called sequentially in the order of registration.
+ */
+public final class TripScan implements Runnable {
+
+    private static final Logger logger = LogManager.getLogger(TripScan.class);
+
+    private final Collection<MitoTrip> trips;
+    private final List<Consumer<MitoTrip>> visitors = new ArrayList<>();
+
+    public TripScan(Collection<MitoTrip> trips) {
+        this.trips = trips;
+    }
+
+    /**
+     * Registers a visitor and returns it, so results can be read from it once the scan has run.
+     */
+    public <T extends Consumer<MitoTrip>> T register(T visitor) {
+        visitors.add(visitor);
+        return visitor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        if (visitors.isEmpty()) {
+            return;
+        }
+        final Consumer<MitoTrip>[] visitorArray = visitors.toArray(new Consumer[0]);
+        for (MitoTrip trip : trips) {
+            for (Consumer<MitoTrip> visitor : visitorArray) {
+                visitor.accept(trip);
+            }
+        }
+        logger.info("  Scanned " + trips.size() + " trips for " + visitorArray.length + " summaries");
+    }
+}
@@ -28,6 +28,15 @@ public abstract class AbstractModeChoiceCalculator implements ModeChoiceCalculat
         return EnumSet.copyOf(coef.keySet());
     }
 
+    /**
+     * Compiles {@link #coef} into a {@link ModeCoefficients} with array based lookups. Subclasses should call this
+     * once after setting the coefficients and resolve the slots of their variables up front.
+     * @throws IllegalArgumentException if one of the variables has no coefficient for one of the modes
+     */
+    protected ModeCoefficients compileCoefficients(Purpose purpose, String... variables) {
+        return ModeCoefficients.compile(purpose, coef, variables);
+    }
+
     @Override
     public EnumMap<Mode, Double> calculateProbabilities(
             Purpose purpose,
@@ -48,6 +57,32 @@ public abstract class AbstractModeChoiceCalculator implements ModeChoiceCalculat
         else return logitTools.getProbabilities(utilities, nests);
     }
 
+    /**
+     * Primitive variant of {@link #calculateProbabilities(Purpose, MitoHousehold, MitoPerson, MitoZone, MitoZone,
+     * TravelTimes, double, double, double)}. Writes the probabilities by mode ordinal into the given array, using
+     * the given container for the utilities.
+     *
+     * @return false if no utilities could be calculated for this trip
+     */
+    public boolean calculateProbabilities(Purpose purpose,
+                                          MitoHousehold household,
+                                          MitoPerson person,
+                                          MitoZone originZone,
+                                          MitoZone destinationZone,
+                                          TravelTimes travelTimes,
+                                          double travelDistanceAuto,
+                                          double travelDistanceNMT,
+                                          double peakHour_s,
+                                          ModeUtilities utilities,
+                                          double[] probabilities) {
+        if (!calculateUtilities(purpose, household, person, originZone, destinationZone, travelTimes,
+                travelDistanceAuto, travelDistanceNMT, peakHour_s, utilities)) {
+            return false;
+        }
+        logitTools.getProbabilities(utilities.getValues(), utilities.getAvailability(), nests, probabilities);
+        return true;
+    }
+
     public abstract EnumMap<Mode, Double> calculateUtilities(Purpose purpose,
                                                              MitoHousehold household,
                                                              MitoPerson person,
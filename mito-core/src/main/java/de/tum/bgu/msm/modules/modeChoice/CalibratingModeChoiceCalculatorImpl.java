@@ -18,6 +18,14 @@ public class CalibratingModeChoiceCalculatorImpl extends AbstractModeChoiceCalcu
         super.setNests(base.getNests());
     }
 
+    public ModeChoiceCalculator getBase() {
+        return base;
+    }
+
+    public ModeChoiceCalibrationData getCalibrationData() {
+        return calibrationData;
+    }
+
     public EnumSet<Mode> getChoiceSet() {
         return base.getChoiceSet();
     }
@@ -30,6 +38,18 @@ public class CalibratingModeChoiceCalculatorImpl extends AbstractModeChoiceCalcu
         return baseUtilities;
     }
 
+    @Override
+    public boolean calculateUtilities(Purpose purpose, MitoHousehold household, MitoPerson person, MitoZone originZone, MitoZone destinationZone, TravelTimes travelTimes, double travelDistanceAuto, double travelDistanceNMT, double peakHour_s, ModeUtilities utilities) {
+        if (!base.calculateUtilities(purpose, household, person, originZone, destinationZone, travelTimes, travelDistanceAuto, travelDistanceNMT, peakHour_s, utilities)) {
+            return false;
+        }
+        final double[] calibrationFactors = calibrationData.getCalibrationFactorsAsArray(purpose, originZone);
+        for (int i = 0; i < calibrationFactors.length; i++) {
+            utilities.add(i, calibrationFactors[i]);
+        }
+        return true;
+    }
+
     @Override
     public EnumMap<Mode, Double> calculateGeneralizedCosts(Purpose purpose, MitoHousehold household, MitoPerson person, MitoZone originZone, MitoZone destinationZone, TravelTimes travelTimes, double travelDistanceAuto, double travelDistanceNMT, double peakHour_s) {
         return null;
@@ -0,0 +1,130 @@
+package de.tum.bgu.msm.modules.modeChoice;
+
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoZone;
+
+import java.util.Arrays;
+
+/**
+ * Systematic utilities without calibration factors and the error terms of the trips of one purpose and household
+ * partition, recorded during the first mode choice run of a calibration. Calibration only shifts alternative
+ * specific constants, so later iterations add the current calibration factors to the recorded utilities and
+ * choose the mode again without recalculating any skim lookup or coefficient term.
+ * <p>
+ * Values are packed per trip for the available modes only, in ordinal order, and are replayed sequentially.
+ * Instances are used by a single task at a time.
+ */
+final class CalibrationUtilityCache {
+
+    private static final int NUMBER_OF_MODES = Mode.values().length;
+
+    private MitoTrip[] trips = new MitoTrip[64];
+    private MitoZone[] origins = new MitoZone[64];
+    private int[] availableModes = new int[64];
+    private double[] utilities = new double[64 * 4];
+    private double[] errorTerms = new double[64 * 4];
+    private int numberOfTrips;
+    private int numberOfValues;
+    private int countTripsSkipped;
+    private boolean complete;
+
+    void add(MitoTrip trip, MitoZone origin, double[] values, boolean[] available, double[] tripErrorTerms) {
+        if (numberOfTrips == trips.length) {
+            final int capacity = Math.max(64, numberOfTrips * 2);
+            trips = Arrays.copyOf(trips, capacity);
+            origins = Arrays.copyOf(origins, capacity);
+            availableModes = Arrays.copyOf(availableModes, capacity);
+        }
+        if (numberOfValues + NUMBER_OF_MODES > utilities.length) {
+            utilities = Arrays.copyOf(utilities, Math.max(utilities.length * 2, numberOfValues + NUMBER_OF_MODES));
+            errorTerms = Arrays.copyOf(errorTerms, utilities.length);
+        }
+        int mask = 0;
+        for (int i = 0; i < NUMBER_OF_MODES; i++) {
+            if (available[i]) {
+                mask |= 1 << i;
+                utilities[numberOfValues] = values[i];
+                errorTerms[numberOfValues] = tripErrorTerms[i];
+                numberOfValues++;
+            }
+        }
+        trips[numberOfTrips] = trip;
+        origins[numberOfTrips] = origin;
+        availableModes[numberOfTrips] = mask;
+        numberOfTrips++;
+    }
+
+    /**
+     * Discards all recorded trips, e.g. of a recording that was interrupted by an exception.
+     */
+    void clear() {
+        for (int i = 0; i < numberOfTrips; i++) {
+            trips[i] = null;
+            origins[i] = null;
+        }
+        numberOfTrips = 0;
+        numberOfValues = 0;
+        countTripsSkipped = 0;
+        complete = false;
+    }
+
+    void addSkippedTrips(int count) {
+        countTripsSkipped += count;
+    }
+
+    /**
+     * Marks the recording as finished and releases unused capacity.
+     */
+    void complete() {
+        trips = Arrays.copyOf(trips, numberOfTrips);
+        origins = Arrays.copyOf(origins, numberOfTrips);
+        availableModes = Arrays.copyOf(availableModes, numberOfTrips);
+        utilities = Arrays.copyOf(utilities, numberOfValues);
+        errorTerms = Arrays.copyOf(errorTerms, numberOfValues);
+        complete = true;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    int getNumberOfTrips() {
+        return numberOfTrips;
+    }
+
+    int getCountTripsSkipped() {
+        return countTripsSkipped;
+    }
+
+    MitoTrip getTrip(int index) {
+        return trips[index];
+    }
+
+    MitoZone getOrigin(int index) {
+        return origins[index];
+    }
+
+    /**
+     * Copies the recorded utilities and error terms of a trip into arrays indexed by mode ordinal.
+     * @param offset the index of the first value of the trip, which is the sum of the number of available modes
+     *               of all previous trips
+     * @return the offset of the next trip
+     */
+    int read(int index, int offset, double[] values, boolean[] available, double[] tripErrorTerms) {
+        final int mask = availableModes[index];
+        for (int i = 0; i < NUMBER_OF_MODES; i++) {
+            available[i] = (mask & (1 << i)) != 0;
+            if (available[i]) {
+                values[i] = utilities[offset];
+                tripErrorTerms[i] = errorTerms[offset];
+                offset++;
+            }
+        }
+        return offset;
+    }
+
+    long getBytes() {
+        return numberOfTrips * (8L + 8L + 4L) + numberOfValues * 16L;
+    }
+}
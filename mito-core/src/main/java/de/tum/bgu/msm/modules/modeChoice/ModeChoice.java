@@ -1,5 +1,6 @@
 package de.tum.bgu.msm.modules.modeChoice;
 
+import com.google.common.collect.Lists;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.modules.Module;
@@ -11,10 +12,7 @@ import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
@@ -28,11 +26,16 @@ public class ModeChoice extends Module {
 
     private final Map<Purpose, ModeChoiceCalculator> modeChoiceCalculatorByPurpose = new EnumMap<>(Purpose.class);
 
+    private final boolean cacheCalibrationUtilities;
+    private final Map<Purpose, CalibrationUtilityCache[]> calibrationCachesByPurpose = new EnumMap<>(Purpose.class);
+
     public ModeChoice(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
         boolean includeAV = Resources.instance.getBoolean(AUTONOMOUS_VEHICLE_CHOICE, false);
         //TODO: move AV related codes to use-cases/munich/scenarios
         //AV option is deactivated for now, since it uses outdate mode choice calculators.
+        cacheCalibrationUtilities = Resources.instance.getBoolean(RUN_CALIBRATION_MC, false)
+                && Resources.instance.getBoolean(MC_CALIBRATION_CACHE_UTILITIES, false);
     }
 
     public void registerModeChoiceCalculator(Purpose purpose, ModeChoiceCalculator modeChoiceCalculator) {
@@ -73,11 +76,86 @@ public class ModeChoice extends Module {
     }
 
     private void modeChoiceByPurpose() {
-        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(Purpose.values().length);
+        // The number of partitions (not the number of threads) determines the random number streams, so results
+        // are reproducible for a fixed seed and partition count on any machine. With more than one partition,
+        // the mode choice calculator of a purpose is used by several threads at once and must be thread-safe.
+        final List<MitoHousehold> households = new ArrayList<>(dataSet.getModelledHouseholds().values());
+        final int numberOfPartitions = Math.max(1, Resources.instance.getInt(MC_HOUSEHOLD_PARTITIONS, 1));
+        final int partitionSize = Math.max(1, (int) Math.ceil((double) households.size() / numberOfPartitions));
+        final List<List<MitoHousehold>> partitions = households.isEmpty() ?
+                Collections.singletonList(households) : Lists.partition(households, partitionSize);
+        final boolean staticPersonErrorTerms = Resources.instance.getBoolean(MC_STATIC_PERSON_ERROR_TERMS, false);
+
+        final int numberOfThreads = numberOfPartitions == 1 ?
+                Purpose.values().length : Runtime.getRuntime().availableProcessors();
+        logger.info("Using " + numberOfThreads + " thread(s)" +
+                " with " + partitions.size() + " household partition(s) of size " + partitionSize);
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (Purpose purpose : purposes) {
+            final ModeChoiceCalculator calculator = modeChoiceCalculatorByPurpose.get(purpose);
+            final int purposeSeed = staticPersonErrorTerms ? 0 : MitoUtil.getRandomObject().nextInt();
+            final CalibrationUtilityCache[] calibrationCaches = getCalibrationCaches(purpose, calculator, partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                ErrorTerms<Mode> errorTermsSampler = null;
+                if (!staticPersonErrorTerms) {
+                    errorTermsSampler = new ErrorTerms<>(Mode.class, calculator.getChoiceSet(), calculator.getNests(),
+                            (int) MitoUtil.deriveSeed(purposeSeed, i));
+                }
+                if (calibrationCaches != null) {
+                    tasks.add(new ModeChoiceByPurpose(purpose, dataSet, (CalibratingModeChoiceCalculatorImpl) calculator,
+                            partitions.get(i), errorTermsSampler, calibrationCaches[i]));
+                } else {
+                    tasks.add(new ModeChoiceByPurpose(purpose, dataSet, calculator, partitions.get(i), errorTermsSampler));
+                }
+            }
+        }
+
+        ConcurrentExecutor<Integer> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
+        final List<Integer> skippedTrips = executor.submitTasksAndWaitForCompletion(tasks);
+
+        int task = 0;
         for (Purpose purpose : purposes) {
-            executor.addTaskToQueue(new ModeChoiceByPurpose(purpose, dataSet, modeChoiceCalculatorByPurpose.get(purpose)));
+            int countTripsSkipped = 0;
+            for (int i = 0; i < partitions.size(); i++) {
+                countTripsSkipped += skippedTrips.get(task++);
+            }
+            logger.info(countTripsSkipped + " trips skipped for " + purpose);
+        }
+        if (!calibrationCachesByPurpose.isEmpty()) {
+            long bytes = 0;
+            for (CalibrationUtilityCache[] caches : calibrationCachesByPurpose.values()) {
+                for (CalibrationUtilityCache cache : caches) {
+                    bytes += cache.getBytes();
+                }
+            }
+            logger.info("Cached utilities for mode choice calibration use " + bytes / (1024 * 1024) + " MB");
+        }
+    }
+
+    /**
+     * Returns the caches of utilities and error terms by household partition, if utilities are cached during mode
+     * choice calibration. Trips are then only evaluated in the first run, and later runs only apply the updated
+     * calibration factors. Error terms stay the same in all iterations, so changes of the mode shares between
+     * iterations are caused by the calibration factors only.
+     */
+    private CalibrationUtilityCache[] getCalibrationCaches(Purpose purpose, ModeChoiceCalculator calculator, int numberOfPartitions) {
+        if (!cacheCalibrationUtilities) {
+            return null;
+        }
+        if (!(calculator instanceof CalibratingModeChoiceCalculatorImpl)) {
+            logger.warn("Mode choice calculator for purpose " + purpose + " does not apply calibration factors, utilities are not cached");
+            return null;
         }
-        executor.execute();
+        CalibrationUtilityCache[] caches = calibrationCachesByPurpose.get(purpose);
+        if (caches == null || caches.length != numberOfPartitions) {
+            caches = new CalibrationUtilityCache[numberOfPartitions];
+            for (int i = 0; i < numberOfPartitions; i++) {
+                caches[i] = new CalibrationUtilityCache();
+            }
+            calibrationCachesByPurpose.put(purpose, caches);
+        }
+        return caches;
     }
 
     private void printModeShares() {
@@ -134,48 +212,112 @@ public class ModeChoice extends Module {
         }
     }
 
-    static class ModeChoiceByPurpose implements Callable<Void> {
+    /**
+     * Chooses the modes of all trips of one purpose made by the given households.
+     * Returns the number of skipped trips.
+     */
+    static class ModeChoiceByPurpose implements Callable<Integer> {
+
+        private static final Mode[] MODES = Mode.values();
 
         private final Purpose purpose;
         private final DataSet dataSet;
         private final TravelTimes travelTimes;
         private final ModeChoiceCalculator modeChoiceCalculator;
+        private final Collection<MitoHousehold> households;
         private int countTripsSkipped;
-        private ErrorTerms<Mode> errorTermsSampler = null;
+        private final ErrorTerms<Mode> errorTermsSampler;
+
+        private final CalibrationUtilityCache calibrationCache;
+        private final ModeChoiceCalibrationData calibrationData;
 
-        ModeChoiceByPurpose(Purpose purpose, DataSet dataSet, ModeChoiceCalculator modeChoiceCalculator) {
+        private final ModeUtilities utilities = new ModeUtilities();
+        private final double[] errorTerms = new double[MODES.length];
+
+        /**
+         * @param errorTermsSampler the sampler of trip-level error terms, may be null if all persons have static
+         *                          error terms
+         */
+        ModeChoiceByPurpose(Purpose purpose, DataSet dataSet, ModeChoiceCalculator modeChoiceCalculator,
+                            Collection<MitoHousehold> households, ErrorTerms<Mode> errorTermsSampler) {
             this.purpose = purpose;
             this.dataSet = dataSet;
             this.travelTimes = dataSet.getTravelTimes();
             this.modeChoiceCalculator = modeChoiceCalculator;
-            if(!Resources.instance.getBoolean(MC_STATIC_PERSON_ERROR_TERMS, false)) {
-                this.errorTermsSampler = new ErrorTerms<>(Mode.class,
-                        modeChoiceCalculator.getChoiceSet(),
-                        modeChoiceCalculator.getNests(),
-                        MitoUtil.getRandomObject().nextInt());
-            }
+            this.households = households;
+            this.errorTermsSampler = errorTermsSampler;
+            this.calibrationCache = null;
+            this.calibrationData = null;
+        }
+
+        /**
+         * Creates a task that records the utilities without calibration factors and the error terms of all trips in
+         * the given cache, or replays them if the cache is complete.
+         */
+        ModeChoiceByPurpose(Purpose purpose, DataSet dataSet, CalibratingModeChoiceCalculatorImpl modeChoiceCalculator,
+                            Collection<MitoHousehold> households, ErrorTerms<Mode> errorTermsSampler,
+                            CalibrationUtilityCache calibrationCache) {
+            this.purpose = purpose;
+            this.dataSet = dataSet;
+            this.travelTimes = dataSet.getTravelTimes();
+            this.modeChoiceCalculator = modeChoiceCalculator.getBase();
+            this.households = households;
+            this.errorTermsSampler = errorTermsSampler;
+            this.calibrationCache = calibrationCache;
+            this.calibrationData = modeChoiceCalculator.getCalibrationData();
         }
 
         @Override
-        public Void call() {
+        public Integer call() {
             countTripsSkipped = 0;
             try {
-                for (MitoHousehold household : dataSet.getModelledHouseholds().values()) {
+                if (calibrationCache != null && calibrationCache.isComplete()) {
+                    return replayCalibrationCache();
+                } else if (calibrationCache != null) {
+                    calibrationCache.clear();
+                }
+                for (MitoHousehold household : households) {
                     for (MitoTrip trip : household.getTripsForPurpose(purpose)) {
-                        chooseMode(trip, calculateTripUtilities(household, trip));
+                        if (calculateTripUtilities(household, trip)) {
+                            chooseMode(trip);
+                        } else {
+                            countTripsSkipped++;
+                        }
                     }
                 }
+                if (calibrationCache != null) {
+                    calibrationCache.addSkippedTrips(countTripsSkipped);
+                    calibrationCache.complete();
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            logger.info(countTripsSkipped + " trips skipped for " + purpose);
-            return null;
+            return countTripsSkipped;
+        }
+
+        private int replayCalibrationCache() {
+            final double[] values = utilities.getValues();
+            final boolean[] available = utilities.getAvailability();
+            int offset = 0;
+            for (int i = 0; i < calibrationCache.getNumberOfTrips(); i++) {
+                offset = calibrationCache.read(i, offset, values, available, errorTerms);
+                addCalibrationFactors(calibrationCache.getOrigin(i));
+                chooseMode(calibrationCache.getTrip(i), values, available);
+            }
+            return calibrationCache.getCountTripsSkipped();
+        }
+
+        private void addCalibrationFactors(MitoZone origin) {
+            final double[] calibrationFactors = calibrationData.getCalibrationFactorsAsArray(purpose, origin);
+            for (int i = 0; i < calibrationFactors.length; i++) {
+                utilities.add(i, calibrationFactors[i]);
+            }
         }
 
-        private EnumMap<Mode, Double> calculateTripUtilities(MitoHousehold household, MitoTrip trip) {
+        private boolean calculateTripUtilities(MitoHousehold household, MitoTrip trip) {
             if (trip.getTripOrigin() == null || trip.getTripDestination() == null) {
                 countTripsSkipped++;
-                return null;
+                return false;
             }
 
             final int originId = trip.getTripOrigin().getZoneId();
@@ -188,27 +330,50 @@ public class ModeChoice extends Module {
             final double travelDistanceNMT = dataSet.getTravelDistancesNMT().getTravelDistance(originId,
                     destinationId);
             return modeChoiceCalculator.calculateUtilities(purpose, household, trip.getPerson(), origin, destination, travelTimes, travelDistanceAuto,
-                    travelDistanceNMT, dataSet.getPeakHour());
+                    travelDistanceNMT, dataSet.getPeakHour(), utilities);
         }
 
-        private void chooseMode(MitoTrip trip, EnumMap<Mode, Double> utilities) {
-            if (utilities == null) {
-                countTripsSkipped++;
-                return;
+        private void chooseMode(MitoTrip trip) {
+            final double[] values = utilities.getValues();
+            final boolean[] available = utilities.getAvailability();
+
+            sampleErrorTerms(trip, available);
+
+            if (calibrationCache != null) {
+                final MitoZone origin = dataSet.getZones().get(trip.getTripOrigin().getZoneId());
+                calibrationCache.add(trip, origin, values, available, errorTerms);
+                addCalibrationFactors(origin);
             }
+            chooseMode(trip, values, available);
+        }
 
-            //found Nan when there is no transit!!
-            utilities.replaceAll((mode, utility) -> utility.isNaN() ? Double.NEGATIVE_INFINITY : utility);
+        private void sampleErrorTerms(MitoTrip trip, boolean[] available) {
+            Map<Mode,Double> personErrorTerms = trip.getPerson().getErrorTerms();
+            if(personErrorTerms == null) {
+                errorTermsSampler.sampleErrorTerms(errorTerms);
+            } else {
+                for (int i = 0; i < available.length; i++) {
+                    if (available[i]) {
+                        errorTerms[i] = personErrorTerms.get(MODES[i]);
+                    }
+                }
+            }
+        }
 
-            Map<Mode,Double> errorTerms = trip.getPerson().getErrorTerms();
-            if(errorTerms == null) {
-                errorTerms = errorTermsSampler.sampleErrorTerms();
+        private void chooseMode(MitoTrip trip, double[] values, boolean[] available) {
+            //found Nan when there is no transit!!
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (available[i]) {
+                    if (Double.isNaN(values[i])) {
+                        values[i] = Double.NEGATIVE_INFINITY;
+                    }
+                    sum += values[i];
+                }
             }
 
-            double sum = MitoUtil.getSum(utilities.values());
             if (Double.isFinite(sum)) {
-                final Mode select = LogitTools.getHighest(utilities,errorTerms);
-                trip.setTripMode(select);
+                trip.setTripMode(MODES[LogitTools.getHighest(values, available, errorTerms)]);
             } else {
                 logger.error("Infinite utilities for trip " + trip.getId());
                 trip.setTripMode(null);
@@ -58,6 +58,32 @@ public interface ModeChoiceCalculator {
                                     double travelDistanceNMT,
                                     double peakHour_s);
 
+    /**
+     * Primitive variant of {@link #calculateUtilities(Purpose, MitoHousehold, MitoPerson, MitoZone, MitoZone,
+     * TravelTimes, double, double, double)} that writes the utilities of all available modes into the given,
+     * reusable container. The default implementation adapts the {@link EnumMap} based method, calculators used
+     * in performance critical loops should override it.
+     *
+     * @return false if no utilities could be calculated for this trip
+     */
+    default boolean calculateUtilities(Purpose purpose,
+                                       MitoHousehold household,
+                                       MitoPerson person,
+                                       MitoZone originZone,
+                                       MitoZone destinationZone,
+                                       TravelTimes travelTimes,
+                                       double travelDistanceAuto,
+                                       double travelDistanceNMT,
+                                       double peakHour_s,
+                                       ModeUtilities utilities) {
+        EnumMap<Mode, Double> utilityMap = calculateUtilities(purpose, household, person, originZone, destinationZone,
+                travelTimes, travelDistanceAuto, travelDistanceNMT, peakHour_s);
+        if (utilityMap == null) {
+            return false;
+        }
+        utilities.setAll(utilityMap);
+        return true;
+    }
 
     /**
      * For the time being implementations of this interface should adhere to the following order in the result array:
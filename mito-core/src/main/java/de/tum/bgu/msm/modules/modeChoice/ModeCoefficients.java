@@ -0,0 +1,93 @@
+package de.tum.bgu.msm.modules.modeChoice;
+
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+
+import java.util.*;
+
+/**
+ * Compiled form of mode choice coefficients as read by
+ * {@link de.tum.bgu.msm.io.input.readers.ModeChoiceCoefficientReader}. Each variable name is resolved once to an
+ * int slot, so that calculators can look up coefficients in their per-trip loops by array access instead of
+ * hashing strings and unboxing values:
+ * <pre>
+ *     coefficients = ModeCoefficients.compile(purpose, coef, "asc", ...);
+ *     final int asc = coefficients.slot("asc");
+ *     ...
+ *     double utility = coefficients.get(mode, asc);
+ * </pre>
+ * Every variable of the calculator needs a coefficient for every mode in the file, so that a missing coefficient is
+ * reported once when compiling rather than for the first trip it applies to.
+ */
+public final class ModeCoefficients {
+
+    private final Map<String, Integer> slotsByVariable;
+    private final double[][] coefficientsByMode;
+    private final EnumSet<Mode> modes;
+
+    private ModeCoefficients(Map<String, Integer> slotsByVariable, double[][] coefficientsByMode, EnumSet<Mode> modes) {
+        this.slotsByVariable = slotsByVariable;
+        this.coefficientsByMode = coefficientsByMode;
+        this.modes = modes;
+    }
+
+    /**
+     * @param variables the variables of the calculator, which get slots in the given order
+     * @throws IllegalArgumentException if a variable has no coefficient for one of the modes
+     */
+    public static ModeCoefficients compile(Purpose purpose, Map<Mode, Map<String, Double>> coefficients, String... variables) {
+        final Map<String, Integer> slots = new HashMap<>();
+        for (String variable : variables) {
+            slots.putIfAbsent(variable, slots.size());
+        }
+        final double[][] coefficientsByMode = new double[Mode.values().length][];
+        for (Map.Entry<Mode, Map<String, Double>> entry : coefficients.entrySet()) {
+            final double[] values = new double[slots.size()];
+            for (String variable : variables) {
+                final Double value = entry.getValue().get(variable);
+                if (value == null) {
+                    throw new IllegalArgumentException("Mode choice coefficient " + variable
+                            + " is not defined for mode " + entry.getKey() + " and purpose " + purpose);
+                }
+                values[slots.get(variable)] = value;
+            }
+            coefficientsByMode[entry.getKey().ordinal()] = values;
+        }
+        final EnumSet<Mode> modes = coefficients.isEmpty() ? EnumSet.noneOf(Mode.class) : EnumSet.copyOf(coefficients.keySet());
+        return new ModeCoefficients(slots, coefficientsByMode, modes);
+    }
+
+    /**
+     * Returns the slot of the given variable.
+     * @throws IllegalArgumentException if the variable was not compiled
+     */
+    public int slot(String variable) {
+        final Integer slot = slotsByVariable.get(variable);
+        if (slot == null) {
+            throw new IllegalArgumentException("Mode choice coefficient " + variable + " was not compiled");
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the coefficient of the variable with the given slot for the given mode.
+     */
+    public double get(Mode mode, int slot) {
+        return coefficientsByMode[mode.ordinal()][slot];
+    }
+
+    /**
+     * Returns the coefficients of the given mode by slot, or null if the mode has no coefficients.
+     */
+    public double[] forMode(Mode mode) {
+        return coefficientsByMode[mode.ordinal()];
+    }
+
+    public boolean contains(Mode mode) {
+        return coefficientsByMode[mode.ordinal()] != null;
+    }
+
+    public EnumSet<Mode> getModes() {
+        return EnumSet.copyOf(modes);
+    }
+}
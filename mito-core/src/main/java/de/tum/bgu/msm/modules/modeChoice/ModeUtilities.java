@@ -0,0 +1,95 @@
+package de.tum.bgu.msm.modules.modeChoice;
+
+import de.tum.bgu.msm.data.Mode;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reusable, primitive container for the utilities of one trip, indexed by {@link Mode#ordinal()}. Modes that are
+ * not set are not available for the trip, which corresponds to a missing key in the {@link EnumMap} based API.
+ * <p>
+ * Instances are not thread-safe and are meant to be reused for all trips handled by one thread, so that utility
+ * calculation does not allocate or box any values.
+ */
+public final class ModeUtilities {
+
+    private static final Mode[] MODES = Mode.values();
+
+    private final double[] values = new double[MODES.length];
+    private final boolean[] available = new boolean[MODES.length];
+
+    /**
+     * Marks all modes as unavailable.
+     */
+    public void reset() {
+        for (int i = 0; i < available.length; i++) {
+            available[i] = false;
+            values[i] = 0;
+        }
+    }
+
+    public void set(Mode mode, double utility) {
+        values[mode.ordinal()] = utility;
+        available[mode.ordinal()] = true;
+    }
+
+    /**
+     * Adds the given value to the utility of the mode, if the mode is available.
+     */
+    public void add(int ordinal, double value) {
+        if (available[ordinal]) {
+            values[ordinal] += value;
+        }
+    }
+
+    public boolean isAvailable(Mode mode) {
+        return available[mode.ordinal()];
+    }
+
+    public boolean isAvailable(int ordinal) {
+        return available[ordinal];
+    }
+
+    public double get(Mode mode) {
+        return values[mode.ordinal()];
+    }
+
+    public double get(int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * Returns the backing array of utilities by mode ordinal. Entries of unavailable modes are meaningless.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the backing array of availabilities by mode ordinal.
+     */
+    public boolean[] getAvailability() {
+        return available;
+    }
+
+    /**
+     * Replaces the content of this container by the given utilities.
+     */
+    public void setAll(Map<Mode, Double> utilities) {
+        reset();
+        for (Map.Entry<Mode, Double> entry : utilities.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public EnumMap<Mode, Double> toEnumMap() {
+        EnumMap<Mode, Double> utilities = new EnumMap<>(Mode.class);
+        for (int i = 0; i < MODES.length; i++) {
+            if (available[i]) {
+                utilities.put(MODES[i], values[i]);
+            }
+        }
+        return utilities;
+    }
+}
@@ -79,6 +79,9 @@ public class LongDistanceTraffic extends Module {
         final Population population = dataSet.getPopulation();
         PopulationFactory matsimPopulationFactory = population.getFactory();
         long personId = 0;
+        final double relativeGrowth = Math.pow( 1 +
+                Resources.instance.getDouble(Properties.EXTERNAL_GROWTH_RATE, 0.006),
+                dataSet.getYear() - Resources.instance.getInt(Properties.EXTERNAL_BASE_YEAR, 2011));
         for (ExternalFlowType type : ExternalFlowType.values()) {
             HashBasedTable<Integer, Integer, Float> matrix = externalFlows.get(type);
             for (int originId : matrix.rowKeySet()) {
@@ -86,9 +89,6 @@ public class LongDistanceTraffic extends Module {
                     if (matrix.contains(originId, destId)) {
                         float numberOfTripsFloat = matrix.get(originId, destId);
 
-                        double relativeGrowth = Math.pow( 1 +
-                                Resources.instance.getDouble(Properties.EXTERNAL_GROWTH_RATE, 0.006),
-                                dataSet.getYear() - Resources.instance.getInt(Properties.EXTERNAL_BASE_YEAR, 2011));
                         numberOfTripsFloat = numberOfTripsFloat * (float) relativeGrowth;
 
                         addFlow(originId, destId, numberOfTripsFloat);
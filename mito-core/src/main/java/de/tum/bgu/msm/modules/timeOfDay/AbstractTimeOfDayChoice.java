@@ -0,0 +1,165 @@
+package de.tum.bgu.msm.modules.timeOfDay;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import com.google.common.collect.Lists;
+import com.google.common.math.LongMath;
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.io.input.readers.TimeOfDayDistributionsReader;
+import de.tum.bgu.msm.modules.Module;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.CumulativeTable;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class of time of day choice. The minute distributions of all purposes are turned into immutable cumulative
+ * tables once per run, and households are split into partitions that are processed in parallel.
+ * <p>
+ * With a single partition (the default) all draws come from the global random object in the former order, so
+ * results are unchanged. With more partitions, every partition draws from its own random number stream derived
+ * from a seed of the global random object, so results are reproducible for a fixed seed and partition count.
+ */
+public abstract class AbstractTimeOfDayChoice extends Module {
+
+    private static final Logger logger = LogManager.getLogger(AbstractTimeOfDayChoice.class);
+
+    private EnumMap<Purpose, CumulativeTable> arrivalMinuteByPurpose;
+    private EnumMap<Purpose, CumulativeTable> durationMinuteByPurpose;
+    private EnumMap<Purpose, CumulativeTable> departureMinuteByPurpose;
+    private MitoZone airportZone;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    protected AbstractTimeOfDayChoice(DataSet dataSet, List<Purpose> purposes) {
+        super(dataSet, purposes);
+        new TimeOfDayDistributionsReader(dataSet, purposes).read();
+    }
+
+    @Override
+    public void run() {
+        arrivalMinuteByPurpose = toCumulativeTables(dataSet.getArrivalMinuteCumProbByPurpose());
+        durationMinuteByPurpose = toCumulativeTables(dataSet.getDurationMinuteCumProbByPurpose());
+        departureMinuteByPurpose = toCumulativeTables(dataSet.getDepartureMinuteCumProbByPurpose());
+        airportZone = purposes.contains(Purpose.AIRPORT) ? dataSet.getZones().get(Resources.instance.getInt(Properties.AIRPORT_ZONE)) : null;
+
+        chooseDepartureTimes();
+        logger.info("Time of day choice completed");
+    }
+
+    private static EnumMap<Purpose, CumulativeTable> toCumulativeTables(EnumMap<Purpose, DoubleMatrix1D> distributions) {
+        final EnumMap<Purpose, CumulativeTable> tables = new EnumMap<>(Purpose.class);
+        distributions.forEach((purpose, distribution) -> tables.put(purpose, CumulativeTable.of(distribution.toArray())));
+        return tables;
+    }
+
+    private void chooseDepartureTimes() {
+        final List<MitoHousehold> households = new ArrayList<>(dataSet.getModelledHouseholds().values());
+        final int numberOfPartitions = Math.max(1, Resources.instance.getInt(Properties.TIME_OF_DAY_HOUSEHOLD_PARTITIONS, 1));
+        final int partitionSize = Math.max(1, (int) Math.ceil((double) households.size() / numberOfPartitions));
+        final List<List<MitoHousehold>> partitions = households.isEmpty() ?
+                Collections.singletonList(households) : Lists.partition(households, partitionSize);
+
+        int issues = 0;
+        if (partitions.size() == 1) {
+            issues = chooseDepartureTimes(partitions.get(0), MitoUtil.getRandomObject());
+        } else {
+            final long seed = MitoUtil.getRandomObject().nextLong();
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < partitions.size(); i++) {
+                final List<MitoHousehold> partition = partitions.get(i);
+                final Random random = new Random(MitoUtil.deriveSeed(seed, i));
+                tasks.add(() -> chooseDepartureTimes(partition, random));
+            }
+            final int numberOfThreads = Math.min(partitions.size(), Runtime.getRuntime().availableProcessors());
+            logger.info("Using " + numberOfThreads + " thread(s)" +
+                    " with " + partitions.size() + " household partition(s) of size " + partitionSize);
+            for (int partitionIssues : ConcurrentExecutor.<Integer>fixedPoolService(numberOfThreads).submitTasksAndWaitForCompletion(tasks)) {
+                issues += partitionIssues;
+            }
+        }
+        if (issues > 0) {
+            logger.warn(issues + " trips have no time of day since they have no origin, destination or mode");
+        }
+    }
+
+    /**
+     * Chooses the departure times of all trips of the given households. Returns the number of trips without
+     * origin, destination or mode.
+     */
+    private int chooseDepartureTimes(List<MitoHousehold> households, Random random) {
+        int issues = 0;
+        for (Purpose purpose : purposes) {
+            for (MitoHousehold hh : households) {
+                for (MitoTrip trip : hh.getTripsForPurpose(purpose)) {
+                    if (trip.getTripOrigin() != null && trip.getTripDestination() != null
+                            && trip.getTripMode() != null) {
+                        int departureTimeInMinutes;
+                        int arrivalTimeInMinutes = 0;
+                        if (trip.getTripPurpose().equals(Purpose.AIRPORT) &&
+                                trip.getTripOrigin().equals(airportZone)) {
+                            departureTimeInMinutes = chooseDepartureTime(trip, random);
+                        } else if (trip.getTripPurpose().equals(Purpose.RRT)) {
+                            departureTimeInMinutes = chooseDepartureTime(trip, random);
+                        } else {
+                            arrivalTimeInMinutes = chooseArrivalTime(trip, random);
+                            departureTimeInMinutes = arrivalTimeInMinutes - (int) estimateTravelTimeForDeparture(trip, arrivalTimeInMinutes);
+                        }
+                        //if departure is before midnight
+                        if (departureTimeInMinutes < 0) {
+                            departureTimeInMinutes = departureTimeInMinutes + 24 * 60;
+                        }
+                        trip.setDepartureInMinutes(departureTimeInMinutes);
+                        if (trip.isHomeBased()) {
+                            trip.setDepartureInMinutesReturnTrip(chooseDepartureTimeForReturnTrip(trip, arrivalTimeInMinutes, random));
+                        }
+                    } else {
+                        issues++;
+                    }
+                    long count = counter.incrementAndGet();
+                    if (LongMath.isPowerOfTwo(count)) {
+                        logger.info(count + " times of day assigned");
+                    }
+                }
+            }
+        }
+        return issues;
+    }
+
+    protected int chooseDepartureTime(MitoTrip mitoTrip, Random random) {
+        return departureMinuteByPurpose.get(mitoTrip.getTripPurpose()).sample(random);
+    }
+
+    protected int chooseArrivalTime(MitoTrip mitoTrip, Random random) {
+        Purpose tripPurpose = mitoTrip.getTripPurpose();
+        if(tripPurpose == Purpose.HBW || tripPurpose == Purpose.HBE) {
+            MitoOccupation occupation = mitoTrip.getPerson().getOccupation();
+            if(occupation != null){
+                return occupation.getStartTime_min().orElseGet(() -> arrivalMinuteByPurpose.get(tripPurpose).sample(random));
+            }
+        }
+        return arrivalMinuteByPurpose.get(tripPurpose).sample(random);
+    }
+
+    protected int chooseDuration(Purpose purpose, Random random) {
+        return durationMinuteByPurpose.get(purpose).sample(random);
+    }
+
+    /**
+     * Chooses the departure time of the return trip of a home-based trip. Called concurrently for trips of
+     * different households.
+     */
+    protected abstract int chooseDepartureTimeForReturnTrip(MitoTrip mitoTrip, int arrivalTime, Random random);
+
+    /**
+     * Returns the travel time in minutes used to derive the departure time from the arrival time. Called
+     * concurrently for trips of different households.
+     */
+    protected abstract double estimateTravelTimeForDeparture(MitoTrip trip, double arrivalInMinutes);
+}
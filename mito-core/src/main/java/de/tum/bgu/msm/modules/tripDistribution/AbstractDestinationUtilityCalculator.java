@@ -41,6 +41,26 @@ public abstract class AbstractDestinationUtilityCalculator {
         }
     }
 
+    /**
+     * Returns the part of the utility that only depends on the attraction of the destination. Together with
+     * {@link #calculateUtilityFromAttractionTerm(double, double, int)} this yields exactly
+     * {@link #calculateUtility(double, double, int)}, but the attraction term can be calculated once per zone.
+     */
+    public final double calculateAttractionTerm(double attraction) {
+        if (attraction == 0. || attractionParam == 1.) {
+            return attraction;
+        }
+        return Math.pow(attraction, attractionParam);
+    }
+
+    public final double calculateUtilityFromAttractionTerm(double attractionTerm, double travelDistance, int index) {
+        if (attractionTerm == 0.) {
+            return 0.;
+        }
+        double expImpedance = Math.exp(impedanceParam + distanceParams[index] * travelDistance);
+        return attractionTerm == 1. ? expImpedance : expImpedance * attractionTerm;
+    }
+
     public void adjustDistanceParams(double[] adjustment, Logger logger) {
         assert (adjustment.length == distanceParams.length);
         for(int i = 0 ; i < adjustment.length ; i++) {
@@ -0,0 +1,71 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Size-bounded cache of destination utility rows shared by all purposes and categories. Rows are evicted in
+ * approximately least-recently-used order once their total size exceeds the given number of bytes.
+ */
+final class DestinationUtilityRowCache {
+
+    private final LoadingCache<Key, DestinationUtilityRows.Row> rows;
+
+    DestinationUtilityRowCache(long maximumBytes) {
+        this.rows = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Key key, DestinationUtilityRows.Row row) -> row.getBytes())
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public DestinationUtilityRows.Row load(Key key) {
+                        return key.utilities.calculateRow(key.origin);
+                    }
+                });
+    }
+
+    DestinationUtilityRows.Row get(DestinationUtilityRows utilities, int origin) {
+        try {
+            return rows.getUnchecked(new Key(utilities, origin));
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    void invalidateAll() {
+        rows.invalidateAll();
+    }
+
+    CacheStats getStats() {
+        return rows.stats();
+    }
+
+    private static final class Key {
+        private final DestinationUtilityRows utilities;
+        private final int origin;
+
+        private Key(DestinationUtilityRows utilities, int origin) {
+            this.utilities = utilities;
+            this.origin = origin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return utilities == other.utilities && origin == other.origin;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(utilities) + origin;
+        }
+    }
+}
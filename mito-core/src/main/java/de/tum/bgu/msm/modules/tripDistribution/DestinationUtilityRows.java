@@ -0,0 +1,191 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.travelDistances.TravelDistances;
+import de.tum.bgu.msm.util.AliasTable;
+import de.tum.bgu.msm.util.CumulativeTable;
+import de.tum.bgu.msm.util.matrices.DenseIdIndex;
+
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Destination choice utilities of one purpose and person category. Instead of a dense zones x zones matrix, rows
+ * are calculated on first request from the attraction vector and the distance skim and kept in a size-bounded
+ * {@link DestinationUtilityRowCache}, so memory is proportional to the origins in use rather than to purposes x
+ * categories x zones². Evicted rows are calculated again when needed and are identical to the evicted ones.
+ * <p>
+ * Destinations are indexed in the iteration order of the zones of the data set and drawn with an alias table, or by
+ * inverse transform sampling from the cumulative utilities. The latter maps close random numbers to close
+ * destinations, so that a trip that gets the same random number in every calibration iteration only changes its
+ * destination when the distance parameters change its choice probabilities. Instances are safe to share between
+ * threads.
+ */
+public final class DestinationUtilityRows {
+
+    private final Purpose purpose;
+    private final int categoryIndex;
+    private final AbstractDestinationUtilityCalculator calculator;
+    private final TravelDistances travelDistances;
+    private final MitoZone[] zones;
+    private final double[] attractions;
+    private final double[] attractionTerms;
+    private final DenseIdIndex zoneIndex;
+    private final DestinationUtilityRowCache cache;
+    private final boolean inverseTransformSampling;
+
+    /**
+     * @param inverseTransformSampling whether to draw destinations from the cumulative utilities instead of an
+     *                                 alias table
+     */
+    DestinationUtilityRows(Purpose purpose, DataSet dataSet, AbstractDestinationUtilityCalculator calculator,
+                           int categoryIndex, DestinationUtilityRowCache cache, boolean inverseTransformSampling) {
+        this.purpose = purpose;
+        this.categoryIndex = categoryIndex;
+        this.calculator = calculator;
+        this.travelDistances = dataSet.getTravelDistancesNMT();
+        this.cache = cache;
+        this.inverseTransformSampling = inverseTransformSampling;
+
+        final Collection<MitoZone> zoneCollection = dataSet.getZones().values();
+        this.zones = zoneCollection.toArray(new MitoZone[0]);
+        this.attractions = new double[zones.length];
+        this.attractionTerms = new double[zones.length];
+        final int[] ids = new int[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            attractions[i] = zones[i].getTripAttraction(purpose);
+            attractionTerms[i] = calculator.calculateAttractionTerm(attractions[i]);
+            ids[i] = zones[i].getId();
+        }
+        this.zoneIndex = new DenseIdIndex(ids);
+    }
+
+    /**
+     * Returns the utilities of all destinations for the given origin zone id, indexed like the zones. The returned
+     * array is shared and must not be modified.
+     */
+    public double[] getUtilities(int originId) {
+        return getRow(originId).utilities;
+    }
+
+    /**
+     * Returns the id of a destination zone drawn with probabilities proportional to the utilities of the given
+     * origin zone id.
+     */
+    public int sampleDestinationId(int originId, Random random) {
+        return zones[getRow(originId).sample(random)].getId();
+    }
+
+    /**
+     * Returns the id of the destination zone with the given index.
+     */
+    public int getZoneId(int index) {
+        return zones[index].getId();
+    }
+
+    public int getNumberOfZones() {
+        return zones.length;
+    }
+
+    /**
+     * Calculates the utilities and the sampling table of the given origin zone id ahead of their first use.
+     */
+    void prepare(int originId) {
+        getRow(originId).prepare();
+    }
+
+    /**
+     * Returns the approximate memory of one row in bytes.
+     */
+    long getRowBytes() {
+        return Row.getBytes(zones.length);
+    }
+
+    private Row getRow(int originId) {
+        final int origin = zoneIndex.getIndex(originId);
+        if (origin < 0) {
+            throw new IllegalArgumentException("Zone " + originId + " is not part of the destination utilities of purpose " + purpose);
+        }
+        return cache.get(this, origin);
+    }
+
+    Row calculateRow(int origin) {
+        final MitoZone originZone = zones[origin];
+        final int originId = originZone.getId();
+        final double[] utilities = new double[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            final double distance = travelDistances.getTravelDistance(originId, zones[i].getId());
+            final double utility = calculator.calculateUtilityFromAttractionTerm(attractionTerms[i], distance, categoryIndex);
+
+            if (!Double.isFinite(utility)) {
+                throw new RuntimeException(utility + " utility calculated! Please check calculation!" +
+                        " Origin: " + originZone + " | Destination: " + zones[i] + " | Distance: " + distance +
+                        " | Purpose: " + purpose + " | attraction rate: " + attractions[i]);
+            }
+            utilities[i] = utility;
+        }
+        return new Row(utilities, inverseTransformSampling);
+    }
+
+    /**
+     * Utilities of one origin together with the alias or cumulative table to sample from them, which is built on
+     * first use.
+     */
+    static final class Row {
+
+        private final double[] utilities;
+        private final boolean inverseTransformSampling;
+        private volatile AliasTable aliasTable;
+        private volatile CumulativeTable cumulativeTable;
+
+        private Row(double[] utilities, boolean inverseTransformSampling) {
+            this.utilities = utilities;
+            this.inverseTransformSampling = inverseTransformSampling;
+        }
+
+        private int sample(Random random) {
+            return inverseTransformSampling ? getCumulativeTable().sample(random) : getAliasTable().sample(random);
+        }
+
+        private void prepare() {
+            if (inverseTransformSampling) {
+                getCumulativeTable();
+            } else {
+                getAliasTable();
+            }
+        }
+
+        private AliasTable getAliasTable() {
+            AliasTable table = aliasTable;
+            if (table == null) {
+                // Concurrent first requests may build the same table twice, which is harmless
+                table = AliasTable.of(utilities);
+                aliasTable = table;
+            }
+            return table;
+        }
+
+        private CumulativeTable getCumulativeTable() {
+            CumulativeTable table = cumulativeTable;
+            if (table == null) {
+                table = CumulativeTable.of(utilities);
+                cumulativeTable = table;
+            }
+            return table;
+        }
+
+        /**
+         * Returns the approximate memory of the row including its alias or cumulative table in bytes, which are
+         * of the same size.
+         */
+        int getBytes() {
+            return getBytes(utilities.length);
+        }
+
+        private static int getBytes(int numberOfZones) {
+            return 64 + numberOfZones * (Double.BYTES + Float.BYTES + Integer.BYTES);
+        }
+    }
+}
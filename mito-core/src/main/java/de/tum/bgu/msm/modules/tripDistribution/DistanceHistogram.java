@@ -0,0 +1,85 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import java.util.Arrays;
+
+/**
+ * Streaming histogram of trip distances with fixed bin width. The median is available after a single pass over the
+ * trips without storing or sorting the distances. It is interpolated within its bin and is therefore accurate to
+ * the bin width.
+ * <p>
+ * Distances from the maximum distance on, such as the {@link Double#MAX_VALUE} placeholder of unreachable zones,
+ * are counted in a single overflow bin. A median that falls into the overflow bin is reported as the smallest
+ * distance in it.
+ */
+final class DistanceHistogram {
+
+    private final double binWidth;
+    private final int maxBins;
+    private long[] counts = new long[1024];
+    private long overflowCount;
+    private double minOverflowDistance = Double.POSITIVE_INFINITY;
+    private long count;
+
+    /**
+     * @param binWidth the width of the bins, in the unit of the distances
+     * @param maxDistance the distance from which on distances are counted in the overflow bin
+     */
+    DistanceHistogram(double binWidth, double maxDistance) {
+        if (!(binWidth > 0)) {
+            throw new IllegalArgumentException("Bin width must be positive but is " + binWidth);
+        }
+        if (!(maxDistance > 0) || maxDistance / binWidth > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Maximum distance " + maxDistance + " is not supported for bins of " + binWidth);
+        }
+        this.binWidth = binWidth;
+        this.maxBins = (int) Math.ceil(maxDistance / binWidth);
+    }
+
+    void add(double distance) {
+        if (!(distance < maxBins * binWidth)) {
+            overflowCount++;
+            minOverflowDistance = Math.min(minOverflowDistance, distance);
+            count++;
+            return;
+        }
+        final int bin = Math.min(maxBins - 1, (int) Math.max(0, Math.floor(distance / binWidth)));
+        if (bin >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.min(maxBins, Math.max(counts.length * 2, bin + 1)));
+        }
+        counts[bin]++;
+        count++;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMedian() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count % 2 == 1) {
+            return getOrderStatistic(count / 2);
+        }
+        // halves are added so that two large distances do not overflow to infinity
+        return getOrderStatistic(count / 2 - 1) / 2 + getOrderStatistic(count / 2) / 2;
+    }
+
+    /**
+     * Returns the approximate distance with the given zero-based rank, assuming that the distances of a bin are
+     * spread evenly over it.
+     */
+    private double getOrderStatistic(long rank) {
+        long cumulative = 0;
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (cumulative + counts[bin] > rank) {
+                return (bin + (rank - cumulative + 0.5) / counts[bin]) * binWidth;
+            }
+            cumulative += counts[bin];
+        }
+        if (cumulative + overflowCount > rank) {
+            return minOverflowDistance;
+        }
+        throw new IllegalArgumentException("Rank " + rank + " exceeds the number of distances " + count);
+    }
+}
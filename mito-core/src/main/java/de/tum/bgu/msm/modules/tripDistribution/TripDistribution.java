@@ -1,15 +1,14 @@
 package de.tum.bgu.msm.modules.tripDistribution;
 
-import cern.colt.list.tdouble.DoubleArrayList;
-import cern.jet.stat.tdouble.DoubleDescriptive;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.AtomicDouble;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.modules.Module;
 import de.tum.bgu.msm.modules.tripDistribution.tripDistributors.*;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
-import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.core.utils.collections.Tuple;
@@ -29,11 +28,17 @@ public class TripDistribution extends Module {
 
 
     private final static Logger logger = LogManager.getLogger(TripDistribution.class);
+    private final static int DEFAULT_UTILITY_CACHE_MB = 2048;
+    private final static int MAX_CALIBRATION_ITERATIONS = 100;
+    private final static double MEDIAN_BIN_WIDTH_KM = 0.01;
+    private final static double MEDIAN_MAX_DISTANCE_KM = 2000;
 
     protected final EnumMap<Purpose, List<tripDistributionData>> tripDistributionDataByPurpose = new EnumMap<>(Purpose.class);
     protected final EnumMap<Purpose,Map<Integer,Integer>> personCategories = new EnumMap<>(Purpose.class);
     private final Map<Purpose, Tuple<AbstractDestinationUtilityCalculator,TripDistributorType>> tripDistributionCalculatorsByPurpose = new EnumMap<>(Purpose.class);
     private final int numberOfThreads = Runtime.getRuntime().availableProcessors()-1;
+    private DestinationUtilityRowCache utilityRowCache;
+    private long utilityRowCacheBytes;
 
     public TripDistribution(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
@@ -46,7 +51,7 @@ public class TripDistribution extends Module {
         public final AtomicInteger failedTripsCounter;
         public final AtomicInteger randomTripCounter;
         public final AtomicDouble randomTripDistance;
-        private IndexedDoubleMatrix2D utilityMatrix;
+        private DestinationUtilityRows utilities;
 
         tripDistributionData(Predicate<MitoPerson> predicate) {
             this.predicate = predicate;
@@ -57,12 +62,34 @@ public class TripDistribution extends Module {
             this.randomTripDistance = new AtomicDouble(0.);
         }
 
-        void setUtilityMatrix(IndexedDoubleMatrix2D utilityMatrix) {
-            this.utilityMatrix = utilityMatrix;
+        void setUtilities(DestinationUtilityRows utilities) {
+            this.utilities = utilities;
         }
 
-        public IndexedDoubleMatrix2D getUtilityMatrix() {
-            return utilityMatrix;
+        /**
+         * Returns the destination utilities of this category. Rows and their sampling tables are calculated lazily
+         * per origin and shared by all distributors of this category.
+         */
+        public DestinationUtilityRows getUtilities() {
+            return utilities;
+        }
+
+        /**
+         * Creates empty counters that share the predicate and utilities of this category, e.g. for a household
+         * partition or a calibration iteration
+         */
+        tripDistributionData copyWithEmptyCounters() {
+            tripDistributionData copy = new tripDistributionData(predicate);
+            copy.utilities = utilities;
+            return copy;
+        }
+
+        void merge(tripDistributionData partition) {
+            distributedTripCounter.addAndGet(partition.distributedTripCounter.get());
+            distributedTripDistance.addAndGet(partition.distributedTripDistance.get());
+            failedTripsCounter.addAndGet(partition.failedTripsCounter.get());
+            randomTripCounter.addAndGet(partition.randomTripCounter.get());
+            randomTripDistance.addAndGet(partition.randomTripDistance.get());
         }
 
     }
@@ -90,20 +117,80 @@ public class TripDistribution extends Module {
         buildMatrices(tripDistributionCalculatorsByPurpose.keySet());
 
         logger.info("Distributing trips for households...");
-        distributeTrips(purposes);
+        final long bytes = getUtilityRowBytes(purposes);
+        if (bytes <= utilityRowCacheBytes / 2) {
+            precomputeUtilityRows(purposes);
+            distributeTrips(purposes);
+        } else {
+            distributePurposesSequentially(bytes);
+        }
     }
 
+    /**
+     * Distributes the purposes one after another, so that the utility rows in use at a time are those of a single
+     * purpose. Home-based purposes are distributed before the others, whose origins are destinations of home-based
+     * trips. Purposes draw their random seeds in the same order as if they were distributed together.
+     */
+    private void distributePurposesSequentially(long bytes) {
+        logger.info("Utility rows of all purposes need " + bytes / (1024 * 1024) + " MB, which exceeds half of the "
+                + utilityRowCacheBytes / (1024 * 1024) + " MB utility row cache. Distributing purposes one after another.");
+        final Map<Purpose, Long> purposeSeeds = new EnumMap<>(Purpose.class);
+        for (Purpose purpose : purposes) {
+            purposeSeeds.put(purpose, MitoUtil.getRandomObject().nextLong());
+        }
+        final List<Purpose> orderedPurposes = new ArrayList<>();
+        purposes.stream().filter(getHomeBasedPurposes()::contains).forEach(orderedPurposes::add);
+        purposes.stream().filter(purpose -> !getHomeBasedPurposes().contains(purpose)).forEach(orderedPurposes::add);
+        for (Purpose purpose : orderedPurposes) {
+            final List<Purpose> purposeList = Collections.singletonList(purpose);
+            final long purposeBytes = getUtilityRowBytes(purposeList);
+            if (purposeBytes <= utilityRowCacheBytes / 2) {
+                precomputeUtilityRows(purposeList);
+            } else {
+                warnUtilityRowsExceedCache(purpose, purposeBytes);
+            }
+            distributeTrips(purposeList, null, purposeSeeds);
+        }
+    }
+
+    private void warnUtilityRowsExceedCache(Purpose purpose, long bytes) {
+        logger.warn("Utility rows of " + purpose + " need " + bytes / (1024 * 1024) + " MB, but the utility row cache holds "
+                + utilityRowCacheBytes / (1024 * 1024) + " MB. Rows are calculated lazily and calculated again after"
+                + " eviction, which may slow down trip distribution. Consider increasing "
+                + Properties.TRIP_DISTRIBUTION_UTILITY_CACHE_MB + ".");
+    }
+
+    /**
+     * Calibrates the distance parameters of the given purpose until the simulated mean or median distances of all
+     * categories are within 1% of the reference values. Attraction terms and skims are kept for all iterations and
+     * only the utility rows, which depend on the distance parameters, are recalculated in parallel.
+     * <p>
+     * Iterations use common random numbers: every trip draws from its own random number stream, seeded from the
+     * calibration seed and the trip id, and destinations are sampled by inverse transform. A trip therefore gets the
+     * same random numbers in every iteration and only changes its destination if the adjusted parameters move the
+     * cumulative probability of its draw into another zone, so that adjustments converge smoothly.
+     */
     public void calibrate(Purpose purpose,double[] reference, boolean useMedian) {
+        initialise(purpose);
+        buildMatrices(Collections.singletonList(purpose), true);
+        final long calibrationSeed = MitoUtil.getRandomObject().nextLong();
         double[] adjustments;
         int iterations = 0;
         do {
             iterations++;
-            if(iterations > 100) {
+            if(iterations > MAX_CALIBRATION_ITERATIONS) {
                 logger.error("Calibration failed! \uD83D\uDE22");
+                return;
             }
-            initialise(purpose);
-            buildMatrices(Collections.singletonList(purpose));
-            distributeTrips(Collections.singletonList(purpose));
+            resetCounters(purpose);
+            final List<Purpose> purposeList = Collections.singletonList(purpose);
+            final long bytes = getUtilityRowBytes(purposeList);
+            if (bytes <= utilityRowCacheBytes / 2) {
+                precomputeUtilityRows(purposeList);
+            } else if (iterations == 1) {
+                warnUtilityRowsExceedCache(purpose, bytes);
+            }
+            distributeTrips(purposeList, calibrationSeed, null);
             if(useMedian){
                 adjustments = getAdjustmentsByMedianValue(purpose, reference);
             }else {
@@ -114,6 +201,80 @@ public class TripDistribution extends Module {
         logger.info("Calibration complete! \uD83C\uDF89");
     }
 
+    /**
+     * Replaces the counters of the purpose by empty ones and discards all utility rows, which were calculated with
+     * the previous distance parameters.
+     */
+    private void resetCounters(Purpose purpose) {
+        tripDistributionDataByPurpose.put(purpose, tripDistributionDataByPurpose.get(purpose).stream()
+                .map(tripDistributionData::copyWithEmptyCounters)
+                .collect(Collectors.toList()));
+        utilityRowCache.invalidateAll();
+    }
+
+    /**
+     * Returns the ids of all zones that can be the origin of trips of the given purpose.
+     */
+    private Set<Integer> getOriginIds(Purpose purpose) {
+        final Set<Integer> originIds = new LinkedHashSet<>();
+        if (getHomeBasedPurposes().contains(purpose)) {
+            for (MitoHousehold household : dataSet.getModelledHouseholds().values()) {
+                originIds.add(household.getZoneId());
+            }
+        } else {
+            originIds.addAll(dataSet.getZones().keySet());
+        }
+        return originIds;
+    }
+
+    /**
+     * Returns the approximate memory of the utility rows and sampling tables of all possible origins and categories
+     * of the given purposes, i.e. of the rows in use while the purposes are distributed.
+     */
+    private long getUtilityRowBytes(Collection<Purpose> purposes) {
+        long bytes = 0;
+        for (Purpose purpose : purposes) {
+            if (purpose.equals(AIRPORT)) {
+                continue;
+            }
+            final int origins = getOriginIds(purpose).size();
+            for (tripDistributionData categoryData : tripDistributionDataByPurpose.get(purpose)) {
+                bytes += categoryData.getUtilities().getRowBytes() * origins;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Calculates the utility rows and sampling tables of all possible origins of the given purposes in parallel, one
+     * origin zone after another, so that each row is calculated once. Rows should only be precomputed if
+     * {@link #getUtilityRowBytes(Collection)} is at most half of the cache, as the cache evicts per segment.
+     */
+    private void precomputeUtilityRows(Collection<Purpose> purposes) {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final int threads = Math.max(1, numberOfThreads);
+        for (Purpose purpose : purposes) {
+            if (purpose.equals(AIRPORT)) {
+                continue;
+            }
+            final List<Integer> originIds = new ArrayList<>(getOriginIds(purpose));
+            final List<tripDistributionData> purposeData = tripDistributionDataByPurpose.get(purpose);
+            for (List<Integer> chunk : Lists.partition(originIds, Math.max(1, (originIds.size() + threads - 1) / threads))) {
+                tasks.add(() -> {
+                    for (int originId : chunk) {
+                        for (tripDistributionData categoryData : purposeData) {
+                            categoryData.getUtilities().prepare(originId);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        if (!tasks.isEmpty()) {
+            ConcurrentExecutor.<Void>fixedPoolService(threads).submitTasksAndWaitForCompletion(tasks);
+        }
+    }
+
     private void categorisePersons(Collection<Purpose> purposes) {
 
         for(Purpose purpose : purposes) {
@@ -153,75 +314,101 @@ public class TripDistribution extends Module {
     }
 
     private void buildMatrices(Collection<Purpose> purposes) {
-        // Pre-calculate task count to avoid ArrayList resizing overhead
-        int totalTasks = 0;
-        for (Purpose purpose : purposes) {
-            if (!purpose.equals(AIRPORT)) {
-                AbstractDestinationUtilityCalculator utilityCalculator = tripDistributionCalculatorsByPurpose.get(purpose).getFirst();
-                totalTasks += utilityCalculator.getCategories().size();
-            }
+        buildMatrices(purposes, false);
+    }
+
+    /**
+     * @param inverseTransformSampling whether destinations are sampled from the cumulative utilities, see
+     *                                 {@link DestinationUtilityRows}
+     */
+    private void buildMatrices(Collection<Purpose> purposes, boolean inverseTransformSampling) {
+        // Utility rows are calculated lazily with the current distance parameters, so rows of earlier
+        // (calibration) runs must not be reused
+        if (utilityRowCache == null) {
+            final int cacheMb = Resources.instance.getInt(Properties.TRIP_DISTRIBUTION_UTILITY_CACHE_MB, DEFAULT_UTILITY_CACHE_MB);
+            logger.info("Caching destination utility rows up to " + cacheMb + " MB");
+            utilityRowCacheBytes = cacheMb * 1024L * 1024L;
+            utilityRowCache = new DestinationUtilityRowCache(utilityRowCacheBytes);
+        } else {
+            utilityRowCache.invalidateAll();
         }
-        
-        ConcurrentExecutor<Triple<Purpose, Integer, IndexedDoubleMatrix2D>> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
-        List<Callable<Triple<Purpose,Integer, IndexedDoubleMatrix2D>>> utilityCalcTasks = new ArrayList<>(totalTasks);
-        
+
         for (Purpose purpose : purposes) {
             // Distribution of airport trips to the airport does not need a matrix of weights
             if (!purpose.equals(AIRPORT)){
-                // Cache the tuple lookup to avoid repeated map access
-                Tuple<AbstractDestinationUtilityCalculator, TripDistributorType> calculatorTuple = 
-                    tripDistributionCalculatorsByPurpose.get(purpose);
-                AbstractDestinationUtilityCalculator utilityCalculator = calculatorTuple.getFirst();
-                
-                // Cache categories list to avoid repeated method calls
-                List<Predicate<MitoPerson>> categories = utilityCalculator.getCategories();
-                int categoryCount = categories.size();
-                
+                AbstractDestinationUtilityCalculator utilityCalculator = tripDistributionCalculatorsByPurpose.get(purpose).getFirst();
+                List<tripDistributionData> purposeData = tripDistributionDataByPurpose.get(purpose);
+                int categoryCount = utilityCalculator.getCategories().size();
+
                 logger.info("Purpose: {}, Categories: {}", purpose, categoryCount);
-                
+
                 for(int i = 0; i < categoryCount; i++) {
-                    logger.info("Creating task for purpose: {}, category index: {}", purpose, i);
-                    utilityCalcTasks.add(new DestinationUtilityByPurposeGenerator(purpose, dataSet, utilityCalculator, i));
+                    purposeData.get(i).setUtilities(new DestinationUtilityRows(purpose, dataSet, utilityCalculator, i, utilityRowCache, inverseTransformSampling));
                 }
             }
         }
-        
-        List<Triple<Purpose, Integer, IndexedDoubleMatrix2D>> results = executor.submitTasksAndWaitForCompletion(utilityCalcTasks);
-        
-        // Process results - use primitive int for better performance
-        for(Triple<Purpose, Integer, IndexedDoubleMatrix2D> result: results) {
-            Purpose purpose = result.getLeft();
-            int index = result.getMiddle(); // Use primitive int instead of Integer wrapper
-            IndexedDoubleMatrix2D utilityMatrix = result.getRight();
-            
-            // Cache the purpose data lookup to avoid repeated map access
-            List<tripDistributionData> purposeData = tripDistributionDataByPurpose.get(purpose);
-            purposeData.get(index).setUtilityMatrix(utilityMatrix);
-        }
     }
 
     private void distributeTrips(Collection<Purpose> purposes) {
+        distributeTrips(purposes, null, null);
+    }
 
-        // Create partitions
-        final Collection<MitoHousehold> households = dataSet.getModelledHouseholds().values();
-        final int partitionSize = (int) ((double) households.size() / (numberOfThreads)) + 1;
-        Iterable<List<MitoHousehold>> partitions = Iterables.partition(households, partitionSize);
+    /**
+     * @param tripSeed the seed of the random number streams of single trips, see
+     *                 {@link AbstractDistributor#setTripSeed(long)}, or null to draw from one stream per purpose and
+     *                 partition
+     * @param purposeSeeds the seeds of the streams of the purposes, or null to draw them from the global random object
+     */
+    private void distributeTrips(Collection<Purpose> purposes, Long tripSeed, Map<Purpose, Long> purposeSeeds) {
+
+        // Create partitions. The number of partitions (not the number of threads) determines the random number
+        // streams, so results are reproducible for a fixed seed and partition count on any machine.
+        final List<MitoHousehold> households = new ArrayList<>(dataSet.getModelledHouseholds().values());
+        final int numberOfPartitions = Math.max(1, Resources.instance.getInt(Properties.TRIP_DISTRIBUTION_HOUSEHOLD_PARTITIONS, 1));
+        final int partitionSize = (int) Math.ceil((double) households.size() / numberOfPartitions);
+        final List<List<MitoHousehold>> partitions = households.isEmpty() ?
+                Collections.singletonList(households) : Lists.partition(households, partitionSize);
 
         logger.info("Using " + numberOfThreads + " thread(s)" +
-                " with partitions of size " + partitionSize);
+                " with " + partitions.size() + " household partition(s) of size " + partitionSize);
 
         // Home-based trips
         List<Callable<Void>> homeBasedTasks = new ArrayList<>();
         List<Callable<Void>> otherTasks = new ArrayList<>();
-        //for (final List<MitoHousehold> partition : partitions) {
-            for (Purpose purpose : purposes) {
+        Map<Purpose, List<List<tripDistributionData>>> partitionDataByPurpose = new EnumMap<>(Purpose.class);
+        for (Purpose purpose : purposes) {
+            final long purposeSeed = tripSeed != null ? tripSeed :
+                    purposeSeeds != null ? purposeSeeds.get(purpose) : MitoUtil.getRandomObject().nextLong();
+            final TripDistributorType type = tripDistributionCalculatorsByPurpose.get(purpose).getSecond();
+            // The travel time budget correction of each household depends on the destinations of all households
+            // distributed before, so partitions would each correct towards their own budget sums.
+            if (numberOfPartitions > 1 && (type == TripDistributorType.HomeBasedDiscretionaryWithTTB
+                    || type == TripDistributorType.NonHomeBasedDiscretionaryWithTTB)) {
+                throw new RuntimeException("Distributor type " + type + " for purpose " + purpose +
+                        " cannot distribute trips in household partitions. Set " +
+                        Properties.TRIP_DISTRIBUTION_HOUSEHOLD_PARTITIONS + " to 1.");
+            }
+            final List<List<tripDistributionData>> partitionData = new ArrayList<>(partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                final EnumMap<Purpose, List<tripDistributionData>> distributionData = new EnumMap<>(tripDistributionDataByPurpose);
+                final List<tripDistributionData> categoryData = tripDistributionDataByPurpose.get(purpose).stream()
+                        .map(tripDistributionData::copyWithEmptyCounters)
+                        .collect(Collectors.toList());
+                distributionData.put(purpose, categoryData);
+                partitionData.add(categoryData);
+
+                final AbstractDistributor distributor = getDistributor(purpose, partitions.get(i), type, distributionData, MitoUtil.deriveSeed(purposeSeed, i));
+                if (tripSeed != null) {
+                    distributor.setTripSeed(tripSeed);
+                }
                 if (getHomeBasedPurposes().contains(purpose)) {
-                    homeBasedTasks.add(getDistributor(purpose,households, tripDistributionCalculatorsByPurpose.get(purpose).getSecond()));
+                    homeBasedTasks.add(distributor);
                 } else {
-                    otherTasks.add(getDistributor(purpose,households, tripDistributionCalculatorsByPurpose.get(purpose).getSecond()));
+                    otherTasks.add(distributor);
                 }
             }
-        //}
+            partitionDataByPurpose.put(purpose, partitionData);
+        }
 
         // Run tasks in order
         ConcurrentExecutor<Void> executor;
@@ -236,8 +423,19 @@ public class TripDistribution extends Module {
             executor.submitTasksAndWaitForCompletion(otherTasks);
         }
 
+        // Merge partition counters in partition order to keep sums independent of thread scheduling
+        for (Map.Entry<Purpose, List<List<tripDistributionData>>> entry : partitionDataByPurpose.entrySet()) {
+            List<tripDistributionData> purposeData = tripDistributionDataByPurpose.get(entry.getKey());
+            for (List<tripDistributionData> partitionData : entry.getValue()) {
+                for (int i = 0; i < purposeData.size(); i++) {
+                    purposeData.get(i).merge(partitionData.get(i));
+                }
+            }
+        }
+
         // Print statistics
         distributionStatistics(purposes);
+        logger.info("Destination utility rows: " + utilityRowCache.getStats());
     }
 
     private void distributionStatistics(Collection<Purpose> purposes) {
@@ -290,22 +488,23 @@ public class TripDistribution extends Module {
         }
     }
 
-    private AbstractDistributor getDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, TripDistributorType type) {
+    private AbstractDistributor getDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, TripDistributorType type,
+                                               EnumMap<Purpose, List<tripDistributionData>> distributionData, long randomSeed) {
         switch (type) {
             case HomeBasedMandatory:
-                return new MandatoryDistributor(purpose, householdCollection, dataSet, tripDistributionDataByPurpose, personCategories);
+                return new MandatoryDistributor(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
             case HomeBasedDiscretionary:
-                return new DiscretionaryDistributor(purpose, householdCollection, dataSet, tripDistributionDataByPurpose, personCategories);
+                return new DiscretionaryDistributor(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
             case HomeBasedDiscretionaryWithTTB:
-                return new DiscretionaryDistributorWithTTB(purpose, householdCollection, dataSet, tripDistributionDataByPurpose);
+                return new DiscretionaryDistributorWithTTB(purpose, householdCollection, dataSet, distributionData, randomSeed);
             case Airport:
-                return new AirportDistributor(purpose, householdCollection, dataSet, tripDistributionDataByPurpose);
+                return new AirportDistributor(purpose, householdCollection, dataSet, distributionData, randomSeed);
             case NonHomeBasedDiscretionary:
-                return new NonHomeBasedDistributor(purpose, householdCollection, dataSet, tripDistributionDataByPurpose, personCategories);
+                return new NonHomeBasedDistributor(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
             case NonHomeBasedDiscretionaryWithTTB:
-                return new NonHomeBasedDistributorWithTTB(purpose, householdCollection, dataSet, tripDistributionDataByPurpose);
+                return new NonHomeBasedDistributorWithTTB(purpose, householdCollection, dataSet, distributionData, randomSeed);
             case RecreationalRoundTrip:
-                return new RecreationalRoundTripDistributor(purpose, householdCollection, dataSet, tripDistributionDataByPurpose, personCategories);
+                return new RecreationalRoundTripDistributor(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
             default:
                 throw new RuntimeException("Distributor type " + type + " not recognised!");
         }
@@ -342,35 +541,31 @@ public class TripDistribution extends Module {
 
         double[] adjustments = new double[categories];
 
-        Map<Integer, DoubleArrayList> simulatedDistance = new HashMap<>();
-        Set<MitoTrip> tripsForThisPurpose = dataSet.getTrips().values().stream().filter(t -> purpose.equals(t.getTripPurpose())).collect(Collectors.toSet());
+        final DistanceHistogram[] simulatedDistance = new DistanceHistogram[categories];
+        for (int i = 0; i < categories; i++) {
+            simulatedDistance[i] = new DistanceHistogram(MEDIAN_BIN_WIDTH_KM, MEDIAN_MAX_DISTANCE_KM);
+        }
+        final Map<Integer, Integer> categoriesByPerson = personCategories.get(purpose);
+        final boolean mandatory = purpose.equals(HBW) || purpose.equals(HBE);
 
-        if(purpose.equals(HBW) || purpose.equals(HBE)){
-            for (MitoTrip trip : tripsForThisPurpose) {
-                if (trip.getPerson().getOccupation() == null && trip.getTripDestination() != null) {
-                    int category = personCategories.get(purpose).get(trip.getPerson().getId());
-                    simulatedDistance.putIfAbsent(category, new DoubleArrayList());
-                    simulatedDistance.get(category).add(dataSet.getTravelDistancesAuto().getTravelDistance(trip.getTripOrigin().getZoneId(),trip.getTripDestination().getZoneId()));
-                }
+        for (MitoTrip trip : dataSet.getTrips().values()) {
+            if (!purpose.equals(trip.getTripPurpose()) || trip.getTripDestination() == null) {
+                continue;
             }
-        }else{
-            for (MitoTrip trip : tripsForThisPurpose) {
-                if (trip.getTripDestination() != null) {
-                    int category = personCategories.get(purpose).get(trip.getPerson().getId());
-                    simulatedDistance.putIfAbsent(category, new DoubleArrayList());
-                    simulatedDistance.get(category).add(dataSet.getTravelDistancesAuto().getTravelDistance(trip.getTripOrigin().getZoneId(),trip.getTripDestination().getZoneId()));
-                }
+            if (mandatory && trip.getPerson().getOccupation() != null) {
+                continue;
             }
+            int category = categoriesByPerson.get(trip.getPerson().getId());
+            simulatedDistance[category].add(dataSet.getTravelDistancesAuto().getTravelDistance(trip.getTripOrigin().getZoneId(),trip.getTripDestination().getZoneId()));
         }
 
         for(int i = 0 ; i < categories ; i++) {
-            if(!simulatedDistance.containsKey(i)) {
+            if(simulatedDistance[i].getCount() == 0) {
                 logger.warn("No trips found for category " + i + " for purpose " + purpose + ". Using reference median value.");
                 adjustments[i] = 1.0;
                 continue;
             }
-            simulatedDistance.get(i).sort();
-            double median = DoubleDescriptive.median(simulatedDistance.get(i));
+            double median = simulatedDistance[i].getMedian();
             adjustments[i] = Math.max(0.5, Math.min(2, median / referenceMedian[i]));
             logger.info("Index: "+ i + " Median: " + median + " Ref: " + referenceMedian[i] + " Adjustment: " + adjustments[i]);
         }
@@ -5,7 +5,6 @@ import de.tum.bgu.msm.data.travelDistances.TravelDistances;
 import de.tum.bgu.msm.modules.tripDistribution.TripDistribution;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.concurrent.RandomizableConcurrentFunction;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -25,11 +24,13 @@ public abstract class AbstractDistributor extends RandomizableConcurrentFunction
     private final Collection<MitoHousehold> householdCollection;
     protected final Map<Integer, MitoZone> zonesCopy;
     protected boolean randomFlag;
+    private Long tripSeed;
 
     public AbstractDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
                                EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
-                               EnumMap<Purpose, Map<Integer,Integer>> personCategories) {
-        super(MitoUtil.getRandomObject().nextLong());
+                               EnumMap<Purpose, Map<Integer,Integer>> personCategories,
+                               long randomSeed) {
+        super(randomSeed);
         this.purpose = purpose;
         this.tripDistributionData = distributionData.get(purpose);
         this.personCategories = personCategories == null ? null : personCategories.get(purpose);
@@ -39,6 +40,15 @@ public abstract class AbstractDistributor extends RandomizableConcurrentFunction
         this.randomFlag = false;
     }
 
+    /**
+     * Draws the random numbers of every trip from a stream of its own, seeded from the given seed and the trip id,
+     * instead of from one stream for all trips of the distributor. The draws of a trip then do not depend on the
+     * households and trips distributed before it.
+     */
+    public void setTripSeed(long tripSeed) {
+        this.tripSeed = tripSeed;
+    }
+
     @Override
     public Void call() {
         for (MitoHousehold household : householdCollection) {
@@ -47,6 +57,9 @@ public abstract class AbstractDistributor extends RandomizableConcurrentFunction
 
                     // Reset random flag (other methods may flip it for this trip)
                     randomFlag = false;
+                    if (tripSeed != null) {
+                        random.setSeed(MitoUtil.deriveSeed(tripSeed, trip.getId()));
+                    }
 
                     // Get data structure associated with this category
                     int index = personCategories == null ? 0 : personCategories.get(trip.getPerson().getId());
@@ -97,10 +110,9 @@ public abstract class AbstractDistributor extends RandomizableConcurrentFunction
     }
 
     protected Location findDestination(MitoTrip trip, int categoryIndex) {
-        IndexedDoubleMatrix2D probabilityMatrix = tripDistributionData.get(categoryIndex).getUtilityMatrix();
-        double[] destinationProbabilities = probabilityMatrix.viewRow(trip.getTripOrigin().getZoneId()).toNonIndexedArray();
-        final int destinationInternalIndex = MitoUtil.select(destinationProbabilities, random);
-        return zonesCopy.get(probabilityMatrix.getIdForInternalColumnIndex(destinationInternalIndex)).getRandomBuilding(purpose, random);
+        final int destinationZoneId = tripDistributionData.get(categoryIndex).getUtilities()
+                .sampleDestinationId(trip.getTripOrigin().getZoneId(), random);
+        return zonesCopy.get(destinationZoneId).getRandomBuilding(purpose, random);
     }
 
 
@@ -19,8 +19,9 @@ public class AirportDistributor extends AbstractDistributor {
     private boolean toAirport;
 
     public AirportDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
-                              EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData) {
-        super(purpose, householdCollection, dataSet, distributionData, null);
+                              EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
+                              long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, null, randomSeed);
         if(!purpose.equals(Purpose.AIRPORT)) {
             throw new RuntimeException("Airport distribution only works with airport purpose!");
         }
@@ -33,8 +34,8 @@ public class AirportDistributor extends AbstractDistributor {
         return new MicroLocation() {
             @Override
             public Coordinate getCoordinate() {
-                return new Coordinate(Resources.instance.getInt(Properties.AIRPORT_X),
-                        Resources.instance.getInt(Properties.AIRPORT_Y));
+                return new Coordinate(Resources.instance.getAirportX(),
+                        Resources.instance.getAirportY());
             }
 
             @Override
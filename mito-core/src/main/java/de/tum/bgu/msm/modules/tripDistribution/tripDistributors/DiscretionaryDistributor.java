@@ -15,7 +15,8 @@ public class DiscretionaryDistributor extends AbstractDistributor {
 
     public DiscretionaryDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
                                     EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
-                                    EnumMap<Purpose, Map<Integer,Integer>> personCategories) {
-        super(purpose, householdCollection, dataSet, distributionData, personCategories);
+                                    EnumMap<Purpose, Map<Integer,Integer>> personCategories,
+                                    long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
     }
 }
@@ -3,10 +3,9 @@ package de.tum.bgu.msm.modules.tripDistribution.tripDistributors;
 import com.google.common.math.LongMath;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.modules.tripDistribution.DestinationUtilityRows;
 import de.tum.bgu.msm.modules.tripDistribution.TripDistribution;
 import de.tum.bgu.msm.util.MitoUtil;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix1D;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.commons.math3.util.FastMath;
 
 import java.util.Collection;
@@ -22,7 +21,7 @@ public class DiscretionaryDistributorWithTTB extends AbstractDistributor {
     private final static double VARIANCE_DOUBLED = 30 * 2;
     private final static double SQRT_INV = 1.0 / Math.sqrt(Math.PI * VARIANCE_DOUBLED);
     private final TravelTimes travelTimes;
-    private final IndexedDoubleMatrix2D probabilityMatrix;
+    private final DestinationUtilityRows destinationUtilities;
     private final double peakHour;
     private double[] transformedDestinationProbabilities;
     private double idealBudgetSum = 0;
@@ -32,12 +31,13 @@ public class DiscretionaryDistributorWithTTB extends AbstractDistributor {
     private int counter = 0;
 
     public DiscretionaryDistributorWithTTB(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
-                                           EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData) {
-        super(purpose, householdCollection, dataSet, distributionData, null);
+                                           EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
+                                           long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, null, randomSeed);
         if(distributionData.get(purpose).size() > 1) {
             throw new RuntimeException("TTB distributors cannot be combined with multi-category distribution!");
         }
-        this.probabilityMatrix = distributionData.get(purpose).get(0).getUtilityMatrix();
+        this.destinationUtilities = distributionData.get(purpose).get(0).getUtilities();
         this.travelTimes = dataSet.getTravelTimes();
         this.peakHour = dataSet.getPeakHour();
     }
@@ -74,12 +74,11 @@ public class DiscretionaryDistributorWithTTB extends AbstractDistributor {
 
     protected double[] getTransformedDestinationProbabilities(MitoHousehold household) {
         int origin = household.getHomeZone().getId();
-        final IndexedDoubleMatrix1D row = probabilityMatrix.viewRow(origin);
-        double[] baseProbs = row.toNonIndexedArray();
+        double[] baseProbs = destinationUtilities.getUtilities(origin);
         double[] destinatinonProbs = new double[baseProbs.length];
         IntStream.range(0, destinatinonProbs.length).parallel().forEach(i -> {
             //multiply travel time by 2 as home based trips' budget account for the return trip as well
-            double diff = travelTimes.getTravelTime(zonesCopy.get(origin), zonesCopy.get(row.getIdForInternalIndex(i)), peakHour, "car") * 2 - adjustedBudget;
+            double diff = travelTimes.getTravelTime(zonesCopy.get(origin), zonesCopy.get(destinationUtilities.getZoneId(i)), peakHour, "car") * 2 - adjustedBudget;
             double factor = SQRT_INV * FastMath.exp(-(diff * diff) / VARIANCE_DOUBLED);
             destinatinonProbs[i] = baseProbs[i] * factor;
         });
@@ -89,7 +88,7 @@ public class DiscretionaryDistributorWithTTB extends AbstractDistributor {
     @Override
     protected Location findDestination(MitoTrip trip, int categoryIndex) {
         final int destinationInternalIndex = MitoUtil.select(transformedDestinationProbabilities, random);
-        return zonesCopy.get(probabilityMatrix.getIdForInternalColumnIndex(destinationInternalIndex)).getRandomBuilding(purpose, random);
+        return zonesCopy.get(destinationUtilities.getZoneId(destinationInternalIndex)).getRandomBuilding(purpose, random);
     }
 
     @Override
@@ -15,8 +15,9 @@ public final class MandatoryDistributor extends AbstractDistributor {
 
     public MandatoryDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
                                 EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
-                                EnumMap<Purpose, Map<Integer,Integer>> personCategories) {
-        super(purpose, householdCollection, dataSet, distributionData, personCategories);
+                                EnumMap<Purpose, Map<Integer,Integer>> personCategories,
+                                long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
     }
 
     @Override
@@ -4,7 +4,6 @@ import com.google.common.collect.ImmutableList;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.modules.tripDistribution.TripDistribution;
 import de.tum.bgu.msm.util.MitoUtil;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix1D;
 
 import java.util.*;
 
@@ -22,8 +21,9 @@ public class NonHomeBasedDistributor extends AbstractDistributor {
 
     public NonHomeBasedDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
                                    EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
-                                   EnumMap<Purpose, Map<Integer,Integer>> personCategories) {
-        super(purpose, householdCollection, dataSet, distributionData, personCategories);
+                                   EnumMap<Purpose, Map<Integer,Integer>> personCategories,
+                                   long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
         if(this.purpose.equals(NHBW)) {
             this.priorPurposes = Collections.singletonList(HBW);
             this.relatedMitoOccupationStatus = MitoOccupationStatus.WORKER;
@@ -56,10 +56,9 @@ public class NonHomeBasedDistributor extends AbstractDistributor {
         randomFlag = true;
 
         int priorPurposeCategoryIndex = allPersonCategories == null ? 0 : allPersonCategories.get(priorPurpose).get(trip.getPerson().getId());
-        final IndexedDoubleMatrix1D originProbabilities = allTripDistributionData.get(priorPurpose).
-                get(priorPurposeCategoryIndex).getUtilityMatrix().viewRow(household.getHomeZone().getId());
-        final int destinationInternalId = MitoUtil.select(originProbabilities.toNonIndexedArray(), random);
+        final int originZoneId = allTripDistributionData.get(priorPurpose).get(priorPurposeCategoryIndex)
+                .getUtilities().sampleDestinationId(household.getHomeZone().getId(), random);
 
-        return zonesCopy.get(originProbabilities.getIdForInternalIndex(destinationInternalId)).getRandomBuilding(purpose, random);
+        return zonesCopy.get(originZoneId).getRandomBuilding(purpose, random);
     }
 }
@@ -3,10 +3,9 @@ package de.tum.bgu.msm.modules.tripDistribution.tripDistributors;
 import com.google.common.math.LongMath;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.modules.tripDistribution.DestinationUtilityRows;
 import de.tum.bgu.msm.modules.tripDistribution.TripDistribution;
 import de.tum.bgu.msm.util.MitoUtil;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix1D;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.commons.math3.util.FastMath;
 
 import java.util.*;
@@ -20,7 +19,7 @@ public class NonHomeBasedDistributorWithTTB extends NonHomeBasedDistributor {
     private final static double VARIANCE_DOUBLED = 500 * 2;
     private final static double SQRT_INV = 1.0 / Math.sqrt(Math.PI * VARIANCE_DOUBLED);
     private final TravelTimes travelTimes;
-    private final IndexedDoubleMatrix2D probabilityMatrix;
+    private final DestinationUtilityRows destinationUtilities;
     private final double peakHour;
     private double idealBudgetSum = 0;
     private double actualBudgetSum = 0;
@@ -31,12 +30,13 @@ public class NonHomeBasedDistributorWithTTB extends NonHomeBasedDistributor {
     private int counter = 0;
 
     public NonHomeBasedDistributorWithTTB(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
-                                          EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData) {
-        super(purpose, householdCollection, dataSet, distributionData, null);
+                                          EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
+                                          long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, null, randomSeed);
         if(distributionData.get(purpose).size() > 1) {
             throw new RuntimeException("TTB distributors cannot be used with multi-category distribution!");
         }
-        this.probabilityMatrix = distributionData.get(purpose).get(0).getUtilityMatrix();
+        this.destinationUtilities = distributionData.get(purpose).get(0).getUtilities();
         this.travelTimes = dataSet.getTravelTimes();
         this.peakHour = dataSet.getPeakHour();
     }
@@ -72,17 +72,16 @@ public class NonHomeBasedDistributorWithTTB extends NonHomeBasedDistributor {
     @Override
     protected Location findDestination(MitoTrip trip, int categoryIndex) {
         int origin = trip.getTripOrigin().getZoneId();
-        final IndexedDoubleMatrix1D row = probabilityMatrix.viewRow(origin);
-        double[] destinationProbabilities = row.toNonIndexedArray();
+        double[] destinationProbabilities = destinationUtilities.getUtilities(origin).clone();
         IntStream.range(0, destinationProbabilities.length).parallel().forEach(i -> {
             //divide travel time by 2 as home based trips' budget account for the return trip as well
-            double diff = travelTimes.getTravelTime(zonesCopy.get(origin), zonesCopy.get(row.getIdForInternalIndex(i)), peakHour, "car") - adjustedBudget;
+            double diff = travelTimes.getTravelTime(zonesCopy.get(origin), zonesCopy.get(destinationUtilities.getZoneId(i)), peakHour, "car") - adjustedBudget;
             double factor = SQRT_INV * FastMath.exp(-(diff * diff) / VARIANCE_DOUBLED);
             destinationProbabilities[i] = destinationProbabilities[i] * factor;
         });
 
         int destinationInternalId = MitoUtil.select(destinationProbabilities, random);
-        return zonesCopy.get(row.getIdForInternalIndex(destinationInternalId)).getRandomBuilding(purpose,random);
+        return zonesCopy.get(destinationUtilities.getZoneId(destinationInternalId)).getRandomBuilding(purpose,random);
     }
 
     @Override
@@ -14,8 +14,9 @@ public class RecreationalRoundTripDistributor extends AbstractDistributor {
 
     public RecreationalRoundTripDistributor(Purpose purpose, Collection<MitoHousehold> householdCollection, DataSet dataSet,
                                             EnumMap<Purpose, List<TripDistribution.tripDistributionData>> distributionData,
-                                            EnumMap<Purpose, Map<Integer,Integer>> personCategories) {
-        super(purpose, householdCollection, dataSet, distributionData, personCategories);
+                                            EnumMap<Purpose, Map<Integer,Integer>> personCategories,
+                                            long randomSeed) {
+        super(purpose, householdCollection, dataSet, distributionData, personCategories, randomSeed);
     }
 
     protected Location findOrigin(MitoHousehold household, MitoTrip trip) {
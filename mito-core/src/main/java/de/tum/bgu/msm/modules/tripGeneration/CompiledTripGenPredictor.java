@@ -0,0 +1,53 @@
+package de.tum.bgu.msm.modules.tripGeneration;
+
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoPerson;
+
+import java.util.Map;
+
+/**
+ * Trip generation predictor that separates the attributes of a person from the coefficients. The attributes are
+ * extracted once per person into a primitive feature vector, and the predictor of every coefficient set is the dot
+ * product of these features with the coefficients compiled by {@link TripGenCoefficients}:
+ * <pre>
+ *     predictor = sum over slots i of features[i] * coefficients[getFeatureNames()[i]]
+ * </pre>
+ * Indicator variables are 1 if they apply and 0 otherwise. Features are summed in slot order, so implementations
+ * should order their feature names as the terms of the former map-based calculation to reproduce its results.
+ */
+public interface CompiledTripGenPredictor extends TripGenPredictor {
+
+    /**
+     * Returns the coefficient names by feature slot.
+     */
+    String[] getFeatureNames();
+
+    /**
+     * Writes the features of the given person into the given array, which has one entry per feature name.
+     * All entries are overwritten.
+     */
+    void extractFeatures(MitoHousehold household, MitoPerson person, double[] features);
+
+    /**
+     * Calculates the predictor from the coefficients by name. Generators that evaluate many persons should compile
+     * the coefficients once with {@link TripGenCoefficients} instead.
+     * @throws IllegalArgumentException if a feature of the person has no coefficient
+     */
+    @Override
+    default double getPredictor(MitoHousehold household, MitoPerson person, Map<String, Double> coefficients) {
+        final String[] featureNames = getFeatureNames();
+        final double[] features = new double[featureNames.length];
+        extractFeatures(household, person, features);
+        double predictor = 0.;
+        for (int i = 0; i < features.length; i++) {
+            if (features[i] != 0.) {
+                final Double coefficient = coefficients.get(featureNames[i]);
+                if (coefficient == null) {
+                    throw new IllegalArgumentException("Trip generation coefficient " + featureNames[i] + " is not defined");
+                }
+                predictor += features[i] * coefficient;
+            }
+        }
+        return predictor;
+    }
+}
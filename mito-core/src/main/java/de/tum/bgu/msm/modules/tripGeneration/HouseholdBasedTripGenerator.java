@@ -0,0 +1,12 @@
+package de.tum.bgu.msm.modules.tripGeneration;
+
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoTrip;
+
+import java.util.List;
+
+/**
+ * Generates the trips of one purpose by household. Trips are created by the generator and not yet assigned to persons.
+ */
+public interface HouseholdBasedTripGenerator extends TripGenerator<MitoHousehold, List<MitoTrip>> {
+}
@@ -85,16 +85,16 @@ public class HouseholdTypeManager {
 
     private void createHouseHoldTypeDefinitions() {
         // todo: should this not read the token from the class Properties.java?
-        String[] householdDefinitionToken = Resources.instance.getArray("hh.type." + purpose);
-        String sizeToken = householdDefinitionToken[1];
+        List<String> householdDefinitionToken = Resources.instance.getArray("hh.type." + purpose);
+        String sizeToken = householdDefinitionToken.get(1);
         String[] sizePortions = sizeToken.split("\\.");
-        String workerToken = householdDefinitionToken[2];
+        String workerToken = householdDefinitionToken.get(2);
         String[] workerPortions = workerToken.split("\\.");
-        String incomeToken = householdDefinitionToken[3];
+        String incomeToken = householdDefinitionToken.get(3);
         String[] economicStatusPortions = incomeToken.split("\\.");
-        String autoToken = householdDefinitionToken[4];
+        String autoToken = householdDefinitionToken.get(4);
         String[] autoPortions = autoToken.split("\\.");
-        String regionToken = householdDefinitionToken[5];
+        String regionToken = householdDefinitionToken.get(5);
         String[] regionPortions = regionToken.split("\\.");
 
         createHouseholdTypes(sizePortions, workerPortions,
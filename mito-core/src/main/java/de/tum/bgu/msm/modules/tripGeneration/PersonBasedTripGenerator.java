@@ -0,0 +1,104 @@
+package de.tum.bgu.msm.modules.tripGeneration;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoPerson;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.matsim.core.utils.collections.Tuple;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Base class for trip generators that draw the number of trips of every person independently. Persons are
+ * addressed by their ordinal in a shared person array and trip counts are written to an int array with the
+ * same indices, so that chunks of persons can be processed in parallel without synchronization.
+ * <p>
+ * Every chunk draws from its own random number stream, which is derived from the seed of the generator and the
+ * index of the chunk. Results are therefore reproducible for a fixed seed and number of chunks, independent of
+ * thread scheduling. A single chunk reproduces the former sequential generation.
+ */
+public abstract class PersonBasedTripGenerator implements TripGenerator<MitoPerson, Integer> {
+
+    protected final DataSet dataSet;
+    protected final Purpose purpose;
+    private final long randomSeed;
+
+    protected PersonBasedTripGenerator(DataSet dataSet, Purpose purpose) {
+        this.dataSet = dataSet;
+        this.purpose = purpose;
+        this.randomSeed = MitoUtil.getRandomObject().nextLong();
+    }
+
+    /**
+     * Draws the number of trips of single persons.
+     */
+    protected interface TripCountSampler {
+        int sampleNumberOfTrips(MitoPerson person);
+    }
+
+    /**
+     * Creates the sampler of one chunk. Samplers are only used by a single thread and may hold chunk-local
+     * state, such as the probability tables shared by persons with similar predictors.
+     * @param random the random number stream of the chunk
+     */
+    protected abstract TripCountSampler createSampler(Random random);
+
+    public Purpose getPurpose() {
+        return purpose;
+    }
+
+    /**
+     * Creates one task per chunk that writes the trip counts of the persons in the chunk into tripCounts.
+     * @param persons all persons, indexed by their ordinal
+     * @param tripCounts the trip counts by person ordinal, of the same length as persons
+     * @param numberOfChunks the number of chunks to split the persons into
+     */
+    public List<Callable<Void>> createTasks(MitoPerson[] persons, int[] tripCounts, int numberOfChunks) {
+        final int chunkSize = Math.max(1, (int) Math.ceil((double) persons.length / numberOfChunks));
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        int chunk = 0;
+        for (int from = 0; from < persons.length; from += chunkSize) {
+            final int start = from;
+            final int end = Math.min(persons.length, from + chunkSize);
+            final Random random = new Random(MitoUtil.deriveSeed(randomSeed, chunk++));
+            tasks.add(() -> {
+                final TripCountSampler sampler = createSampler(random);
+                for (int i = start; i < end; i++) {
+                    tripCounts[i] = sampler.sampleNumberOfTrips(persons[i]);
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    /**
+     * Generates the trip counts of all modelled persons sequentially in a single chunk.
+     */
+    @Override
+    public Tuple<Purpose, Map<MitoPerson, Integer>> call() throws Exception {
+        final MitoPerson[] persons = getModelledPersons(dataSet);
+        final int[] tripCounts = new int[persons.length];
+        for (Callable<Void> task : createTasks(persons, tripCounts, 1)) {
+            task.call();
+        }
+        final Map<MitoPerson, Integer> tripCountsByPP = new LinkedHashMap<>();
+        for (int i = 0; i < persons.length; i++) {
+            tripCountsByPP.put(persons[i], tripCounts[i]);
+        }
+        return new Tuple<>(purpose, tripCountsByPP);
+    }
+
+    /**
+     * Returns the persons of all modelled households in iteration order, which defines the person ordinals.
+     */
+    public static MitoPerson[] getModelledPersons(DataSet dataSet) {
+        final List<MitoPerson> persons = new ArrayList<>();
+        for (MitoHousehold household : dataSet.getModelledHouseholds().values()) {
+            persons.addAll(household.getPersons().values());
+        }
+        return persons.toArray(new MitoPerson[0]);
+    }
+}
@@ -1,18 +1,16 @@
 package de.tum.bgu.msm.modules.tripGeneration;
 
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.matsim.core.utils.collections.Tuple;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.IntStream;
 
 /**
  * Created by Nico on 20.07.2017.
@@ -28,9 +26,9 @@ public class RawTripGenerator {
     private final List<Purpose> purposes;
     private MitoTripFactory mitoTripFactory;
     //private final EnumSet<Purpose> PURPOSES = EnumSet.of(HBW, HBE, HBS, HBO, NHBW, NHBO);
-    private Map<Purpose, TripGenerator> tripGeneratorByPurpose;
+    private Map<Purpose, TripGenerator<?, ?>> tripGeneratorByPurpose;
 
-    public RawTripGenerator(DataSet dataSet, Map<Purpose, TripGenerator> tripGeneratorByPurpose, List<Purpose> purposes, MitoTripFactory mitoTripFactory) {
+    public RawTripGenerator(DataSet dataSet, Map<Purpose, TripGenerator<?, ?>> tripGeneratorByPurpose, List<Purpose> purposes, MitoTripFactory mitoTripFactory) {
         this.dataSet = dataSet;
         this.tripGeneratorByPurpose = tripGeneratorByPurpose;
         this.purposes = purposes;
@@ -43,34 +41,67 @@ public class RawTripGenerator {
     }
 
     private void generateByPurposeMultiThreaded() {
-        final ConcurrentExecutor<Tuple<Purpose, Map<MitoPerson, Integer>>> executor =
-                ConcurrentExecutor.fixedPoolService(purposes.size());
-        List<Callable<Tuple<Purpose, Map<MitoPerson, Integer>>>> tasks = new ArrayList<>();
+        // The number of chunks (not the number of threads) determines the random number streams, so results
+        // are reproducible for a fixed seed and chunk count on any machine.
+        final MitoPerson[] persons = PersonBasedTripGenerator.getModelledPersons(dataSet);
+        final int numberOfChunks = Math.max(1, Resources.instance.getInt(Properties.TRIP_GENERATION_PERSON_PARTITIONS, 1));
+        final int numberOfThreads = Math.max(1, numberOfChunks == 1 ? purposes.size() : Runtime.getRuntime().availableProcessors());
+        logger.info("Generating trips for " + persons.length + " persons using " + numberOfThreads + " thread(s)" +
+                " with " + numberOfChunks + " chunk(s) per purpose");
+
+        final Map<Purpose, int[]> tripCountsByPurpose = new EnumMap<>(Purpose.class);
+        final Map<Purpose, Map<MitoHousehold, List<MitoTrip>>> tripsByHouseholdByPurpose = Collections.synchronizedMap(new EnumMap<>(Purpose.class));
+        final List<Callable<Void>> tasks = new ArrayList<>();
         for(Purpose purpose: purposes) {
-            tasks.add(tripGeneratorByPurpose.get(purpose));
+            final TripGenerator<?, ?> generator = tripGeneratorByPurpose.get(purpose);
+            if (generator instanceof PersonBasedTripGenerator) {
+                final int[] tripCounts = new int[persons.length];
+                tripCountsByPurpose.put(purpose, tripCounts);
+                tasks.addAll(((PersonBasedTripGenerator) generator).createTasks(persons, tripCounts, numberOfChunks));
+            } else if (generator instanceof HouseholdBasedTripGenerator) {
+                final HouseholdBasedTripGenerator householdBasedGenerator = (HouseholdBasedTripGenerator) generator;
+                tasks.add(() -> {
+                    tripsByHouseholdByPurpose.put(purpose, householdBasedGenerator.call().getSecond());
+                    return null;
+                });
+            } else {
+                throw new IllegalArgumentException("Unknown trip generator " + generator.getClass() + " for purpose " + purpose);
+            }
         }
-        final List<Tuple<Purpose, Map<MitoPerson, Integer>>> results = executor.submitTasksAndWaitForCompletion(tasks);
-
-        for(Tuple<Purpose, Map<MitoPerson, Integer>> result: results) {
-            final Purpose purpose = result.getFirst();
-            final int sum = result.getSecond().values().stream().mapToInt(Integer::intValue).sum();
-            logger.info("Created " + sum + " trips for " + purpose);
-            final Map<MitoPerson, Integer> tripCountsByPP = result.getSecond();
+        final ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
+        executor.submitTasksAndWaitForCompletion(tasks);
 
-            for(Map.Entry<MitoPerson, Integer> tripsByPerson: tripCountsByPP.entrySet()) {
-                int numberOfTrips = tripsByPerson.getValue();
-
-                for (int i = 0; i < numberOfTrips; i++) {
-                    MitoTrip trip = mitoTripFactory.createTrip(TRIP_ID_COUNTER.incrementAndGet(), purpose);
-                    trip.setPerson(tripsByPerson.getKey());
-                    tripsByPerson.getKey().addTrip(trip);
-                    tripsByPerson.getKey().getHousehold().addTripsForPurpose(purpose, trip);
-                    dataSet.addTrip(trip);
+        for(Purpose purpose: purposes) {
+            final int[] tripCounts = tripCountsByPurpose.get(purpose);
+            if (tripCounts != null) {
+                logger.info("Created " + Arrays.stream(tripCounts).sum() + " trips for " + purpose);
+                for (int i = 0; i < persons.length; i++) {
+                    createTrips(purpose, persons[i], tripCounts[i]);
+                }
+            } else {
+                final Map<MitoHousehold, List<MitoTrip>> tripsByHousehold = tripsByHouseholdByPurpose.get(purpose);
+                final int sum = tripsByHousehold.values().stream().mapToInt(List::size).sum();
+                logger.info("Created " + sum + " trips for " + purpose);
+                for(Map.Entry<MitoHousehold, List<MitoTrip>> trips: tripsByHousehold.entrySet()) {
+                    for (MitoTrip trip : trips.getValue()) {
+                        trips.getKey().addTripsForPurpose(purpose, trip);
+                        dataSet.addTrip(trip);
+                    }
                 }
             }
         }
     }
 
+    private void createTrips(Purpose purpose, MitoPerson person, int numberOfTrips) {
+        for (int i = 0; i < numberOfTrips; i++) {
+            MitoTrip trip = mitoTripFactory.createTrip(TRIP_ID_COUNTER.incrementAndGet(), purpose);
+            trip.setPerson(person);
+            person.addTrip(trip);
+            person.getHousehold().addTripsForPurpose(purpose, trip);
+            dataSet.addTrip(trip);
+        }
+    }
+
     private void logTripGeneration() {
         long rawTrips = dataSet.getTrips().size() + DROPPED_TRIPS_AT_BORDER_COUNTER.get();
         logger.info("  Generated " + MitoUtil.customFormat("###,###", rawTrips) + " raw trips.");
@@ -0,0 +1,51 @@
+package de.tum.bgu.msm.modules.tripGeneration;
+
+import de.tum.bgu.msm.data.Purpose;
+
+import java.util.Map;
+
+/**
+ * Compiled form of trip generation coefficients as read by
+ * {@link de.tum.bgu.msm.io.input.readers.TripGenerationHurdleCoefficientReader}. The coefficients are resolved once
+ * to the feature slots of a {@link CompiledTripGenPredictor}, so that predictors are evaluated by a dot product
+ * instead of hashing strings and unboxing values for every person.
+ * <p>
+ * Every feature of the predictor needs a coefficient in the file, so that a missing coefficient is reported once
+ * when compiling rather than for the first person it applies to. Coefficients in the file that are not a feature of
+ * the predictor, such as the dispersion parameter theta, are ignored.
+ */
+public final class TripGenCoefficients {
+
+    private final double[] coefficients;
+
+    private TripGenCoefficients(double[] coefficients) {
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a feature has no coefficient
+     */
+    public static TripGenCoefficients compile(Purpose purpose, Map<String, Double> coefficients, String[] featureNames) {
+        final double[] values = new double[featureNames.length];
+        for (int i = 0; i < featureNames.length; i++) {
+            final Double value = coefficients.get(featureNames[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Trip generation coefficient " + featureNames[i]
+                        + " is not defined for purpose " + purpose);
+            }
+            values[i] = value;
+        }
+        return new TripGenCoefficients(values);
+    }
+
+    /**
+     * Returns the predictor for the given features, which are indexed by the same slots as the coefficients.
+     */
+    public double predict(double[] features) {
+        double predictor = 0.;
+        for (int i = 0; i < coefficients.length; i++) {
+            predictor += features[i] * coefficients[i];
+        }
+        return predictor;
+    }
+}
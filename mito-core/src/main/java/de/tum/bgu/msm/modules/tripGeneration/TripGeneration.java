@@ -25,7 +25,7 @@ public class TripGeneration extends Module {
 
     private static final Logger logger = LogManager.getLogger(TripGeneration.class);
     private final boolean addAirportDemand;
-    private final Map<Purpose, TripGenerator> tripGeneratorByPurpose = new EnumMap<>(Purpose.class);
+    private final Map<Purpose, TripGenerator<?, ?>> tripGeneratorByPurpose = new EnumMap<>(Purpose.class);
     private final Map<Purpose, AttractionCalculator> attractionCalculatorByPurpose = new EnumMap<>(Purpose.class);
     private MitoTripFactory mitoTripFactory;
 
@@ -38,7 +38,7 @@ public class TripGeneration extends Module {
 
 
     public void registerTripGenerator(Purpose purpose, MitoTripFactory mitoTripFactory, TripGeneratorType tripGeneratorType, TripGenPredictor tripGenerationCalculator, AttractionCalculator attractionCalculator) {
-        TripGenerator tripsByPurposeGenerator;
+        TripGenerator<?, ?> tripsByPurposeGenerator;
 
         switch (tripGeneratorType){
             case SampleEnumeration:
@@ -64,7 +64,7 @@ public class TripGeneration extends Module {
             logger.info("Overwrote attraction calculator for purpose " + purpose + " with " + attractionCalculator.getClass());
         }
 
-        final TripGenerator prev = tripGeneratorByPurpose.put(purpose, tripsByPurposeGenerator);
+        final TripGenerator<?, ?> prev = tripGeneratorByPurpose.put(purpose, tripsByPurposeGenerator);
         if (prev != null) {
             logger.info("Overwrote trip generator for purpose " + purpose + " with " + tripsByPurposeGenerator.getClass());
         }
@@ -1,6 +1,13 @@
 package de.tum.bgu.msm.modules.tripGeneration;
 
+import de.tum.bgu.msm.data.Purpose;
+import org.matsim.core.utils.collections.Tuple;
+
+import java.util.Map;
 import java.util.concurrent.Callable;
 
-public interface TripGenerator extends Callable {
+/**
+ * Generates the trips of one purpose, e.g. the number of trips by person or the trips by household.
+ */
+public interface TripGenerator<K, V> extends Callable<Tuple<Purpose, Map<K, V>>> {
 }
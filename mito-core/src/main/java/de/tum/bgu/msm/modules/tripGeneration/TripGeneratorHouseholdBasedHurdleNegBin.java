@@ -14,7 +14,7 @@ import java.util.*;
 
 import static de.tum.bgu.msm.modules.tripGeneration.RawTripGenerator.TRIP_ID_COUNTER;
 
-public class TripGeneratorHouseholdBasedHurdleNegBin extends RandomizableConcurrentFunction<Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>> implements TripGenerator {
+public class TripGeneratorHouseholdBasedHurdleNegBin extends RandomizableConcurrentFunction<Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>> implements HouseholdBasedTripGenerator {
 
     private static final Logger logger = LogManager.getLogger(TripGeneratorHouseholdBasedHurdleNegBin.class);
     private Map<MitoHousehold, List<MitoTrip>> tripsByHH = new LinkedHashMap<>();
@@ -3,32 +3,30 @@ package de.tum.bgu.msm.modules.tripGeneration;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.io.input.readers.TripGenerationHurdleCoefficientReader;
 import de.tum.bgu.msm.resources.Resources;
-import de.tum.bgu.msm.util.MitoUtil;
-import de.tum.bgu.msm.util.concurrent.RandomizableConcurrentFunction;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.matsim.core.utils.collections.Tuple;
 import umontreal.ssj.probdist.NegativeBinomialDist;
 
 import java.util.*;
 
-public class TripGeneratorPersonBasedHurdleNegBin extends RandomizableConcurrentFunction<Tuple<Purpose, Map<MitoPerson, Integer>>> implements TripGenerator {
+public class TripGeneratorPersonBasedHurdleNegBin extends PersonBasedTripGenerator {
 
-    private static final Logger logger = LogManager.getLogger(TripGeneratorPersonBasedHurdleNegBin.class);
-    private Map<MitoPerson, Integer> tripCountsByPP = new LinkedHashMap<>();
-
-    private final DataSet dataSet;
-    private final Purpose purpose;
+    /**
+     * Width of the buckets of log(mu) that share a probability table, which corresponds to a relative difference
+     * in mu of 0.1%.
+     */
+    private static final double LOG_MU_BUCKET_WIDTH = 0.001;
 
     private final TripGenPredictor tripGenerationCalculator;
 
     private Map<String, Double> binLogCoef;
     private Map<String, Double> negBinCoef;
+    private final double theta;
+
+    private final CompiledTripGenPredictor compiledPredictor;
+    private final TripGenCoefficients compiledBinLogCoef;
+    private final TripGenCoefficients compiledNegBinCoef;
 
     protected TripGeneratorPersonBasedHurdleNegBin(DataSet dataSet, Purpose purpose, TripGenPredictor tripGenerationCalculator) {
-        super(MitoUtil.getRandomObject().nextLong());
-        this.dataSet = dataSet;
-        this.purpose = purpose;
+        super(dataSet, purpose);
         this.tripGenerationCalculator = tripGenerationCalculator;
         this.binLogCoef =
                 new TripGenerationHurdleCoefficientReader(dataSet, purpose,
@@ -36,53 +34,101 @@ public class TripGeneratorPersonBasedHurdleNegBin extends RandomizableConcurrent
         this.negBinCoef =
                 new TripGenerationHurdleCoefficientReader(dataSet, purpose,
                         Resources.instance.getTripGenerationCoefficientsHurdleNegativeBinomial()).readCoefficientsForThisPurpose();
-
+        this.theta = negBinCoef.get("theta");
+
+        if (tripGenerationCalculator instanceof CompiledTripGenPredictor) {
+            this.compiledPredictor = (CompiledTripGenPredictor) tripGenerationCalculator;
+            final String[] featureNames = compiledPredictor.getFeatureNames();
+            this.compiledBinLogCoef = TripGenCoefficients.compile(purpose, binLogCoef, featureNames);
+            this.compiledNegBinCoef = TripGenCoefficients.compile(purpose, negBinCoef, featureNames);
+        } else {
+            this.compiledPredictor = null;
+            this.compiledBinLogCoef = null;
+            this.compiledNegBinCoef = null;
+        }
     }
 
     @Override
-    public Tuple<Purpose, Map<MitoPerson, Integer>> call() throws Exception {
-        logger.info("  Generating trips with purpose " + purpose + " (multi-threaded)");
-        logger.info("Created trip frequency distributions for " + purpose);
-        logger.info("Started assignment of trips for hh, purpose: " + purpose);
-        final Iterator<MitoHousehold> iterator = dataSet.getModelledHouseholds().values().iterator();
-        for (; iterator.hasNext(); ) {
-            generateTripsForHousehold(iterator.next());
-        }
-
-        return new Tuple<>(purpose, tripCountsByPP);
+    protected TripCountSampler createSampler(Random random) {
+        final double[] features = compiledPredictor != null ? new double[compiledPredictor.getFeatureNames().length] : null;
+        final Map<Integer, NegBinTable> tables = new HashMap<>();
+        return person -> {
+            double randomNumber = random.nextDouble();
+            double binaryUtility;
+            double negBinUtility;
+            if (compiledPredictor != null) {
+                compiledPredictor.extractFeatures(person.getHousehold(), person, features);
+                binaryUtility = compiledBinLogCoef.predict(features);
+                negBinUtility = compiledNegBinCoef.predict(features);
+            } else {
+                binaryUtility = tripGenerationCalculator.getPredictor(person.getHousehold(), person, binLogCoef);
+                negBinUtility = tripGenerationCalculator.getPredictor(person.getHousehold(), person, negBinCoef);
+            }
+            double phi = Math.exp(binaryUtility) / (1 + Math.exp(binaryUtility));
+
+            // The zero-truncated count distribution only depends on mu, as theta is fixed for the purpose. Persons
+            // whose mu falls into the same bucket share its cumulative table, phi is applied when sampling.
+            final int bucket = (int) Math.round(negBinUtility / LOG_MU_BUCKET_WIDTH);
+            NegBinTable table = tables.get(bucket);
+            if (table == null) {
+                table = new NegBinTable(Math.exp(bucket * LOG_MU_BUCKET_WIDTH), theta);
+                tables.put(bucket, table);
+            }
+            return table.sample(randomNumber, phi);
+        };
     }
 
-    private void generateTripsForHousehold(MitoHousehold hh) {
-
-        for (MitoPerson person : hh.getPersons().values()) {
-            int numberOfTrips = hurdleEstimateTrips(person);
-            tripCountsByPP.put(person, numberOfTrips);
+    /**
+     * Cumulative probabilities of the negative binomial distribution for one (mu, theta), truncated at zero. The
+     * table is extended lazily up to the largest number of trips drawn so far.
+     */
+    private static final class NegBinTable {
+
+        private final NegativeBinomialDist nb;
+        private final double logp0_count;
+        private final double mu;
+        private double[] cumulative = new double[8];
+        private int size;
+
+        private NegBinTable(double mu, double theta) {
+            this.nb = new NegativeBinomialDist(theta, theta / (theta + mu));
+            this.logp0_count = Math.log(1 - nb.cdf(0));
+            this.mu = mu;
+            size = 1;
         }
-    }
-
-    private int hurdleEstimateTrips(MitoPerson pp) {
-        double randomNumber = random.nextDouble();
-        double binaryUtility = tripGenerationCalculator.getPredictor(pp.getHousehold(), pp, binLogCoef);
-        double phi = Math.exp(binaryUtility) / (1 + Math.exp(binaryUtility));
-        double mu = Math.exp(tripGenerationCalculator.getPredictor(pp.getHousehold(),pp, negBinCoef));
-        double theta = negBinCoef.get("theta");
 
-        NegativeBinomialDist nb = new NegativeBinomialDist(theta, theta / (theta + mu));
-
-        double p0_zero = Math.log(phi);
-        double p0_count = Math.log(1 - nb.cdf(0));
-        double logphi = p0_zero - p0_count;
-
-        int i = 0;
-        double cumProb = 0;
-        double prob = 1 - Math.exp(p0_zero);
-        cumProb += prob;
+        /**
+         * Draws a number of trips from the hurdle distribution that makes no trips with probability 1 - phi and
+         * otherwise follows this table.
+         */
+        private int sample(double randomNumber, double phi) {
+            if (!(randomNumber > 1 - phi)) {
+                return 0;
+            }
+            final double conditionalRandomNumber = (randomNumber - (1 - phi)) / phi;
+            int i = 1;
+            while (true) {
+                if (i == size) {
+                    if (!extend() && i > mu) {
+                        // the remaining tail is below double precision
+                        return i - 1;
+                    }
+                }
+                if (!(conditionalRandomNumber > cumulative[i])) {
+                    return i;
+                }
+                i++;
+            }
+        }
 
-        while(randomNumber > cumProb) {
-            i++;
-            prob = Math.exp(logphi + Math.log(nb.prob(i)));
-            cumProb += prob;
+        private boolean extend() {
+            if (size == cumulative.length) {
+                cumulative = Arrays.copyOf(cumulative, size * 2);
+            }
+            double prob = Math.exp(Math.log(nb.prob(size)) - logp0_count);
+            cumulative[size] = cumulative[size - 1] + prob;
+            size++;
+            return prob > 0;
         }
-        return(i);
     }
 }
@@ -33,6 +33,10 @@ public class Properties {
     public static final String TG_BINARY_LOGIT_COEFFICIENTS = "tg.binary.logit.coeffs";
     public static final String TG_NEGATIVE_BINOMIAL_COEFFICIENTS = "tg.negative.binomial.coeffs";
     public static final String TG_ORDERED_LOGIT_COEFFICIENTS = "tg.ordered.logit.coeffs";
+    public static final String TRIP_TABLE_COLUMNAR = "trip.table.columnar";
+    public static final String TRIP_GENERATION_PERSON_PARTITIONS = "trip.generation.person.partitions";
+    public static final String TRIP_DISTRIBUTION_HOUSEHOLD_PARTITIONS = "trip.distribution.household.partitions";
+    public static final String TRIP_DISTRIBUTION_UTILITY_CACHE_MB = "trip.distribution.utility.cache.mb";
     public static final String BUS_TRAVEL_TIME_SKIM = "bus.travelTime";
     public static final String TRAM_METRO_TRAVEL_TIME_SKIM = "tramMetro.travelTime";
     public static final String TRAIN_TRAVEL_TIME_SKIM = "train.travelTime";
@@ -45,9 +49,12 @@ public class Properties {
     public static final String CREATE_CHARTS = "charts";
     public static final String PRINT_MICRO_DATA = "micro.data";
     public static final String FILL_MICRO_DATA_WITH_MICROLOCATION = "micro.data.with.microlocation";
+    public static final String COMPRESS_MICRO_DATA = "micro.data.gzip";
+    public static final String COLUMNAR_MICRO_DATA = "micro.data.columnar";
 
     public static final String RUN_TIME_OF_DAY_CHOICE = "run.time.of.day.choice";
     public static final String TIME_OF_DAY_DISTRIBUTIONS = "time.of.day.distribution.file";
+    public static final String TIME_OF_DAY_HOUSEHOLD_PARTITIONS = "time.of.day.household.partitions";
 
     public static final String RUN_TRIP_SCALING = "run.trip.scaling";
     public static final String TRIP_SCALING_FACTOR = "trip.scaling.factor";
@@ -60,7 +67,10 @@ public class Properties {
     public static final String DEFAULT_BUDGET = "default.budget.";
 
     public static final String PRINT_OUT_SKIM = "print.skim";
+    public static final String SKIM_STORAGE = "skim.storage";
+    public static final String SKIM_CACHE_DIRECTORY = "skim.cache.directory";
     public static final String SKIM_FILE_NAME = "skim.file.name";
+    public static final String CAR_SKIM_TIME_SLICES = "car.skim.time.slices";
 
     public static final String ADD_EXTERNAL_FLOWS = "add.external.flows";
     public static final String EXTERNAL_DEPARTURE_TIME_FILE = "external.departure.time.file";
@@ -88,6 +98,8 @@ public class Properties {
     public static final String MC_COEFFICIENTS = "mc.coefficient.file.suffix";
     public static final String MC_STATIC_PERSON_ERROR_TERMS = "mc.static.person.error.terms";
     public static final String MC_STATIC_PERSON_ERROR_TERMS_NEST_STRUCTURE = "mc.static.person.error.terms.nests";
+    public static final String MC_HOUSEHOLD_PARTITIONS = "mc.household.partitions";
+    public static final String MC_CALIBRATION_CACHE_UTILITIES = "mc.calibration.cache.utilities";
     public static final String BIKE_OWNERSHIP_COEFFICIENTS = "bicycle.ownership.coefficients";
 
     public static final String BUS_TRAVEL_TIME_SKIM_MATRIX = "bus.travelTime.matrix";
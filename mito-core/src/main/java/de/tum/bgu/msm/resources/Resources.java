@@ -6,11 +6,20 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import static de.tum.bgu.msm.resources.Properties.*;
 
 /**
  * Created by Nico on 19.07.2017.
+ * <p>
+ * Immutable snapshot of the model properties. All values are parsed once when the resources are initialized, so
+ * getters can be called from any thread without locking. Getters by key are map lookups; properties read per trip or
+ * person are resolved when the resources are initialized and have their own getters.
  */
 public class Resources {
 
@@ -18,14 +27,26 @@ public class Resources {
 
     public static Resources instance;
 
-    private final Properties properties;
+    private final Map<String, Value> values;
 
     private final Path baseDirectory;
 
+    private final boolean runModeSet;
+    private final boolean fillMicroDataWithMicroLocation;
+    private final Value airportX;
+    private final Value airportY;
 
     private Resources(Properties properties, String baseDirectory) {
-        this.properties = properties;
+        final Map<String, Value> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, new Value(properties.getProperty(key)));
+        }
+        this.values = Collections.unmodifiableMap(values);
         this.baseDirectory = Paths.get(baseDirectory).getParent();
+        this.runModeSet = getBoolean(RUN_MODESET, false);
+        this.fillMicroDataWithMicroLocation = getBoolean(FILL_MICRO_DATA_WITH_MICROLOCATION, false);
+        this.airportX = this.values.get(AIRPORT_X);
+        this.airportY = this.values.get(AIRPORT_Y);
     }
 
     public static void initializeResources(String fileName) {
@@ -38,6 +59,50 @@ public class Resources {
         }
     }
 
+    /**
+     * Property value with its typed representations. Values that cannot be parsed as a number keep their
+     * original text, and the number getters fail with the same exception as parsing on every call did.
+     */
+    private static final class Value {
+        private final String text;
+        private final List<String> array;
+        private final boolean booleanValue;
+        private final Integer intValue;
+        private final Double doubleValue;
+
+        private Value(String text) {
+            this.text = text;
+            this.array = Collections.unmodifiableList(Arrays.asList(text.split(",")));
+            this.booleanValue = Boolean.parseBoolean(text);
+            this.intValue = parseInt(text);
+            this.doubleValue = parseDouble(text);
+        }
+
+        private static Integer parseInt(String text) {
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Double parseDouble(String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private int getInt() {
+            return intValue != null ? intValue : Integer.parseInt(text);
+        }
+
+        private double getDouble() {
+            return doubleValue != null ? doubleValue : Double.parseDouble(text);
+        }
+    }
+
     public Path getZonesInputFile() {
         return baseDirectory.resolve(getString(ZONES));
     }
@@ -78,49 +143,80 @@ public class Resources {
         return baseDirectory.resolve(getString(ECONOMIC_STATUS));
     }
 
-    public synchronized int getInt(String key) {
-        return Integer.parseInt(properties.getProperty(key));
+    public int getInt(String key) {
+        return getInt(key, values.get(key));
     }
 
-    public synchronized int getInt(String key, int defaultValue) {
-        if (properties.containsKey(key)) {
-            return Integer.parseInt(properties.getProperty(key));
+    private static int getInt(String key, Value value) {
+        if (value == null) {
+            throw new NumberFormatException("Property " + key + " is not defined");
+        }
+        return value.getInt();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Value value = values.get(key);
+        if (value != null) {
+            return value.getInt();
         } else {
             return defaultValue;
         }
     }
 
-    public synchronized String getString(String key) {
-        return properties.getProperty(key);
+    public String getString(String key) {
+        Value value = values.get(key);
+        return value != null ? value.text : null;
     }
 
-    public synchronized String[] getArray(String key) {
-        return properties.getProperty(key).split(",");
+    /**
+     * Returns an unmodifiable list of the comma separated values of the property.
+     */
+    public List<String> getArray(String key) {
+        return values.get(key).array;
     }
 
-    public synchronized String[] getArray(String key, String[] defaultValue) {
-        if (properties.containsKey(key)) {
-            return properties.getProperty(key).split(",");
+    public List<String> getArray(String key, List<String> defaultValue) {
+        Value value = values.get(key);
+        if (value != null) {
+            return value.array;
         } else {
             return defaultValue;
         }
     }
 
-    public synchronized boolean getBoolean(String key) {
-        return Boolean.parseBoolean(properties.getProperty(key));
+    public boolean getBoolean(String key) {
+        Value value = values.get(key);
+        return value != null && value.booleanValue;
     }
 
-    public synchronized boolean getBoolean(String key, boolean defaultValue) {
-        if (properties.containsKey(key)) {
-            return Boolean.parseBoolean(properties.getProperty(key));
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Value value = values.get(key);
+        if (value != null) {
+            return value.booleanValue;
         } else {
             return defaultValue;
         }
     }
 
-    public synchronized double getDouble(String key, double defaultValue) {
-        String value = properties.getProperty(key);
-        return value != null ? Double.parseDouble(value) : defaultValue;
+    public double getDouble(String key, double defaultValue) {
+        Value value = values.get(key);
+        return value != null ? value.getDouble() : defaultValue;
+    }
+
+    public boolean isRunModeSet() {
+        return runModeSet;
+    }
+
+    public boolean isFillMicroDataWithMicroLocation() {
+        return fillMicroDataWithMicroLocation;
+    }
+
+    public int getAirportX() {
+        return getInt(AIRPORT_X, airportX);
+    }
+
+    public int getAirportY() {
+        return getInt(AIRPORT_Y, airportY);
     }
 
     public Path getAreaTypesAndRailDistancesFilePath() {
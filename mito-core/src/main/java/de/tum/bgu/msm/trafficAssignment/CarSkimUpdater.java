@@ -2,7 +2,8 @@ package de.tum.bgu.msm.trafficAssignment;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimBasedTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.TimeSlicedSkim;
 import de.tum.bgu.msm.io.output.OmxMatrixWriter;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
@@ -16,6 +17,15 @@ import org.matsim.core.controler.Controler;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Updates the car skim from the link travel times of a MATSim run. By default a single skim is calculated for the
+ * peak hour. If time slices are given by their start hours in {@link Properties#CAR_SKIM_TIME_SLICES}, e.g.
+ * 0,6,10,16,19, a skim is calculated for the middle of every slice in one pass, and travel times by car are looked up
+ * in the slice of their time of day.
+ */
 public class CarSkimUpdater {
 
     private final static Logger logger = LogManager.getLogger(CarSkimUpdater.class);
@@ -44,10 +54,50 @@ public class CarSkimUpdater {
     }
 
     public void run() {
-        matsim2Skim.calculateMatrixFromMatsim(NUMBER_OF_CALC_POINTS, carTravelTimeMatrix,
-                carDistanceMatrix, DEFAULT_PEAK_H_S, dataSet.getZones().values());
-        updateMatrices();
+        final List<String> sliceStartHours = Resources.instance.getArray(Properties.CAR_SKIM_TIME_SLICES, Collections.emptyList());
+        if (sliceStartHours.isEmpty()) {
+            matsim2Skim.calculateMatrixFromMatsim(NUMBER_OF_CALC_POINTS, carTravelTimeMatrix,
+                    carDistanceMatrix, DEFAULT_PEAK_H_S, dataSet.getZones().values());
+            updateMatrices();
+            printSkim();
+        } else {
+            runTimeSliced(sliceStartHours);
+        }
+    }
+
+    private void runTimeSliced(List<String> sliceStartHours) {
+        final int numberOfSlices = sliceStartHours.size();
+        final int[] sliceStarts_s = new int[numberOfSlices];
+        for (int i = 0; i < numberOfSlices; i++) {
+            sliceStarts_s[i] = (int) Math.round(Double.parseDouble(sliceStartHours.get(i).trim()) * 3600);
+        }
+        final double[] times = new double[numberOfSlices];
+        final IndexedDoubleMatrix2D[] travelTimeMatrices = new IndexedDoubleMatrix2D[numberOfSlices];
+        final IndexedDoubleMatrix2D[] distanceMatrices = new IndexedDoubleMatrix2D[numberOfSlices];
+        for (int i = 0; i < numberOfSlices; i++) {
+            travelTimeMatrices[i] = i == 0 ? carTravelTimeMatrix : new IndexedDoubleMatrix2D(dataSet.getZones().values(), dataSet.getZones().values());
+            distanceMatrices[i] = i == 0 ? carDistanceMatrix : new IndexedDoubleMatrix2D(dataSet.getZones().values(), dataSet.getZones().values());
+        }
+        final TimeSlicedSkim skims = new TimeSlicedSkim(sliceStarts_s, travelTimeMatrices);
+        // paths of each slice are routed at its middle, which lies within the day for the slice over midnight
+        for (int i = 0; i < numberOfSlices; i++) {
+            times[i] = skims.getSliceMiddle_s(i);
+        }
+        matsim2Skim.calculateMatricesFromMatsim(NUMBER_OF_CALC_POINTS, travelTimeMatrices, distanceMatrices,
+                times, dataSet.getZones().values());
+
+        final double peakHour_s = Double.isNaN(dataSet.getPeakHour()) ? DEFAULT_PEAK_H_S : dataSet.getPeakHour();
+        getSkimBasedTravelTimes().updateSkimMatrices(skims, TransportMode.car, peakHour_s);
+        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distanceMatrices[skims.getSliceIndex(peakHour_s)]));
         printSkim();
+        printTimeSlices(skims);
+    }
+
+    private void printTimeSlices(TimeSlicedSkim skims) {
+        String fileName = "./scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/" + Resources.instance.getString(Properties.SKIM_FILE_NAME);
+        for (int i = 0; i < skims.getNumberOfSlices(); i++) {
+            OmxMatrixWriter.createOmxSkimMatrix(skims.getMatrix(i), fileName, "timeByTime_" + skims.getSliceStart_s(i) / 60);
+        }
     }
 
     private void printSkim() {
@@ -56,22 +106,28 @@ public class CarSkimUpdater {
             int dimension = dataSet.getZones().size();
             OmxMatrixWriter.createOmxFile(fileName, dimension);
 
-            SkimTravelTimes tt = (SkimTravelTimes) dataSet.getTravelTimes();
-            tt.printOutCarSkim(TransportMode.car, fileName, "timeByTime");
+            OmxMatrixWriter.createOmxSkimMatrix(dataSet.getTravelTimes().getPeakSkim(TransportMode.car), fileName, "timeByTime");
 
             MatrixTravelDistances td = (MatrixTravelDistances) dataSet.getTravelDistancesAuto();
             td.printOutDistanceSkim(fileName, "distanceByTime");
 
         } catch (ClassCastException e) {
-            logger.info("Currently it is not possible to print out a matrix from an object which is not SkimTravelTime");
+            logger.info("Currently it is not possible to print out a distance matrix from an object which is not MatrixTravelDistances");
         }
     }
 
 
     private void updateMatrices() {
-        SkimTravelTimes skimTravelTimes = (SkimTravelTimes) dataSet.getTravelTimes();
-        skimTravelTimes.updateSkimMatrix(carTravelTimeMatrix, TransportMode.car);
+        getSkimBasedTravelTimes().updateSkimMatrix(carTravelTimeMatrix, TransportMode.car);
         MatrixTravelDistances autoTravelDistances = new MatrixTravelDistances(carDistanceMatrix);
         dataSet.setTravelDistancesAuto(autoTravelDistances);
     }
+
+    private SkimBasedTravelTimes getSkimBasedTravelTimes() {
+        if (!(dataSet.getTravelTimes() instanceof SkimBasedTravelTimes)) {
+            throw new RuntimeException("Car skims can only be updated in skim based travel times but travel times are "
+                    + dataSet.getTravelTimes().getClass().getSimpleName());
+        }
+        return (SkimBasedTravelTimes) dataSet.getTravelTimes();
+    }
 }
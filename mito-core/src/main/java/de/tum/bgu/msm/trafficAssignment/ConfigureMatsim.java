@@ -9,7 +9,9 @@ import org.matsim.core.config.groups.*;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class ConfigureMatsim {
@@ -124,7 +126,7 @@ public class ConfigureMatsim {
         config.qsim().setStorageCapFactor(siloSamplingFactor * Double.parseDouble(Resources.instance.getString(Properties.TRIP_SCALING_FACTOR)));
 
 
-        String[] networkModes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, new String[]{"autoDriver"});
+        List<String> networkModes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, Collections.singletonList("autoDriver"));
         Set<String> networkModesSet = new HashSet<>();
 
         for (String mode : networkModes) {
@@ -0,0 +1,99 @@
+package de.tum.bgu.msm.util;
+
+import java.util.Random;
+
+/**
+ * Immutable Walker/Vose alias table to draw indices of a discrete distribution in constant time.
+ * Building the table is O(n), each draw uses a single random number and allocates nothing. Instances
+ * can be shared between threads as long as every thread uses its own {@link Random}.
+ */
+public final class AliasTable {
+
+    private final float[] probability;
+    private final int[] alias;
+
+    private AliasTable(float[] probability, int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * Creates an alias table for the given (non-normalised) weights. Weights that are negative or not finite
+     * are treated as zero. If no weight is positive, every draw returns the last index, which is consistent
+     * with {@link MitoUtil#select(double[], Random)}.
+     */
+    public static AliasTable of(double[] weights) {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Cannot create alias table for empty weights");
+        }
+        final float[] probability = new float[n];
+        final int[] alias = new int[n];
+
+        double sum = 0;
+        for (double weight : weights) {
+            if (weight > 0 && Double.isFinite(weight)) {
+                sum += weight;
+            }
+        }
+        if (!(sum > 0) || !Double.isFinite(sum)) {
+            for (int i = 0; i < n; i++) {
+                alias[i] = n - 1;
+            }
+            return new AliasTable(probability, alias);
+        }
+
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            double weight = weights[i] > 0 && Double.isFinite(weights[i]) ? weights[i] : 0.;
+            scaled[i] = weight * n / sum;
+            if (scaled[i] < 1.) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = (float) scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.;
+            if (scaled[more] < 1.) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Remaining entries are 1 up to rounding errors
+        while (largeSize > 0) {
+            int i = large[--largeSize];
+            probability[i] = 1.f;
+            alias[i] = i;
+        }
+        while (smallSize > 0) {
+            int i = small[--smallSize];
+            probability[i] = 1.f;
+            alias[i] = i;
+        }
+        return new AliasTable(probability, alias);
+    }
+
+    /**
+     * Draws an index according to the weights this table was created with.
+     */
+    public int sample(Random random) {
+        final double u = random.nextDouble() * probability.length;
+        final int i = Math.min((int) u, probability.length - 1);
+        return (u - i) < probability[i] ? i : alias[i];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+}
@@ -0,0 +1,57 @@
+package de.tum.bgu.msm.util;
+
+import java.util.Random;
+
+/**
+ * Immutable cumulative distribution of (non-normalised) weights, sampled by binary search in O(log n) without
+ * allocating. Prefix sums are accumulated in index order, so for the same random number every draw returns exactly
+ * the index that {@link MitoUtil#select(double[], Random)} returns for the same weights. Instances can be shared
+ * between threads as long as every thread uses its own {@link Random}.
+ */
+public final class CumulativeTable {
+
+    private final double[] cumulative;
+
+    private CumulativeTable(double[] cumulative) {
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Creates the cumulative table of the given weights. If all weights are zero, every draw returns the last index.
+     */
+    public static CumulativeTable of(double[] weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("Cannot create cumulative table for empty weights");
+        }
+        final double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Negative weight " + weights[i] + " at index " + i);
+            }
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        return new CumulativeTable(cumulative);
+    }
+
+    public int sample(Random random) {
+        final double selPos = cumulative[cumulative.length - 1] * random.nextDouble();
+        // first index whose cumulative weight exceeds selPos
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (cumulative[mid] > selPos) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
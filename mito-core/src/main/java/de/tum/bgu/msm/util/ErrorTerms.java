@@ -64,6 +64,28 @@ public class ErrorTerms<E extends Enum<E>> {
         return sim;
     }
 
+    /**
+     * Primitive variant of {@link #sampleErrorTerms()} that writes the error terms by ordinal into the given array.
+     * Draws the same random numbers in the same order, so both variants give identical results for the same seed.
+     */
+    public void sampleErrorTerms(double[] errorTerms) {
+        if(nests == null) {
+            for (E choice : choiceSet) {
+                errorTerms[choice.ordinal()] = gumbelDistribution.sample();
+            }
+        } else {
+            for (Tuple<EnumSet<E>, Double> nest : nests) {
+                EnumSet<E> nestChoices = nest.getFirst();
+                double[] nestTerms = getCorrelatedValues(nestChoices.size(),nest.getSecond());
+                int i = 0;
+                for(E choice : nestChoices) {
+                    errorTerms[choice.ordinal()] = nestTerms[i];
+                    i++;
+                }
+            }
+        }
+    }
+
     public double[] getCorrelatedValues(int d, double lambda) {
         if(lambda > 1 || lambda <= 0) {
             throw new RuntimeException("Nesting parameter must be equal to or less than 1 and greater than 0");
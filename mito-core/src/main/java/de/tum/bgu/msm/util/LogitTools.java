@@ -96,6 +96,99 @@ public class LogitTools<E extends Enum<E>> {
         }
     }
 
+    /**
+     * Primitive variant of {@link #getProbabilities(EnumMap, List)}. Utilities, availabilities and the resulting
+     * probabilities are indexed by the ordinal of the alternatives. Unavailable alternatives get a probability of 0.
+     */
+    public void getProbabilities(double[] utilities, boolean[] available, List<Tuple<EnumSet<E>, Double>> nests, double[] probabilities) {
+        if(nests == null) {
+            getProbabilitiesMNL(utilities, available, probabilities);
+        } else {
+            getProbabilitiesNL(utilities, available, nests, probabilities);
+        }
+    }
+
+    public static void getProbabilitiesMNL(double[] utilities, boolean[] available, double[] probabilities) {
+        double expUtilsSum = 0.;
+        for(int i = 0; i < utilities.length; i++) {
+            if(available[i]) {
+                double expUtil = Math.exp(utilities[i]);
+                probabilities[i] = expUtil;
+                expUtilsSum += expUtil;
+            } else {
+                probabilities[i] = 0.;
+            }
+        }
+        for(int i = 0; i < utilities.length; i++) {
+            if(available[i]) {
+                probabilities[i] /= expUtilsSum;
+            }
+        }
+    }
+
+    public void getProbabilitiesNL(double[] utilities, boolean[] available, List<Tuple<EnumSet<E>, Double>> nests, double[] probabilities) {
+        // first pass: exp(u / lambda) per option, accumulate nest sums and the root sum
+        double expSumRoot = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = 0.;
+        }
+        for (Tuple<EnumSet<E>, Double> nest : nests) {
+            double nestingCoefficient = nest.getSecond();
+            double expNestSum = 0;
+            for (E option : nest.getFirst()) {
+                int i = option.ordinal();
+                if (available[i]) {
+                    double expOptionUtil = Math.exp(utilities[i] / nestingCoefficient);
+                    probabilities[i] = expOptionUtil;
+                    expNestSum += expOptionUtil;
+                }
+            }
+            expSumRoot += Math.exp(nestingCoefficient * Math.log(expNestSum));
+        }
+        // second pass: P(option) = P(option | nest) * P(nest)
+        for (Tuple<EnumSet<E>, Double> nest : nests) {
+            double nestingCoefficient = nest.getSecond();
+            double expNestSum = 0;
+            for (E option : nest.getFirst()) {
+                if (available[option.ordinal()]) {
+                    expNestSum += probabilities[option.ordinal()];
+                }
+            }
+            if (expNestSum == 0) {
+                continue;
+            }
+            double nestProbability = Math.exp(nestingCoefficient * Math.log(expNestSum)) / expSumRoot;
+            for (E option : nest.getFirst()) {
+                int i = option.ordinal();
+                if (available[i]) {
+                    probabilities[i] = probabilities[i] / expNestSum * nestProbability;
+                }
+            }
+        }
+    }
+
+    /**
+     * Primitive variant of {@link #getHighest(Map, Map)}. Returns the ordinal of the available alternative with the
+     * highest sum of utility and error term. Ties are resolved in favour of the lowest ordinal.
+     */
+    public static int getHighest(double[] utilities, boolean[] available, double[] errorTerms) {
+        int chosen = -1;
+        double maxUtility = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < utilities.length; i++) {
+            if(available[i]) {
+                double utility = utilities[i] + errorTerms[i];
+                if(utility > maxUtility) {
+                    maxUtility = utility;
+                    chosen = i;
+                }
+            }
+        }
+        if(chosen < 0) {
+            throw new RuntimeException("No feasible alternative");
+        }
+        return chosen;
+    }
+
     public double getLogsumMNL(EnumMap<E, Double> utilities, double scaleParameter) {
         double expSum = 0.;
         for(E option : utilities.keySet()) {
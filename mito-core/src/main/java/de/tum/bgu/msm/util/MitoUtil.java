@@ -364,6 +364,16 @@ public final class MitoUtil {
         return rand;
     }
 
+    /**
+     * Derives the seed of one of several parallel random number streams, e.g. of a partition or chunk, from a common
+     * seed. Index 0 gets the common seed itself, so a single stream reproduces the results of a sequential run. The
+     * stride is large and odd, so the seeds of neighbouring indices stay far apart, also from users of seed + 1 or
+     * seed + 2 such as ErrorTerms.
+     */
+    public static long deriveSeed(long seed, long index) {
+        return seed + index * 0x9E3779B97F4A7C15L;
+    }
+
     public static void createDirectoryIfNotExistingYet (String directory) {
         File file = new File (directory);
         if (!file.exists()) {
@@ -0,0 +1,343 @@
+package de.tum.bgu.msm.util.matrices;
+
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent cache that stores skim matrices as flat binary files next to a small header and memory-maps them on
+ * later runs, so that repeated scenario runs skip parsing omx/hdf5 or csv.gz skims.
+ * <p>
+ * Each cache file holds a header with the source file's size, modification time and CRC32C checksum, the matrix
+ * name, the conversion factor and the zone lookup, followed by the row-major float values. A cache file is reused
+ * if size and modification time of the source are unchanged, or, if only the modification time differs, if the
+ * checksum still matches, in which case the new modification time is written to the header. Otherwise, or if the
+ * cache file is corrupt, the skim is read from its source and the cache file is rewritten.
+ * <p>
+ * Cached values have float precision, so the cache is used for float skim storage only.
+ */
+public final class BinarySkimCache {
+
+    private static final Logger logger = LogManager.getLogger(BinarySkimCache.class);
+
+    private static final long MAGIC = 0x4D49544F534B494DL; // "MITOSKIM"
+    private static final int VERSION = 2;
+    private static final int DATA_ALIGNMENT = 64;
+    private static final int CHECKSUM_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private final Path directory;
+
+    public BinarySkimCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cache configured by {@link Properties#SKIM_CACHE_DIRECTORY} or null if no cache is configured.
+     */
+    public static BinarySkimCache fromProperties() {
+        if (Resources.instance == null || Resources.instance.getString(Properties.SKIM_CACHE_DIRECTORY) == null) {
+            return null;
+        }
+        return new BinarySkimCache(Resources.instance.getRelativePath(Properties.SKIM_CACHE_DIRECTORY));
+    }
+
+    /**
+     * Returns the memory-mapped cached skim for the given source, matrix and factor. If there is no valid cache
+     * file, the skim is created by the loader, written to the cache and then mapped.
+     */
+    public FloatSkimMatrix getOrCreate(String sourceFile, String matrixName, double factor, Supplier<FloatSkimMatrix> loader) {
+        final FloatSkimMatrix cached = get(sourceFile, matrixName, factor);
+        if (cached != null) {
+            return cached;
+        }
+        return put(sourceFile, matrixName, factor, loader.get());
+    }
+
+    /**
+     * Returns the memory-mapped cached skim for the given source, matrix and factor, or null if there is no valid
+     * cache file.
+     */
+    public FloatSkimMatrix get(String sourceFile, String matrixName, double factor) {
+        final Path source = Paths.get(sourceFile);
+        final Path cacheFile = getCacheFile(source, matrixName, factor);
+        if (!Files.exists(cacheFile)) {
+            return null;
+        }
+        try {
+            final BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+            FloatSkimMatrix cached = tryMap(cacheFile, source, sourceAttributes, matrixName, factor);
+            if (cached != null) {
+                logger.info("Mapped cached skim {}", cacheFile);
+                return cached;
+            }
+            logger.info("Cached skim {} is outdated and will be rebuilt", cacheFile);
+        } catch (IOException e) {
+            logger.warn("Cached skim " + cacheFile + " is corrupt and will be rebuilt: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Writes the given skim, read from the given source, matrix and factor, to the cache and returns the mapped
+     * cache file. If the cache cannot be written, the given skim is returned.
+     */
+    public FloatSkimMatrix put(String sourceFile, String matrixName, double factor, FloatSkimMatrix matrix) {
+        final Path source = Paths.get(sourceFile);
+        final Path cacheFile = getCacheFile(source, matrixName, factor);
+        try {
+            final BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+            write(cacheFile, matrix, matrixName, factor, sourceAttributes, checksum(source));
+            logger.info("Wrote skim cache {}", cacheFile);
+            return map(cacheFile);
+        } catch (IOException e) {
+            logger.warn("Could not use skim cache " + cacheFile + ": " + e.getMessage() + ". Using source instead.");
+            return matrix;
+        }
+    }
+
+    /**
+     * Names the cache file after the source file, a hash of the absolute source path, the matrix and the factor, so
+     * that sources with the same file name in different directories do not overwrite each other's cache.
+     */
+    private Path getCacheFile(Path source, String matrixName, double factor) {
+        final CRC32C pathHash = new CRC32C();
+        pathHash.update(source.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        String name = source.getFileName().toString() + "." + Long.toHexString(pathHash.getValue())
+                + "." + matrixName.replaceAll("[^A-Za-z0-9_.-]", "_")
+                + "." + Long.toHexString(Double.doubleToLongBits(factor)) + ".skim";
+        return directory.resolve(name);
+    }
+
+    private FloatSkimMatrix tryMap(Path cacheFile, Path source, BasicFileAttributes sourceAttributes,
+                                   String matrixName, double factor) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            final Header header = Header.read(channel);
+            if (header == null
+                    || header.sourceSize != sourceAttributes.size()
+                    || header.factor != factor
+                    || !header.matrixName.equals(matrixName)) {
+                return null;
+            }
+            final long sourceModified = sourceAttributes.lastModifiedTime().toMillis();
+            if (header.sourceModified != sourceModified) {
+                if (header.sourceChecksum != checksum(source)) {
+                    return null;
+                }
+                // the source was touched but not changed, so later runs can skip the checksum again
+                updateSourceModified(cacheFile, sourceModified);
+            }
+            return map(channel, header);
+        }
+    }
+
+    private static void updateSourceModified(Path cacheFile, long sourceModified) {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(sourceModified).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, Header.SOURCE_MODIFIED_OFFSET + buffer.position());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not update the source modification time of skim cache " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+    private FloatSkimMatrix map(Path cacheFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            final Header header = Header.read(channel);
+            if (header == null) {
+                throw new IOException("Invalid skim cache header in " + cacheFile);
+            }
+            return map(channel, header);
+        }
+    }
+
+    private static FloatSkimMatrix map(FileChannel channel, Header header) throws IOException {
+        final long dataBytes = (long) header.ids.length * header.ids.length * Float.BYTES;
+        if (channel.size() < header.dataOffset + dataBytes) {
+            throw new IOException("Skim cache is truncated");
+        }
+        // The mapping stays valid after the channel is closed
+        final DenseIdIndex index;
+        try {
+            index = new DenseIdIndex(header.ids);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid zone lookup in skim cache: " + e.getMessage());
+        }
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, header.dataOffset, dataBytes);
+        final FloatBuffer data = mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        return FloatSkimMatrix.wrap(index, data);
+    }
+
+    private static void write(Path cacheFile, FloatSkimMatrix matrix, String matrixName, double factor,
+                              BasicFileAttributes sourceAttributes, long checksum) throws IOException {
+        final long dataBytes = (long) matrix.size() * matrix.size() * Float.BYTES;
+        if (dataBytes > Integer.MAX_VALUE) {
+            throw new IOException("Skim with " + matrix.size() + " zones is too large to be memory-mapped");
+        }
+        Files.createDirectories(cacheFile.getParent());
+        // a unique temporary file, so that concurrent runs sharing the cache do not write into the same file
+        final Path tmp = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Header header = new Header(sourceAttributes.size(), sourceAttributes.lastModifiedTime().toMillis(),
+                    checksum, factor, matrixName, matrix.getIndex().getIds());
+            header.write(channel);
+
+            final FloatBuffer values = matrix.getData();
+            values.rewind();
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (values.hasRemaining()) {
+                buffer.clear();
+                final int n = Math.min(values.remaining(), buffer.capacity() / Float.BYTES);
+                final FloatBuffer chunk = values.slice().limit(n);
+                buffer.asFloatBuffer().put(chunk);
+                values.position(values.position() + n);
+                buffer.limit(n * Float.BYTES);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Computes the CRC32C checksum of the given file.
+     */
+    static long checksum(Path file) throws IOException {
+        final CRC32C crc = new CRC32C();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static final class Header {
+
+        // after magic and version
+        private static final long SOURCE_MODIFIED_OFFSET = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+        private final long sourceSize;
+        private final long sourceModified;
+        private final long sourceChecksum;
+        private final double factor;
+        private final String matrixName;
+        private final int[] ids;
+        private final long dataOffset;
+
+        private Header(long sourceSize, long sourceModified, long sourceChecksum, double factor, String matrixName, int[] ids) {
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+            this.sourceChecksum = sourceChecksum;
+            this.factor = factor;
+            this.matrixName = matrixName;
+            this.ids = ids;
+            this.dataOffset = align(fixedSize(matrixName.getBytes(StandardCharsets.UTF_8).length) + (long) ids.length * Integer.BYTES);
+        }
+
+        private static int fixedSize(int nameBytes) {
+            // magic, version, source size, modified, checksum, factor, name length, name, zones
+            return Long.BYTES + Integer.BYTES + 3 * Long.BYTES + Double.BYTES + Integer.BYTES + nameBytes + Integer.BYTES;
+        }
+
+        private static long align(long offset) {
+            return (offset + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+        }
+
+        /**
+         * Reads the header or returns null if the file is not a skim cache of the current version.
+         * @throws IOException if the header is truncated or its lengths do not fit the file
+         */
+        private static Header read(FileChannel channel) throws IOException {
+            final ByteBuffer fixed = ByteBuffer.allocate(fixedSize(0) - Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (readFully(channel, fixed, 0) < fixed.capacity()) {
+                return null;
+            }
+            fixed.flip();
+            if (fixed.getLong() != MAGIC || fixed.getInt() != VERSION) {
+                return null;
+            }
+            final long sourceSize = fixed.getLong();
+            final long sourceModified = fixed.getLong();
+            final long sourceChecksum = fixed.getLong();
+            final double factor = fixed.getDouble();
+            final int nameLength = fixed.getInt();
+            if (nameLength < 0 || fixed.capacity() + (long) nameLength + Integer.BYTES > channel.size()) {
+                throw new IOException("Invalid matrix name length " + nameLength + " in skim cache header");
+            }
+
+            final ByteBuffer variable = ByteBuffer.allocate(nameLength + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (readFully(channel, variable, fixed.capacity()) < variable.capacity()) {
+                throw new IOException("Skim cache header is truncated");
+            }
+            variable.flip();
+            final byte[] name = new byte[nameLength];
+            variable.get(name);
+            final int zones = variable.getInt();
+            final long lookupOffset = fixed.capacity() + (long) variable.capacity();
+            if (zones < 0 || zones > FloatSkimMatrix.MAX_ZONES || lookupOffset + (long) zones * Integer.BYTES > channel.size()) {
+                throw new IOException("Invalid number of zones " + zones + " in skim cache header");
+            }
+
+            final ByteBuffer lookup = ByteBuffer.allocate(zones * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (readFully(channel, lookup, lookupOffset) < lookup.capacity()) {
+                throw new IOException("Skim cache header is truncated");
+            }
+            lookup.flip();
+            final int[] ids = new int[zones];
+            lookup.asIntBuffer().get(ids);
+            return new Header(sourceSize, sourceModified, sourceChecksum, factor, new String(name, StandardCharsets.UTF_8), ids);
+        }
+
+        private void write(FileChannel channel) throws IOException {
+            final byte[] name = matrixName.getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer buffer = ByteBuffer.allocate((int) dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putInt(VERSION)
+                    .putLong(sourceSize).putLong(sourceModified).putLong(sourceChecksum)
+                    .putDouble(factor)
+                    .putInt(name.length).put(name)
+                    .putInt(ids.length);
+            for (int id : ids) {
+                buffer.putInt(id);
+            }
+            buffer.position((int) dataOffset);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            int total = 0;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + total);
+                if (read < 0) {
+                    break;
+                }
+                total += read;
+            }
+            return total;
+        }
+    }
+}
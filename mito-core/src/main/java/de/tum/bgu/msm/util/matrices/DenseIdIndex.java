@@ -0,0 +1,75 @@
+package de.tum.bgu.msm.util.matrices;
+
+import java.util.Arrays;
+
+/**
+ * Immutable mapping between (possibly non-consecutive) ids and consecutive indices 0...n-1. Unlike the hash maps
+ * used by {@link IndexedDoubleMatrix2D}, the id lookup is a single array read, which requires ids to lie in a
+ * reasonably compact range (e.g. zone ids 500000-510000 are fine, arbitrary 9-digit ids are not).
+ */
+public final class DenseIdIndex {
+
+    private static final int MAX_ID_RANGE = 50_000_000;
+
+    private final int[] ids;
+    private final int[] indexById;
+    private final int minId;
+
+    /**
+     * Creates an index in which the id at position i of the lookup array is associated with index i.
+     */
+    public DenseIdIndex(int[] lookup) {
+        if (lookup.length == 0) {
+            throw new IllegalArgumentException("Cannot create an index without ids");
+        }
+        this.ids = lookup.clone();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int id : lookup) {
+            min = Math.min(min, id);
+            max = Math.max(max, id);
+        }
+        final long range = (long) max - min + 1;
+        if (range > MAX_ID_RANGE) {
+            throw new IllegalArgumentException("Id range " + min + "-" + max + " is too sparse for a dense index");
+        }
+        this.minId = min;
+        this.indexById = new int[(int) range];
+        Arrays.fill(indexById, -1);
+        for (int i = 0; i < lookup.length; i++) {
+            if (indexById[lookup[i] - min] != -1) {
+                throw new IllegalArgumentException("Duplicate id " + lookup[i] + " in lookup");
+            }
+            indexById[lookup[i] - min] = i;
+        }
+    }
+
+    /**
+     * Returns the index of the given id or -1 if the id is not part of this index.
+     */
+    public int getIndex(int id) {
+        final int offset = id - minId;
+        if (offset < 0 || offset >= indexById.length) {
+            return -1;
+        }
+        return indexById[offset];
+    }
+
+    /**
+     * Returns the id at the given index.
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Returns a copy of the ids, ordered by their index.
+     */
+    public int[] getIds() {
+        return ids.clone();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+}
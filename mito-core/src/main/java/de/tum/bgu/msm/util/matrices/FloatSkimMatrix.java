@@ -0,0 +1,231 @@
+package de.tum.bgu.msm.util.matrices;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Read-only square zone-to-zone matrix stored with float precision in a single row-major buffer. The buffer
+ * is either a plain float array on the heap, direct (off-heap) memory or a memory-mapped file. Ids are resolved
+ * through a {@link DenseIdIndex}, so a lookup costs two array reads and no hashing.
+ * <p>
+ * As instances cannot be modified once built, they can be shared between threads and between
+ * duplicates of travel time objects without copying.
+ * <p>
+ * The {@link Double#MAX_VALUE} placeholder of unconnected cells does not fit into a float. It is stored as
+ * {@link Float#MAX_VALUE} and read as {@link Double#MAX_VALUE} again, so that lookups return the same values as
+ * double precision skims.
+ */
+public final class FloatSkimMatrix {
+
+    /**
+     * Largest number of zones for which the row-major buffer can still be addressed by an int
+     */
+    public static final int MAX_ZONES = 46_340;
+
+    private final DenseIdIndex index;
+    private final FloatBuffer data;
+    private final int size;
+
+    private FloatSkimMatrix(DenseIdIndex index, FloatBuffer data) {
+        this.index = index;
+        this.size = index.size();
+        if ((long) size * size != data.capacity()) {
+            throw new IllegalArgumentException("Buffer of capacity " + data.capacity()
+                    + " does not fit a matrix of " + size + " x " + size + " zones");
+        }
+        this.data = data.isReadOnly() ? data : data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Wraps an existing row-major buffer (e.g. a memory-mapped file) of index.size() x index.size() values.
+     */
+    public static FloatSkimMatrix wrap(DenseIdIndex index, FloatBuffer data) {
+        return new FloatSkimMatrix(index, data);
+    }
+
+    /**
+     * Creates a builder for a matrix over the given zone ids.
+     * @param lookup the zone ids, in the order of the rows/columns that will be set
+     * @param offHeap whether to allocate the values in direct memory outside of the java heap
+     */
+    public static Builder builder(int[] lookup, boolean offHeap) {
+        return new Builder(new DenseIdIndex(lookup), offHeap);
+    }
+
+    /**
+     * Converts an indexed double matrix into a float matrix using the row lookup of the given matrix.
+     */
+    public static FloatSkimMatrix fromIndexedDoubleMatrix2D(IndexedDoubleMatrix2D matrix, boolean offHeap) {
+        final int[] lookup = matrix.getRowLookupArray();
+        final Builder builder = builder(lookup, offHeap);
+        final double[] row = new double[lookup.length];
+        for (int i = 0; i < lookup.length; i++) {
+            for (int j = 0; j < lookup.length; j++) {
+                row[j] = matrix.getIndexed(lookup[i], lookup[j]);
+            }
+            builder.setRow(i, row, 1.);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the value for the given origin and destination ids.
+     */
+    public double get(int originId, int destinationId) {
+        return widen(data.get(indexOf(index, originId) * size + indexOf(index, destinationId)));
+    }
+
+    /**
+     * Returns the value for the given origin and destination indices as defined by {@link #getIndex()}.
+     */
+    public double getByIndex(int originIndex, int destinationIndex) {
+        return widen(data.get(originIndex * size + destinationIndex));
+    }
+
+    public DenseIdIndex getIndex() {
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the read-only, row-major buffer holding the values of this matrix
+     */
+    public FloatBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * Creates an independent {@link IndexedDoubleMatrix2D} with the values of this matrix, e.g. for writers that
+     * expect colt matrices. This allocates a full double matrix and should not be used in model loops.
+     */
+    public IndexedDoubleMatrix2D toIndexedDoubleMatrix2D() {
+        final int[] lookup = index.getIds();
+        final IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(lookup);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                matrix.setByInternalIndex(i, j, getByIndex(i, j));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Narrows a value to float precision. Finite values beyond the float range, i.e. the {@link Double#MAX_VALUE}
+     * placeholder of unconnected cells, are stored as {@link Float#MAX_VALUE} instead of infinity.
+     */
+    private static float narrow(double value) {
+        if (value > Float.MAX_VALUE && value != Double.POSITIVE_INFINITY) {
+            return Float.MAX_VALUE;
+        }
+        return (float) value;
+    }
+
+    private static double widen(float value) {
+        return value == Float.MAX_VALUE ? Double.MAX_VALUE : value;
+    }
+
+    private static int indexOf(DenseIdIndex index, int id) {
+        final int i = index.getIndex(id);
+        if (i < 0) {
+            throw new IllegalArgumentException("Zone " + id + " is not part of this matrix");
+        }
+        return i;
+    }
+
+    public static final class Builder {
+
+        private final DenseIdIndex index;
+        private final FloatBuffer data;
+        private final int size;
+        private boolean built = false;
+
+        private Builder(DenseIdIndex index, boolean offHeap) {
+            this.index = index;
+            this.size = index.size();
+            if (size > MAX_ZONES) {
+                throw new IllegalArgumentException("Float skim matrices support at most " + MAX_ZONES + " zones");
+            }
+            final int capacity = size * size;
+            if (offHeap) {
+                this.data = ByteBuffer.allocateDirect(capacity * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            } else {
+                this.data = FloatBuffer.wrap(new float[capacity]);
+            }
+        }
+
+        /**
+         * Sets the cells of the given row index to the given values, each multiplied by factor. Rows may be shorter
+         * than the matrix, the remaining cells keep their values.
+         */
+        public Builder setRow(int rowIndex, double[] values, double factor) {
+            checkNotBuilt();
+            checkRowLength(values.length);
+            final int offset = rowIndex * size;
+            for (int j = 0; j < values.length; j++) {
+                data.put(offset + j, narrow(values[j] * factor));
+            }
+            return this;
+        }
+
+        /**
+         * Sets the cells of the given row index to the given values, each multiplied by factor. Rows may be shorter
+         * than the matrix, the remaining cells keep their values.
+         */
+        public Builder setRow(int rowIndex, float[] values, double factor) {
+            checkNotBuilt();
+            checkRowLength(values.length);
+            final int offset = rowIndex * size;
+            if (factor == 1.) {
+                data.put(offset, values, 0, values.length);
+            } else {
+                for (int j = 0; j < values.length; j++) {
+                    data.put(offset + j, narrow(values[j] * factor));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Sets the value for the given origin and destination ids.
+         */
+        public Builder set(int originId, int destinationId, double value) {
+            checkNotBuilt();
+            data.put(indexOf(index, originId) * size + indexOf(index, destinationId), narrow(value));
+            return this;
+        }
+
+        /**
+         * Sets every cell to the given value.
+         */
+        public Builder fill(double value) {
+            checkNotBuilt();
+            final float v = narrow(value);
+            for (int i = 0; i < data.capacity(); i++) {
+                data.put(i, v);
+            }
+            return this;
+        }
+
+        public FloatSkimMatrix build() {
+            checkNotBuilt();
+            built = true;
+            return new FloatSkimMatrix(index, data);
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("Matrix has already been built and is read-only");
+            }
+        }
+
+        private void checkRowLength(int length) {
+            if (length > size) {
+                throw new IllegalArgumentException("Row of " + length + " values does not fit a matrix of " + size + " zones");
+            }
+        }
+    }
+}
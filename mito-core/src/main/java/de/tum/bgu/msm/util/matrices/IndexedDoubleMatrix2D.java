@@ -105,6 +105,28 @@ public class IndexedDoubleMatrix2D {
         delegate.setQuick(externalRowId2InternalIndex.get(i), externalColId2InternalIndex.get(j), val);
     }
 
+    /**
+     * Sets the double value for the given internal row and column indices, bypassing the id lookup. Useful for
+     * bulk copies where the internal indices are known, e.g. when the matrix was created from a lookup array.
+     *
+     * @param rowIndex internal index of the row
+     * @param colIndex internal index of the column
+     * @param val the value to set
+     */
+    public void setByInternalIndex(int rowIndex, int colIndex, double val) {
+        delegate.setQuick(rowIndex, colIndex, val);
+    }
+
+    /**
+     * Gets the double value for the given internal row and column indices, bypassing the id lookup.
+     *
+     * @param rowIndex internal index of the row
+     * @param colIndex internal index of the column
+     */
+    public double getByInternalIndex(int rowIndex, int colIndex) {
+        return delegate.getQuick(rowIndex, colIndex);
+    }
+
     /**
      * Gets the double value for the given indexed ids
      *
@@ -173,6 +195,22 @@ public class IndexedDoubleMatrix2D {
         return lookup;
     }
 
+    /**
+     * Returns the internal row index for the given row id.
+     * @param rowId
+     */
+    public int getInternalRowIndexForId(int rowId) {
+        return this.externalRowId2InternalIndex.get(rowId);
+    }
+
+    /**
+     * Returns the internal column index for the given column id.
+     * @param colId
+     */
+    public int getInternalColumnIndexForId(int colId) {
+        return this.externalColId2InternalIndex.get(colId);
+    }
+
     /**
      * Returns the associated id for the given internal row index.
      * @param rowIndex
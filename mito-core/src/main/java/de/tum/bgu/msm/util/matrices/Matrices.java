@@ -10,6 +10,15 @@ public class Matrices {
 
     private Matrices() {}
 
+    /**
+     * Returns the zone ids of the rows/columns of an omx matrix: the given lookup, or the ids 0 to numberOfRows if
+     * the file has no lookup. The id numberOfRows has no row in the file and is left empty, so that double and float
+     * matrices read from the same file have the same ids.
+     */
+    public static int[] getZoneIds(int[] lookup, int numberOfRows) {
+        return lookup == null ? IntStream.rangeClosed(0, numberOfRows).toArray() : lookup;
+    }
+
     public static IndexedDoubleMatrix2D convertOmxToDoubleMatrix2D(OmxMatrix omxMatrix, OmxLookup lookup, double factor) {
         final OmxHdf5Datatype.OmxJavaType type = omxMatrix.getOmxJavaType();
         if(!type.equals(OmxHdf5Datatype.OmxJavaType.DOUBLE) && !type.equals(OmxHdf5Datatype.OmxJavaType.FLOAT)) {
@@ -17,33 +26,55 @@ public class Matrices {
         }
         final int[] dimensions = omxMatrix.getShape();
 
-        int[] array;
-        if(lookup == null) {
-            array = IntStream.rangeClosed(0, dimensions[0]).toArray();
-        } else {
-            array = (int[]) lookup.getLookup();
-        }
+        final int[] array = getZoneIds(lookup == null ? null : (int[]) lookup.getLookup(), dimensions[0]);
         final IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(array);
 
         if(type.equals(OmxHdf5Datatype.OmxJavaType.DOUBLE)) {
             double[][] dArray = (double[][]) omxMatrix.getData();
             for (int i = 0; i < dimensions[0]; i++) {
-                int rowId = array[i];
+                final double[] row = dArray[i];
                 for (int j = 0; j < dimensions[1]; j++) {
-                    int colId = array[j];
-                    matrix.setIndexed(rowId, colId, dArray[i][j] * factor);
+                    matrix.setByInternalIndex(i, j, row[j] * factor);
                 }
             }
         } else if(type.equals(OmxHdf5Datatype.OmxJavaType.FLOAT)) {
             float[][] fArray = (float[][]) omxMatrix.getData();
             for (int i = 0; i < dimensions[0]; i++) {
-                int rowId = array[i];
+                final float[] row = fArray[i];
                 for (int j = 0; j < dimensions[1]; j++) {
-                    int colId = array[j];
-                    matrix.setIndexed(rowId, colId, fArray[i][j] * factor);
+                    matrix.setByInternalIndex(i, j, row[j] * factor);
                 }
             }
         }
         return matrix;
     }
+
+    /**
+     * Converts an omx matrix row by row into a read-only {@link FloatSkimMatrix} without creating an intermediate
+     * double matrix.
+     * @param offHeap whether to store the values in direct memory outside of the java heap
+     */
+    public static FloatSkimMatrix convertOmxToFloatSkimMatrix(OmxMatrix omxMatrix, OmxLookup lookup, double factor, boolean offHeap) {
+        final OmxHdf5Datatype.OmxJavaType type = omxMatrix.getOmxJavaType();
+        if(!type.equals(OmxHdf5Datatype.OmxJavaType.DOUBLE) && !type.equals(OmxHdf5Datatype.OmxJavaType.FLOAT)) {
+            throw new IllegalArgumentException("Provided omx matrix is not a double or float matrix but is of type: " + type.name());
+        }
+        final int[] dimensions = omxMatrix.getShape();
+
+        final int[] array = getZoneIds(lookup == null ? null : (int[]) lookup.getLookup(), dimensions[0]);
+        final FloatSkimMatrix.Builder builder = FloatSkimMatrix.builder(array, offHeap);
+
+        if(type.equals(OmxHdf5Datatype.OmxJavaType.DOUBLE)) {
+            double[][] dArray = (double[][]) omxMatrix.getData();
+            for (int i = 0; i < dimensions[0]; i++) {
+                builder.setRow(i, dArray[i], factor);
+            }
+        } else {
+            float[][] fArray = (float[][]) omxMatrix.getData();
+            for (int i = 0; i < dimensions[0]; i++) {
+                builder.setRow(i, fArray[i], factor);
+            }
+        }
+        return builder.build();
+    }
 }
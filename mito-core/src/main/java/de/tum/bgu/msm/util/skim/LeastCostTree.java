@@ -0,0 +1,249 @@
+package de.tum.bgu.msm.util.skim;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Least cost path tree from one node to all other nodes of a network. Travel time and distance along the least cost
+ * path are accumulated during the search, so skims are read off the tree per node without constructing paths. As in
+ * the MATSim routers, link costs and travel times are evaluated at the time a path reaches the link.
+ * <p>
+ * The network is copied once into arrays by {@link Graph}, which is shared by all trees. A tree holds the search state
+ * and is reused for consecutive searches; trees are not thread safe.
+ */
+public final class LeastCostTree {
+
+    /**
+     * The nodes and links of a network in arrays, with the outgoing links of each node stored consecutively.
+     */
+    public static final class Graph {
+
+        private final Node[] nodes;
+        private final Map<Node, Integer> indexByNode;
+        private final int[] firstLink;
+        private final Link[] links;
+        private final int[] linkToNode;
+        private final double[] linkLength;
+
+        public Graph(Network network) {
+            nodes = network.getNodes().values().toArray(new Node[0]);
+            indexByNode = new HashMap<>(nodes.length * 2);
+            for (int i = 0; i < nodes.length; i++) {
+                indexByNode.put(nodes[i], i);
+            }
+            firstLink = new int[nodes.length + 1];
+            for (int i = 0; i < nodes.length; i++) {
+                firstLink[i + 1] = firstLink[i] + nodes[i].getOutLinks().size();
+            }
+            links = new Link[firstLink[nodes.length]];
+            linkToNode = new int[links.length];
+            linkLength = new double[links.length];
+            for (int i = 0; i < nodes.length; i++) {
+                int link = firstLink[i];
+                for (Link outLink : nodes[i].getOutLinks().values()) {
+                    links[link] = outLink;
+                    linkToNode[link] = indexByNode.get(outLink.getToNode());
+                    linkLength[link] = outLink.getLength();
+                    link++;
+                }
+            }
+        }
+
+        public int getIndex(Node node) {
+            final Integer index = indexByNode.get(node);
+            if (index == null) {
+                throw new IllegalArgumentException("Node " + node.getId() + " is not part of the network");
+            }
+            return index;
+        }
+
+        public int getNumberOfNodes() {
+            return nodes.length;
+        }
+    }
+
+    private final Graph graph;
+    private final TravelDisutility travelDisutility;
+    private final TravelTime travelTime;
+
+    private final double[] cost;
+    private final double[] time;
+    private final double[] distance;
+    private final int[] searchOfNode;
+    private final boolean[] settled;
+    private final int[] heap;
+    private final int[] heapPosition;
+    private int heapSize;
+    private int search;
+
+    public LeastCostTree(Graph graph, TravelDisutility travelDisutility, TravelTime travelTime) {
+        this.graph = graph;
+        this.travelDisutility = travelDisutility;
+        this.travelTime = travelTime;
+        final int n = graph.getNumberOfNodes();
+        cost = new double[n];
+        time = new double[n];
+        distance = new double[n];
+        searchOfNode = new int[n];
+        settled = new boolean[n];
+        heap = new int[n];
+        heapPosition = new int[n];
+    }
+
+    /**
+     * Builds the tree from the origin node for the given departure time. The search stops once all target nodes are
+     * settled.
+     * @param targets whether a node is a target, by node index
+     * @param numberOfTargets the number of distinct target nodes
+     */
+    public void calculate(int origin, double departureTime, boolean[] targets, int numberOfTargets) {
+        calculate(origin, departureTime, null, null, targets, numberOfTargets);
+    }
+
+    /**
+     * Builds the tree from the origin node for the given departure time, person and vehicle, which are passed on to
+     * the travel disutility and travel time, e.g. for costs that depend on the person. The search stops once all
+     * target nodes are settled.
+     * @param targets whether a node is a target, by node index
+     * @param numberOfTargets the number of distinct target nodes
+     */
+    public void calculate(int origin, double departureTime, Person person, Vehicle vehicle, boolean[] targets,
+                          int numberOfTargets) {
+        search++;
+        heapSize = 0;
+        reach(origin, 0, 0, 0);
+        int remainingTargets = numberOfTargets;
+        while (heapSize > 0 && remainingTargets > 0) {
+            final int node = poll();
+            settled[node] = true;
+            if (targets[node]) {
+                remainingTargets--;
+            }
+            final double currentTime = departureTime + time[node];
+            for (int link = graph.firstLink[node]; link < graph.firstLink[node + 1]; link++) {
+                final int toNode = graph.linkToNode[link];
+                if (searchOfNode[toNode] == search && settled[toNode]) {
+                    continue;
+                }
+                final Link matsimLink = graph.links[link];
+                final double linkCost = travelDisutility.getLinkTravelDisutility(matsimLink, currentTime, person, vehicle);
+                final double newCost = cost[node] + linkCost;
+                if (searchOfNode[toNode] != search || newCost < cost[toNode]) {
+                    final double linkTime = travelTime.getLinkTravelTime(matsimLink, currentTime, person, vehicle);
+                    reach(toNode, newCost, time[node] + linkTime, distance[node] + graph.linkLength[link]);
+                }
+            }
+        }
+        if (remainingTargets > 0) {
+            throw new RuntimeException(remainingTargets + " target nodes cannot be reached from node "
+                    + graph.nodes[origin].getId());
+        }
+    }
+
+    /**
+     * Returns the travel time in seconds from the origin to the given node of the last search.
+     */
+    public double getTime(int node) {
+        return time[node];
+    }
+
+    /**
+     * Returns the distance in meters from the origin to the given node of the last search.
+     */
+    public double getDistance(int node) {
+        return distance[node];
+    }
+
+    /**
+     * Returns the cost from the origin to the given node of the last search.
+     */
+    public double getCost(int node) {
+        return cost[node];
+    }
+
+    private void reach(int node, double newCost, double newTime, double newDistance) {
+        final boolean inHeap = searchOfNode[node] == search;
+        searchOfNode[node] = search;
+        cost[node] = newCost;
+        time[node] = newTime;
+        distance[node] = newDistance;
+        if (!inHeap) {
+            settled[node] = false;
+            heap[heapSize] = node;
+            heapPosition[node] = heapSize;
+            heapSize++;
+        }
+        siftUp(heapPosition[node]);
+    }
+
+    private int poll() {
+        final int node = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPosition[heap[0]] = 0;
+            siftDown(0);
+        }
+        return node;
+    }
+
+    private void siftUp(int position) {
+        final int node = heap[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (cost[heap[parent]] <= cost[node]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapPosition[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        heapPosition[node] = position;
+    }
+
+    private void siftDown(int position) {
+        final int node = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && cost[heap[child + 1]] < cost[heap[child]]) {
+                child++;
+            }
+            if (cost[heap[child]] >= cost[node]) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPosition[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        heapPosition[node] = position;
+    }
+
+    /**
+     * Marks the given nodes as targets and returns the number of distinct targets.
+     */
+    public static int markTargets(int[] nodes, boolean[] targets) {
+        Arrays.fill(targets, false);
+        int count = 0;
+        for (int node : nodes) {
+            if (!targets[node]) {
+                targets[node] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,6 +1,5 @@
 package de.tum.bgu.msm.util.skim;
 
-import com.google.common.collect.Iterables;
 import de.tum.bgu.msm.data.MitoZone;
 import de.tum.bgu.msm.trafficAssignment.CarSkimUpdater;
 import de.tum.bgu.msm.util.MitoUtil;
@@ -9,12 +8,9 @@ import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
-import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.router.*;
-import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.geometry.CoordUtils;
@@ -40,6 +36,34 @@ public class Matsim2Skim {
                                           IndexedDoubleMatrix2D carDistanceMatrix,
                                           double time,
                                           Collection<MitoZone> mitoZones) {
+        calculateMatricesFromMatsim(numberOfCalcPoints, new IndexedDoubleMatrix2D[]{carTravelTimeMatrix},
+                new IndexedDoubleMatrix2D[]{carDistanceMatrix}, new double[]{time}, mitoZones);
+    }
+
+    /**
+     * Calculates travel time and distance matrices for several departure times in one pass. Nodes are assigned to
+     * zones once, and every worker reuses its least cost tree for all departure times of its origins. Travel times
+     * and distances are read off the tree for the calculation points of all destination zones, so more calculation
+     * points per zone only add look ups, not path constructions. The matrices must share the same zone lookup.
+     * @param carTravelTimeMatrices the travel time matrix to fill for each departure time
+     * @param carDistanceMatrices the distance matrix to fill for each departure time
+     * @param times the departure times in seconds after midnight
+     */
+    public void calculateMatricesFromMatsim(int numberOfCalcPoints,
+                                            IndexedDoubleMatrix2D[] carTravelTimeMatrices,
+                                            IndexedDoubleMatrix2D[] carDistanceMatrices,
+                                            double[] times,
+                                            Collection<MitoZone> mitoZones) {
+        if (carTravelTimeMatrices.length != times.length || carDistanceMatrices.length != times.length) {
+            throw new IllegalArgumentException("Need a travel time and a distance matrix for each of the "
+                    + times.length + " departure times");
+        }
+        for (int slice = 0; slice < times.length; slice++) {
+            if (!Arrays.equals(carTravelTimeMatrices[0].getRowLookupArray(), carTravelTimeMatrices[slice].getRowLookupArray())
+                    || !Arrays.equals(carTravelTimeMatrices[0].getRowLookupArray(), carDistanceMatrices[slice].getRowLookupArray())) {
+                throw new IllegalArgumentException("All travel time and distance matrices must have the same zone lookup");
+            }
+        }
         final Map<Integer, List<Node>> nodesByZone = new ConcurrentHashMap<>();
 
         mitoZones.stream().parallel().forEach(mitoZone -> {
@@ -55,56 +79,62 @@ public class Matsim2Skim {
 
         long startTime2 = System.currentTimeMillis();
 
-        final int partitionSize = (int) ((double) mitoZones.size() / Runtime.getRuntime().availableProcessors()) + 1;
+        final LeastCostTree.Graph graph = new LeastCostTree.Graph(network);
+        final List<MitoZone> zones = new ArrayList<>(mitoZones);
+        final int[] originNodes = new int[zones.size()];
+        final int[][] destinationNodes = new int[zones.size()][];
+        final int[] rowIndices = new int[zones.size()];
+        final int[] columnIndices = new int[zones.size()];
+        final int[] allDestinationNodes = new int[zones.size() * numberOfCalcPoints];
+        for (int z = 0; z < zones.size(); z++) {
+            final int zoneId = zones.get(z).getId();
+            final List<Node> nodes = nodesByZone.get(zoneId);
+            destinationNodes[z] = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                destinationNodes[z][i] = graph.getIndex(nodes.get(i));
+                allDestinationNodes[z * numberOfCalcPoints + i] = destinationNodes[z][i];
+            }
+            originNodes[z] = destinationNodes[z][0];
+            rowIndices[z] = carTravelTimeMatrices[0].getInternalRowIndexForId(zoneId);
+            columnIndices[z] = carTravelTimeMatrices[0].getInternalColumnIndexForId(zoneId);
+        }
+
+        final int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
         logger.info("Intended size of all of partititons = " + partitionSize);
-        Iterable<List<MitoZone>> partitions = Iterables.partition(mitoZones, partitionSize);
-        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(Runtime.getRuntime().availableProcessors());
+        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
 
-        for (final List<MitoZone> partition : partitions) {
-            logger.info("Size of partititon = " + partition.size());
+        for (int partitionStart = 0; partitionStart < zones.size(); partitionStart += partitionSize) {
+            final int from = partitionStart;
+            final int to = Math.min(zones.size(), partitionStart + partitionSize);
+            logger.info("Size of partititon = " + (to - from));
 
             executor.addTaskToQueue(() -> {
                 try {
-                    MultiNodePathCalculator calculator
-                            = (MultiNodePathCalculator) new FastMultiNodeDijkstraFactory(true).createPathCalculator(network, travelDisutility, travelTime);
-
-                    Set<InitialNode> toNodes = new HashSet<>();
-                    for (MitoZone zone : mitoZones) {
-                        // Several points in a given origin zone
-                        for (int i = 0; i < numberOfCalcPoints; i++) {
-                            Node originNode = nodesByZone.get(zone.getId()).get(i);
-                            toNodes.add(new InitialNode(originNode, 0., 0.));
-                        }
-                    }
-
-                    ImaginaryNode aggregatedToNodes = MultiNodeDijkstra.createImaginaryNode(toNodes);
-
-                    for (MitoZone origin : partition) {
-                        Node node = nodesByZone.get(origin.getId()).get(0);
-                        calculator.calcLeastCostPath(node, aggregatedToNodes, time, null, null);
-                        for (MitoZone destination : mitoZones) {
-
-                            double meanTravelTime = 0;
-                            double meanDistance = 0;
-                            List<Node> nodes = nodesByZone.get(destination.getId());
-                            for (Node n : nodes) {
-                                LeastCostPathCalculator.Path path = calculator.constructPath(node, n, time);
-
-                                //convert to minutes
-                                double travelTime = path.travelTime / 60.;
-                                double distance = 0.;
-                                for (Link link : path.links) {
-                                    distance += link.getLength();
+                    final LeastCostTree tree = new LeastCostTree(graph, travelDisutility, travelTime);
+                    final boolean[] targets = new boolean[graph.getNumberOfNodes()];
+                    final int numberOfTargets = LeastCostTree.markTargets(allDestinationNodes, targets);
+
+                    for (int origin = from; origin < to; origin++) {
+                        for (int slice = 0; slice < times.length; slice++) {
+                            tree.calculate(originNodes[origin], times[slice], targets, numberOfTargets);
+                            final IndexedDoubleMatrix2D travelTimeMatrix = carTravelTimeMatrices[slice];
+                            final IndexedDoubleMatrix2D distanceMatrix = carDistanceMatrices[slice];
+                            for (int destination = 0; destination < zones.size(); destination++) {
+                                double meanTravelTime = 0;
+                                double meanDistance = 0;
+                                final int[] nodes = destinationNodes[destination];
+                                for (int node : nodes) {
+                                    meanTravelTime += tree.getTime(node);
+                                    meanDistance += tree.getDistance(node);
                                 }
-                                meanTravelTime += travelTime;
-                                meanDistance += distance;
-                            }
-
-                            meanTravelTime /= nodes.size();
-                            meanDistance /= nodes.size();
+                                //convert to minutes and kilometers
+                                meanTravelTime = meanTravelTime / nodes.length / 60.;
+                                meanDistance = meanDistance / nodes.length / 1000.;
 
-                            carTravelTimeMatrix.setIndexed(origin.getId(), destination.getId(), meanTravelTime);
-                            carDistanceMatrix.setIndexed(origin.getId(), destination.getId(), meanDistance / 1000.);
+                                travelTimeMatrix.setByInternalIndex(rowIndices[origin], columnIndices[destination], meanTravelTime);
+                                distanceMatrix.setByInternalIndex(rowIndices[origin], columnIndices[destination], meanDistance);
+                            }
                         }
                     }
                 } catch (Exception e) {
@@ -117,17 +147,22 @@ public class Matsim2Skim {
         executor.execute();
 
         long runtime2 = (System.currentTimeMillis() - startTime2) / 1000;
-        logger.info("Completed car matrix update in " + runtime2 + " seconds(dvrp methods)");
+        logger.info("Completed car matrix update for " + times.length + " departure times in " + runtime2 + " seconds");
 
 
-        assignIntrazonals(carTravelTimeMatrix, carDistanceMatrix,5, 10, 0.33f);
+        for (int slice = 0; slice < times.length; slice++) {
+            assignIntrazonals(carTravelTimeMatrices[slice], carDistanceMatrices[slice], 5, 10, 0.33f);
+        }
     }
 
+    /**
+     * Fills cells without travel time with a share of the mean time to the nearest neighbours. Works on internal
+     * indices, since both matrices have the same zone lookup for rows and columns.
+     */
     private void assignIntrazonals(IndexedDoubleMatrix2D travelTimeMatrix, IndexedDoubleMatrix2D distanceMatrix,
                                    int numberOfNeighbours, float maximumMinutes, float proportionOfTime) {
         int nonIntrazonalCounter = 0;
         for (int i = 1; i < travelTimeMatrix.columns(); i++) {
-            int i_id = travelTimeMatrix.getIdForInternalColumnIndex(i);
             double[] minTimeValues = new double[numberOfNeighbours];
             double[] minDistValues = new double[numberOfNeighbours];
             for (int k = 0; k < numberOfNeighbours; k++) {
@@ -136,17 +171,17 @@ public class Matsim2Skim {
             }
             //find the  n closest neighbors - the lower travel time values in the matrix column
             for (int j = 1; j < travelTimeMatrix.rows(); j++) {
-                int j_id = travelTimeMatrix.getIdForInternalRowIndex(j);
+                final double travelTime = travelTimeMatrix.getByInternalIndex(i, j);
                 int minimumPosition = 0;
                 while (minimumPosition < numberOfNeighbours) {
-                    if (minTimeValues[minimumPosition] > travelTimeMatrix.getIndexed(i_id, j_id) && travelTimeMatrix.getIndexed(i_id, j_id) != 0) {
+                    if (minTimeValues[minimumPosition] > travelTime && travelTime != 0) {
                         for (int k = numberOfNeighbours - 1; k > minimumPosition; k--) {
                             minTimeValues[k] = minTimeValues[k - 1];
                             minDistValues[k] = minDistValues[k - 1];
 
                         }
-                        minTimeValues[minimumPosition] = travelTimeMatrix.getIndexed(i_id, j_id);
-                        minDistValues[minimumPosition] = distanceMatrix.getIndexed(i_id, j_id);
+                        minTimeValues[minimumPosition] = travelTime;
+                        minDistValues[minimumPosition] = distanceMatrix.getByInternalIndex(i, j);
 
                         break;
                     }
@@ -164,10 +199,9 @@ public class Matsim2Skim {
 
             //fill with the calculated value the cells with zero
             for (int j = 1; j < travelTimeMatrix.rows(); j++) {
-                int j_id = travelTimeMatrix.getIdForInternalColumnIndex(j);
-                if (travelTimeMatrix.getIndexed(i_id, j_id) == 0) {
-                    travelTimeMatrix.setIndexed(i_id, j_id, globalMinTime);
-                    distanceMatrix.setIndexed(i, j, globalMinDist);
+                if (travelTimeMatrix.getByInternalIndex(i, j) == 0) {
+                    travelTimeMatrix.setByInternalIndex(i, j, globalMinTime);
+                    distanceMatrix.setByInternalIndex(i, j, globalMinDist);
                     if (i != j) {
                         nonIntrazonalCounter++;
                     }
@@ -0,0 +1,40 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.util.AliasTable;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class AliasTableTest {
+
+    @Test
+    public final void testSampleProportionalToWeights() {
+        double[] weights = {0., 1., 2., 0., 7., 0.};
+        AliasTable table = AliasTable.of(weights);
+        Random random = new Random(42);
+
+        int draws = 1000000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[3]);
+        assertEquals(0, counts[5]);
+        assertEquals(0.1, (double) counts[1] / draws, 0.005);
+        assertEquals(0.2, (double) counts[2] / draws, 0.005);
+        assertEquals(0.7, (double) counts[4] / draws, 0.005);
+    }
+
+    @Test
+    public final void testZeroWeightsSelectLastIndex() {
+        AliasTable table = AliasTable.of(new double[]{0., 0., 0.});
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2, table.sample(random));
+        }
+    }
+}
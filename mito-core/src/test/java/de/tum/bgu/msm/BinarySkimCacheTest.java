@@ -0,0 +1,150 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.util.matrices.BinarySkimCache;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class BinarySkimCacheTest {
+
+    private static final int[] ZONES = {10, 20, 30};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Supplier<FloatSkimMatrix> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            final FloatSkimMatrix.Builder builder = FloatSkimMatrix.builder(ZONES, false);
+            for (int origin : ZONES) {
+                for (int destination : ZONES) {
+                    builder.set(origin, destination, origin + destination / 100.);
+                }
+            }
+            return builder.build();
+        };
+    }
+
+    private Path source() throws IOException {
+        final Path source = folder.newFile("skim.omx").toPath();
+        Files.write(source, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        return source;
+    }
+
+    private Path cacheFile(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".skim")).findFirst().orElseThrow(IllegalStateException::new);
+        }
+    }
+
+    private static void assertSkim(FloatSkimMatrix matrix) {
+        for (int origin : ZONES) {
+            for (int destination : ZONES) {
+                assertEquals(origin + destination / 100., matrix.get(origin, destination), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public final void testCachedSkimIsMappedOnLaterRuns() throws IOException {
+        final Path source = source();
+        final BinarySkimCache cache = new BinarySkimCache(folder.newFolder("cache").toPath());
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(1, loads.get());
+
+        // another factor is another cache file
+        cache.getOrCreate(source.toString(), "time", 2., loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public final void testSourcesWithSameFileNameHaveSeparateCaches() throws IOException {
+        final Path source = source();
+        final Path other = folder.newFolder("other").toPath().resolve(source.getFileName());
+        Files.write(other, new byte[]{8, 7, 6, 5, 4, 3, 2, 1});
+        final Path directory = folder.newFolder("cache").toPath();
+        final BinarySkimCache cache = new BinarySkimCache(directory);
+        for (int i = 0; i < 2; i++) {
+            assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+            assertSkim(cache.getOrCreate(other.toString(), "time", 1., loader()));
+        }
+        assertEquals(2, loads.get());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public final void testTouchedSourceUpdatesModificationTime() throws IOException {
+        final Path source = source();
+        final Path directory = folder.newFolder("cache").toPath();
+        final BinarySkimCache cache = new BinarySkimCache(directory);
+        cache.getOrCreate(source.toString(), "time", 1., loader());
+
+        final long touched = Files.getLastModifiedTime(source).toMillis() + 60_000;
+        Files.setLastModifiedTime(source, FileTime.fromMillis(touched));
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(1, loads.get());
+
+        // the modification time follows magic (8 bytes), version (4 bytes) and source size (8 bytes)
+        final ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(cacheFile(directory))).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(touched, header.getLong(20));
+    }
+
+    @Test
+    public final void testChangedSourceRebuildsCache() throws IOException {
+        final Path source = source();
+        final BinarySkimCache cache = new BinarySkimCache(folder.newFolder("cache").toPath());
+        cache.getOrCreate(source.toString(), "time", 1., loader());
+
+        Files.write(source, new byte[]{8, 7, 6, 5, 4, 3, 2, 1});
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 60_000));
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public final void testCorruptCacheIsRebuilt() throws IOException {
+        final Path source = source();
+        final Path directory = folder.newFolder("cache").toPath();
+        final BinarySkimCache cache = new BinarySkimCache(directory);
+        cache.getOrCreate(source.toString(), "time", 1., loader());
+        final Path cacheFile = cacheFile(directory);
+
+        // a huge name length after magic, version, source size, modified, checksum and factor
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile.toFile(), "rw")) {
+            file.seek(44);
+            file.writeInt(Integer.reverseBytes(0x7FFFFFF0));
+        }
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(2, loads.get());
+
+        // a cache file cut off within the zone lookup
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile.toFile(), "rw")) {
+            file.setLength(60);
+        }
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(3, loads.get());
+
+        // the rebuilt cache file is valid again
+        assertSkim(cache.getOrCreate(source.toString(), "time", 1., loader()));
+        assertEquals(3, loads.get());
+    }
+}
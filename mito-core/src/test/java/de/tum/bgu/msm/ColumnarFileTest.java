@@ -0,0 +1,76 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.io.input.ColumnarFileReader;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.Encoding;
+import de.tum.bgu.msm.io.output.ColumnarFileWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class ColumnarFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public final void testColumnsAreReadAsWritten() {
+        final String file = new File(folder.getRoot(), "trips.mcol").getAbsolutePath();
+        final String[] modes = {"autoDriver", "walk", "bus"};
+        final int rows = 2500;
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file, 1000)) {
+            final int id = writer.addColumn("id", ColumnType.INT, Encoding.DELTA);
+            final int person = writer.addColumn("person", ColumnType.LONG, Encoding.PLAIN);
+            final int distance = writer.addColumn("distance", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int mode = writer.addColumn("mode", ColumnType.STRING, Encoding.DICTIONARY);
+            for (int i = 0; i < rows; i++) {
+                writer.setInt(id, 3 * i).setDouble(distance, i % 10 == 0 ? Double.NaN : i / 4.);
+                if (i % 7 != 0) {
+                    writer.setLong(person, Long.MAX_VALUE - i);
+                }
+                writer.setString(mode, i % 5 == 0 ? null : modes[i % modes.length]).endRow();
+            }
+        }
+
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            assertEquals(rows, reader.getNumberOfRows());
+            assertEquals(3, reader.getNumberOfRowGroups());
+            assertEquals(500, reader.getRowGroupSize(2));
+            assertEquals(ColumnType.STRING, reader.getColumnType("mode"));
+
+            final int[] ids = reader.readInts("id", -1);
+            final long[] persons = reader.readLongs("person", -1);
+            final double[] distances = reader.readDoubles("distance");
+            final String[] readModes = reader.readStrings("mode");
+            for (int i = 0; i < rows; i++) {
+                assertEquals(3 * i, ids[i]);
+                assertEquals(i % 7 == 0 ? -1 : Long.MAX_VALUE - i, persons[i]);
+                assertEquals(i % 10 == 0 ? Double.NaN : i / 4., distances[i], 0.);
+                assertEquals(i % 5 == 0 ? null : modes[i % modes.length], readModes[i]);
+            }
+
+            final ColumnarFileReader.ColumnStatistics idStatistics = reader.getStatistics(1, "id");
+            assertEquals(0, idStatistics.getNullCount());
+            assertEquals(3000., idStatistics.getMin(), 0.);
+            assertEquals(5997., idStatistics.getMax(), 0.);
+            assertEquals(5997, idStatistics.getLongMax());
+            final ColumnarFileReader.ColumnStatistics personStatistics = reader.getStatistics(0, "person");
+            assertEquals(Long.MAX_VALUE - 999, personStatistics.getLongMin());
+            assertEquals(Long.MAX_VALUE - 1, personStatistics.getLongMax());
+            assertEquals(3, reader.getStatistics(0, "mode").getDistinctValues());
+            assertEquals(200, reader.getStatistics(0, "mode").getNullCount());
+            assertTrue(reader.readNulls("distance", 0)[10]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnsupportedEncodingIsRejected() {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(new File(folder.getRoot(), "test.mcol").getAbsolutePath())) {
+            writer.addColumn("mode", ColumnType.STRING, Encoding.DELTA);
+        }
+    }
+}
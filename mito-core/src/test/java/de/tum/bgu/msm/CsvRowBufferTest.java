@@ -0,0 +1,30 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.io.output.CsvRowBuffer;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvRowBufferTest {
+
+    @Test
+    public final void testNumbersAreFormattedAsByPrintWriter() {
+        double[] doubles = {0., -0., 1., -1., 9999999., 1e7, -1e7, 12345678., Double.NaN,
+                Double.POSITIVE_INFINITY, 1e-4, 0.1, 123.456, -5.5, Long.MAX_VALUE, Long.MIN_VALUE, Double.MIN_VALUE};
+        Random random = new Random(42);
+        CsvRowBuffer row = new CsvRowBuffer(16);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            double value = i < doubles.length ? doubles[i] : i % 2 == 0 ? Math.rint(random.nextGaussian() * 1e6) : random.nextGaussian() * 1e3;
+            long longValue = random.nextLong();
+            int intValue = random.nextInt();
+            row.append(value).separator().append(longValue).separator().append(intValue).endRow();
+            expected.append(value).append(',').append(longValue).append(',').append(intValue).append(System.lineSeparator());
+        }
+        row.append(Long.MIN_VALUE).append(Integer.MIN_VALUE).append(true).append((Object) null).append("äx");
+        expected.append(Long.MIN_VALUE).append(Integer.MIN_VALUE).append(true).append("null").append("äx");
+        assertEquals(expected.toString(), row.toString());
+    }
+}
@@ -0,0 +1,36 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.util.CumulativeTable;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CumulativeTableTest {
+
+    @Test
+    public final void testSameDrawsAsLinearSelect() {
+        Random weightRandom = new Random(1);
+        double[] weights = new double[24 * 60 + 1];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = weightRandom.nextDouble() < 0.3 ? 0. : weightRandom.nextDouble() * 1e-3;
+        }
+        CumulativeTable table = CumulativeTable.of(weights);
+        Random linear = new Random(42);
+        Random binary = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(MitoUtil.select(weights, linear), table.sample(binary));
+        }
+    }
+
+    @Test
+    public final void testZeroWeightsSelectLastIndex() {
+        CumulativeTable table = CumulativeTable.of(new double[]{0., 0., 0.});
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2, table.sample(random));
+        }
+    }
+}
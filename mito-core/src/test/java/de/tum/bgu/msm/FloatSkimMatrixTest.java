@@ -0,0 +1,137 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.util.matrices.DenseIdIndex;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import de.tum.bgu.msm.util.matrices.Matrices;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FloatSkimMatrixTest {
+
+    @Test
+    public final void testDenseIdIndex() {
+        final DenseIdIndex index = new DenseIdIndex(new int[]{500010, 500002, 500007});
+        assertEquals(3, index.size());
+        assertEquals(0, index.getIndex(500010));
+        assertEquals(1, index.getIndex(500002));
+        assertEquals(2, index.getIndex(500007));
+        assertEquals(-1, index.getIndex(500003));
+        assertEquals(-1, index.getIndex(500001));
+        assertEquals(-1, index.getIndex(500011));
+        assertEquals(500007, index.getId(2));
+        assertArrayEquals(new int[]{500010, 500002, 500007}, index.getIds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testDuplicateIdIsRejected() {
+        new DenseIdIndex(new int[]{1, 2, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testSparseIdsAreRejected() {
+        new DenseIdIndex(new int[]{1, 999_999_999});
+    }
+
+    @Test
+    public final void testValuesAreReadAsSet() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            final FloatSkimMatrix matrix = FloatSkimMatrix.builder(new int[]{30, 10, 20}, offHeap)
+                    .fill(5.)
+                    .setRow(1, new double[]{1., 2., 3.}, 60.)
+                    .set(20, 30, 7.25)
+                    .build();
+            assertEquals(3, matrix.size());
+            assertEquals(5., matrix.get(30, 30), 0.);
+            assertEquals(60., matrix.get(10, 30), 0.);
+            assertEquals(180., matrix.get(10, 20), 0.);
+            assertEquals(7.25, matrix.get(20, 30), 0.);
+            assertEquals(7.25, matrix.getByIndex(2, 0), 0.);
+            assertTrue(matrix.getData().isReadOnly());
+        }
+    }
+
+    @Test
+    public final void testConversionFromAndToIndexedMatrix() {
+        final IndexedDoubleMatrix2D indexed = new IndexedDoubleMatrix2D(new int[]{4, 8});
+        indexed.setIndexed(4, 4, 1.5);
+        indexed.setIndexed(4, 8, Double.MAX_VALUE);
+        indexed.setIndexed(8, 4, 0.1);
+        indexed.setIndexed(8, 8, 2.);
+
+        final FloatSkimMatrix matrix = FloatSkimMatrix.fromIndexedDoubleMatrix2D(indexed, false);
+        assertEquals(1.5, matrix.get(4, 4), 0.);
+        assertEquals(Double.MAX_VALUE, matrix.get(4, 8), 0.);
+        assertEquals(0.1, matrix.get(8, 4), 1e-7);
+
+        final IndexedDoubleMatrix2D converted = matrix.toIndexedDoubleMatrix2D();
+        assertEquals(Double.MAX_VALUE, converted.getIndexed(4, 8), 0.);
+        assertEquals(2., converted.getIndexed(8, 8), 0.);
+    }
+
+    @Test
+    public final void testZoneIdsWithoutLookupMatchDoubleMatrix() {
+        // omx files without a lookup have the ids 0 to the number of rows, the last id has no row in the file
+        final int[] ids = Matrices.getZoneIds(null, 2);
+        assertArrayEquals(new int[]{0, 1, 2}, ids);
+        final float[][] rows = {{1.f, 2.f}, {3.f, 4.f}};
+        final IndexedDoubleMatrix2D indexed = new IndexedDoubleMatrix2D(ids);
+        final FloatSkimMatrix.Builder builder = FloatSkimMatrix.builder(ids, false);
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length; j++) {
+                indexed.setByInternalIndex(i, j, rows[i][j] * 2.);
+            }
+            builder.setRow(i, rows[i], 2.);
+        }
+        final FloatSkimMatrix matrix = builder.build();
+        for (int origin : ids) {
+            for (int destination : ids) {
+                assertEquals(indexed.getIndexed(origin, destination), matrix.get(origin, destination), 0.);
+            }
+        }
+        assertEquals(8., matrix.get(1, 1), 0.);
+        assertEquals(0., matrix.get(2, 0), 0.);
+    }
+
+    @Test
+    public final void testUnconnectedCellsAreReadAsDoubleMaxValue() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            final FloatSkimMatrix matrix = FloatSkimMatrix.builder(new int[]{1, 2}, offHeap)
+                    .fill(Double.MAX_VALUE)
+                    .set(1, 1, 0.)
+                    .setRow(1, new double[]{Double.MAX_VALUE, 4.}, 1.)
+                    .build();
+            assertEquals(Double.MAX_VALUE, matrix.get(1, 2), 0.);
+            assertEquals(Double.MAX_VALUE, matrix.get(2, 1), 0.);
+            assertEquals(Double.MAX_VALUE, matrix.getByIndex(0, 1), 0.);
+            assertEquals(Float.MAX_VALUE, matrix.getData().get(1), 0.f);
+            assertEquals(4., matrix.get(2, 2), 0.);
+            // a zero coefficient times an unconnected travel time must not give NaN
+            assertEquals(0., 0. * matrix.get(1, 2), 0.);
+            assertEquals(0., matrix.get(1, 2) - matrix.get(2, 1), 0.);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownDestinationIsRejectedByBuilder() {
+        FloatSkimMatrix.builder(new int[]{1, 2}, false).set(2, 3, 1.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testRowLongerThanMatrixIsRejected() {
+        FloatSkimMatrix.builder(new int[]{1, 2}, false).setRow(0, new double[]{1., 2., 3.}, 1.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownZoneIsRejected() {
+        FloatSkimMatrix.builder(new int[]{1, 2}, false).build().get(1, 3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public final void testBuiltMatrixCannotBeChanged() {
+        final FloatSkimMatrix.Builder builder = FloatSkimMatrix.builder(new int[]{1, 2}, false);
+        builder.build();
+        builder.set(1, 2, 3.);
+    }
+}
@@ -0,0 +1,131 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.util.skim.LeastCostTree;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import static org.junit.Assert.assertEquals;
+
+public class LeastCostTreeTest {
+
+    private static final TravelTime TRAVEL_TIME = (link, time, person, vehicle) -> link.getLength() / link.getFreespeed();
+
+    /**
+     * Links with a capacity below 1000 cost three times their travel time, so least cost paths are not the fastest.
+     */
+    private static final TravelDisutility TRAVEL_DISUTILITY = new TravelDisutility() {
+        @Override
+        public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+            final double travelTime = TRAVEL_TIME.getLinkTravelTime(link, time, person, vehicle);
+            return link.getCapacity() < 1000 ? 3 * travelTime : travelTime;
+        }
+
+        @Override
+        public double getLinkMinimumTravelDisutility(Link link) {
+            return link.getLength() / link.getFreespeed();
+        }
+    };
+
+    private static Network network() {
+        final Network network = NetworkUtils.createNetwork();
+        final String[] nodes = {"a", "b", "c", "d", "e", "f", "unreachable"};
+        for (int i = 0; i < nodes.length; i++) {
+            NetworkUtils.createAndAddNode(network, Id.createNodeId(nodes[i]), new Coord(100 * i, 100 * (i % 2)));
+        }
+        link(network, "a", "b", 100, 1000);
+        link(network, "b", "a", 100, 1000);
+        link(network, "a", "c", 300, 500);
+        link(network, "b", "c", 400, 1000);
+        link(network, "c", "d", 100, 1000);
+        link(network, "b", "d", 250, 500);
+        link(network, "d", "e", 200, 1000);
+        link(network, "c", "e", 500, 1000);
+        link(network, "e", "f", 100, 500);
+        link(network, "d", "f", 400, 1000);
+        link(network, "f", "a", 600, 1000);
+        link(network, "unreachable", "a", 100, 1000);
+        return network;
+    }
+
+    private static void link(Network network, String from, String to, double length, double capacity) {
+        NetworkUtils.createAndAddLink(network, Id.createLinkId(from + to), network.getNodes().get(Id.createNodeId(from)),
+                network.getNodes().get(Id.createNodeId(to)), length, 10., capacity, 1.);
+    }
+
+    private static Node node(Network network, String id) {
+        return network.getNodes().get(Id.createNodeId(id));
+    }
+
+    @Test
+    public final void testTreeMatchesDijkstraWithSharedTargets() {
+        final Network network = network();
+        final LeastCostTree.Graph graph = new LeastCostTree.Graph(network);
+        final LeastCostTree tree = new LeastCostTree(graph, TRAVEL_DISUTILITY, TRAVEL_TIME);
+        final LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, TRAVEL_DISUTILITY, TRAVEL_TIME);
+
+        final String[] zoneNodes = {"b", "d", "d", "e", "f", "f", "a"};
+        final int[] targetIndices = new int[zoneNodes.length];
+        for (int i = 0; i < zoneNodes.length; i++) {
+            targetIndices[i] = graph.getIndex(node(network, zoneNodes[i]));
+        }
+        final boolean[] targets = new boolean[graph.getNumberOfNodes()];
+        assertEquals(5, LeastCostTree.markTargets(targetIndices, targets));
+
+        for (String origin : new String[]{"a", "b", "c"}) {
+            tree.calculate(graph.getIndex(node(network, origin)), 0., targets, 5);
+            for (int i = 0; i < zoneNodes.length; i++) {
+                if (zoneNodes[i].equals(origin)) {
+                    assertEquals(0., tree.getCost(targetIndices[i]), 0.);
+                    continue;
+                }
+                final LeastCostPathCalculator.Path path = dijkstra.calcLeastCostPath(node(network, origin),
+                        node(network, zoneNodes[i]), 0., null, null);
+                double distance = 0;
+                for (Link link : path.links) {
+                    distance += link.getLength();
+                }
+                assertEquals(path.travelCost, tree.getCost(targetIndices[i]), 1e-9);
+                assertEquals(path.travelTime, tree.getTime(targetIndices[i]), 1e-9);
+                assertEquals(distance, tree.getDistance(targetIndices[i]), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public final void testLeastCostPathIsNotTheFastest() {
+        final Network network = network();
+        final LeastCostTree.Graph graph = new LeastCostTree.Graph(network);
+        final LeastCostTree tree = new LeastCostTree(graph, TRAVEL_DISUTILITY, TRAVEL_TIME);
+        final int d = graph.getIndex(node(network, "d"));
+        final boolean[] targets = new boolean[graph.getNumberOfNodes()];
+        LeastCostTree.markTargets(new int[]{d}, targets);
+
+        tree.calculate(graph.getIndex(node(network, "a")), 0., targets, 1);
+        // a-b-d takes 35 seconds but costs 85, while a-b-c-d takes 60 seconds and costs 60
+        assertEquals(60., tree.getCost(d), 1e-9);
+        assertEquals(60., tree.getTime(d), 1e-9);
+        assertEquals(600., tree.getDistance(d), 1e-9);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testUnreachableTargetIsRejected() {
+        final Network network = network();
+        final LeastCostTree.Graph graph = new LeastCostTree.Graph(network);
+        final LeastCostTree tree = new LeastCostTree(graph, TRAVEL_DISUTILITY, TRAVEL_TIME);
+        final boolean[] targets = new boolean[graph.getNumberOfNodes()];
+        final int numberOfTargets = LeastCostTree.markTargets(new int[]{graph.getIndex(node(network, "e")),
+                graph.getIndex(node(network, "unreachable"))}, targets);
+        tree.calculate(graph.getIndex(node(network, "a")), 0., targets, numberOfTargets);
+    }
+}
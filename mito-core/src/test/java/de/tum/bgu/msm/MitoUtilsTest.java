@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class MitoUtilsTest {
 
@@ -59,4 +60,11 @@ public class MitoUtilsTest {
 
         assertEquals(4, (int) MitoUtil.select(mappedProbabilities));
     }
+
+    @Test
+    public final void testDeriveSeed() {
+        assertEquals(42L, MitoUtil.deriveSeed(42L, 0));
+        assertNotEquals(MitoUtil.deriveSeed(42L, 1), MitoUtil.deriveSeed(42L, 2));
+        assertNotEquals(43L, MitoUtil.deriveSeed(42L, 1));
+    }
 }
@@ -0,0 +1,56 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.modules.modeChoice.ModeCoefficients;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ModeCoefficientsTest {
+
+    private static Map<Mode, Map<String, Double>> coefficients() {
+        final Map<Mode, Map<String, Double>> coefficients = new EnumMap<>(Mode.class);
+        coefficients.put(Mode.autoDriver, new HashMap<>());
+        coefficients.get(Mode.autoDriver).put("asc", 1.);
+        coefficients.get(Mode.autoDriver).put("female", -0.5);
+        coefficients.put(Mode.walk, new HashMap<>());
+        coefficients.get(Mode.walk).put("asc", 2.);
+        coefficients.get(Mode.walk).put("female", 0.25);
+        return coefficients;
+    }
+
+    @Test
+    public void testCoefficientsAreLookedUpBySlot() {
+        final ModeCoefficients compiled = ModeCoefficients.compile(Purpose.HBW, coefficients(), "female", "asc");
+        final int female = compiled.slot("female");
+        assertEquals(0, female);
+        assertEquals(-0.5, compiled.get(Mode.autoDriver, female), 0.);
+        assertEquals(2., compiled.forMode(Mode.walk)[compiled.slot("asc")], 0.);
+        assertTrue(compiled.contains(Mode.walk));
+        assertFalse(compiled.contains(Mode.bus));
+    }
+
+    @Test
+    public void testMissingCoefficientIsNamed() {
+        final Map<Mode, Map<String, Double>> coefficients = coefficients();
+        coefficients.get(Mode.walk).remove("female");
+        try {
+            ModeCoefficients.compile(Purpose.HBS, coefficients, "asc", "female");
+            fail("Compiled coefficients without female for walk");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("female"));
+            assertTrue(e.getMessage(), e.getMessage().contains("walk"));
+            assertTrue(e.getMessage(), e.getMessage().contains("HBS"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVariableThatWasNotCompiledIsRejected() {
+        ModeCoefficients.compile(Purpose.HBW, coefficients(), "asc").slot("female");
+    }
+}
@@ -0,0 +1,136 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.io.input.AbstractOmxReader;
+import de.tum.bgu.msm.io.input.OmxSkimBatchReader;
+import de.tum.bgu.msm.io.output.OmxMatrixWriter;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.matrices.FloatSkimMatrix;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class OmxSkimBatchReaderTest {
+
+    /**
+     * More zones than rows per conversion block, so matrices are converted in several blocks.
+     */
+    private static final int ZONES = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Resources previous = Resources.instance;
+
+    @After
+    public void restoreResources() {
+        Resources.instance = previous;
+    }
+
+    private static int[] zoneIds() {
+        final int[] ids = new int[ZONES];
+        for (int i = 0; i < ZONES; i++) {
+            ids[i] = 1000 + 3 * (ZONES - i);
+        }
+        return ids;
+    }
+
+    private String writeSkims(String fileName, String... matrixNames) {
+        final String file = new File(folder.getRoot(), fileName).getAbsolutePath();
+        OmxMatrixWriter.createOmxFile(file, ZONES);
+        final int[] ids = zoneIds();
+        for (int m = 0; m < matrixNames.length; m++) {
+            final IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(ids);
+            for (int i = 0; i < ZONES; i++) {
+                for (int j = 0; j < ZONES; j++) {
+                    matrix.setIndexed(ids[i], ids[j], m + i + j / 1000.);
+                }
+            }
+            OmxMatrixWriter.createOmxSkimMatrix(matrix, file, matrixNames[m]);
+        }
+        return file;
+    }
+
+    @Test
+    public final void testBatchMatchesSingleReads() {
+        final String car = writeSkims("car.omx", "time", "distance");
+        final String pt = writeSkims("pt.omx", "bus");
+        final OmxSkimBatchReader reader = new OmxSkimBatchReader(3)
+                .add("car", car, "time", 1 / 60.)
+                .add("bus", pt, "bus", 1.)
+                .add("carDistance", car, "distance", 1000.);
+        assertEquals(3, reader.size());
+
+        final Map<String, IndexedDoubleMatrix2D> doubles = reader.readDoubleMatrices();
+        final Map<String, FloatSkimMatrix> floats = reader.readFloatMatrices(true);
+        // matrices are returned in the order of request per file
+        assertEquals(Arrays.asList("car", "carDistance", "bus"), new ArrayList<>(doubles.keySet()));
+        assertEquals(Arrays.asList("car", "carDistance", "bus"), new ArrayList<>(floats.keySet()));
+
+        assertSameSkim(AbstractOmxReader.readAndConvertToDoubleMatrix(car, "time", 1 / 60.), doubles.get("car"), floats.get("car"));
+        assertSameSkim(AbstractOmxReader.readAndConvertToDoubleMatrix(car, "distance", 1000.), doubles.get("carDistance"), floats.get("carDistance"));
+        assertSameSkim(AbstractOmxReader.readAndConvertToDoubleMatrix(pt, "bus", 1.), doubles.get("bus"), floats.get("bus"));
+    }
+
+    private static void assertSameSkim(IndexedDoubleMatrix2D expected, IndexedDoubleMatrix2D actual, FloatSkimMatrix actualFloat) {
+        for (int origin : zoneIds()) {
+            for (int destination : zoneIds()) {
+                final double value = expected.getIndexed(origin, destination);
+                assertEquals(value, actual.getIndexed(origin, destination), 0.);
+                assertEquals(value, actualFloat.get(origin, destination), Math.ulp((float) value));
+            }
+        }
+    }
+
+    @Test
+    public final void testCacheMissesAreReadAsBatch() throws IOException {
+        final File cacheDirectory = folder.newFolder("cache");
+        final File properties = folder.newFile("mito.properties");
+        Files.write(properties.toPath(), Arrays.asList(Properties.SKIM_CACHE_DIRECTORY + " = "
+                + cacheDirectory.getAbsolutePath().replace('\\', '/')));
+        Resources.initializeResources(properties.getAbsolutePath());
+
+        final String car = writeSkims("car.omx", "time", "distance");
+        final String pt = writeSkims("pt.omx", "bus");
+        final Map<String, FloatSkimMatrix> cold = new OmxSkimBatchReader(3)
+                .add("car", car, "time", 1 / 60.)
+                .add("bus", pt, "bus", 1.)
+                .readFloatMatrices(false);
+        assertEquals(Arrays.asList("car", "bus"), new ArrayList<>(cold.keySet()));
+        assertEquals(2, cacheDirectory.list().length);
+
+        // car is mapped from the cache and only the distance is read from the omx file
+        final Map<String, FloatSkimMatrix> warm = new OmxSkimBatchReader(3)
+                .add("car", car, "time", 1 / 60.)
+                .add("carDistance", car, "distance", 1000.)
+                .readFloatMatrices(false);
+        assertEquals(Arrays.asList("car", "carDistance"), new ArrayList<>(warm.keySet()));
+        assertEquals(3, cacheDirectory.list().length);
+
+        final IndexedDoubleMatrix2D time = AbstractOmxReader.readAndConvertToDoubleMatrix(car, "time", 1 / 60.);
+        assertSameSkim(time, time, cold.get("car"));
+        assertSameSkim(time, time, warm.get("car"));
+        final IndexedDoubleMatrix2D distance = AbstractOmxReader.readAndConvertToDoubleMatrix(car, "distance", 1000.);
+        assertSameSkim(distance, distance, warm.get("carDistance"));
+        final IndexedDoubleMatrix2D bus = AbstractOmxReader.readAndConvertToDoubleMatrix(pt, "bus", 1.);
+        assertSameSkim(bus, bus, cold.get("bus"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testDuplicateNameIsRejected() {
+        new OmxSkimBatchReader(1)
+                .add("car", "car.omx", "time", 1.)
+                .add("car", "pt.omx", "bus", 1.);
+    }
+}
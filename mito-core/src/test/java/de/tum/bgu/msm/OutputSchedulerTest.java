@@ -0,0 +1,64 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.io.output.OutputScheduler;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OutputSchedulerTest {
+
+    @Test
+    public final void testTasksRunAfterDependenciesAndConcurrently() throws InterruptedException {
+        List<String> finished = new CopyOnWriteArrayList<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        OutputScheduler scheduler = new OutputScheduler(4);
+        scheduler.addTask("scan", () -> finished.add("scan"));
+        Runnable writer = () -> {
+            bothStarted.countDown();
+            try {
+                // only returns in time if both writers run at the same time
+                assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            finished.add("writer");
+        };
+        scheduler.addTask("writer1", writer, "scan");
+        scheduler.addTask("writer2", writer, "scan");
+        scheduler.addTask("summary", () -> finished.add("summary"), "writer1", "writer2");
+        scheduler.run();
+
+        assertEquals(4, finished.size());
+        assertEquals("scan", finished.get(0));
+        assertEquals("summary", finished.get(3));
+    }
+
+    @Test
+    public final void testFailureSkipsDependentTasksOnly() {
+        List<String> finished = new CopyOnWriteArrayList<>();
+        OutputScheduler scheduler = new OutputScheduler(2);
+        scheduler.addTask("failing", () -> {
+            throw new IllegalStateException("failed");
+        });
+        scheduler.addTask("dependent", () -> finished.add("dependent"), "failing");
+        scheduler.addTask("independent", () -> finished.add("independent"));
+        try {
+            scheduler.run();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, finished.size());
+        assertEquals("independent", finished.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownDependencyIsRejected() {
+        new OutputScheduler().addTask("writer", () -> {}, "scan");
+    }
+}
@@ -0,0 +1,94 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.modules.tripGeneration.PersonBasedTripGenerator;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class PersonBasedTripGeneratorTest {
+
+    private static final long SEED = 42;
+
+    private static final class UniformTripGenerator extends PersonBasedTripGenerator {
+
+        private UniformTripGenerator(DataSet dataSet) {
+            super(dataSet, Purpose.HBW);
+        }
+
+        @Override
+        protected TripCountSampler createSampler(Random random) {
+            return person -> random.nextInt(5);
+        }
+    }
+
+    private static DataSet createDataSet(int numberOfHouseholds) {
+        final DataSet dataSet = new DataSetImpl();
+        int personId = 0;
+        for (int i = 0; i < numberOfHouseholds; i++) {
+            final MitoHousehold household = new MitoHousehold(i, 0, 0, true);
+            for (int j = 0; j < 1 + i % 3; j++) {
+                final MitoPerson person = new MitoPersonImpl(personId++, household, MitoOccupationStatus.WORKER, null, 30, MitoGender.FEMALE, true);
+                household.addPerson(person);
+                dataSet.addPerson(person);
+            }
+            dataSet.addHousehold(household);
+        }
+        return dataSet;
+    }
+
+    private static int[] generate(DataSet dataSet, int numberOfChunks, boolean parallel) throws Exception {
+        MitoUtil.initializeRandomNumber(new Random(SEED));
+        final PersonBasedTripGenerator generator = new UniformTripGenerator(dataSet);
+        final MitoPerson[] persons = PersonBasedTripGenerator.getModelledPersons(dataSet);
+        final int[] tripCounts = new int[persons.length];
+        final List<Callable<Void>> tasks = generator.createTasks(persons, tripCounts, numberOfChunks);
+        if (parallel) {
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                // reverse the tasks so that chunks do not start in the order of their streams
+                Collections.reverse(tasks);
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } else {
+            for (Callable<Void> task : tasks) {
+                task.call();
+            }
+        }
+        return tripCounts;
+    }
+
+    @Test
+    public final void testSingleChunkReproducesSequentialGeneration() throws Exception {
+        final DataSet dataSet = createDataSet(200);
+        final int[] tripCounts = generate(dataSet, 1, false);
+
+        MitoUtil.initializeRandomNumber(new Random(SEED));
+        final Map<MitoPerson, Integer> sequential = new UniformTripGenerator(dataSet).call().getSecond();
+        final MitoPerson[] persons = PersonBasedTripGenerator.getModelledPersons(dataSet);
+        assertEquals(persons.length, sequential.size());
+        for (int i = 0; i < persons.length; i++) {
+            assertEquals(tripCounts[i], (int) sequential.get(persons[i]));
+        }
+    }
+
+    @Test
+    public final void testChunksAreReproducibleForFixedSeed() throws Exception {
+        final DataSet dataSet = createDataSet(200);
+        final int[] sequential = generate(dataSet, 7, false);
+        assertArrayEquals(sequential, generate(dataSet, 7, true));
+        assertArrayEquals(sequential, generate(dataSet, 7, true));
+        assertArrayEquals(generate(dataSet, 1, false), generate(dataSet, 1, true));
+    }
+}
@@ -0,0 +1,61 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResourcesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Resources previous = Resources.instance;
+
+    @After
+    public void restoreResources() {
+        Resources.instance = previous;
+    }
+
+    private void initialize(String... lines) throws IOException {
+        final File file = folder.newFile("mito.properties");
+        Files.write(file.toPath(), Arrays.asList(lines));
+        Resources.initializeResources(file.getAbsolutePath());
+    }
+
+    @Test
+    public final void testResolvedPropertiesMatchGettersByKey() throws IOException {
+        initialize(Properties.RUN_MODESET + " = true", Properties.AIRPORT_X + " = 4468", Properties.AIRPORT_Y + " = 5361");
+
+        assertTrue(Resources.instance.isRunModeSet());
+        assertFalse(Resources.instance.isFillMicroDataWithMicroLocation());
+        assertEquals(Resources.instance.getInt(Properties.AIRPORT_X), Resources.instance.getAirportX());
+        assertEquals(5361, Resources.instance.getAirportY());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public final void testMissingAirportCoordinateIsRejected() throws IOException {
+        initialize(Properties.AIRPORT_X + " = 4468");
+        Resources.instance.getAirportY();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public final void testArrayIsUnmodifiable() throws IOException {
+        initialize(Properties.MATSIM_NETWORK_MODES + " = autoDriver,bicycle");
+        final List<String> modes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES);
+        assertEquals(Arrays.asList("autoDriver", "bicycle"), modes);
+        assertSame(modes, Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, Collections.emptyList()));
+        modes.set(0, "pt");
+    }
+}
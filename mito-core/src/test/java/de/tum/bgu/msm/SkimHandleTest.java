@@ -0,0 +1,63 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.travelTimes.SkimHandle;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SkimHandleTest {
+
+    private static IndexedDoubleMatrix2D skim(double value) {
+        final IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(new int[]{10, 20, 30});
+        matrix.assign(value);
+        return matrix;
+    }
+
+    @Test
+    public final void testHandleFollowsSkimUpdates() {
+        final SkimTravelTimes travelTimes = new SkimTravelTimes();
+        final IndexedDoubleMatrix2D car = skim(5.);
+        car.setIndexed(10, 30, 7.);
+        travelTimes.updateSkimMatrix(car, "car");
+
+        final SkimHandle handle = travelTimes.getSkimHandle("car", Double.NaN);
+        assertEquals(7., handle.get(handle.getIndex(10), handle.getIndex(30)), 0.);
+        assertEquals(5., handle.getByZoneIds(30, 10), 0.);
+
+        travelTimes.updateSkimMatrix(skim(3.), "car");
+        assertEquals(3., handle.getByZoneIds(10, 30), 0.);
+    }
+
+    @Test
+    public final void testPtIsFastestTransitSubmode() {
+        final SkimTravelTimes travelTimes = new SkimTravelTimes();
+        travelTimes.updateSkimMatrix(skim(20.), "bus");
+        travelTimes.updateSkimMatrix(skim(12.), "tramMetro");
+        travelTimes.updateSkimMatrix(skim(15.), "train");
+        assertEquals(12., travelTimes.getSkimHandle("pt", Double.NaN).getByZoneIds(10, 20), 0.);
+    }
+
+    @Test
+    public final void testSubmodesWithDifferentLookupsAreMatchedById() {
+        final SkimTravelTimes travelTimes = new SkimTravelTimes();
+        travelTimes.updateSkimMatrix(skim(20.), "bus");
+        final IndexedDoubleMatrix2D tramMetro = new IndexedDoubleMatrix2D(new int[]{30, 10, 20});
+        tramMetro.assign(25.);
+        tramMetro.setIndexed(10, 20, 8.);
+        travelTimes.updateSkimMatrix(tramMetro, "tramMetro");
+        travelTimes.updateSkimMatrix(skim(15.), "train");
+
+        final SkimHandle handle = travelTimes.getSkimHandle("pt", Double.NaN);
+        assertEquals(8., handle.getByZoneIds(10, 20), 0.);
+        assertEquals(15., handle.getByZoneIds(20, 10), 0.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownZoneIsRejected() {
+        final SkimTravelTimes travelTimes = new SkimTravelTimes();
+        travelTimes.updateSkimMatrix(skim(1.), "car");
+        travelTimes.getSkimHandle("car", Double.NaN).getIndex(40);
+    }
+}
@@ -0,0 +1,89 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoTripImpl;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.TimeSlicedSkim;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimeSlicedSkimTest {
+
+    @Test
+    public final void testSliceOfTimeOfDay() {
+        final IndexedDoubleMatrix2D[] matrices = new IndexedDoubleMatrix2D[3];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = new IndexedDoubleMatrix2D(new int[]{1, 2});
+        }
+        final TimeSlicedSkim skim = new TimeSlicedSkim(new int[]{6 * 3600, 10 * 3600, 19 * 3600}, matrices);
+
+        // the evening slice runs over midnight until the morning slice starts
+        assertEquals(2, skim.getSliceIndex(0));
+        assertEquals(2, skim.getSliceIndex(6 * 3600 - 1));
+        assertEquals(0, skim.getSliceIndex(6 * 3600));
+        assertEquals(0, skim.getSliceIndex(8 * 3600));
+        assertEquals(1, skim.getSliceIndex(10 * 3600));
+        assertEquals(2, skim.getSliceIndex(23 * 3600));
+        assertEquals(0, skim.getSliceIndex(24 * 3600 + 8 * 3600));
+        assertEquals(2, skim.getSliceIndex(-3600));
+        assertSame(matrices[1], skim.getMatrix(12 * 3600.));
+    }
+
+    @Test
+    public final void testSlicesAreRoutedAtTheirMiddleWithinTheDay() {
+        final int[] sliceStarts_s = {6 * 3600, 10 * 3600, 16 * 3600, 19 * 3600};
+        final IndexedDoubleMatrix2D[] matrices = new IndexedDoubleMatrix2D[sliceStarts_s.length];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = new IndexedDoubleMatrix2D(new int[]{1, 2});
+        }
+        final TimeSlicedSkim skim = new TimeSlicedSkim(sliceStarts_s, matrices);
+
+        assertEquals(8 * 3600., skim.getSliceMiddle_s(0), 0.);
+        assertEquals(17.5 * 3600., skim.getSliceMiddle_s(2), 0.);
+        // the evening slice runs from 19:00 until 06:00, so it is routed at 00:30 and not at 24:30
+        assertEquals(0.5 * 3600., skim.getSliceMiddle_s(3), 0.);
+        for (int i = 0; i < sliceStarts_s.length; i++) {
+            final double middle_s = skim.getSliceMiddle_s(i);
+            assertTrue(middle_s >= 0 && middle_s < 24 * 3600);
+            assertEquals(i, skim.getSliceIndex(middle_s));
+        }
+
+        final TimeSlicedSkim fromMidnight = new TimeSlicedSkim(new int[]{0, 12 * 3600}, new IndexedDoubleMatrix2D[]{matrices[0], matrices[1]});
+        assertEquals(18 * 3600., fromMidnight.getSliceMiddle_s(1), 0.);
+    }
+
+    @Test
+    public final void testDepartureInMinutesIsLookedUpInSeconds() {
+        final IndexedDoubleMatrix2D[] matrices = new IndexedDoubleMatrix2D[3];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = new IndexedDoubleMatrix2D(new int[]{1, 2});
+            matrices[i].assign(10. * (i + 1));
+        }
+        final SkimTravelTimes travelTimes = new SkimTravelTimes();
+        travelTimes.updateSkimMatrices(new TimeSlicedSkim(new int[]{6 * 3600, 10 * 3600, 19 * 3600}, matrices), "car", 8 * 3600.);
+
+        final MitoTrip trip = new MitoTripImpl(1, Purpose.HBW);
+        final Location origin = () -> 1;
+        final Location destination = () -> 2;
+        trip.setDepartureInMinutes(8 * 60);
+        trip.setDepartureInMinutesReturnTrip(20 * 60);
+
+        // trips depart in minutes, time sliced skims are looked up in seconds
+        assertEquals(10., travelTimes.getTravelTime(origin, destination, trip.getDepartureInMinutes() * 60., "car"), 0.);
+        assertEquals(30., travelTimes.getTravelTime(destination, origin, trip.getDepartureInMinutesReturnTrip() * 60., "car"), 0.);
+        // read as seconds, 08:00 would be 00:08 in the evening slice
+        assertEquals(30., travelTimes.getTravelTime(origin, destination, trip.getDepartureInMinutes(), "car"), 0.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testSlicesMustBeAscending() {
+        new TimeSlicedSkim(new int[]{10 * 3600, 6 * 3600},
+                new IndexedDoubleMatrix2D[]{new IndexedDoubleMatrix2D(new int[]{1}), new IndexedDoubleMatrix2D(new int[]{1})});
+    }
+}
@@ -0,0 +1,45 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.modules.tripGeneration.TripGenCoefficients;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TripGenCoefficientsTest {
+
+    private static final String[] FEATURE_NAMES = {"(Intercept)", "hh.sized_1", "p.female"};
+
+    @Test
+    public void testPredictIsDotProductOfFeaturesAndCoefficients() {
+        final Map<String, Double> coefficients = new HashMap<>();
+        coefficients.put("(Intercept)", 0.5);
+        coefficients.put("hh.sized_1", -1.);
+        coefficients.put("p.female", 2.);
+        coefficients.put("theta", 3.);
+
+        final TripGenCoefficients compiled = TripGenCoefficients.compile(Purpose.HBW, coefficients, FEATURE_NAMES);
+
+        assertEquals(2.5, compiled.predict(new double[]{1., 0., 1.}), 0.);
+        assertEquals(-0.5, compiled.predict(new double[]{1., 1., 0.}), 0.);
+    }
+
+    @Test
+    public void testMissingCoefficientIsNamed() {
+        final Map<String, Double> coefficients = new HashMap<>();
+        coefficients.put("(Intercept)", 0.5);
+        coefficients.put("p.female", 2.);
+        try {
+            TripGenCoefficients.compile(Purpose.HBW, coefficients, FEATURE_NAMES);
+            fail("Compiled coefficients without hh.sized_1");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("hh.sized_1"));
+            assertTrue(e.getMessage(), e.getMessage().contains("HBW"));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TripTableTest {
+
+    @Test
+    public final void testViewHasDefaultsOfTripObject() {
+        TripTable table = new TripTable();
+        MitoTrip columnar = table.addTrip(7, Purpose.HBS);
+        MitoTrip object = new MitoTripImpl(7, Purpose.HBS);
+
+        assertEquals(object.getId(), columnar.getId());
+        assertEquals(object.getTripPurpose(), columnar.getTripPurpose());
+        assertEquals(object.getTripOrigin(), columnar.getTripOrigin());
+        assertEquals(object.getTripDestination(), columnar.getTripDestination());
+        assertEquals(object.getPerson(), columnar.getPerson());
+        assertEquals(object.getTripMode(), columnar.getTripMode());
+        assertEquals(object.getDepartureInMinutes(), columnar.getDepartureInMinutes());
+        assertEquals(object.getDepartureInMinutesReturnTrip(), columnar.getDepartureInMinutesReturnTrip());
+        assertEquals(object.getActivityDurationInMinutes(), columnar.getActivityDurationInMinutes());
+        assertEquals(object.isHomeBased(), columnar.isHomeBased());
+        assertNull(columnar.getMatsimPerson());
+    }
+
+    @Test
+    public final void testViewsWriteColumns() {
+        TripTable table = new TripTable();
+        MitoZone origin = new MitoZone(11, AreaTypes.SGType.CORE_CITY);
+        MitoZone destination = new MitoZone(12, AreaTypes.SGType.CORE_CITY);
+        for (int i = 0; i < 40000; i++) {
+            MitoTrip trip = table.addTrip(i + 1, Purpose.NHBO);
+            trip.setTripOrigin(origin);
+            trip.setTripDestination(i % 2 == 0 ? destination : origin);
+            trip.setTripMode(Mode.bus);
+            trip.setDepartureInMinutes(i % 1440);
+        }
+        assertEquals(40000, table.size());
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(row + 1, table.getTripId(row));
+            assertEquals(11, table.getOriginZoneId(row));
+            assertEquals(row % 2 == 0 ? 12 : 11, table.getDestinationZoneId(row));
+            assertEquals(Mode.bus.ordinal(), table.getModeOrdinal(row));
+            assertEquals(row % 1440, table.getDepartureInMinutes(row));
+            assertSame(origin, table.getTrip(row).getTripOrigin());
+        }
+        assertEquals(table.getOriginLocationIndex(0), table.getDestinationLocationIndex(1));
+        assertEquals(table.getTrip(5), table.getTrip(5));
+        assertNotEquals(table.getTrip(5), table.getTrip(6));
+        assertFalse(table.getTrip(0).isHomeBased());
+
+        table.getTrip(3).setTripDestination(null);
+        assertEquals(-1, table.getDestinationZoneId(3));
+        assertNull(table.getTrip(3).getTripDestination());
+    }
+
+    @Test
+    public final void testDataSetHoldsTripsInOrderOfAdding() {
+        DataSet dataSet = new DataSetImpl();
+        TripTable table = dataSet.getTripTable();
+        MitoTrip first = table.addTrip(5, Purpose.HBW);
+        MitoTrip second = table.addTrip(3, Purpose.HBS);
+        MitoTrip object = new MitoTripImpl(4, Purpose.AIRPORT);
+        dataSet.addTrip(second);
+        dataSet.addTrip(object);
+        dataSet.addTrip(first);
+        for (int i = 0; i < 1000; i++) {
+            dataSet.addTrip(table.addTrip(100 + i, Purpose.NHBO));
+        }
+
+        assertEquals(1003, dataSet.getTrips().size());
+        List<MitoTrip> trips = new ArrayList<>(dataSet.getTrips().values());
+        assertEquals(Arrays.asList(second, object, first), trips.subList(0, 3));
+        assertEquals(1099, trips.get(1002).getId());
+        assertEquals(first, dataSet.getTrips().get(5));
+        assertSame(object, dataSet.getTrips().get(4));
+        assertEquals(550, dataSet.getTrips().get(550).getId());
+        assertNull(dataSet.getTrips().get(6));
+
+        dataSet.removeTrip(3);
+        dataSet.removeTrip(4);
+        dataSet.removeTrip(550);
+        dataSet.removeTrip(6);
+        assertEquals(1000, dataSet.getTrips().size());
+        assertNull(dataSet.getTrips().get(3));
+        assertNull(dataSet.getTrips().get(550));
+        assertEquals(first, dataSet.getTrips().values().iterator().next());
+        assertEquals(1000, dataSet.getTrips().values().stream().distinct().count());
+        assertEquals(1000, dataSet.getTrips().entrySet().stream().filter(e -> e.getKey() == e.getValue().getId()).count());
+
+        dataSet.addTrip(new MitoTripImpl(550, Purpose.NHBO));
+        assertEquals(Purpose.NHBO, dataSet.getTrips().get(550).getTripPurpose());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testDataSetRejectsDuplicateTripIds() {
+        DataSet dataSet = new DataSetImpl();
+        dataSet.addTrip(dataSet.getTripTable().addTrip(1, Purpose.HBW));
+        dataSet.addTrip(new MitoTripImpl(1, Purpose.HBW));
+    }
+
+    @Test
+    public final void testHouseholdsAndPersonsHoldRows() {
+        TripTable table = new TripTable();
+        MitoHousehold household = new MitoHousehold(1, 0, 0, true);
+        MitoPerson person = new MitoPersonImpl(1, household, MitoOccupationStatus.WORKER, null, 30, MitoGender.FEMALE, true);
+        MitoTrip work = table.addTrip(1, Purpose.HBW);
+        MitoTrip shop = table.addTrip(2, Purpose.HBS);
+        person.addTrip(work);
+        person.addTrip(shop);
+        person.addTrip(table.getTrip(0));
+        household.addTripsForPurpose(Purpose.HBW, work);
+        household.setTripsByPurpose(new ArrayList<>(Collections.singletonList(shop)), Purpose.HBS);
+
+        assertTrue(household.getTripsForPurpose(Purpose.HBW) instanceof TripRows);
+        assertTrue(household.getTripsForPurpose(Purpose.HBS) instanceof TripRows);
+        assertEquals(Collections.singletonList(work), household.getTripsForPurpose(Purpose.HBW));
+        assertSame(person, table.getTrip(0).getPerson());
+        assertEquals(2, person.getTrips().size());
+        assertTrue(person.getTrips().contains(table.getTrip(1)));
+        assertEquals(Collections.singletonList(shop), person.getTripsForPurpose(Purpose.HBS));
+
+        household.getTripsForPurpose(Purpose.HBW).remove(work);
+        assertTrue(household.getTripsForPurpose(Purpose.HBW).isEmpty());
+        person.removeTripFromPerson(shop);
+        assertEquals(Collections.singleton(work), person.getTrips());
+
+        // trips of other tables or trip objects are held as objects
+        MitoTrip airport = new MitoTripImpl(3, Purpose.AIRPORT);
+        person.addTrip(airport);
+        household.addTripsForPurpose(Purpose.HBW, work);
+        household.addTripsForPurpose(Purpose.HBW, airport);
+        assertEquals(new java.util.HashSet<>(Arrays.asList(work, airport)), person.getTrips());
+        assertEquals(Arrays.asList(work, airport), household.getTripsForPurpose(Purpose.HBW));
+        assertFalse(household.getTripsForPurpose(Purpose.HBW) instanceof TripRows);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testRowsRejectTripsOfOtherTables() {
+        new TripRows(new TripTable()).add(new TripTable().addTrip(1, Purpose.HBW));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testRejectsMinutesOutOfRange() {
+        new TripTable().addTrip(1, Purpose.HBW).setDepartureInMinutes(Short.MAX_VALUE + 1);
+    }
+}
@@ -0,0 +1,96 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.DataSetImpl;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DestinationUtilityRowsTest {
+
+    private static final int ZONES = 20;
+    private static final long SEED = 42;
+
+    private static final class DistanceCalculator extends AbstractDestinationUtilityCalculator {
+        private DistanceCalculator() {
+            distanceParams = new double[]{-0.1};
+            impedanceParam = 0.5;
+        }
+    }
+
+    private static DataSet createDataSet() {
+        final DataSet dataSet = new DataSetImpl();
+        final int[] ids = new int[ZONES];
+        for (int i = 0; i < ZONES; i++) {
+            ids[i] = 100 + 2 * i;
+            final MitoZone zone = new MitoZone(ids[i], AreaTypes.SGType.CORE_CITY);
+            zone.setTripAttraction(Purpose.HBS, i % 5 == 0 ? 0. : 1. + i % 3);
+            dataSet.addZone(zone);
+        }
+        final IndexedDoubleMatrix2D distances = new IndexedDoubleMatrix2D(ids);
+        for (int i = 0; i < ZONES; i++) {
+            for (int j = 0; j < ZONES; j++) {
+                distances.setIndexed(ids[i], ids[j], Math.abs(i - j) * 1.5 + 0.2);
+            }
+        }
+        dataSet.setTravelDistancesNMT(new MatrixTravelDistances(distances));
+        return dataSet;
+    }
+
+    @Test
+    public final void testRecalculatedRowsMatchEvictedRows() {
+        final DataSet dataSet = createDataSet();
+        for (boolean inverseTransformSampling : new boolean[]{false, true}) {
+            final DestinationUtilityRowCache largeCache = new DestinationUtilityRowCache(1L << 30);
+            final DestinationUtilityRows reference = new DestinationUtilityRows(Purpose.HBS, dataSet,
+                    new DistanceCalculator(), 0, largeCache, inverseTransformSampling);
+            // smaller than a single row, so every row is evicted right after it was calculated
+            final DestinationUtilityRowCache tinyCache = new DestinationUtilityRowCache(reference.getRowBytes() / 2);
+            final DestinationUtilityRows rows = new DestinationUtilityRows(Purpose.HBS, dataSet,
+                    new DistanceCalculator(), 0, tinyCache, inverseTransformSampling);
+
+            final double[][] firstUtilities = new double[ZONES][];
+            final int[][] firstDestinations = new int[ZONES][];
+            for (int i = 0; i < ZONES; i++) {
+                final int originId = rows.getZoneId(i);
+                firstUtilities[i] = rows.getUtilities(originId).clone();
+                firstDestinations[i] = sample(rows, originId);
+            }
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = ZONES - 1; i >= 0; i--) {
+                    final int originId = rows.getZoneId(i);
+                    assertArrayEquals(firstUtilities[i], rows.getUtilities(originId), 0.);
+                    assertArrayEquals(firstDestinations[i], sample(rows, originId));
+                    assertArrayEquals(reference.getUtilities(originId), rows.getUtilities(originId), 0.);
+                    assertArrayEquals(sample(reference, originId), sample(rows, originId));
+                }
+            }
+            assertTrue(tinyCache.getStats().evictionCount() > 0);
+            assertTrue(tinyCache.getStats().loadCount() > ZONES);
+            assertEquals(0, largeCache.getStats().evictionCount());
+            assertEquals(ZONES, largeCache.getStats().loadCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownOriginIsRejected() {
+        new DestinationUtilityRows(Purpose.HBS, createDataSet(), new DistanceCalculator(), 0,
+                new DestinationUtilityRowCache(1L << 30), false).getUtilities(101);
+    }
+
+    private static int[] sample(DestinationUtilityRows rows, int originId) {
+        final Random random = new Random(SEED);
+        final int[] destinations = new int[50];
+        for (int i = 0; i < destinations.length; i++) {
+            destinations[i] = rows.sampleDestinationId(originId, random);
+        }
+        return destinations;
+    }
+}
@@ -0,0 +1,66 @@
+package de.tum.bgu.msm.modules.tripDistribution;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistanceHistogramTest {
+
+    private static DistanceHistogram histogram(double... distances) {
+        final DistanceHistogram histogram = new DistanceHistogram(1., 100.);
+        for (double distance : distances) {
+            histogram.add(distance);
+        }
+        return histogram;
+    }
+
+    @Test
+    public final void testEmptyHistogramHasNoMedian() {
+        final DistanceHistogram histogram = histogram();
+        assertEquals(0, histogram.getCount());
+        assertTrue(Double.isNaN(histogram.getMedian()));
+    }
+
+    @Test
+    public final void testMedianOfOddCount() {
+        assertEquals(1.5, histogram(3.7, 0.2, 1.5).getMedian(), 0.);
+        assertEquals(0.5, histogram(0.7).getMedian(), 0.);
+    }
+
+    @Test
+    public final void testMedianOfEvenCount() {
+        assertEquals(2.5, histogram(5.1, 0.2, 3.7, 1.5).getMedian(), 0.);
+        // both middle distances in one bin are spread evenly over it
+        assertEquals(1.5, histogram(1.2, 1.9).getMedian(), 0.);
+    }
+
+    @Test
+    public final void testMedianIsAccurateToBinWidth() {
+        final Random random = new Random(42);
+        final double[] distances = new double[1001];
+        final DistanceHistogram histogram = new DistanceHistogram(0.01, 2000.);
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = random.nextDouble() * 50;
+            histogram.add(distances[i]);
+        }
+        Arrays.sort(distances);
+        assertEquals(distances[500], histogram.getMedian(), 0.01);
+    }
+
+    @Test
+    public final void testUnreachableDistancesAreCountedInOverflowBin() {
+        assertEquals(Double.MAX_VALUE, histogram(1.5, Double.MAX_VALUE, Double.MAX_VALUE).getMedian(), 0.);
+        assertEquals(Double.MAX_VALUE, histogram(Double.MAX_VALUE, Double.MAX_VALUE).getMedian(), 0.);
+        assertEquals(76.25, histogram(1.5, 2.5, 150., Double.MAX_VALUE).getMedian(), 0.);
+        assertEquals(2.5, histogram(1.5, 2.5, 3.5, 1e12, -1.).getMedian(), 0.);
+        assertEquals(5, histogram(1.5, 2.5, 3.5, 1e12, -1.).getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testTooManyBinsAreRejected() {
+        new DistanceHistogram(1e-9, Double.MAX_VALUE);
+    }
+}
@@ -1,7 +1,7 @@
 package de.tum.bgu.msm;
 
 import de.tum.bgu.msm.data.DataSetImpl;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.modules.modeChoice.DefaultModeChoiceCalibrationData;
 import de.tum.bgu.msm.resources.Properties;
@@ -80,7 +80,7 @@ public final class MitoModelGermany {
             new BorderDampersReader(dataSet).read();
         }
         //new JobReader(dataSet, config.getJobTypeFactory()).read();
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReader(dataSet).read();
         new SchoolsReader(dataSet).read();
         new HouseholdsReaderGermany(dataSet).read();
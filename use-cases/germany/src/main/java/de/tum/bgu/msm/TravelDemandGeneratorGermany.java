@@ -1,7 +1,9 @@
 package de.tum.bgu.msm;
 
+import de.tum.bgu.msm.data.ColumnarMitoTripFactory;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
+import de.tum.bgu.msm.data.MitoTripFactory;
 import de.tum.bgu.msm.data.MitoTripFactoryImpl;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.io.output.SummarizeData;
@@ -118,6 +120,8 @@ public final class TravelDemandGeneratorGermany {
 
         public Builder(DataSetImpl dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new ColumnarMitoTripFactory(dataSet.getTripTable()) : new MitoTripFactoryImpl();
             //from here
             List<Purpose> purposes = PURPOSES;
             List<Purpose> mandatoryPurposes = new ArrayList<>(PURPOSES);
@@ -125,9 +129,9 @@ public final class TravelDemandGeneratorGermany {
             List<Purpose> discretionaryPurposes = new ArrayList<>(PURPOSES);
             discretionaryPurposes.removeAll(mandatoryPurposes);
 
-            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, new MitoTripFactoryImpl());
+            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, tripFactory);
             mandatoryPurposes.forEach(purpose -> {
-                ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, new MitoTripFactoryImpl(), TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet), new AttractionCalculatorGermany(dataSet,purpose));
+                ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet), new AttractionCalculatorGermany(dataSet,purpose));
             });
             //personTripAssignmentMandatory = new PersonTripAssignment(dataSet, mandatoryPurposes);
             travelTimeBudgetMandatory = new TravelTimeBudgetModule(dataSet, mandatoryPurposes);
@@ -139,8 +143,8 @@ public final class TravelDemandGeneratorGermany {
 
             timeOfDayChoiceMandatory = new TimeOfDayChoice(dataSet, mandatoryPurposes);
 
-            tripGenerationDiscretionary = new TripGeneration(dataSet, Purpose.getDiscretionaryPurposes(), new MitoTripFactoryImpl());
-            Purpose.getDiscretionaryPurposes().forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, new MitoTripFactoryImpl(), TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorGermany(dataSet,purpose)));
+            tripGenerationDiscretionary = new TripGeneration(dataSet, Purpose.getDiscretionaryPurposes(), tripFactory);
+            Purpose.getDiscretionaryPurposes().forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorGermany(dataSet,purpose)));
             //personTripAssignmentDiscretionary = new PersonTripAssignment(dataSet, Purpose.getDiscretionaryPurposes());
 
             travelTimeBudgetDiscretionary = new TravelTimeBudgetModule(dataSet, discretionaryPurposes);
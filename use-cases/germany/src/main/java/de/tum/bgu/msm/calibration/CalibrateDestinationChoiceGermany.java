@@ -4,7 +4,7 @@ package de.tum.bgu.msm.calibration;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
 import de.tum.bgu.msm.data.Purpose;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.modules.ModeChoiceCalculator2017Impl;
 import de.tum.bgu.msm.modules.Module;
@@ -217,7 +217,7 @@ public final class CalibrateDestinationChoiceGermany {
         if (Resources.instance.getBoolean(Properties.REMOVE_TRIPS_AT_BORDER)) {
             new BorderDampersReader(dataSet).read();
         }
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReader(dataSet).read();
         //new JobReader(dataSet, config.getJobTypeFactory()).read();
         new SchoolsReader(dataSet).read();
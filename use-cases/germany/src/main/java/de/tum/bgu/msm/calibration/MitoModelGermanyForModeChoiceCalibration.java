@@ -4,7 +4,7 @@ import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
 import de.tum.bgu.msm.data.MitoTripFactoryImpl;
 import de.tum.bgu.msm.data.Purpose;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.modules.AttractionCalculatorGermany;
 import de.tum.bgu.msm.modules.DestinationUtilityCalculatorImplGermany;
@@ -131,7 +131,7 @@ public final class MitoModelGermanyForModeChoiceCalibration {
             new BorderDampersReader(dataSet).read();
         }
         //new JobReader(dataSet, config.getJobTypeFactory()).read();
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReader(dataSet).read();
         new SchoolsReader(dataSet).read();
         new HouseholdsReaderGermany(dataSet).read();
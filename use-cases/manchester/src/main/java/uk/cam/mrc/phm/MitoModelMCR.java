@@ -2,7 +2,7 @@ package uk.cam.mrc.phm;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.PersonsReader7days;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.modules.modeChoice.DefaultModeChoiceCalibrationData;
@@ -89,7 +89,7 @@ public final class MitoModelMCR {
         new HouseholdsCoordReaderMCR(dataSet).read();
         new PoiReader(dataSet).read();
         new PersonsReader7days(dataSet).read();
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReaderMCR(dataSet).read();
         readAdditionalData();
     }
@@ -0,0 +1,161 @@
+package uk.cam.mrc.phm;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.DataSetImpl;
+import de.tum.bgu.msm.data.MitoGender;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.output.OmxMatrixWriter;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import routing.BicycleConfigGroup;
+import routing.TransportModeNetworkFilter;
+import routing.WalkConfigGroup;
+import routing.components.LinkAttributes;
+import routing.skim.ActiveSkimBuilder;
+import routing.travelTime.BicycleLinkSpeedCalculatorImpl;
+import routing.travelTime.BicycleTravelTime;
+import routing.travelTime.WalkLinkSpeedCalculatorImpl;
+import routing.travelTime.WalkTravelTime;
+import uk.cam.mrc.phm.io.ZonesReaderMCR;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the walk and bike skims read by {@link uk.cam.mrc.phm.io.OmxSkimsReaderMCR} from the active mode network,
+ * with the attributes and weights of {@link RunMatsimActiveMode}. Cost skims are built for every purpose and class of
+ * persons that mode choice distinguishes; travel time and distance skims along the fastest paths, which do not depend
+ * on the weights. All skims are in seconds and meters and are written to the omx files and matrices given in the
+ * properties file.
+ */
+public class RunActiveSkims {
+
+    private static final Logger logger = LogManager.getLogger(RunActiveSkims.class);
+
+    private static final int ADULT_AGE = 40;
+    private static final int CHILD_AGE = 10;
+    private static final int ELDERLY_AGE = 70;
+
+    public static void main(String[] args) {
+        logger.info("Started building active mode skims");
+        Resources.initializeResources(args[0]);
+        final DataSet dataSet = new DataSetImpl();
+        new ZonesReaderMCR(dataSet).read();
+
+        final Config config = ConfigUtils.createConfig();
+        config.addModule(new BicycleConfigGroup());
+        config.addModule(new WalkConfigGroup());
+        RunMatsimActiveMode.fillBikePedConfig(config);
+
+        // the active network is read and filtered once and then shared by the skims of both modes
+        final Network activeNetwork = RunMatsimActiveMode.extractModeSpecificNetwork(RunMatsimActiveMode.MATSIM_NETWORK,
+                new HashSet<>(Arrays.asList(TransportMode.bike, TransportMode.walk)));
+        RunMatsimActiveMode.setActiveAttributes(config, LinkAttributes.compile(activeNetwork));
+
+        final BicycleConfigGroup bicycle = (BicycleConfigGroup) config.getModules().get(BicycleConfigGroup.GROUP_NAME);
+        final Map<String, ActiveSkimBuilder.Skim> bikeSkims = new ActiveSkimBuilder(
+                filter(activeNetwork, TransportMode.bike), bicycle,
+                new BicycleTravelTime(new BicycleLinkSpeedCalculatorImpl(config)), dataSet.getZones().values())
+                .addTravelTimeClass("bike", null)
+                .addClass("bike_HBW", person("bike_HBW", Purpose.HBW, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("bike_HBW_female", person("bike_HBW_female", Purpose.HBW, MitoGender.FEMALE, ADULT_AGE), null, false)
+                .addClass("bike_HBE", person("bike_HBE", Purpose.HBE, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("bike_HBD", person("bike_HBD", Purpose.HBS, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("bike_HBD_child", person("bike_HBD_child", Purpose.HBS, MitoGender.MALE, CHILD_AGE), null, false)
+                .build();
+
+        final WalkConfigGroup walk = (WalkConfigGroup) config.getModules().get(WalkConfigGroup.GROUP_NAME);
+        final Map<String, ActiveSkimBuilder.Skim> walkSkims = new ActiveSkimBuilder(
+                filter(activeNetwork, TransportMode.walk), walk,
+                new WalkTravelTime(new WalkLinkSpeedCalculatorImpl(config)), dataSet.getZones().values())
+                .addTravelTimeClass("walk", null)
+                .addClass("walk_HBW", person("walk_HBW", Purpose.HBW, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("walk_HBE", person("walk_HBE", Purpose.HBE, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("walk_HBA", person("walk_HBA", Purpose.HBA, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("walk_HBD", person("walk_HBD", Purpose.HBS, MitoGender.MALE, ADULT_AGE), null, false)
+                .addClass("walk_HBD_child", person("walk_HBD_child", Purpose.HBS, MitoGender.MALE, CHILD_AGE), null, false)
+                .addClass("walk_HBD_elderly", person("walk_HBD_elderly", Purpose.HBS, MitoGender.MALE, ELDERLY_AGE), null, false)
+                .addClass("walk_NHBO", person("walk_NHBO", Purpose.NHBO, MitoGender.MALE, ADULT_AGE), null, false)
+                .build();
+
+        // matrices are grouped by file, so that files holding several skims are created once
+        final Map<String, Map<String, IndexedDoubleMatrix2D>> matricesByFile = new LinkedHashMap<>();
+        // the fastest paths of purposes without weights
+        add(matricesByFile, Properties.ACTIVE_TIME_SKIM, Properties.BIKE_COST_SKIM_MATRIX, bikeSkims.get("bike").getTime());
+        add(matricesByFile, Properties.ACTIVE_TIME_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk").getTime());
+        add(matricesByFile, Properties.BIKE_DIST_SKIM, Properties.BIKE_DIST_SKIM_MATRIX, bikeSkims.get("bike").getDistance());
+        add(matricesByFile, Properties.WALK_DIST_SKIM, Properties.WALK_DIST_SKIM_MATRIX, walkSkims.get("walk").getDistance());
+
+        // HBW
+        add(matricesByFile, Properties.ACTIVE_COST_HBW_SKIM, Properties.BIKE_COST_SKIM_MATRIX, bikeSkims.get("bike_HBW").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBW_SKIM, Properties.BIKE_COST_FEMALE_SKIM_MATRIX, bikeSkims.get("bike_HBW_female").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBW_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk_HBW").getCost());
+
+        // HBE
+        add(matricesByFile, Properties.ACTIVE_COST_HBE_SKIM, Properties.BIKE_COST_SKIM_MATRIX, bikeSkims.get("bike_HBE").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBE_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk_HBE").getCost());
+
+        // HBA
+        add(matricesByFile, Properties.ACTIVE_COST_HBA_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk_HBA").getCost());
+
+        // HBD
+        add(matricesByFile, Properties.ACTIVE_COST_HBD_SKIM, Properties.BIKE_COST_SKIM_MATRIX, bikeSkims.get("bike_HBD").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBD_SKIM, Properties.BIKE_COST_CHILD_SKIM_MATRIX, bikeSkims.get("bike_HBD_child").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBD_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk_HBD").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBD_SKIM, Properties.WALK_COST_CHILD_SKIM_MATRIX, walkSkims.get("walk_HBD_child").getCost());
+        add(matricesByFile, Properties.ACTIVE_COST_HBD_SKIM, Properties.WALK_COST_ELDERLY_SKIM_MATRIX, walkSkims.get("walk_HBD_elderly").getCost());
+
+        // NHBO
+        add(matricesByFile, Properties.ACTIVE_COST_NHBO_SKIM, Properties.WALK_COST_SKIM_MATRIX, walkSkims.get("walk_NHBO").getCost());
+
+        for (Map.Entry<String, Map<String, IndexedDoubleMatrix2D>> file : matricesByFile.entrySet()) {
+            OmxMatrixWriter.createOmxFile(file.getKey(), dataSet.getZones().size());
+            for (Map.Entry<String, IndexedDoubleMatrix2D> matrix : file.getValue().entrySet()) {
+                OmxMatrixWriter.createOmxSkimMatrix(matrix.getValue(), file.getKey(), matrix.getKey());
+            }
+            logger.info("Wrote " + file.getValue().size() + " active mode skims to " + file.getKey());
+        }
+        logger.info("Finished building active mode skims");
+    }
+
+    private static Network filter(Network activeNetwork, String mode) {
+        final Network modeNetwork = NetworkUtils.createNetwork();
+        new TransportModeNetworkFilter(activeNetwork).filter(modeNetwork, Collections.singleton(mode));
+        NetworkUtils.runNetworkCleaner(modeNetwork);
+        return modeNetwork;
+    }
+
+    /**
+     * Creates a person with the attributes the weights of {@link RunMatsimActiveMode} depend on.
+     */
+    private static Person person(String name, Purpose purpose, MitoGender sex, int age) {
+        final Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId(name));
+        person.getAttributes().putAttribute("purpose", purpose);
+        person.getAttributes().putAttribute("sex", sex);
+        person.getAttributes().putAttribute("age", age);
+        return person;
+    }
+
+    private static void add(Map<String, Map<String, IndexedDoubleMatrix2D>> matricesByFile, String fileProperty,
+                            String matrixProperty, IndexedDoubleMatrix2D matrix) {
+        final String file = Resources.instance.getRelativePath(fileProperty).toString();
+        final String matrixName = Resources.instance.getString(matrixProperty);
+        if (matricesByFile.computeIfAbsent(file, f -> new LinkedHashMap<>()).put(matrixName, matrix) != null) {
+            throw new RuntimeException("Matrix " + matrixName + " is written to " + file + " twice");
+        }
+    }
+}
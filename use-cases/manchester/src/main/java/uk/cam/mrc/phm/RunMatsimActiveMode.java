@@ -35,6 +35,7 @@ import routing.*;
 import routing.components.Gradient;
 import routing.components.JctStress;
 import routing.components.LinkAmbience;
+import routing.components.LinkAttributes;
 import routing.components.LinkStress;
 import uk.cam.mrc.phm.util.ManchesterImplementationConfig;
 
@@ -47,7 +48,7 @@ public class RunMatsimActiveMode {
     private static final Logger logger = LogManager.getLogger(RunMatsimActiveMode.class);
 
     public static final String ACTIVE_SPEEDS = "C:\\Users\\Corin Staves\\git\\manchester\\input\\maxSpeeds.csv";
-    private static final String MATSIM_NETWORK = "C:\\Users\\Corin Staves\\git\\manchester\\input\\mito\\trafficAssignment\\network.xml";
+    static final String MATSIM_NETWORK = "C:\\Users\\Corin Staves\\git\\manchester\\input\\mito\\trafficAssignment\\network.xml";
     private static final String MATSIM_PLAN = "C:\\Users\\Corin Staves\\git\\manchester\\scenOutput\\base_fix_7\\2021\\matsimPlans_thursday.xml.gz";
     private static final List<Day> MATSIM_DAY =new ArrayList<>(Collections.singleton(Day.thursday));
 
@@ -149,6 +150,7 @@ public class RunMatsimActiveMode {
                 Network activeNetwork = extractModeSpecificNetwork(MATSIM_NETWORK,new HashSet<>(Arrays.asList(TransportMode.bike, TransportMode.walk)));
 
                 matsimScenario.setNetwork(activeNetwork);
+                setActiveAttributes(bikePedConfig, LinkAttributes.compile(activeNetwork));
 //                NetworkUtils.writeNetwork(activeNetwork, "F:\\models\\silo_manchester\\input/mito/trafficAssignment/network_active_cleaned.xml");
                 //ConfigUtils.writeMinimalConfig(matsimScenario.getConfig(),"F:\\models\\silo_manchester\\input/mito/trafficAssignment/config_min.xml");
 
@@ -163,7 +165,7 @@ public class RunMatsimActiveMode {
         }
     }
 
-    private static void fillBikePedConfig(Config bikePedConfig) {
+    static void fillBikePedConfig(Config bikePedConfig) {
         // set input file and basic controler settings
         bikePedConfig.controller().setLastIteration(0);
         bikePedConfig.controller().setWritePlansInterval(Math.max(bikePedConfig.controller().getLastIteration(), 1));
@@ -187,11 +189,6 @@ public class RunMatsimActiveMode {
         bikePedConfig.routing().removeTeleportedModeParams("pt");
 
 
-        // BIKE ATTRIBUTES
-        List<ToDoubleFunction<Link>> bikeAttributes = new ArrayList<>();
-        bikeAttributes.add(l -> Math.max(Math.min(Gradient.getGradient(l),0.5),0.));
-        bikeAttributes.add(l -> LinkStress.getStress(l,TransportMode.bike));
-
         // Bike weights
         Function<Person,double[]> bikeWeights = p -> {
             switch((Purpose) p.getAttributes().getAttribute("purpose")) {
@@ -220,15 +217,8 @@ public class RunMatsimActiveMode {
 
         // Bicycle config group
         BicycleConfigGroup bicycle = (BicycleConfigGroup) bikePedConfig.getModules().get(BicycleConfigGroup.GROUP_NAME);
-        bicycle.setAttributes(bikeAttributes);
         bicycle.setWeights(bikeWeights);
 
-        // WALK ATTRIBUTES
-        List<ToDoubleFunction<Link>> walkAttributes = new ArrayList<>();
-        walkAttributes.add(l -> Math.max(0.,0.81 - LinkAmbience.getVgviFactor(l)));
-        walkAttributes.add(l -> Math.min(1.,l.getFreespeed() / 22.35));
-        walkAttributes.add(l -> JctStress.getStressProp(l,TransportMode.walk));
-
         // Walk weights
         Function<Person,double[]> walkWeights = p -> {
             switch ((Purpose) p.getAttributes().getAttribute("purpose")) {
@@ -261,7 +251,6 @@ public class RunMatsimActiveMode {
 
         // Walk config group
         WalkConfigGroup walkConfigGroup = (WalkConfigGroup) bikePedConfig.getModules().get(WalkConfigGroup.GROUP_NAME);
-        walkConfigGroup.setAttributes(walkAttributes);
         walkConfigGroup.setWeights(walkWeights);
 
         ActivityParams homeActivity = new ActivityParams("home").setTypicalDuration(12 * 60 * 60);
@@ -291,6 +280,23 @@ public class RunMatsimActiveMode {
 
     }
 
+    static void setActiveAttributes(Config bikePedConfig, LinkAttributes linkAttributes) {
+        // BIKE ATTRIBUTES
+        List<ToDoubleFunction<Link>> bikeAttributes = new ArrayList<>();
+        bikeAttributes.add(l -> Math.max(Math.min(Gradient.getGradient(linkAttributes,l),0.5),0.));
+        bikeAttributes.add(l -> LinkStress.getStress(linkAttributes,l,TransportMode.bike));
+        BicycleConfigGroup bicycle = (BicycleConfigGroup) bikePedConfig.getModules().get(BicycleConfigGroup.GROUP_NAME);
+        bicycle.setAttributes(bikeAttributes);
+
+        // WALK ATTRIBUTES
+        List<ToDoubleFunction<Link>> walkAttributes = new ArrayList<>();
+        walkAttributes.add(l -> Math.max(0.,0.81 - LinkAmbience.getVgviFactor(linkAttributes,l)));
+        walkAttributes.add(l -> Math.min(1.,l.getFreespeed() / 22.35));
+        walkAttributes.add(l -> JctStress.getStressProp(linkAttributes,l,TransportMode.walk));
+        WalkConfigGroup walkConfigGroup = (WalkConfigGroup) bikePedConfig.getModules().get(WalkConfigGroup.GROUP_NAME);
+        walkConfigGroup.setAttributes(walkAttributes);
+    }
+
     public static Network extractModeSpecificNetwork(String networkFile, Set<String> transportModes) {
 
         Network network = NetworkUtils.readNetwork(networkFile);
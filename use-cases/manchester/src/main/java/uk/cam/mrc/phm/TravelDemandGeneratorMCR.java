@@ -117,6 +117,8 @@ public final class TravelDemandGeneratorMCR {
 
         public Builder(DataSet dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new MitoTripFactory7days(dataSet.getTripTable()) : new MitoTripFactory7days();
 
             List<Purpose> purposes = Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES));
             logger.info("Simulating trips for the following purposes: " + purposes.stream().map(Enum::toString).collect(Collectors.joining(",")));
@@ -127,15 +129,15 @@ public final class TravelDemandGeneratorMCR {
             discretionaryPurposes.removeAll(mandatoryPurposes);
 
             //from here
-            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, new MitoTripFactory7days());
-            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, new MitoTripFactory7days(), TripGeneratorType.PersonBasedHurdlePolr,new TripGenCalculatorMCR(dataSet),
+            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, tripFactory);
+            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdlePolr,new TripGenCalculatorMCR(dataSet),
                     new AttractionCalculatorMCR(dataSet,purpose)));
 
             distributionMandatory = new TripDistribution(dataSet, mandatoryPurposes);
             mandatoryPurposes.forEach(purpose -> ((TripDistribution) distributionMandatory).registerDestinationUtilityCalculator(purpose, new DestinationUtilityCalculatorMCR(purpose)));
 
-            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, new MitoTripFactory7days());
-            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, new MitoTripFactory7days(),TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorMCR(dataSet),
+            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, tripFactory);
+            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, tripFactory,TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorMCR(dataSet),
                     new AttractionCalculatorMCR(dataSet,purpose)));
 
             modeSetChoice = new ModeSetChoice(dataSet, purposes, new ModeSetCalculatorMCR(dataSet));
@@ -284,7 +286,7 @@ public final class TravelDemandGeneratorMCR {
 //        ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
 
 
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)) {
+        if(Resources.instance.isRunModeSet()) {
             logger.info("Running Module: Mode set choice");
             modeSetChoice.run();
         }
@@ -354,14 +356,31 @@ public final class TravelDemandGeneratorMCR {
             longDistanceTraffic.run();
         }
 
-        TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName);
-        SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName);
-
+        writeOutputs(scenarioName);
+    }
 
+    /**
+     * Writes all outputs concurrently. Summaries that aggregate trips are fed by a single shared pass over the trips
+     * and write their files once the pass has finished.
+     */
+    private void writeOutputs(String scenarioName) {
+        final OutputScheduler outputs = new OutputScheduler();
+        final TripScan tripScan = new TripScan(dataSet.getTrips().values());
+        final String scan = "tripScan";
+
+        final TripGenerationWriter.TripProductions tripProductions = tripScan.register(new TripGenerationWriter.TripProductions(dataSet));
+        final SummarizeDataToVisualize.TripSummary tripSummary = tripScan.register(new SummarizeDataToVisualize.TripSummary(dataSet));
+        final boolean createCharts = Resources.instance.getBoolean(Properties.CREATE_CHARTS, true);
+        final DistancePlots.TripDistances tripDistances = createCharts ? tripScan.register(new DistancePlots.TripDistances(dataSet)) : null;
+        final SummarizeData7daysMCR.TripCharts tripCharts = createCharts ? tripScan.register(new SummarizeData7daysMCR.TripCharts(dataSet)) : null;
+        outputs.addTask(scan, tripScan);
+
+        outputs.addTask("tripsByPurposeAndZone", () -> TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName, tripProductions), scan);
+        outputs.addTask("finalSummary", () -> SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName, tripSummary), scan);
 
         if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
-            SummarizeData7daysMCR.writeOutSyntheticPopulationWithTrips(dataSet);
-            SummarizeData7daysMCR.writeAllTrips(dataSet,scenarioName);
+            outputs.addTask("syntheticPopulation", () -> SummarizeData7daysMCR.writeOutSyntheticPopulationWithTrips(dataSet));
+            outputs.addTask("trips", () -> SummarizeData7daysMCR.writeAllTrips(dataSet, scenarioName));
             /*for(Day day : Day.values()){
                 for(Mode mode : Mode.values()){
                     Collection<MitoTrip> tripsToPrint = dataSet.getTrips().values().stream().filter(tt -> day.equals(((MitoTrip7days)tt).getDepartureDay()) & mode.equals(tt.getTripMode())).collect(Collectors.toList());
@@ -374,13 +393,14 @@ public final class TravelDemandGeneratorMCR {
                 }
             }*/
         }
-        if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
-            DistancePlots.writeDistanceDistributions(dataSet, scenarioName);
-            ModeChoicePlots.writeModeChoice(dataSet, scenarioName);
-            SummarizeData7daysMCR.writeCharts(dataSet, scenarioName);
+        if (createCharts) {
+            outputs.addTask("distancePlots", () -> DistancePlots.writeDistanceDistributions(dataSet, scenarioName, tripDistances), scan);
+            outputs.addTask("modeChoicePlots", () -> ModeChoicePlots.writeModeChoice(dataSet, scenarioName));
+            outputs.addTask("charts", () -> SummarizeData7daysMCR.writeCharts(dataSet, scenarioName, tripCharts), scan);
         }
         if (Resources.instance.getBoolean(Properties.WRITE_MATSIM_POPULATION, true)) {
-            SummarizeData7daysMCR.writeMatsimPlans(dataSet, scenarioName);
+            outputs.addTask("matsimPlans", () -> SummarizeData7daysMCR.writeMatsimPlans(dataSet, scenarioName));
         }
+        outputs.run();
     }
 }
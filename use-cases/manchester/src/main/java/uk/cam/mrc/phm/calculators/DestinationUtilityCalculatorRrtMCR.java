@@ -5,7 +5,6 @@ import de.tum.bgu.msm.data.MitoPerson7days;
 import de.tum.bgu.msm.data.Mode;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.modules.tripDistribution.AbstractDestinationUtilityCalculator;
-import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 
 import java.util.ArrayList;
@@ -26,7 +25,7 @@ public class DestinationUtilityCalculatorRrtMCR extends AbstractDestinationUtili
             throw new RuntimeException("This calculator is for RRT trips only!");
         }
 
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)){
+        if(Resources.instance.isRunModeSet()){
             distanceParams = DISTANCE_PARAMS_RRT_withModeSet;
             impedanceParam = IMPEDANCE_PARAM_RRT_withModeSet;
         }else {
@@ -40,7 +39,7 @@ public class DestinationUtilityCalculatorRrtMCR extends AbstractDestinationUtili
     public List<Predicate<MitoPerson>> getCategories() {
         List<Predicate<MitoPerson>> filters = new ArrayList<>();
 
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)){
+        if(Resources.instance.isRunModeSet()){
             filters.add(0,p -> (((MitoPerson7days)p).getModeSet().getModes().contains(Mode.walk) && !((MitoPerson7days)p).getModeSet().getModes().contains(Mode.bicycle)));
             filters.add(1,p -> (((MitoPerson7days)p).getModeSet().getModes().contains(Mode.walk) && ((MitoPerson7days)p).getModeSet().getModes().contains(Mode.bicycle)));
             filters.add(2,p -> (!((MitoPerson7days)p).getModeSet().getModes().contains(Mode.walk) && ((MitoPerson7days)p).getModeSet().getModes().contains(Mode.bicycle)));
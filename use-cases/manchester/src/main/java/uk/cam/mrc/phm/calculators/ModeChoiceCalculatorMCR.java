@@ -1,9 +1,13 @@
 package uk.cam.mrc.phm.calculators;
 
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.SkimBasedTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimHandle;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.io.input.readers.ModeChoiceCoefficientReader;
 import de.tum.bgu.msm.modules.modeChoice.AbstractModeChoiceCalculator;
+import de.tum.bgu.msm.modules.modeChoice.ModeCoefficients;
+import de.tum.bgu.msm.modules.modeChoice.ModeUtilities;
 import de.tum.bgu.msm.resources.Resources;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,11 +22,60 @@ public class ModeChoiceCalculatorMCR extends AbstractModeChoiceCalculator {
     private static final Logger LOGGER = LogManager.getLogger(ModeChoiceCalculatorMCR.class);
     private final DataSet dataSet;
 
+    private final ModeCoefficients coefficients;
+    private final Mode[][] availableModesByModeSet;
+
+    private final int asc;
+    private final int age_5_14;
+    private final int age_15_24;
+    private final int age_40_54;
+    private final int age_55_69;
+    private final int age_70;
+    private final int female;
+    private final int occupation_worker;
+    private final int income_low;
+    private final int income_high;
+    private final int recreation_trip;
+    private final int other_trip;
+    private final int cars_0;
+    private final int cars_2;
+    private final int cars_3;
+    private final int cost;
+
+    private volatile Skims skims;
+
     public ModeChoiceCalculatorMCR(Purpose purpose, DataSet dataSet) {
         super();
         coef = new ModeChoiceCoefficientReader(dataSet, purpose, Resources.instance.getModeChoiceCoefficients(purpose)).readCoefficientsForThisPurpose();
         setNests();
         this.dataSet = dataSet;
+
+        coefficients = compileCoefficients(purpose, "asc", "age_5_14", "age_15_24", "age_40_54", "age_55_69", "age_70",
+                "female", "occupation_worker", "income_low", "income_high", "recreation_trip", "other_trip",
+                "cars_0", "cars_2", "cars_3", "cost");
+        asc = coefficients.slot("asc");
+        age_5_14 = coefficients.slot("age_5_14");
+        age_15_24 = coefficients.slot("age_15_24");
+        age_40_54 = coefficients.slot("age_40_54");
+        age_55_69 = coefficients.slot("age_55_69");
+        age_70 = coefficients.slot("age_70");
+        female = coefficients.slot("female");
+        occupation_worker = coefficients.slot("occupation_worker");
+        income_low = coefficients.slot("income_low");
+        income_high = coefficients.slot("income_high");
+        recreation_trip = coefficients.slot("recreation_trip");
+        other_trip = coefficients.slot("other_trip");
+        cars_0 = coefficients.slot("cars_0");
+        cars_2 = coefficients.slot("cars_2");
+        cars_3 = coefficients.slot("cars_3");
+        cost = coefficients.slot("cost");
+
+        availableModesByModeSet = new Mode[ModeSet.values().length][];
+        for (ModeSet modeSet : ModeSet.values()) {
+            availableModesByModeSet[modeSet.ordinal()] = Objects.requireNonNull(modeSet.getModesMNL()).stream()
+                    .filter(coefficients::contains)
+                    .toArray(Mode[]::new);
+        }
     }
 
     private void setNests() {
@@ -36,162 +89,314 @@ public class ModeChoiceCalculatorMCR extends AbstractModeChoiceCalculator {
     }
 
     public EnumMap<Mode, Double> calculateUtilities(Purpose purpose, MitoHousehold household, MitoPerson person, MitoZone originZone, MitoZone destinationZone, TravelTimes travelTimes, double travelDistanceAuto, double travelDistanceNMT, double peakHour_s) {
+        ModeUtilities utilities = new ModeUtilities();
+        calculateUtilities(purpose, household, person, originZone, destinationZone, travelTimes, travelDistanceAuto, travelDistanceNMT, peakHour_s, utilities);
+        return utilities.toEnumMap();
+    }
+
+    @Override
+    public boolean calculateUtilities(Purpose purpose, MitoHousehold household, MitoPerson person, MitoZone originZone, MitoZone destinationZone, TravelTimes travelTimes, double travelDistanceAuto, double travelDistanceNMT, double peakHour_s, ModeUtilities utilities) {
         int age = person.getAge();
         boolean male = person.getMitoGender().equals(MitoGender.MALE);
         int hhincome = household.getMonthlyIncome();
         int hhAutos = household.getAutos();
 
-        EnumMap<Mode, Double> generalizedCosts = calculateGeneralizedCosts(purpose, household, person,
-                originZone, destinationZone, travelTimes, travelDistanceAuto, travelDistanceNMT, peakHour_s);
-
-
-        EnumMap<Mode, Double> utilities = new EnumMap<>(Mode.class);
-
-        Set<Mode> availableModes = Objects.requireNonNull(((MitoPerson7days) person).getModeSet().getModesMNL());
-        availableModes.retainAll(coef.keySet());
+        final Skims skims = getSkims(purpose, travelTimes, peakHour_s);
+        double timeAuto = skims.getCarTime(originZone, destinationZone); //min
+        double timePt = skims.getPtTime(originZone, destinationZone);
+        double gcWalk = skims.getWalkCost(person, originZone, destinationZone);
+        double gcBicycle = skims.getBikeCost(person, originZone, destinationZone);
 
         // Restrict availability in certain cases
-        if(age < 15 || (purpose.equals(Purpose.NHBO) && hhAutos == 0)) {
-            availableModes.remove(autoDriver);
-        }
+        boolean autoDriverAvailable = !(age < 15 || (purpose.equals(Purpose.NHBO) && hhAutos == 0));
 
-        // Compute utility
-        for (Mode mode : availableModes){
-            final Map<String, Double> modeCoef = coef.get(mode);
+        // Person and household specific part of the utility, by coefficient slot
+        utilities.reset();
+        for (Mode mode : availableModesByModeSet[((MitoPerson7days) person).getModeSet().ordinal()]) {
+            if (mode == autoDriver && !autoDriverAvailable) {
+                continue;
+            }
+            final double[] modeCoef = coefficients.forMode(mode);
 
             // Intercept
-            double utility = modeCoef.get("asc");
+            double utility = modeCoef[asc];
 
             // Age
             if(age < 15){
-                utility += modeCoef.get("age_5_14");
+                utility += modeCoef[age_5_14];
             } else if (age < 25) {
-                utility += modeCoef.get("age_15_24");
+                utility += modeCoef[age_15_24];
             } else if (age < 40) {
                 utility += 0;
             } else if (age < 55) {
-                utility += modeCoef.get("age_40_54");
+                utility += modeCoef[age_40_54];
             } else if (age < 70) {
-                utility += modeCoef.get("age_55_69");
+                utility += modeCoef[age_55_69];
             } else {
-                utility += modeCoef.get("age_70");
+                utility += modeCoef[age_70];
             }
 
             // gender
             if (!male) {
-                utility += modeCoef.get("female");
+                utility += modeCoef[female];
             }
 
             // occupation
             if (MitoOccupationStatus.WORKER.equals(person.getMitoOccupationStatus())){
-                utility += modeCoef.get("occupation_worker");
+                utility += modeCoef[occupation_worker];
             }
 
             // Household income
             if (hhincome < 1500) {
-                utility += modeCoef.get("income_low");
+                utility += modeCoef[income_low];
             } else if (hhincome > 5000) {
-                utility += modeCoef.get("income_high");
+                utility += modeCoef[income_high];
             }
 
             // purpose
             if (purpose.equals(Purpose.HBR)) {
-                utility += modeCoef.get("recreation_trip");
+                utility += modeCoef[recreation_trip];
             } else if (purpose.equals(Purpose.HBO)) {
-                utility += modeCoef.get("other_trip");
+                utility += modeCoef[other_trip];
             }
 
             // Household cars
             if (hhAutos == 0) {
-                utility += modeCoef.get("cars_0");
+                utility += modeCoef[cars_0];
             } else if(hhAutos == 2) {
-                utility += modeCoef.get("cars_2");
+                utility += modeCoef[cars_2];
             } else if(hhAutos > 2) {
-                utility += modeCoef.get("cars_3");
+                utility += modeCoef[cars_3];
             }
 
             // Generalised cost
-            double gc = generalizedCosts.get(mode);
-            utility += gc * modeCoef.get("cost");
+            final double gc;
+            switch (mode) {
+                case autoDriver:
+                case autoPassenger:
+                    gc = timeAuto;
+                    break;
+                case pt:
+                    gc = timePt;
+                    break;
+                case bicycle:
+                    gc = gcBicycle;
+                    break;
+                case walk:
+                    gc = gcWalk;
+                    break;
+                default:
+                    throw new RuntimeException("No generalized cost defined for mode " + mode);
+            }
+            utility += gc * modeCoef[cost];
 
             // Utilities
-            utilities.put(mode, utility);
+            utilities.set(mode, utility);
         }
 
-        return utilities;
+        return true;
     }
 
     public EnumMap<Mode, Double> calculateGeneralizedCosts(Purpose purpose, MitoHousehold household, MitoPerson person, MitoZone originZone,
                                                            MitoZone destinationZone, TravelTimes travelTimes,
                                                            double travelDistanceAuto, double travelDistanceNMT, double peakHour_s) {
 
-        double timeAutoD = travelTimes.getTravelTime(originZone, destinationZone, peakHour_s, "car"); //min
+        final Skims skims = getSkims(purpose, travelTimes, peakHour_s);
+        double timeAutoD = skims.getCarTime(originZone, destinationZone); //min
         double timeAutoP = timeAutoD;
 
-        double timePt = travelTimes.getTravelTime(originZone, destinationZone, peakHour_s, "pt");//min
+        double timePt = skims.getPtTime(originZone, destinationZone);
+
+        // Get walk and bike cost from skims
+        double gcWalk = skims.getWalkCost(person, originZone, destinationZone);
+        double gcBicycle = skims.getBikeCost(person, originZone, destinationZone);
+
+        EnumMap<Mode, Double> generalizedCosts = new EnumMap<>(Mode.class);
+        generalizedCosts.put(autoDriver, timeAutoD);
+        generalizedCosts.put(autoPassenger, timeAutoP);
+        generalizedCosts.put(pt, timePt);
+        generalizedCosts.put(bicycle, gcBicycle);
+        generalizedCosts.put(walk, gcWalk);
+        return generalizedCosts;
+
+    }
+
+    /**
+     * Returns the skims for the given travel times, purpose and peak hour, which are resolved again only if one of
+     * them changes.
+     */
+    private Skims getSkims(Purpose purpose, TravelTimes travelTimes, double peakHour_s) {
+        Skims current = skims;
+        if (current == null || !current.isFor(purpose, travelTimes, peakHour_s)) {
+            current = new Skims(purpose, travelTimes, peakHour_s);
+            skims = current;
+        }
+        return current;
+    }
 
+    private static double replaceInfinitePtTravelTime(double timePt) {
         //TODO, check Inf travel time, intrazonal or missing PT connection?
         if (timePt == Double.POSITIVE_INFINITY) {
             timePt = 9999;
         }
+        return timePt;
+    }
 
-        // Default case: use given walk/bike skim for purpose
-        String walkSkimName = null;
-        String bikeSkimName = null;
+    // Default case: use given walk skim for purpose
+    private static String getWalkSkimName(Purpose purpose, boolean child, boolean elderly) {
+        switch(purpose) {
+            case HBW:
+                return "walk_HBW";
+            case HBE:
+                return "walk_HBE";
+            case HBS:
+            case HBR:
+            case HBO:
+                if(child) {
+                    return "walk_HBD_child";
+                } else if (elderly) {
+                    return "walk_HBD_elderly";
+                }
+                return "walk_HBD";
+            case HBA:
+                return "walk_HBA";
+            case NHBO:
+                return "walk_NHBO";
+            case NHBW:
+                return "walk";
+            default:
+                LOGGER.error("Unknown purpose " + purpose);
+                return null;
+        }
+    }
 
+    // Default case: use given bike skim for purpose
+    private static String getBikeSkimName(Purpose purpose, boolean child, boolean male) {
         switch(purpose) {
             case HBW:
-                walkSkimName = "walk_HBW";
-                if (person.getMitoGender().equals(MitoGender.MALE)) {
-                    bikeSkimName = "bike_HBW";
+                if (male) {
+                    return "bike_HBW";
                 } else {
-                    bikeSkimName = "bike_HBW_female";
+                    return "bike_HBW_female";
                 }
-                break;
             case HBE:
-                walkSkimName = "walk_HBE";
-                bikeSkimName = "bike_HBE";
-                break;
+                return "bike_HBE";
             case HBS:
             case HBR:
             case HBO:
-                walkSkimName = "walk_HBD";
-                bikeSkimName = "bike_HBD";
-                if(person.getAge() < 15) {
-                    walkSkimName = "walk_HBD_child";
-                    bikeSkimName = "bike_HBD_child";
-                } else if (person.getAge() >= 65) {
-                    walkSkimName = "walk_HBD_elderly";
+                if(child) {
+                    return "bike_HBD_child";
                 }
-                break;
+                return "bike_HBD";
             case HBA:
-                walkSkimName = "walk_HBA";
-                bikeSkimName = "bike";
-                break;
             case NHBO:
-                walkSkimName = "walk_NHBO";
-                bikeSkimName = "bike";
-                break;
             case NHBW:
-                walkSkimName = "walk";
-                bikeSkimName = "bike";
-                break;
+                return "bike";
             default:
                 LOGGER.error("Unknown purpose " + purpose);
+                return null;
         }
+    }
 
-        // Get walk and bike cost from skims
-        double gcWalk = travelTimes.getTravelTime(originZone, destinationZone, peakHour_s, walkSkimName);
-        double gcBicycle = travelTimes.getTravelTime(originZone, destinationZone, peakHour_s, bikeSkimName);
+    /**
+     * The skims of one purpose at the peak hour. For skim based travel times, the skims are resolved to handles once,
+     * so that no skim is looked up by name per trip. Walk and bike skims depend on the age group and gender of the
+     * person and are resolved on first use. Other travel times are looked up by name.
+     */
+    private static final class Skims {
+
+        private static final int PERSON_GROUPS = 6;
+
+        private final Purpose purpose;
+        private final TravelTimes travelTimes;
+        private final SkimBasedTravelTimes skimBasedTravelTimes;
+        private final double peakHour_s;
+        private final SkimHandle car;
+        private final SkimHandle pt;
+        private final SkimHandle[] walkByPersonGroup = new SkimHandle[PERSON_GROUPS];
+        private final SkimHandle[] bikeByPersonGroup = new SkimHandle[PERSON_GROUPS];
+
+        private Skims(Purpose purpose, TravelTimes travelTimes, double peakHour_s) {
+            this.purpose = purpose;
+            this.travelTimes = travelTimes;
+            this.peakHour_s = peakHour_s;
+            if (travelTimes instanceof SkimBasedTravelTimes) {
+                skimBasedTravelTimes = (SkimBasedTravelTimes) travelTimes;
+                car = skimBasedTravelTimes.getSkimHandle("car", peakHour_s);
+                pt = skimBasedTravelTimes.getSkimHandle("pt", peakHour_s);
+            } else {
+                skimBasedTravelTimes = null;
+                car = null;
+                pt = null;
+            }
+        }
 
-        EnumMap<Mode, Double> generalizedCosts = new EnumMap<>(Mode.class);
-        generalizedCosts.put(autoDriver, timeAutoD);
-        generalizedCosts.put(autoPassenger, timeAutoP);
-        generalizedCosts.put(pt, timePt);
-        generalizedCosts.put(bicycle, gcBicycle);
-        generalizedCosts.put(walk, gcWalk);
-        return generalizedCosts;
+        private boolean isFor(Purpose purpose, TravelTimes travelTimes, double peakHour_s) {
+            return this.purpose == purpose && this.travelTimes == travelTimes && Double.compare(this.peakHour_s, peakHour_s) == 0;
+        }
 
-    }
+        private double getCarTime(MitoZone origin, MitoZone destination) {
+            if (car == null) {
+                return travelTimes.getTravelTime(origin, destination, peakHour_s, "car");
+            }
+            return car.get(car.getIndex(origin.getZoneId()), car.getIndex(destination.getZoneId()));
+        }
 
+        private double getPtTime(MitoZone origin, MitoZone destination) {
+            if (pt == null) {
+                return replaceInfinitePtTravelTime(travelTimes.getTravelTime(origin, destination, peakHour_s, "pt"));
+            }
+            return replaceInfinitePtTravelTime(pt.get(pt.getIndex(origin.getZoneId()), pt.getIndex(destination.getZoneId())));
+        }
+
+        private double getWalkCost(MitoPerson person, MitoZone origin, MitoZone destination) {
+            if (skimBasedTravelTimes == null) {
+                return travelTimes.getTravelTime(origin, destination, peakHour_s,
+                        getWalkSkimName(purpose, isChild(person), isElderly(person)));
+            }
+            final int group = getPersonGroup(person);
+            SkimHandle walk = walkByPersonGroup[group];
+            if (walk == null) {
+                walk = skimBasedTravelTimes.getSkimHandle(
+                        getWalkSkimName(purpose, group / 2 == 0, group / 2 == 2), peakHour_s);
+                walkByPersonGroup[group] = walk;
+            }
+            return walk.get(walk.getIndex(origin.getZoneId()), walk.getIndex(destination.getZoneId()));
+        }
+
+        private double getBikeCost(MitoPerson person, MitoZone origin, MitoZone destination) {
+            if (skimBasedTravelTimes == null) {
+                return travelTimes.getTravelTime(origin, destination, peakHour_s,
+                        getBikeSkimName(purpose, isChild(person), isMale(person)));
+            }
+            final int group = getPersonGroup(person);
+            SkimHandle bike = bikeByPersonGroup[group];
+            if (bike == null) {
+                bike = skimBasedTravelTimes.getSkimHandle(
+                        getBikeSkimName(purpose, group / 2 == 0, group % 2 == 0), peakHour_s);
+                bikeByPersonGroup[group] = bike;
+            }
+            return bike.get(bike.getIndex(origin.getZoneId()), bike.getIndex(destination.getZoneId()));
+        }
+
+        /**
+         * Returns 2 * age group (0 child, 1 adult, 2 elderly) + 1 if female.
+         */
+        private static int getPersonGroup(MitoPerson person) {
+            final int ageGroup = isChild(person) ? 0 : isElderly(person) ? 2 : 1;
+            return 2 * ageGroup + (isMale(person) ? 0 : 1);
+        }
+
+        private static boolean isChild(MitoPerson person) {
+            return person.getAge() < 15;
+        }
+
+        private static boolean isElderly(MitoPerson person) {
+            return person.getAge() >= 65;
+        }
+
+        private static boolean isMale(MitoPerson person) {
+            return person.getMitoGender().equals(MitoGender.MALE);
+        }
+    }
 }
@@ -4,7 +4,15 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarFileFormat.Encoding;
+import de.tum.bgu.msm.io.output.ColumnarFileWriter;
+import de.tum.bgu.msm.io.output.CsvRowBuffer;
+import de.tum.bgu.msm.io.output.ParallelCsvWriter;
 import de.tum.bgu.msm.io.output.SummarizeData;
+import de.tum.bgu.msm.io.output.TripScan;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
@@ -23,6 +31,7 @@ import org.matsim.core.utils.geometry.CoordUtils;
 import java.io.PrintWriter;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Methods to summarize model results
@@ -35,88 +44,139 @@ public class SummarizeData7daysMCR {
     public static void writeOutSyntheticPopulationWithTrips(DataSet dataSet) {
 
         LOGGER.info("  Writing household file");
-        Path filehh = Resources.instance.getOutputHouseholdPath();
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(filehh.toAbsolutePath().toString(), false);
-        pwh.println("hh.id,hh.zone,hh.locX,hh.locY,hh.isModelled,hh.size,hh.children,hh.econStatus,hh.cars,hh.autosPerAdult,hh.urban");
+        final List<MitoHousehold> households = new ArrayList<>();
         for (MitoHousehold hh : dataSet.getHouseholds().values()) {
-            final MitoZone homeZone = hh.getHomeZone();
-            if(homeZone == null) {
+            if(hh.getHomeZone() == null) {
                 LOGGER.warn("Skipping household " + hh.getId() + " as no home zone is defined");
                 break;
             }
-            pwh.print(hh.getId());
-            pwh.print(",");
-            pwh.print(homeZone.getZoneId());
-            pwh.print(",");
-            pwh.print(hh.getCoordinate().x);
-            pwh.print(",");
-            pwh.print(hh.getCoordinate().y);
-            pwh.print(",");
-            pwh.print(hh.isModelled() ? 1 : 0);
-            pwh.print(",");
-            pwh.print(hh.getHhSize());
-            pwh.print(",");
-            pwh.print(hh.getChildrenForHousehold());
-            pwh.print(",");
-            pwh.print(hh.getEconomicStatus());
-            pwh.print(",");
-            pwh.print(hh.getAutos());
-            pwh.print(",");
-            pwh.print(Math.min((double) hh.getAutos() / (hh.getHhSize() - hh.getChildrenForHousehold()) , 1.0));
-            pwh.print(",");
-            pwh.println(hh.getHomeZone().getAreaTypeR().equals(AreaTypes.RType.RURAL) ? 0:1 );
+            households.add(hh);
+        }
+        Path filehh = Resources.instance.getOutputHouseholdPath();
+        new ParallelCsvWriter().write(ParallelCsvWriter.microDataFileName(filehh.toAbsolutePath().toString()),
+                "hh.id,hh.zone,hh.locX,hh.locY,hh.isModelled,hh.size,hh.children,hh.econStatus,hh.cars,hh.autosPerAdult,hh.urban",
+                households, (hh, row, random) -> row
+                        .append(hh.getId()).separator()
+                        .append(hh.getHomeZone().getZoneId()).separator()
+                        .append(hh.getCoordinate().x).separator()
+                        .append(hh.getCoordinate().y).separator()
+                        .append(hh.isModelled() ? 1 : 0).separator()
+                        .append(hh.getHhSize()).separator()
+                        .append(hh.getChildrenForHousehold()).separator()
+                        .append(hh.getEconomicStatus()).separator()
+                        .append(hh.getAutos()).separator()
+                        .append(Math.min((double) hh.getAutos() / (hh.getHhSize() - hh.getChildrenForHousehold()) , 1.0)).separator()
+                        .append(hh.getHomeZone().getAreaTypeR().equals(AreaTypes.RType.RURAL) ? 0:1 ).endRow());
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarHouseholds(ColumnarFileFormat.fileName(filehh.toAbsolutePath().toString()), households);
         }
-        pwh.close();
 
         LOGGER.info("  Writing person file");
-        Path filepp = Resources.instance.getOutputPersonsPath();
-        PrintWriter pwp = MitoUtil.openFileForSequentialWriting(filepp.toAbsolutePath().toString(), false);
-        pwp.println("p.ID,hh.id,p.age,p.female,p.occupationStatus,p.driversLicense,p.ownBicycle,p.modeSet," +
-                "p.trips,p.trips_HBW,p.trips_HBE,p.trips_HBS,p.trips_HBR,p.trips_HBO,p.trips_RRT,p.trips_NHBW,p.trips_NHBO,p.trips_AIRPORT");
+        final List<MitoPerson> persons = new ArrayList<>();
         for(MitoHousehold hh: dataSet.getHouseholds().values()) {
-            for (MitoPerson pp : hh.getPersons().values()) {
-                    pwp.print(pp.getId());
-                    pwp.print(",");
-                    pwp.print(hh.getId());
-                    pwp.print(",");
-                    pwp.print(pp.getAge());
-                    pwp.print(",");
-                    pwp.print(pp.getMitoGender().equals(MitoGender.FEMALE) ? 1 : 0);
-                    pwp.print(",");
-                    pwp.print(pp.getMitoOccupationStatus());
-                    pwp.print(",");
-                    pwp.print(pp.hasDriversLicense());
-                    pwp.print(",");
-                    pwp.print(pp.getHasBicycle().get());
-                    pwp.print(",");
+            persons.addAll(hh.getPersons().values());
+        }
+        Path filepp = Resources.instance.getOutputPersonsPath();
+        new ParallelCsvWriter().write(ParallelCsvWriter.microDataFileName(filepp.toAbsolutePath().toString()),
+                "p.ID,hh.id,p.age,p.female,p.occupationStatus,p.driversLicense,p.ownBicycle,p.modeSet," +
+                "p.trips,p.trips_HBW,p.trips_HBE,p.trips_HBS,p.trips_HBR,p.trips_HBO,p.trips_RRT,p.trips_NHBW,p.trips_NHBO,p.trips_AIRPORT",
+                persons, (pp, row, random) -> {
+                    row.append(pp.getId()).separator()
+                            .append(pp.getHousehold().getId()).separator()
+                            .append(pp.getAge()).separator()
+                            .append(pp.getMitoGender().equals(MitoGender.FEMALE) ? 1 : 0).separator()
+                            .append(pp.getMitoOccupationStatus()).separator()
+                            .append(pp.hasDriversLicense()).separator()
+                            .append(pp.getHasBicycle().get()).separator();
                     if(((MitoPerson7days)pp).getModeSet()==null){
-                        pwp.print("null");
+                        row.append("null");
                     }else {
-                        pwp.print(((MitoPerson7days)pp).getModeSet().toString());
+                        row.append(((MitoPerson7days)pp).getModeSet().toString());
                     }
-                    pwp.print(",");
-                    pwp.print(pp.getTrips().size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.HBW).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.HBE).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.HBS).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.HBR).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.HBO).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.RRT).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.NHBW).size());
-                    pwp.print(",");
-                    pwp.print(pp.getTripsForPurpose(Purpose.NHBO).size());
-                    pwp.print(",");
-                    pwp.println(pp.getTripsForPurpose(Purpose.AIRPORT).size());
+                    row.separator()
+                            .append(pp.getTrips().size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.HBW).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.HBE).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.HBS).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.HBR).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.HBO).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.RRT).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.NHBW).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.NHBO).size()).separator()
+                            .append(pp.getTripsForPurpose(Purpose.AIRPORT).size()).endRow();
+                });
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarPersons(ColumnarFileFormat.fileName(filepp.toAbsolutePath().toString()), persons);
+        }
+    }
+
+    private static void writeColumnarHouseholds(String file, List<MitoHousehold> households) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int id = writer.addColumn("hh.id", ColumnType.INT, Encoding.DELTA);
+            final int zone = writer.addColumn("hh.zone", ColumnType.INT, Encoding.PLAIN);
+            final int locX = writer.addColumn("hh.locX", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int locY = writer.addColumn("hh.locY", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int isModelled = writer.addColumn("hh.isModelled", ColumnType.INT, Encoding.PLAIN);
+            final int size = writer.addColumn("hh.size", ColumnType.INT, Encoding.PLAIN);
+            final int children = writer.addColumn("hh.children", ColumnType.INT, Encoding.PLAIN);
+            final int econStatus = writer.addColumn("hh.econStatus", ColumnType.INT, Encoding.PLAIN);
+            final int cars = writer.addColumn("hh.cars", ColumnType.INT, Encoding.PLAIN);
+            final int autosPerAdult = writer.addColumn("hh.autosPerAdult", ColumnType.DOUBLE, Encoding.PLAIN);
+            final int urban = writer.addColumn("hh.urban", ColumnType.INT, Encoding.PLAIN);
+            for (MitoHousehold hh : households) {
+                writer.setInt(id, hh.getId())
+                        .setInt(zone, hh.getHomeZone().getZoneId())
+                        .setDouble(locX, hh.getCoordinate().x)
+                        .setDouble(locY, hh.getCoordinate().y)
+                        .setInt(isModelled, hh.isModelled() ? 1 : 0)
+                        .setInt(size, hh.getHhSize())
+                        .setInt(children, hh.getChildrenForHousehold())
+                        .setInt(econStatus, hh.getEconomicStatus())
+                        .setInt(cars, hh.getAutos())
+                        .setDouble(autosPerAdult, Math.min((double) hh.getAutos() / (hh.getHhSize() - hh.getChildrenForHousehold()) , 1.0))
+                        .setInt(urban, hh.getHomeZone().getAreaTypeR().equals(AreaTypes.RType.RURAL) ? 0 : 1)
+                        .endRow();
+            }
+        }
+    }
+
+    /**
+     * Writes the persons in the columnar format, with the drivers license and bicycle ownership as 0 or 1.
+     */
+    private static void writeColumnarPersons(String file, List<MitoPerson> persons) {
+        final Purpose[] purposes = {Purpose.HBW, Purpose.HBE, Purpose.HBS, Purpose.HBR, Purpose.HBO, Purpose.RRT,
+                Purpose.NHBW, Purpose.NHBO, Purpose.AIRPORT};
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int id = writer.addColumn("p.ID", ColumnType.INT, Encoding.DELTA);
+            final int hhId = writer.addColumn("hh.id", ColumnType.INT, Encoding.DELTA);
+            final int age = writer.addColumn("p.age", ColumnType.INT, Encoding.PLAIN);
+            final int female = writer.addColumn("p.female", ColumnType.INT, Encoding.PLAIN);
+            final int occupationStatus = writer.addColumn("p.occupationStatus", ColumnType.STRING, Encoding.DICTIONARY);
+            final int driversLicense = writer.addColumn("p.driversLicense", ColumnType.INT, Encoding.PLAIN);
+            final int ownBicycle = writer.addColumn("p.ownBicycle", ColumnType.INT, Encoding.PLAIN);
+            final int modeSet = writer.addColumn("p.modeSet", ColumnType.STRING, Encoding.DICTIONARY);
+            final int trips = writer.addColumn("p.trips", ColumnType.INT, Encoding.PLAIN);
+            final int[] tripsByPurpose = new int[purposes.length];
+            for (int i = 0; i < purposes.length; i++) {
+                tripsByPurpose[i] = writer.addColumn("p.trips_" + purposes[i], ColumnType.INT, Encoding.PLAIN);
+            }
+            for (MitoPerson pp : persons) {
+                final ModeSet personModeSet = ((MitoPerson7days) pp).getModeSet();
+                writer.setInt(id, pp.getId())
+                        .setInt(hhId, pp.getHousehold().getId())
+                        .setInt(age, pp.getAge())
+                        .setInt(female, pp.getMitoGender().equals(MitoGender.FEMALE) ? 1 : 0)
+                        .setString(occupationStatus, String.valueOf(pp.getMitoOccupationStatus()))
+                        .setInt(driversLicense, pp.hasDriversLicense() ? 1 : 0)
+                        .setInt(ownBicycle, pp.getHasBicycle().get() ? 1 : 0)
+                        .setString(modeSet, personModeSet == null ? null : personModeSet.toString())
+                        .setInt(trips, pp.getTrips().size());
+                for (int i = 0; i < purposes.length; i++) {
+                    writer.setInt(tripsByPurpose[i], pp.getTripsForPurpose(purposes[i]).size());
                 }
+                writer.endRow();
             }
-        pwp.close();
+        }
     }
 
     private static String getLocationType(Location loc) {
@@ -137,122 +197,207 @@ public class SummarizeData7daysMCR {
         }
     }
 
-    public static void writeTrips(DataSet dataSet, PrintWriter pwh, Collection<MitoTrip> tripsToPrint) {
-        pwh.println("hh.id,p.ID,t.id," +
-                "originZone,originType,originId,originX,originY," +
-                "destinationZone,destinationType,destinationId,destinationX,destinationY," +
-                "t.purpose,t.distance_walk,t.distance_bike,t.distance_auto,time_auto,time_pt,time_walk,time_bike," +
-                "mode,departure_day,departure_time,activity_duration,departure_time_return");
+    private static final String[] TRIP_SKIM_COLUMNS = {"t.distance_walk", "t.distance_bike", "t.distance_auto",
+            "time_auto", "time_pt", "time_walk", "time_bike"};
 
+    private static final String TRIP_HEADER = "hh.id,p.ID,t.id," +
+            "originZone,originType,originId,originX,originY," +
+            "destinationZone,destinationType,destinationId,destinationX,destinationY," +
+            "t.purpose,t.distance_walk,t.distance_bike,t.distance_auto,time_auto,time_pt,time_walk,time_bike," +
+            "mode,departure_day,departure_time,activity_duration,departure_time_return";
+
+    public static void writeTrips(DataSet dataSet, PrintWriter pwh, Collection<MitoTrip> tripsToPrint) {
+        pwh.println(TRIP_HEADER);
+        final CsvRowBuffer row = new CsvRowBuffer();
         for(MitoTrip trip : tripsToPrint) {
-            pwh.print(trip.getPerson().getHousehold().getId());
-            pwh.print(",");
-            pwh.print(trip.getPerson().getId());
-            pwh.print(",");
-            pwh.print(trip.getId());
-            pwh.print(",");
-            Location origin = trip.getTripOrigin();
-            pwh.print(origin == null ? "null" : String.valueOf(origin.getZoneId()));
-            pwh.print(",");
-            pwh.print(getLocationType(origin));
-            pwh.print(",");
-            if(origin instanceof Id) {
-                pwh.print(((Id) origin).getId());
+            formatTrip(dataSet, trip, row, MitoUtil.getRandomObject());
+            pwh.print(row);
+            row.clear();
+        }
+    }
+
+    /**
+     * Writes the trips with rows formatted in parallel. Random coordinates of trips without micro location are
+     * drawn from random number streams per chunk of trips.
+     */
+    private static void writeTrips(DataSet dataSet, String file, Collection<MitoTrip> tripsToPrint) {
+        final ParallelCsvWriter writer = new ParallelCsvWriter();
+        if (Resources.instance.isFillMicroDataWithMicroLocation()) {
+            writer.withRandomSeed(MitoUtil.getRandomObject().nextLong());
+        }
+        writer.write(ParallelCsvWriter.microDataFileName(file), TRIP_HEADER, tripsToPrint,
+                (trip, row, random) -> formatTrip(dataSet, trip, row, random));
+        if (Resources.instance.getBoolean(Properties.COLUMNAR_MICRO_DATA, false)) {
+            writeColumnarTrips(dataSet, ColumnarFileFormat.fileName(file), tripsToPrint, writer);
+        }
+    }
+
+    /**
+     * Writes the trips in the columnar format. Random coordinates of trips without micro location are drawn from the
+     * same random number streams as for the csv file, so both files hold the same coordinates.
+     */
+    private static void writeColumnarTrips(DataSet dataSet, String file, Collection<MitoTrip> tripsToPrint, ParallelCsvWriter csvWriter) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            final int hhId = writer.addColumn("hh.id", ColumnType.INT, Encoding.PLAIN);
+            final int personId = writer.addColumn("p.ID", ColumnType.INT, Encoding.PLAIN);
+            final int tripId = writer.addColumn("t.id", ColumnType.INT, Encoding.DELTA);
+            final int[] originColumns = addLocationColumns(writer, "origin");
+            final int[] destinationColumns = addLocationColumns(writer, "destination");
+            final int purpose = writer.addColumn("t.purpose", ColumnType.STRING, Encoding.DICTIONARY);
+            final int[] skimColumns = new int[TRIP_SKIM_COLUMNS.length];
+            for (int i = 0; i < TRIP_SKIM_COLUMNS.length; i++) {
+                skimColumns[i] = writer.addColumn(TRIP_SKIM_COLUMNS[i], ColumnType.DOUBLE, Encoding.PLAIN);
             }
-            pwh.print(",");
-            if(origin instanceof MicroLocation){
-                pwh.print(((MicroLocation) origin).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) origin).getCoordinate().y);
-                pwh.print(",");
-            } else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        origin != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
+            final int mode = writer.addColumn("mode", ColumnType.STRING, Encoding.DICTIONARY);
+            final int departureDay = writer.addColumn("departure_day", ColumnType.STRING, Encoding.DICTIONARY);
+            final int departureTime = writer.addColumn("departure_time", ColumnType.INT, Encoding.PLAIN);
+            final int activityDuration = writer.addColumn("activity_duration", ColumnType.INT, Encoding.PLAIN);
+            final int departureTimeReturn = writer.addColumn("departure_time_return", ColumnType.INT, Encoding.PLAIN);
+            csvWriter.forEachRow(tripsToPrint, (trip, random) -> {
+                writer.setInt(hhId, trip.getPerson().getHousehold().getId())
+                        .setInt(personId, trip.getPerson().getId())
+                        .setInt(tripId, trip.getId());
+                Location origin = trip.getTripOrigin();
+                setLocation(dataSet, origin, random, writer, originColumns);
+                Location destination = trip.getTripDestination();
+                setLocation(dataSet, destination, random, writer, destinationColumns);
+                if (trip.getTripPurpose() != null) {
+                    writer.setString(purpose, trip.getTripPurpose().toString());
                 }
-            }
+                if (origin != null && destination != null) {
+                    final double[] skims = getTripSkims(dataSet, origin, destination);
+                    for (int i = 0; i < skims.length; i++) {
+                        writer.setDouble(skimColumns[i], skims[i]);
+                    }
+                }
+                if (trip.getTripMode() != null) {
+                    writer.setString(mode, trip.getTripMode().toString());
+                }
+                final Day day = ((MitoTrip7days) trip).getDepartureDay();
+                writer.setString(departureDay, day == null ? null : day.toString())
+                        .setInt(departureTime, trip.getDepartureInMinutes())
+                        .setInt(activityDuration, trip.getActivityDurationInMinutes());
+                if (trip.getDepartureInMinutesReturnTrip() != -1) {
+                    writer.setInt(departureTimeReturn, trip.getDepartureInMinutesReturnTrip());
+                }
+                writer.endRow();
+            });
+        }
+    }
 
-            Location destination = trip.getTripDestination();
-            pwh.print(destination == null ? "null" : String.valueOf(destination.getZoneId()));
-            pwh.print(",");
-            pwh.print(getLocationType(destination));
-            pwh.print(",");
-            if(destination instanceof Id) {
-                pwh.print(((Id) destination).getId());
-            }
-            pwh.print(",");
-            if(destination instanceof MicroLocation){
-                pwh.print(((MicroLocation) destination).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) destination).getCoordinate().y);
-                pwh.print(",");
-            }else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        destination != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
+    /**
+     * Returns the walk, bike and auto distances and the peak hour travel times by congested car, pt, walk and bike
+     * between origin and destination, in the order of {@link #TRIP_SKIM_COLUMNS}. Congested car travel times are
+     * written for post-analysis, while mode choice uses free speed car travel times to be consistent with the
+     * empirical model.
+     */
+    private static double[] getTripSkims(DataSet dataSet, Location origin, Location destination) {
+        final int originZone = origin.getZoneId();
+        final int destinationZone = destination.getZoneId();
+        final TravelTimes travelTimes = dataSet.getTravelTimes();
+        return new double[]{
+                ((DataSetImpl) dataSet).getTravelDistancesWalk().getTravelDistance(originZone, destinationZone),
+                ((DataSetImpl) dataSet).getTravelDistancesBike().getTravelDistance(originZone, destinationZone),
+                dataSet.getTravelDistancesAuto().getTravelDistance(originZone, destinationZone),
+                travelTimes.getTravelTime(origin, destination, dataSet.getPeakHour(), "carCongested"),
+                travelTimes.getTravelTime(origin, destination, dataSet.getPeakHour(), "pt"),
+                travelTimes.getTravelTime(origin, destination, dataSet.getPeakHour(), "walk"),
+                travelTimes.getTravelTime(origin, destination, dataSet.getPeakHour(), "bike")};
+    }
+
+    /**
+     * Adds the zone, type, id and coordinate columns of a trip origin or destination.
+     */
+    private static int[] addLocationColumns(ColumnarFileWriter writer, String prefix) {
+        return new int[]{
+                writer.addColumn(prefix + "Zone", ColumnType.INT, Encoding.PLAIN),
+                writer.addColumn(prefix + "Type", ColumnType.STRING, Encoding.DICTIONARY),
+                writer.addColumn(prefix + "Id", ColumnType.INT, Encoding.PLAIN),
+                writer.addColumn(prefix + "X", ColumnType.DOUBLE, Encoding.PLAIN),
+                writer.addColumn(prefix + "Y", ColumnType.DOUBLE, Encoding.PLAIN)};
+    }
+
+    /**
+     * Sets the columns added by {@link #addLocationColumns}, drawing random coordinates in the same cases as
+     * {@link #formatLocation}.
+     */
+    private static void setLocation(DataSet dataSet, Location location, Random random, ColumnarFileWriter writer, int[] columns) {
+        if (location == null) {
+            return;
+        }
+        writer.setInt(columns[0], location.getZoneId())
+                .setString(columns[1], getLocationType(location));
+        if (location instanceof Id) {
+            writer.setInt(columns[2], ((Id) location).getId());
+        }
+        if (location instanceof MicroLocation) {
+            writer.setDouble(columns[3], ((MicroLocation) location).getCoordinate().x)
+                    .setDouble(columns[4], ((MicroLocation) location).getCoordinate().y);
+        } else if (Resources.instance.isFillMicroDataWithMicroLocation()) {
+            Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(location.getZoneId()).getRandomCoord(random));
+            writer.setDouble(columns[3], coordinate.getX())
+                    .setDouble(columns[4], coordinate.getY());
+        }
+    }
+
+    private static void formatTrip(DataSet dataSet, MitoTrip trip, CsvRowBuffer row, Random random) {
+        row.append(trip.getPerson().getHousehold().getId()).separator()
+                .append(trip.getPerson().getId()).separator()
+                .append(trip.getId()).separator();
+        Location origin = trip.getTripOrigin();
+        formatLocation(dataSet, origin, row, random);
+
+        Location destination = trip.getTripDestination();
+        formatLocation(dataSet, destination, row, random);
+
+        row.append(trip.getTripPurpose()).separator();
+        if(origin != null && destination != null) {
+            final double[] skims = getTripSkims(dataSet, origin, destination);
+            for (int i = 0; i < skims.length; i++) {
+                if (i > 0) {
+                    row.separator();
                 }
+                row.append(skims[i]);
             }
+        } else {
+            row.append("NA,NA,NA,NA,NA,NA,NA");
+        }
+        row.separator()
+                .append(trip.getTripMode()).separator()
+                .append(((MitoTrip7days)trip).getDepartureDay()).separator()
+                .append(trip.getDepartureInMinutes()).separator()
+                .append(trip.getActivityDurationInMinutes()).separator();
+        int departureOfReturnTrip = trip.getDepartureInMinutesReturnTrip();
+        if (departureOfReturnTrip != -1){
+            row.append(departureOfReturnTrip);
+        } else {
+            row.append("NA");
+        }
+        row.endRow();
+    }
 
-            pwh.print(trip.getTripPurpose());
-            pwh.print(",");
-            if(origin != null && destination != null) {
-                double distanceWalk = ((DataSetImpl)dataSet).getTravelDistancesWalk().getTravelDistance(origin.getZoneId(), destination.getZoneId());
-                pwh.print(distanceWalk);
-                pwh.print(",");
-                double distanceBike = ((DataSetImpl)dataSet).getTravelDistancesBike().getTravelDistance(origin.getZoneId(), destination.getZoneId());
-                pwh.print(distanceBike);
-                pwh.print(",");
-                double distanceAuto = dataSet.getTravelDistancesAuto().getTravelDistance(origin.getZoneId(), destination.getZoneId());
-                pwh.print(distanceAuto);
-                pwh.print(",");
-                //Use congested car travel time for write-out and post-analysis and plot. while use freespeed car travel time for mode choice to make it consistent with empirical model
-                double timeAuto = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "carCongested");
-                pwh.print(timeAuto);
-                pwh.print(",");
-                double timePt = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "pt");
-                pwh.print(timePt);
-                pwh.print(",");
-                double timeWalk = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "walk");
-                pwh.print(timeWalk);
-                pwh.print(",");
-                double timeBike = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "bike");
-                pwh.print(timeBike);
-            } else {
-                pwh.print("NA,NA,NA,NA,NA,NA,NA");
-            }
-            pwh.print(",");
-            pwh.print(trip.getTripMode());
-            pwh.print(",");
-            pwh.print(((MitoTrip7days)trip).getDepartureDay());
-            pwh.print(",");
-            pwh.print(trip.getDepartureInMinutes());
-            pwh.print(",");
-            pwh.print(trip.getActivityDurationInMinutes());
-            int departureOfReturnTrip = trip.getDepartureInMinutesReturnTrip();
-            if (departureOfReturnTrip != -1){
-                pwh.print(",");
-                pwh.println(departureOfReturnTrip);
+    /**
+     * Formats the zone, type, id and coordinates of a trip origin or destination, each followed by a separator.
+     */
+    private static void formatLocation(DataSet dataSet, Location location, CsvRowBuffer row, Random random) {
+        row.append(location == null ? "null" : String.valueOf(location.getZoneId())).separator()
+                .append(getLocationType(location)).separator();
+        if(location instanceof Id) {
+            row.append(((Id) location).getId());
+        }
+        row.separator();
+        if(location instanceof MicroLocation){
+            row.append(((MicroLocation) location).getCoordinate().x).separator()
+                    .append(((MicroLocation) location).getCoordinate().y).separator();
+        } else{
+            if (Resources.instance.isFillMicroDataWithMicroLocation() &&
+                    location != null){
+                Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(location.getZoneId()).getRandomCoord(random));
+                row.append(coordinate.getX()).separator()
+                        .append(coordinate.getY()).separator();
             } else {
-                pwh.print(",");
-                pwh.println("NA");
+                row.append("null").separator()
+                        .append("null").separator();
             }
         }
     }
@@ -262,10 +407,8 @@ public class SummarizeData7daysMCR {
 
         LOGGER.info("  Writing trips file");
         String file = Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/microData/trips.csv";
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(file, false);
         Collection<MitoTrip> tripsToPrint = dataSet.getTrips().values(); //.stream().filter(trip -> trip.getTripPurpose().equals(Purpose.HBO)).collect(Collectors.toUnmodifiableList());
-        writeTrips(dataSet,pwh,tripsToPrint);
-        pwh.close();
+        writeTrips(dataSet, file, tripsToPrint);
     }
 
     public static void writeOutTripsByDayByMode(DataSet dataSet, String scenarioName, Day day, Mode mode, Collection<MitoTrip> tripsToPrint) {
@@ -273,34 +416,48 @@ public class SummarizeData7daysMCR {
 
         LOGGER.info("  Writing trips file (day " + day + ", mode " + mode + ")");
         String file = Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/microData/trips_" + day + "_" + mode + ".csv";
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(file, false);
-        writeTrips(dataSet,pwh,tripsToPrint);
-        pwh.close();
+        writeTrips(dataSet, file, tripsToPrint);
     }
-    private static void writeCharts(DataSet dataSet, Purpose purpose, String scenarioName) {
-        String outputSubDirectory = "scenOutput/" + scenarioName + "/";
 
-        List<Double> travelTimes = new ArrayList<>();
-//        List<Double> travelDistances = new ArrayList<>();
-        Map<Integer, List<Double>> distancesByZone = new HashMap<>();
-        Multiset<MitoZone> tripsByZone = HashMultiset.create();
+    /**
+     * Collects the congested car travel times, the auto distances by origin zone and the number of trips by origin
+     * zone of all trips with origin and destination by purpose, as a visitor of a {@link TripScan}.
+     */
+    public static final class TripCharts implements Consumer<MitoTrip> {
+
+        private final DataSet dataSet;
+        private final Map<Purpose, List<Double>> travelTimesByPurpose = new EnumMap<>(Purpose.class);
+        private final Map<Purpose, Map<Integer, List<Double>>> distancesByZoneByPurpose = new EnumMap<>(Purpose.class);
+        private final Map<Purpose, Multiset<MitoZone>> tripsByZoneByPurpose = new EnumMap<>(Purpose.class);
+
+        public TripCharts(DataSet dataSet) {
+            this.dataSet = dataSet;
+            for (Purpose purpose : Purpose.values()) {
+                travelTimesByPurpose.put(purpose, new ArrayList<>());
+                distancesByZoneByPurpose.put(purpose, new HashMap<>());
+                tripsByZoneByPurpose.put(purpose, HashMultiset.create());
+            }
+        }
 
-        for (MitoTrip trip : dataSet.getTrips().values()) {
+        @Override
+        public void accept(MitoTrip trip) {
             final Location tripOrigin = trip.getTripOrigin();
-            if (trip.getTripPurpose() == purpose && tripOrigin != null && trip.getTripDestination() != null) {
-                travelTimes.add(dataSet.getTravelTimes().getTravelTime(tripOrigin, trip.getTripDestination(), dataSet.getPeakHour(), "carCongested"));
+            if (tripOrigin != null && trip.getTripDestination() != null) {
+                final Purpose purpose = trip.getTripPurpose();
+                travelTimesByPurpose.get(purpose).add(dataSet.getTravelTimes().getTravelTime(tripOrigin, trip.getTripDestination(), dataSet.getPeakHour(), "carCongested"));
                 double travelDistance = dataSet.getTravelDistancesAuto().getTravelDistance(tripOrigin.getZoneId(), trip.getTripDestination().getZoneId());
-//                travelDistances.add(travelDistance);
-                tripsByZone.add(dataSet.getZones().get(tripOrigin.getZoneId()));
-                if(distancesByZone.containsKey(tripOrigin.getZoneId())){
-                    distancesByZone.get(tripOrigin.getZoneId()).add(travelDistance);
-                } else {
-                    List<Double> values = new ArrayList<>();
-                    values.add(travelDistance);
-                    distancesByZone.put(tripOrigin.getZoneId(), values);
-                }
+                tripsByZoneByPurpose.get(purpose).add(dataSet.getZones().get(tripOrigin.getZoneId()));
+                distancesByZoneByPurpose.get(purpose).computeIfAbsent(tripOrigin.getZoneId(), zone -> new ArrayList<>()).add(travelDistance);
             }
         }
+    }
+
+    private static void writeCharts(DataSet dataSet, Purpose purpose, String scenarioName, TripCharts tripCharts) {
+        String outputSubDirectory = "scenOutput/" + scenarioName + "/";
+
+        List<Double> travelTimes = tripCharts.travelTimesByPurpose.get(purpose);
+        Map<Integer, List<Double>> distancesByZone = tripCharts.distancesByZoneByPurpose.get(purpose);
+        Multiset<MitoZone> tripsByZone = tripCharts.tripsByZoneByPurpose.get(purpose);
 
         double[] travelTimesArray = new double[travelTimes.size()];
         int i = 0;
@@ -339,8 +496,17 @@ public class SummarizeData7daysMCR {
     }
 
     public static void writeCharts(DataSet dataSet, String scenarioName) {
+        final TripCharts tripCharts = new TripCharts(dataSet);
+        dataSet.getTrips().values().forEach(tripCharts);
+        writeCharts(dataSet, scenarioName, tripCharts);
+    }
+
+    /**
+     * Writes the charts of all purposes from the values collected by a completed trip scan.
+     */
+    public static void writeCharts(DataSet dataSet, String scenarioName, TripCharts tripCharts) {
         for(Purpose purpose: Purpose.values()) {
-            writeCharts(dataSet, purpose, scenarioName);
+            writeCharts(dataSet, purpose, scenarioName, tripCharts);
         }
     }
 
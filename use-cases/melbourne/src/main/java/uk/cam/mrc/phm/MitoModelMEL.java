@@ -2,7 +2,7 @@ package uk.cam.mrc.phm;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
@@ -87,7 +87,7 @@ public final class MitoModelMEL {
         new HouseholdsCoordReaderMEL(dataSet).read();
         new PoiReaderMEL(dataSet).read();
         new PersonsReader7daysMEL(dataSet).read();
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReaderMEL(dataSet).read();
         readAdditionalData();
     }
@@ -35,6 +35,7 @@ import routing.*;
 import routing.components.Gradient;
 import routing.components.JctStress;
 import routing.components.LinkAmbience;
+import routing.components.LinkAttributes;
 import routing.components.LinkStress;
 import uk.cam.mrc.phm.util.MelbourneImplementationConfig;
 import uk.cam.mrc.phm.util.CoefficientLookup;
@@ -159,6 +160,7 @@ public class RunMatsimActiveMode {
                 Network activeNetwork = extractModeSpecificNetwork(MATSIM_NETWORK,new HashSet<>(Arrays.asList(TransportMode.bike, TransportMode.walk)));
 
                 matsimScenario.setNetwork(activeNetwork);
+                setActiveAttributes(bikePedConfig, LinkAttributes.compile(activeNetwork));
 //                NetworkUtils.writeNetwork(activeNetwork, "F:\\models\\silo_manchester\\input/mito/trafficAssignment/network_active_cleaned.xml");
                 //ConfigUtils.writeMinimalConfig(matsimScenario.getConfig(),"F:\\models\\silo_manchester\\input/mito/trafficAssignment/config_min.xml");
 
@@ -197,11 +199,6 @@ public class RunMatsimActiveMode {
         bikePedConfig.routing().removeTeleportedModeParams("pt");
 
 
-        // BIKE ATTRIBUTES
-        List<ToDoubleFunction<Link>> bikeAttributes = new ArrayList<>();
-        bikeAttributes.add(l -> Math.max(Math.min(Gradient.getGradient(l),0.5),0.));
-        bikeAttributes.add(l -> LinkStress.getStress(l,TransportMode.bike));
-
         // Bike weights
         Function<org.matsim.api.core.v01.population.Person,double[]> bikeWeights = p -> {
             switch((Purpose) p.getAttributes().getAttribute("purpose")) {
@@ -255,14 +252,8 @@ public class RunMatsimActiveMode {
 
         // Bicycle config group
         BicycleConfigGroup bicycle = (BicycleConfigGroup) bikePedConfig.getModules().get(BicycleConfigGroup.GROUP_NAME);
-        bicycle.setAttributes(bikeAttributes);
         bicycle.setWeights(bikeWeights);
 
-        // WALK ATTRIBUTES
-        List<ToDoubleFunction<Link>> walkAttributes = new ArrayList<>();
-        walkAttributes.add(l -> Math.max(0.,0.81 - LinkAmbience.getVgviFactor(l)));
-        walkAttributes.add(l -> Math.min(1.,l.getFreespeed() / 22.35));
-
         // Walk weights
         Function<org.matsim.api.core.v01.population.Person,double[]> walkWeights = p -> {
             switch ((Purpose) p.getAttributes().getAttribute("purpose")) {
@@ -304,7 +295,6 @@ public class RunMatsimActiveMode {
 
         // Walk config group
         WalkConfigGroup walkConfigGroup = (WalkConfigGroup) bikePedConfig.getModules().get(WalkConfigGroup.GROUP_NAME);
-        walkConfigGroup.setAttributes(walkAttributes);
         walkConfigGroup.setWeights(walkWeights);
 
         ActivityParams homeActivity = new ActivityParams("home").setTypicalDuration(getHoursAsSeconds(12));
@@ -375,6 +365,22 @@ public class RunMatsimActiveMode {
         return calculateActiveModeWeights("walk", person);
     }
 
+    private static void setActiveAttributes(Config bikePedConfig, LinkAttributes linkAttributes) {
+        // BIKE ATTRIBUTES
+        List<ToDoubleFunction<Link>> bikeAttributes = new ArrayList<>();
+        bikeAttributes.add(l -> Math.max(Math.min(Gradient.getGradient(linkAttributes,l),0.5),0.));
+        bikeAttributes.add(l -> LinkStress.getStress(linkAttributes,l,TransportMode.bike));
+        BicycleConfigGroup bicycle = (BicycleConfigGroup) bikePedConfig.getModules().get(BicycleConfigGroup.GROUP_NAME);
+        bicycle.setAttributes(bikeAttributes);
+
+        // WALK ATTRIBUTES
+        List<ToDoubleFunction<Link>> walkAttributes = new ArrayList<>();
+        walkAttributes.add(l -> Math.max(0.,0.81 - LinkAmbience.getVgviFactor(linkAttributes,l)));
+        walkAttributes.add(l -> Math.min(1.,l.getFreespeed() / 22.35));
+        WalkConfigGroup walkConfigGroup = (WalkConfigGroup) bikePedConfig.getModules().get(WalkConfigGroup.GROUP_NAME);
+        walkConfigGroup.setAttributes(walkAttributes);
+    }
+
     public static Network extractModeSpecificNetwork(String networkFile, Set<String> transportModes) {
 
         Network network = NetworkUtils.readNetwork(networkFile);
@@ -117,6 +117,8 @@ public final class TravelDemandGeneratorMEL {
 
         public Builder(DataSet dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new MitoTripFactory7days(dataSet.getTripTable()) : new MitoTripFactory7days();
 
             List<Purpose> purposes = Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES));
             logger.info("Simulating trips for the following purposes: {}", purposes.stream().map(Enum::toString).collect(Collectors.joining(",")));
@@ -130,14 +132,13 @@ public final class TravelDemandGeneratorMEL {
             tripGenerationMandatory = new TripGeneration(
                     dataSet,
                     mandatoryPurposes,
-                    new MitoTripFactory7days()
+                    tripFactory
             );
             mandatoryPurposes.forEach(
         purpose -> (
                     (TripGeneration) tripGenerationMandatory
                 ).registerTripGenerator(
-                    purpose, new
-                    MitoTripFactory7days(),
+                    purpose, tripFactory,
                     TripGeneratorType.PersonBasedHurdlePolr,
                     new TripGenCalculatorMEL(dataSet),
                     new AttractionCalculatorMEL(dataSet,purpose)
@@ -153,20 +154,20 @@ public final class TravelDemandGeneratorMEL {
                 )
             );
 
-            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, new MitoTripFactory7days());
+            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, tripFactory);
             discretionaryPurposes.forEach(
         purpose -> (
                         (TripGeneration) tripGenerationDiscretionary
                 ).registerTripGenerator(
                         purpose,
-                        new MitoTripFactory7days(),
+                        tripFactory,
                         TripGeneratorType.PersonBasedHurdleNegBin,
                         new TripGenCalculatorMEL(dataSet),
                         new AttractionCalculatorMEL(dataSet,purpose)
                 )
             );
 
-            if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)) {
+            if(Resources.instance.isRunModeSet()) {
                 modeSetChoice = new ModeSetChoice(dataSet, purposes, new ModeSetCalculatorMEL(dataSet));
             }
 
@@ -310,7 +311,7 @@ public final class TravelDemandGeneratorMEL {
 
         tripGenerationDiscretionary.run();
 
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)) {
+        if(Resources.instance.isRunModeSet()) {
             logger.info("Running Module: Mode set choice");
             modeSetChoice.run();
         }
@@ -4,7 +4,6 @@ import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.io.input.readers.ModeChoiceCoefficientReader;
 import de.tum.bgu.msm.modules.modeChoice.AbstractModeChoiceCalculator;
-import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,7 +31,7 @@ public class ModeChoiceCalculatorRrtMEL extends AbstractModeChoiceCalculator {
         EnumMap<Mode, Double> utilities = new EnumMap<>(Mode.class);
 
         Set<Mode> availableChoices;
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)){
+        if(Resources.instance.isRunModeSet()){
             availableChoices = ((MitoPerson7days)person).getModeSet().getModesMNL();
         }else {
             availableChoices = coef.keySet();
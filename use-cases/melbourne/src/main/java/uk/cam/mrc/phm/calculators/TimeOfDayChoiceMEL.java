@@ -1,111 +1,23 @@
 package uk.cam.mrc.phm.calculators;
 
-
-import cern.colt.matrix.tdouble.DoubleMatrix1D;
-import com.google.common.math.LongMath;
 import de.tum.bgu.msm.data.*;
-        import de.tum.bgu.msm.io.input.readers.TimeOfDayDistributionsReader;
-import de.tum.bgu.msm.modules.Module;
-import de.tum.bgu.msm.resources.Properties;
-import de.tum.bgu.msm.resources.Resources;
-import de.tum.bgu.msm.util.MitoUtil;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import de.tum.bgu.msm.modules.timeOfDay.AbstractTimeOfDayChoice;
 
-import java.util.EnumMap;
 import java.util.List;
+import java.util.Random;
 
 
-public final class TimeOfDayChoiceMEL extends Module {
-
-    private static final Logger logger = LogManager.getLogger(TimeOfDayChoiceMEL.class);
-
-    private EnumMap<Purpose, DoubleMatrix1D> arrivalMinuteCumProbByPurpose;
-    private EnumMap<Purpose, DoubleMatrix1D> durationMinuteCumProbByPurpose;
-    private EnumMap<Purpose, DoubleMatrix1D> departureMinuteCumProbByPurpose;
-
-    private long counter = 0;
-    private int issues = 0;
+public final class TimeOfDayChoiceMEL extends AbstractTimeOfDayChoice {
 
     public TimeOfDayChoiceMEL(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
-        new TimeOfDayDistributionsReader(dataSet, purposes).read();
     }
 
     @Override
-    public void run() {
-        arrivalMinuteCumProbByPurpose = dataSet.getArrivalMinuteCumProbByPurpose();
-        durationMinuteCumProbByPurpose = dataSet.getDurationMinuteCumProbByPurpose();
-        departureMinuteCumProbByPurpose = dataSet.getDepartureMinuteCumProbByPurpose();
-
-        chooseDepartureTimes();
-        logger.info("Time of day choice completed");
-
-    }
-
-    private void chooseDepartureTimes() {
-
-        for (Purpose purpose : purposes){
-            dataSet.getModelledHouseholds().values().forEach(hh-> {
-                List<MitoTrip> trips = hh.getTripsForPurpose(purpose);
-                for (MitoTrip trip : trips){
-                    if (trip.getTripOrigin() != null && trip.getTripDestination() != null
-                            && trip.getTripMode() != null) {
-                        int departureTimeInMinutes;
-                        int arrivalTimeInMinutes = 0;
-                        if (trip.getTripPurpose().equals(Purpose.AIRPORT) &&
-                                trip.getTripOrigin().equals(dataSet.getZones().get(Resources.instance.getInt(Properties.AIRPORT_ZONE)))){
-                            departureTimeInMinutes = chooseDepartureTime(trip);
-                        } else if (trip.getTripPurpose().equals(Purpose.RRT)){
-                            departureTimeInMinutes = chooseDepartureTime(trip);
-                        } else {
-                            arrivalTimeInMinutes = chooseArrivalTime(trip);
-                            int estimatedTravelTime = (int) estimateTravelTimeForDeparture(trip, arrivalTimeInMinutes);
-                            departureTimeInMinutes = arrivalTimeInMinutes - estimatedTravelTime;
-                        }
-                        //if departure is before midnight
-                        if (departureTimeInMinutes < 0) {
-                            departureTimeInMinutes = departureTimeInMinutes + 24 * 60;
-                        }
-                        trip.setDepartureInMinutes(departureTimeInMinutes);
-                        if (trip.isHomeBased()) {
-                            trip.setDepartureInMinutesReturnTrip(chooseDepartureTimeForReturnTrip(trip, arrivalTimeInMinutes));
-                        }
-
-                    } else {
-                        issues++;
-                    }
-                    counter++;
-                    if (LongMath.isPowerOfTwo(counter)) {
-                        logger.info("{} times of day assigned", counter);
-                    }
-                }
-            });
-        }
-        if (issues > 0) {
-            logger.warn("{} trips have no time of day since they have no origin, destination or mode", issues);
-        }
-    }
-
-    private int chooseDepartureTime(MitoTrip mitoTrip) {
-        return MitoUtil.select(departureMinuteCumProbByPurpose.get(mitoTrip.getTripPurpose()).toArray(), MitoUtil.getRandomObject());
-    }
-
-    private int chooseArrivalTime(MitoTrip mitoTrip) {
-        Purpose tripPurpose = mitoTrip.getTripPurpose();
-        if(tripPurpose == Purpose.HBW || tripPurpose == Purpose.HBE) {
-            MitoOccupation occupation = mitoTrip.getPerson().getOccupation();
-            if(occupation != null){
-                return occupation.getStartTime_min().orElseGet(() -> MitoUtil.select(arrivalMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject()));
-            }
-        }
-        return MitoUtil.select(arrivalMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject());
-    }
-
-    private int chooseDepartureTimeForReturnTrip(MitoTrip mitoTrip, int arrivalTime) {
+    protected int chooseDepartureTimeForReturnTrip(MitoTrip mitoTrip, int arrivalTime, Random random) {
         Purpose tripPurpose = mitoTrip.getTripPurpose();
         int departureTimeInReturn;
-        int duration = MitoUtil.select(durationMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject());
+        int duration = chooseDuration(tripPurpose, random);
         if(tripPurpose == Purpose.HBW || tripPurpose == Purpose.HBE) {
             MitoOccupation occupation = mitoTrip.getPerson().getOccupation();
             if(occupation != null) {
@@ -132,7 +44,8 @@ public final class TimeOfDayChoiceMEL extends Module {
         }
     }
 
-    private double estimateTravelTimeForDeparture(MitoTrip trip, double arrivalInMinutes) {
+    @Override
+    protected double estimateTravelTimeForDeparture(MitoTrip trip, double arrivalInMinutes) {
         //currently time of day is not being used here. we only have peak_hour skim matrix for car,walk,bike
         if (trip.getTripMode().equals(Mode.walk)) {
             return dataSet.getTravelTimes().getTravelTime(trip.getTripOrigin(), trip.getTripDestination(), arrivalInMinutes * 60, "walk");
@@ -143,4 +56,4 @@ public final class TimeOfDayChoiceMEL extends Module {
             return dataSet.getTravelTimes().getTravelTime(trip.getTripOrigin(), trip.getTripDestination(), arrivalInMinutes * 60, "car");
         }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,45 @@
 package uk.cam.mrc.phm.calculators;
 
 import de.tum.bgu.msm.data.*;
-import de.tum.bgu.msm.modules.tripGeneration.TripGenPredictor;
+import de.tum.bgu.msm.modules.tripGeneration.CompiledTripGenPredictor;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-public class TripGenCalculatorMEL implements TripGenPredictor {
+public class TripGenCalculatorMEL implements CompiledTripGenPredictor {
+
+    private static final String[] FEATURE_NAMES = {
+            "(Intercept)",
+            "hh.sized_1", "hh.sized_2", "hh.sized_3", "hh.sized_4", "hh.sized_5",
+            "hh.childrend_1", "hh.childrend_2", "hh.childrend_3",
+            "hh.urban",
+            "hh.carsd_1", "hh.carsd_2", "hh.carsd_3",
+            "hh.cars_per_adult",
+            "p.age_gr_1", "p.age_gr_2", "p.age_gr_3", "p.age_gr_4", "p.age_gr_5",
+            "p.age_gr_6", "p.age_gr_7", "p.age_gr_8", "p.age_gr_9",
+            "p.female",
+            "p.status_student", "p.status_unemployed", "p.status_retired",
+            "p.workTrips_1", "p.workTrips_2", "p.workTrips_3", "p.workTrips_4", "p.workTrips_5",
+            "p.log_km_mean_HBW",
+            "p.eduTrips_1", "p.eduTrips_2", "p.eduTrips_3", "p.eduTrips_4", "p.eduTrips_5",
+            "p.log_km_mean_HBE"
+    };
+
+    private static final int INTERCEPT = 0;
+    private static final int HH_SIZE_1 = 1;
+    private static final int HH_CHILDREN_1 = 6;
+    private static final int HH_URBAN = 9;
+    private static final int HH_CARS_1 = 10;
+    private static final int HH_CARS_PER_ADULT = 13;
+    private static final int AGE_GROUP_1 = 14;
+    private static final int FEMALE = 23;
+    private static final int STATUS_STUDENT = 24;
+    private static final int STATUS_UNEMPLOYED = 25;
+    private static final int STATUS_RETIRED = 26;
+    private static final int WORK_TRIPS_1 = 27;
+    private static final int LOG_KM_MEAN_HBW = 32;
+    private static final int EDU_TRIPS_1 = 33;
+    private static final int LOG_KM_MEAN_HBE = 38;
 
     private final DataSet dataSet;
 
@@ -15,127 +48,109 @@ public class TripGenCalculatorMEL implements TripGenPredictor {
     }
 
     @Override
-    public double getPredictor(MitoHousehold hh,MitoPerson pp, Map<String, Double> coefficients) {
-        double predictor = 0.;
+    public String[] getFeatureNames() {
+        return FEATURE_NAMES;
+    }
+
+    @Override
+    public void extractFeatures(MitoHousehold hh, MitoPerson pp, double[] features) {
+        Arrays.fill(features, 0.);
 
         // Intercept
-        predictor += coefficients.get("(Intercept)");
+        features[INTERCEPT] = 1.;
 
         // Household size
         int householdSize = hh.getHhSize();
-        if(householdSize == 1) {
-            predictor += coefficients.get("hh.sized_1");
-        }
-        else if(householdSize == 2) {
-            predictor += coefficients.get("hh.sized_2");
-        }
-        else if(householdSize == 3) {
-            predictor += coefficients.get("hh.sized_3");
-        }
-        else if(householdSize == 4) {
-            predictor += coefficients.get("hh.sized_4");
+        if(householdSize >= 1 && householdSize <= 4) {
+            features[HH_SIZE_1 + householdSize - 1] = 1.;
         }
         else  {
             assert(householdSize >= 5);
-            predictor += coefficients.get("hh.sized_5");
+            features[HH_SIZE_1 + 4] = 1.;
         }
 
         // Number of children in household
         int householdChildren = hh.getChildrenForHousehold();
-        if(householdChildren == 1) {
-            predictor += coefficients.get("hh.childrend_1");
-        }
-        else if (householdChildren == 2) {
-            predictor += coefficients.get("hh.childrend_2");
-        }
-        else if (householdChildren >= 3) {
-            predictor += coefficients.get("hh.childrend_3");
+        if(householdChildren > 0) {
+            features[HH_CHILDREN_1 + Math.min(householdChildren, 3) - 1] = 1.;
         }
 
         // Household in urban region
         if(!(hh.getHomeZone().getAreaTypeR().equals(AreaTypes.RType.RURAL))) {
-            predictor += coefficients.get("hh.urban");
+            features[HH_URBAN] = 1.;
         }
 
         // Household autos
         int householdAutos = hh.getAutos();
-        if(householdAutos == 1) {
-            predictor += coefficients.get("hh.carsd_1");
-        }
-        else if(householdAutos == 2) {
-            predictor += coefficients.get("hh.carsd_2");
-        }
-        else if(householdAutos >= 3) {
-            predictor += coefficients.get("hh.carsd_3");
+        if(householdAutos > 0) {
+            features[HH_CARS_1 + Math.min(householdAutos, 3) - 1] = 1.;
         }
 
         // Autos per adult
         int householdAdults = householdSize - householdChildren;
-        double autosPerAdult = Math.min((double) hh.getAutos() / (double) householdAdults , 1.0);
-        predictor += autosPerAdult * coefficients.get("hh.cars_per_adult");
+        features[HH_CARS_PER_ADULT] = Math.min((double) householdAutos / (double) householdAdults , 1.0);
 
         // Age
         int age = pp.getAge();
+        int ageGroup;
         if (age <= 4) {
-            predictor += coefficients.get("p.age_gr_1");
+            ageGroup = 0;
         }
         else if (age <= 10) {
-            predictor += coefficients.get("p.age_gr_2");
+            ageGroup = 1;
         }
         else if (age <= 15) {
-            predictor += coefficients.get("p.age_gr_3");
+            ageGroup = 2;
         }
         else if (age <= 17) {
-            predictor += coefficients.get("p.age_gr_4");
+            ageGroup = 3;
         }
         else if (age <= 29) {
-            predictor += coefficients.get("p.age_gr_5");
+            ageGroup = 4;
         }
         else if (age <= 49) {
-            predictor += coefficients.get("p.age_gr_6");
+            ageGroup = 5;
         }
         else if (age <= 59){
-            predictor += coefficients.get("p.age_gr_7");
+            ageGroup = 6;
         }
         else if (age <= 69){
-            predictor += coefficients.get("p.age_gr_8");
+            ageGroup = 7;
         }
         else {
-            predictor += coefficients.get("p.age_gr_9");
+            ageGroup = 8;
         }
+        features[AGE_GROUP_1 + ageGroup] = 1.;
 
         // Female
         if (pp.getMitoGender().equals(MitoGender.FEMALE)) {
-            predictor += coefficients.get("p.female");
+            features[FEMALE] = 1.;
         }
 
         // Mito occupation Status
         MitoOccupationStatus occupationStatus = pp.getMitoOccupationStatus();
         if (occupationStatus.equals(MitoOccupationStatus.STUDENT)) {
-            predictor += coefficients.get("p.status_student");
+            features[STATUS_STUDENT] = 1.;
         } else if (occupationStatus.equals(MitoOccupationStatus.UNEMPLOYED)) {
-            predictor += coefficients.get("p.status_unemployed");
+            features[STATUS_UNEMPLOYED] = 1.;
         } else if (occupationStatus.equals(MitoOccupationStatus.RETIRED)) {
-            predictor += coefficients.get("p.status_retired");
+            features[STATUS_RETIRED] = 1.;
         }
 
         // Work trips & mean distance
-        List<MitoTrip> workTrips = pp.getTrips().stream().filter(tt -> Purpose.HBW.equals(tt.getTripPurpose())).toList();
-        int workTripCount = workTrips.size();
-        if(workTripCount > 0) {
-            if (workTripCount == 1) {
-                predictor += coefficients.get("p.workTrips_1");
-            } else if (workTripCount == 2) {
-                predictor += coefficients.get("p.workTrips_2");
-            } else if (workTripCount == 3) {
-                predictor += coefficients.get("p.workTrips_3");
-            } else if (workTripCount == 4) {
-                predictor += coefficients.get("p.workTrips_4");
-            } else {
-                predictor += coefficients.get("p.workTrips_5");
-            }
+        extractMandatoryTripFeatures(pp, Purpose.HBW, features, WORK_TRIPS_1, LOG_KM_MEAN_HBW);
+
+        // Education trips & mean distance
+        extractMandatoryTripFeatures(pp, Purpose.HBE, features, EDU_TRIPS_1, LOG_KM_MEAN_HBE);
+    }
+
+    private void extractMandatoryTripFeatures(MitoPerson pp, Purpose purpose, double[] features, int tripsSlot, int logKmMeanSlot) {
+        List<MitoTrip> trips = pp.getTrips().stream().filter(tt -> purpose.equals(tt.getTripPurpose())).toList();
+        int tripCount = trips.size();
+        if(tripCount > 0) {
+            features[tripsSlot + Math.min(tripCount, 5) - 1] = 1.;
             int homeZoneId = pp.getHousehold().getZoneId();
-            double meanWorkKm = workTrips.stream()
+            double meanKm = trips.stream()
                     .mapToDouble(t -> {
                 if (t.getTripDestination() == null) {
                     throw new RuntimeException("Trip destination is null for trip: " + t + ", person: " + pp.getId());
@@ -144,34 +159,7 @@ public class TripGenCalculatorMEL implements TripGenPredictor {
             })
                     .average()
                     .orElse(0.0);
-            predictor += Math.log(meanWorkKm) * coefficients.get("p.log_km_mean_HBW");
+            features[logKmMeanSlot] = Math.log(meanKm);
         }
-
-        // Education trips & mean distance
-        List<MitoTrip> eduTrips = pp.getTrips().stream().filter(tt -> Purpose.HBE.equals(tt.getTripPurpose())).toList();
-        int eduTripCount = eduTrips.size();
-        if(eduTripCount > 0) {
-            if (eduTripCount == 1) {
-                predictor += coefficients.get("p.eduTrips_1");
-            } else if (eduTripCount == 2) {
-                predictor += coefficients.get("p.eduTrips_2");
-            } else if (eduTripCount == 3) {
-                predictor += coefficients.get("p.eduTrips_3");
-            } else if (eduTripCount == 4) {
-                predictor += coefficients.get("p.eduTrips_4");
-            } else {
-                predictor += coefficients.get("p.eduTrips_5");
-            }
-            int homeZoneId = pp.getHousehold().getZoneId();
-            double meanEduKm = eduTrips.stream().
-                    mapToDouble(t -> dataSet.getTravelDistancesNMT().
-                            getTravelDistance(homeZoneId, t.getTripDestination().getZoneId())).average().getAsDouble();
-            predictor += Math.log(meanEduKm) * coefficients.get("p.log_km_mean_HBE");
-        }
-
-        return predictor;
     }
-
-
-
 }
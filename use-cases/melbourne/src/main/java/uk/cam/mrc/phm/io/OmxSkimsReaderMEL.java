@@ -2,8 +2,9 @@ package uk.cam.mrc.phm.io;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
-import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelDistances.TravelDistances;
+import de.tum.bgu.msm.data.travelTimes.SkimBasedTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.AbstractOmxReader;
 import de.tum.bgu.msm.io.input.readers.SkimsReader;
 import de.tum.bgu.msm.resources.Properties;
@@ -29,22 +30,22 @@ public class OmxSkimsReaderMEL extends AbstractOmxReader implements SkimsReader
 
     public void readSkimDistancesAuto(){
         IndexedDoubleMatrix2D distanceSkimAuto = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),"distanceByTime", 1. / 1000.);
-        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distanceSkimAuto));
+        dataSet.setTravelDistancesAuto(SkimStorage.fromProperties().createTravelDistances(distanceSkimAuto));
     }
 
     public void readSkimDistancesNMT(){
         IndexedDoubleMatrix2D distanceSkimWalk = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.WALK_DIST_SKIM).toString(),
                 Resources.instance.getString(Properties.WALK_DIST_SKIM_MATRIX), 1. / 1000.);
-        ((DataSetImpl)dataSet).setTravelDistancesWalk(new MatrixTravelDistances(distanceSkimWalk));
+        ((DataSetImpl)dataSet).setTravelDistancesWalk(SkimStorage.fromProperties().createTravelDistances(distanceSkimWalk));
         IndexedDoubleMatrix2D distanceSkimBike = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.BIKE_DIST_SKIM).toString(),
                 Resources.instance.getString(Properties.BIKE_DIST_SKIM_MATRIX), 1. / 1000.);
-        ((DataSetImpl)dataSet).setTravelDistancesBike(new MatrixTravelDistances(distanceSkimBike));
+        ((DataSetImpl)dataSet).setTravelDistancesBike(SkimStorage.fromProperties().createTravelDistances(distanceSkimBike));
     }
 
     public void readOnlyTransitTravelTimes(){
         //todo has to be probably in silo
-        SkimTravelTimes skimTravelTimes;
-        skimTravelTimes = (SkimTravelTimes) dataSet.getTravelTimes();
+        SkimBasedTravelTimes skimTravelTimes;
+        skimTravelTimes = (SkimBasedTravelTimes) dataSet.getTravelTimes();
         skimTravelTimes.readSkim("pt", Resources.instance.getRelativePath(Properties.PT_PEAK_SKIM).toString(),
                 Resources.instance.getString(Properties.PT_PEAK_SKIM_MATRIX), 1/60.);
     }
@@ -88,7 +89,7 @@ public class OmxSkimsReaderMEL extends AbstractOmxReader implements SkimsReader
     private void readTravelTimeSkim(String name, String omxFilePath, String matrix) {
         // convert second to min, because time is translated to min in mode choice estimation, also min is used in time of day choice
         // logger.info("  - " + name + ": " + Resources.instance.getRelativePath(omxFilePath).toString() + " - " + Resources.instance.getString(matrix));
-        ((SkimTravelTimes) dataSet.getTravelTimes()).readSkim(name, Resources.instance.getRelativePath(omxFilePath).toString(),
+        ((SkimBasedTravelTimes) dataSet.getTravelTimes()).readSkim(name, Resources.instance.getRelativePath(omxFilePath).toString(),
                 Resources.instance.getString(matrix), 1/60.);
     }
 
@@ -96,18 +97,19 @@ public class OmxSkimsReaderMEL extends AbstractOmxReader implements SkimsReader
         IndexedDoubleMatrix2D distanceSkimAuto = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.AUTO_TRAVEL_DISTANCE_SKIM).toString(),
                 Resources.instance.getString(Properties.AUTO_TRAVEL_DISTANCE_SKIM_MATRIX), 1. / 1000.); //meter to km
         setMinimumIntrazonalDistances(distanceSkimAuto);
-        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distanceSkimAuto));
+        dataSet.setTravelDistancesAuto(SkimStorage.fromProperties().createTravelDistances(distanceSkimAuto));
 
         IndexedDoubleMatrix2D distanceSkimWalk = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.WALK_DIST_SKIM).toString(),
                 Resources.instance.getString(Properties.WALK_DIST_SKIM_MATRIX), 1. / 1000.);
         setMinimumIntrazonalDistances(distanceSkimWalk);
-        ((DataSetImpl)dataSet).setTravelDistancesWalk(new MatrixTravelDistances(distanceSkimWalk));
-        dataSet.setTravelDistancesNMT(new MatrixTravelDistances(distanceSkimWalk));
+        TravelDistances travelDistancesWalk = SkimStorage.fromProperties().createTravelDistances(distanceSkimWalk);
+        ((DataSetImpl)dataSet).setTravelDistancesWalk(travelDistancesWalk);
+        dataSet.setTravelDistancesNMT(travelDistancesWalk);
 
         IndexedDoubleMatrix2D distanceSkimBike = AbstractOmxReader.readAndConvertToDoubleMatrix(Resources.instance.getRelativePath(Properties.BIKE_DIST_SKIM).toString(),
                 Resources.instance.getString(Properties.BIKE_DIST_SKIM_MATRIX), 1. / 1000.);
         setMinimumIntrazonalDistances(distanceSkimBike);
-        ((DataSetImpl)dataSet).setTravelDistancesBike(new MatrixTravelDistances(distanceSkimBike));
+        ((DataSetImpl)dataSet).setTravelDistancesBike(SkimStorage.fromProperties().createTravelDistances(distanceSkimBike));
     }
 
     private void setMinimumIntrazonalDistances(IndexedDoubleMatrix2D distanceMatrix){
@@ -4,7 +4,6 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.*;
-import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.charts.Histogram;
@@ -168,7 +167,7 @@ public class SummarizeData7daysMEL {
                 pwh.print(((MicroLocation) origin).getCoordinate().y);
                 pwh.print(",");
             } else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
+                if (Resources.instance.isFillMicroDataWithMicroLocation() &&
                         origin != null){
                     Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
                     pwh.print(coordinate.getX());
@@ -198,7 +197,7 @@ public class SummarizeData7daysMEL {
                 pwh.print(((MicroLocation) destination).getCoordinate().y);
                 pwh.print(",");
             }else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
+                if (Resources.instance.isFillMicroDataWithMicroLocation() &&
                         destination != null){
                     Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
                     pwh.print(coordinate.getX());
@@ -2,7 +2,7 @@ package de.tum.bgu.msm;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
-import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.SkimStorage;
 import de.tum.bgu.msm.io.input.readers.*;
 import de.tum.bgu.msm.modules.modeChoice.DefaultModeChoiceCalibrationData;
 import de.tum.bgu.msm.resources.Properties;
@@ -85,7 +85,7 @@ public final class MitoModel {
         new HouseholdsReader(dataSet).read();
         new HouseholdsCoordReader(dataSet).read();
         new PersonsReader(dataSet).read();
-        dataSet.setTravelTimes(new SkimTravelTimes());
+        dataSet.setTravelTimes(SkimStorage.fromProperties().createTravelTimes());
         new OmxSkimsReader(dataSet).read();
         readAdditionalData();
     }
@@ -1,7 +1,9 @@
 package de.tum.bgu.msm;
 
+import de.tum.bgu.msm.data.ColumnarMitoTripFactory;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
+import de.tum.bgu.msm.data.MitoTripFactory;
 import de.tum.bgu.msm.data.MitoTripFactoryImpl;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.io.output.*;
@@ -94,11 +96,13 @@ public final class TravelDemandGenerator {
 
         public Builder(DataSet dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new ColumnarMitoTripFactory(dataSet.getTripTable()) : new MitoTripFactoryImpl();
             List<Purpose> purposes = PURPOSES; // todo: specify this in properties file
 
-            tripGeneration = new TripGeneration(dataSet, purposes, new MitoTripFactoryImpl());
+            tripGeneration = new TripGeneration(dataSet, purposes, tripFactory);
             purposes.forEach(purpose -> {
-                ((TripGeneration) tripGeneration).registerTripGenerator(purpose, new MitoTripFactoryImpl(), TripGeneratorType.SampleEnumeration,null, new AttractionCalculatorImpl(dataSet,purpose));
+                ((TripGeneration) tripGeneration).registerTripGenerator(purpose, tripFactory, TripGeneratorType.SampleEnumeration,null, new AttractionCalculatorImpl(dataSet,purpose));
             });
 
             personTripAssignment = new PersonTripAssignment(dataSet, purposes);
@@ -1,7 +1,9 @@
 package de.tum.bgu.msm;
 
+import de.tum.bgu.msm.data.ColumnarMitoTripFactory;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.DataSetImpl;
+import de.tum.bgu.msm.data.MitoTripFactory;
 import de.tum.bgu.msm.data.MitoTripFactoryImpl;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.io.output.*;
@@ -117,6 +119,8 @@ public final class TravelDemandGenerator2 {
 
         public Builder(DataSet dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new ColumnarMitoTripFactory(dataSet.getTripTable()) : new MitoTripFactoryImpl();
 
             List<Purpose> purposes = PURPOSES;
             List<Purpose> mandatoryPurposes = new ArrayList<>(PURPOSES);
@@ -125,8 +129,8 @@ public final class TravelDemandGenerator2 {
             discretionaryPurposes.removeAll(mandatoryPurposes);
 
             //from here
-            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, new MitoTripFactoryImpl());
-            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, new MitoTripFactoryImpl(), TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
+            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, tripFactory);
+            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
 
             distributionMandatory = new TripDistribution(dataSet, mandatoryPurposes);
             mandatoryPurposes.forEach(purpose -> ((TripDistribution) distributionMandatory).registerDestinationUtilityCalculator(purpose, new DestinationUtilityCalculatorImpl3(purpose)));
@@ -136,8 +140,8 @@ public final class TravelDemandGenerator2 {
 
             timeOfDayChoiceMandatory = new TimeOfDayChoice(dataSet, mandatoryPurposes);
 
-            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, new MitoTripFactoryImpl());
-            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, new MitoTripFactoryImpl(), TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
+            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, tripFactory);
+            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculatorPersonBasedHurdleNegBin(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
 
             distributionDiscretionary = new TripDistribution(dataSet, discretionaryPurposes);
             // Register ALL purposes here, because we need the mandatory purpose matrices for NHBW / NHBO
@@ -141,10 +141,10 @@ public class TripGenCalculatorHouseholdBasedHurdleNegBin implements TripGenPredi
 
                     timeHBW += dataSet.
                             getTravelTimes().
-                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes(), modeString);
+                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes() * 60., modeString);
                     timeHBW += dataSet.
                             getTravelTimes().
-                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip(), modeString);
+                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip() * 60., modeString);
                 }
             } else {
                 logger.warn("There is a trip for HBW without origin or destination or mode");
@@ -175,10 +175,10 @@ public class TripGenCalculatorHouseholdBasedHurdleNegBin implements TripGenPredi
 
                     timeHBE += dataSet.
                             getTravelTimes().
-                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes(), modeString);
+                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes() * 60., modeString);
                     timeHBE += dataSet.
                             getTravelTimes().
-                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip(), modeString);
+                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip() * 60., modeString);
                 }
             } else {
                 logger.warn("There is a trip for HBE without origin or destination or mode");
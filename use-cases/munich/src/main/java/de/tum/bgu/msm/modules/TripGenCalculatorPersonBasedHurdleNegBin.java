@@ -1,50 +1,91 @@
 package de.tum.bgu.msm.modules;
 
 import de.tum.bgu.msm.data.*;
-import de.tum.bgu.msm.modules.tripGeneration.TripGenPredictor;
+import de.tum.bgu.msm.modules.tripGeneration.CompiledTripGenPredictor;
 import de.tum.bgu.msm.resources.Properties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.*;
+import java.util.Arrays;
 
-public class TripGenCalculatorPersonBasedHurdleNegBin implements TripGenPredictor {
+public class TripGenCalculatorPersonBasedHurdleNegBin implements CompiledTripGenPredictor {
     private static final Logger logger = LogManager.getLogger(TripGenCalculatorPersonBasedHurdleNegBin.class);
     private double speed_bicycle_m_min = Properties.SPEED_BICYCLE_M_MIN;
     private double speed_walk_m_min = Properties.SPEED_WALK_M_MIN;
 
+    /**
+     * Feature names in the order in which the former map-based predictor summed its terms. The travel time budget
+     * terms of each mandatory purpose followed the iteration order of a HashMap keyed by mode, which is PT, car,
+     * cycle, walk.
+     */
+    private static final String[] FEATURE_NAMES = {
+            "(Intercept)",
+            "hh.size_1", "hh.size_2", "hh.size_3", "hh.size_4", "hh.size_5",
+            "hh.children_1", "hh.children_2", "hh.children_3",
+            "hh.cars_1", "hh.cars_2", "hh.cars_3",
+            "hh.carsPerAdult",
+            "hh.econStatus_1", "hh.econStatus_2", "hh.econStatus_3", "hh.econStatus_4", "hh.econStatus_5",
+            "hh.BBSR_2", "hh.BBSR_3", "hh.BBSR_4",
+            "p.age_gr_1", "p.age_gr_2", "p.age_gr_3", "p.age_gr_4", "p.age_gr_5", "p.age_gr_6",
+            "p.female",
+            "p.driversLicense",
+            "p.occupation_worker", "p.occupation_student", "p.occupation_unemployed",
+            "p.isMobile_HBW_PT", "p.sqrtTTB_HBW_PT",
+            "p.isMobile_HBW_car", "p.sqrtTTB_HBW_car",
+            "p.isMobile_HBW_cycle", "p.sqrtTTB_HBW_cycle",
+            "p.isMobile_HBW_walk", "p.sqrtTTB_HBW_walk",
+            "p.isMobile_HBE_PT", "p.sqrtTTB_HBE_PT", "p.TTB_HBE_PT",
+            "p.isMobile_HBE_car", "p.sqrtTTB_HBE_car", "p.TTB_HBE_car",
+            "p.isMobile_HBE_cycle", "p.sqrtTTB_HBE_cycle",
+            "p.isMobile_HBE_walk", "p.sqrtTTB_HBE_walk"
+    };
+
+    private static final int INTERCEPT = 0;
+    private static final int HH_SIZE_1 = 1;
+    private static final int HH_CHILDREN_1 = 6;
+    private static final int HH_CARS_1 = 9;
+    private static final int HH_CARS_PER_ADULT = 12;
+    private static final int HH_ECON_STATUS_1 = 13;
+    private static final int HH_BBSR_2 = 18;
+    private static final int AGE_GROUP_1 = 21;
+    private static final int FEMALE = 27;
+    private static final int DRIVERS_LICENSE = 28;
+    private static final int OCCUPATION_WORKER = 29;
+    private static final int OCCUPATION_STUDENT = 30;
+    private static final int OCCUPATION_UNEMPLOYED = 31;
+    private static final int HBW_PT = 32;
+    private static final int HBW_CAR = 34;
+    private static final int HBW_CYCLE = 36;
+    private static final int HBW_WALK = 38;
+    private static final int HBE_PT = 40;
+    private static final int HBE_CAR = 43;
+    private static final int HBE_CYCLE = 46;
+    private static final int HBE_WALK = 48;
+
+    private static final int PT = 0;
+    private static final int CAR = 1;
+    private static final int CYCLE = 2;
+    private static final int WALK = 3;
+
     private final DataSet dataSet;
 
     public TripGenCalculatorPersonBasedHurdleNegBin(DataSet dataSet) {
         this.dataSet = dataSet;
     }
 
-
+    @Override
+    public String[] getFeatureNames() {
+        return FEATURE_NAMES;
+    }
 
     @Override
-    public double getPredictor(MitoHousehold hh, MitoPerson person, Map<String, Double> coefficients) {
-        double predictor = coefficients.get("(Intercept)");
+    public void extractFeatures(MitoHousehold hh, MitoPerson person, double[] features) {
+        Arrays.fill(features, 0.);
+        features[INTERCEPT] = 1.;
+
         int size = Math.min(hh.getHhSize(), 5);
-        switch (size) {
-            case 1:
-                predictor += coefficients.get("hh.size_1");
-                break;
-            case 2:
-                predictor += coefficients.get("hh.size_2");
-                break;
-            case 3:
-                predictor += coefficients.get("hh.size_3");
-                break;
-            case 4:
-                predictor += coefficients.get("hh.size_4");
-                break;
-            case 5:
-                predictor += coefficients.get("hh.size_5");
-                break;
-            default:
-                predictor += coefficients.get("hh.size_5");
-                break;
-        }
+        features[HH_SIZE_1 + (size >= 1 ? size - 1 : 4)] = 1.;
+
         int children = 0;
         int adults = 0;
 
@@ -56,234 +97,168 @@ public class TripGenCalculatorPersonBasedHurdleNegBin implements TripGenPredicto
             }
         }
 
-        switch (children) {
-            case 0:
-                break;
-            case 1:
-                predictor += coefficients.get("hh.children_1");
-                break;
-            case 2:
-                predictor += coefficients.get("hh.children_2");
-                break;
-            case 3:
-                predictor += coefficients.get("hh.children_3");
-                break;
-            default:
-                predictor += coefficients.get("hh.children_3");
-                break;
-
+        if (children != 0) {
+            features[HH_CHILDREN_1 + (children == 1 || children == 2 ? children - 1 : 2)] = 1.;
         }
 
         int cars = hh.getAutos();
-
-        switch (cars) {
-            case 0:
-                predictor += 0;
-                break;
-            case 1:
-                predictor += coefficients.get("hh.cars_1");
-                break;
-            case 2:
-                predictor += coefficients.get("hh.cars_2");
-                break;
-            case 3:
-                predictor += coefficients.get("hh.cars_3");
-                break;
-            default:
-                predictor += coefficients.get("hh.cars_3");
-                break;
+        if (cars != 0) {
+            features[HH_CARS_1 + (cars == 1 || cars == 2 ? cars - 1 : 2)] = 1.;
         }
 
-        double carsPerAdult = Math.min((double) cars / ((double) adults), 1.0);
-        predictor += coefficients.get("hh.carsPerAdult") * carsPerAdult;
+        features[HH_CARS_PER_ADULT] = Math.min((double) cars / ((double) adults), 1.0);
 
         int economicStatus = hh.getEconomicStatus();
-        switch (economicStatus) {
-            case 1:
-                predictor += coefficients.get("hh.econStatus_1");
-                break;
-            case 2:
-                predictor += coefficients.get("hh.econStatus_2");
-                break;
-            case 3:
-                predictor += coefficients.get("hh.econStatus_3");
-                break;
-            case 4:
-                predictor += coefficients.get("hh.econStatus_4");
-                break;
-            case 5:
-                predictor += coefficients.get("hh.econStatus_5");
-                break;
-            default:
-                throw new RuntimeException("Economic status cannot be zero?");
+        if (economicStatus < 1 || economicStatus > 5) {
+            throw new RuntimeException("Economic status cannot be zero?");
         }
+        features[HH_ECON_STATUS_1 + economicStatus - 1] = 1.;
 
         AreaTypes.SGType type = hh.getHomeZone().getAreaTypeSG();
 
         //is this right area type?
         switch (type) {
             case CORE_CITY:
-                predictor += 0.;
                 break;
             case MEDIUM_SIZED_CITY:
-                predictor += coefficients.get("hh.BBSR_2");
+                features[HH_BBSR_2] = 1.;
                 break;
             case TOWN:
-                predictor += coefficients.get("hh.BBSR_3");
+                features[HH_BBSR_2 + 1] = 1.;
                 break;
             case RURAL:
-                predictor += coefficients.get("hh.BBSR_4");
+                features[HH_BBSR_2 + 2] = 1.;
                 break;
         }
 
         int age = person.getAge();
+        int ageGroup;
         if (age < 19) {
-            predictor += coefficients.get("p.age_gr_1");
+            ageGroup = 0;
         } else if (age < 30) {
-            predictor += coefficients.get("p.age_gr_2");
+            ageGroup = 1;
         } else if (age < 50) {
-            predictor += coefficients.get("p.age_gr_3");
+            ageGroup = 2;
         } else if (age < 60) {
-            predictor += coefficients.get("p.age_gr_4");
+            ageGroup = 3;
         } else if (age < 70) {
-            predictor += coefficients.get("p.age_gr_5");
+            ageGroup = 4;
         } else {
-            predictor += coefficients.get("p.age_gr_6");
+            ageGroup = 5;
         }
+        features[AGE_GROUP_1 + ageGroup] = 1.;
 
         if (person.getMitoGender().equals(MitoGender.FEMALE)) {
-            predictor += coefficients.get("p.female");
+            features[FEMALE] = 1.;
         }
 
         if (person.hasDriversLicense()) {
-            predictor += coefficients.get("p.driversLicense");
+            features[DRIVERS_LICENSE] = 1.;
         }
 
         switch (person.getMitoOccupationStatus()) {
             case WORKER:
-                predictor += coefficients.get("p.occupation_worker");
+                features[OCCUPATION_WORKER] = 1.;
                 break;
             case STUDENT:
-                predictor += coefficients.get("p.occupation_student");
+                features[OCCUPATION_STUDENT] = 1.;
                 break;
             case UNEMPLOYED:
             case RETIRED:
-                predictor += coefficients.get("p.occupation_unemployed");
+                features[OCCUPATION_UNEMPLOYED] = 1.;
                 break;
         }
 
-        Map<String, Double> timesHBW;
-        Map<String, Double> timesHBE;
-
-        List<MitoTrip> tripsForHBW = new ArrayList<>();
-        List<MitoTrip> tripsForHBE = new ArrayList<>();
-        person.getTrips().forEach(trip -> {
-            if (trip.getTripPurpose().equals(Purpose.HBW)){
-                tripsForHBW.add(trip);
-            } else if (trip.getTripPurpose().equals(Purpose.HBE)){
-                tripsForHBE.add(trip);
+        final double[] timesHBW = new double[4];
+        final boolean[] mobileHBW = new boolean[4];
+        final double[] timesHBE = new double[4];
+        final boolean[] mobileHBE = new boolean[4];
+        for (MitoTrip trip : person.getTrips()) {
+            if (trip.getTripPurpose().equals(Purpose.HBW)) {
+                addTimeByMode(trip, timesHBW, mobileHBW);
+            } else if (trip.getTripPurpose().equals(Purpose.HBE)) {
+                addTimeByMode(trip, timesHBE, mobileHBE);
             }
-        });
-        timesHBW = getTimesByModeForPurpose(tripsForHBW);
-        timesHBE = getTimesByModeForPurpose(tripsForHBE);
+        }
 
+        setTravelTimeBudget(features, HBW_PT, timesHBW[PT], mobileHBW[PT], false);
+        setTravelTimeBudget(features, HBW_CAR, timesHBW[CAR], mobileHBW[CAR], false);
+        setTravelTimeBudget(features, HBW_CYCLE, timesHBW[CYCLE], mobileHBW[CYCLE], false);
+        setTravelTimeBudget(features, HBW_WALK, timesHBW[WALK], mobileHBW[WALK], false);
 
-        for (String mode : timesHBW.keySet()) {
-            if (mode.equals("car")) {
-                predictor += coefficients.get("p.isMobile_HBW_car");
-                predictor += coefficients.get("p.sqrtTTB_HBW_car") * Math.sqrt(timesHBW.get("car"));
-            } else if (mode.equals("PT")) {
-                predictor += coefficients.get("p.isMobile_HBW_PT");
-                predictor += coefficients.get("p.sqrtTTB_HBW_PT") * Math.sqrt(timesHBW.get("PT"));
-            } else if (mode.equals("cycle")) {
-                predictor += coefficients.get("p.isMobile_HBW_cycle");
-                predictor += coefficients.get("p.sqrtTTB_HBW_cycle") * Math.sqrt(timesHBW.get("cycle"));
-            } else if (mode.equals("walk")) {
-                predictor += coefficients.get("p.isMobile_HBW_walk");
-                predictor += coefficients.get("p.sqrtTTB_HBW_walk") * Math.sqrt(timesHBW.get("walk"));
-            }
-        }
+        setTravelTimeBudget(features, HBE_PT, timesHBE[PT], mobileHBE[PT], true);
+        setTravelTimeBudget(features, HBE_CAR, timesHBE[CAR], mobileHBE[CAR], true);
+        setTravelTimeBudget(features, HBE_CYCLE, timesHBE[CYCLE], mobileHBE[CYCLE], false);
+        setTravelTimeBudget(features, HBE_WALK, timesHBE[WALK], mobileHBE[WALK], false);
+    }
 
-        for (String mode : timesHBE.keySet()) {
-            if (mode.equals("car")) {
-                predictor += coefficients.get("p.isMobile_HBE_car");
-                predictor += coefficients.get("p.sqrtTTB_HBE_car") * Math.sqrt(timesHBE.get("car"));
-                predictor += coefficients.get("p.TTB_HBE_car") * timesHBE.get("car");
-            } else if (mode.equals("PT")) {
-                predictor += coefficients.get("p.isMobile_HBE_PT");
-                predictor += coefficients.get("p.sqrtTTB_HBE_PT") * Math.sqrt(timesHBE.get("PT"));
-                predictor += coefficients.get("p.TTB_HBE_PT") * timesHBE.get("PT");
-            } else if (mode.equals("cycle")) {
-                predictor += coefficients.get("p.isMobile_HBE_cycle");
-                predictor += coefficients.get("p.sqrtTTB_HBE_cycle") * Math.sqrt(timesHBE.get("cycle"));
-            } else if (mode.equals("walk")) {
-                predictor += coefficients.get("p.isMobile_HBE_walk");
-                predictor += coefficients.get("p.sqrtTTB_HBE_walk") * Math.sqrt(timesHBE.get("walk"));
+    /**
+     * Sets the isMobile indicator, the square root of the travel time budget and, if linear is set, the travel time
+     * budget itself into consecutive slots starting at the given slot.
+     */
+    private static void setTravelTimeBudget(double[] features, int slot, double time, boolean mobile, boolean linear) {
+        if (mobile) {
+            features[slot] = 1.;
+            features[slot + 1] = Math.sqrt(time);
+            if (linear) {
+                features[slot + 2] = time;
             }
         }
-
-        return predictor;
     }
 
-
-    private Map<String, Double> getTimesByModeForPurpose(List<MitoTrip> trips) {
-        Map<String, Double> times = new HashMap<>();
-
-        for (MitoTrip t : trips) {
-            if (t.getTripOrigin() != null && t.getTripDestination() != null && t.getTripMode() != null) {
-                if (t.getTripMode().equals(Mode.walk)) {
-                    double time = 2 * dataSet.
-                            getTravelDistancesNMT().getTravelDistance(t.getTripDestination().getZoneId(), t.getTripOrigin().getZoneId())
-                            / speed_walk_m_min;
-                    times.putIfAbsent("walk", 0.);
-                    times.put("walk", time + times.get("walk"));
-                } else if (t.getTripMode().equals(Mode.bicycle)) {
-
-                    double time = 2 * dataSet.
-                            getTravelDistancesNMT().getTravelDistance(t.getTripDestination().getZoneId(), t.getTripOrigin().getZoneId())
-                            / speed_bicycle_m_min;
-                    times.putIfAbsent("cycle", 0.);
-                    times.put("cycle", time + times.get("cycle"));
-                } else if (t.getTripMode().equals(Mode.autoPassenger) || t.getTripMode().equals(Mode.autoDriver) || t.getTripMode().equals(Mode.taxi)) {
-                    double time = dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes(), "car");
-                    time += dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip(), "car");
-                    times.putIfAbsent("car", 0.);
-                    times.put("car", time + times.get("car"));
-                } else if (t.getTripMode().equals(Mode.tramOrMetro) || t.getTripMode().equals(Mode.bus) || t.getTripMode().equals(Mode.train)) {
-                    String modeString;
-                    if (t.getTripMode().equals(Mode.tramOrMetro)) {
-                        modeString = "tramMetro";
-                    } else {
-                        modeString = t.getTripMode().toString();
-                    }
-                    double time = dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes(), modeString);
-                    time += dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip(), modeString);
-                    times.putIfAbsent("PT", 0.);
-                    times.put("PT", time + times.get("PT"));
+    private void addTimeByMode(MitoTrip t, double[] times, boolean[] mobile) {
+        if (t.getTripOrigin() != null && t.getTripDestination() != null && t.getTripMode() != null) {
+            if (t.getTripMode().equals(Mode.walk)) {
+                double time = 2 * dataSet.
+                        getTravelDistancesNMT().getTravelDistance(t.getTripDestination().getZoneId(), t.getTripOrigin().getZoneId())
+                        / speed_walk_m_min;
+                times[WALK] += time;
+                mobile[WALK] = true;
+            } else if (t.getTripMode().equals(Mode.bicycle)) {
+
+                double time = 2 * dataSet.
+                        getTravelDistancesNMT().getTravelDistance(t.getTripDestination().getZoneId(), t.getTripOrigin().getZoneId())
+                        / speed_bicycle_m_min;
+                times[CYCLE] += time;
+                mobile[CYCLE] = true;
+            } else if (t.getTripMode().equals(Mode.autoPassenger) || t.getTripMode().equals(Mode.autoDriver) || t.getTripMode().equals(Mode.taxi)) {
+                double time = dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes() * 60., "car");
+                time += dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip() * 60., "car");
+                times[CAR] += time;
+                mobile[CAR] = true;
+            } else if (t.getTripMode().equals(Mode.tramOrMetro) || t.getTripMode().equals(Mode.bus) || t.getTripMode().equals(Mode.train)) {
+                String modeString;
+                if (t.getTripMode().equals(Mode.tramOrMetro)) {
+                    modeString = "tramMetro";
                 } else {
-                    logger.warn("MITO is not able to calculate the time for mode " + t.getTripMode() + ", then car is assumed");
-                    double time = dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes(), "car");
-                    time += dataSet.
-                            getTravelTimes().
-                            getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip(), "car");
-                    times.putIfAbsent("car", 0.);
-                    times.put("car", time + times.get("car"));
+                    modeString = t.getTripMode().toString();
                 }
+                double time = dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes() * 60., modeString);
+                time += dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip() * 60., modeString);
+                times[PT] += time;
+                mobile[PT] = true;
             } else {
-                logger.warn("There is a trip for mandatory purposes without origin or destination or mode");
+                logger.warn("MITO is not able to calculate the time for mode " + t.getTripMode() + ", then car is assumed");
+                double time = dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripDestination(), t.getTripOrigin(), t.getDepartureInMinutes() * 60., "car");
+                time += dataSet.
+                        getTravelTimes().
+                        getTravelTime(t.getTripOrigin(), t.getTripDestination(), t.getDepartureInMinutesReturnTrip() * 60., "car");
+                times[CAR] += time;
+                mobile[CAR] = true;
             }
+        } else {
+            logger.warn("There is a trip for mandatory purposes without origin or destination or mode");
         }
-        return times;
     }
 
 }
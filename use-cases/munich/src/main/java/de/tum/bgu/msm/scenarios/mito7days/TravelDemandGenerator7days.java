@@ -114,6 +114,8 @@ public final class TravelDemandGenerator7days {
 
         public Builder(DataSet dataSet) {
             this.dataSet = dataSet;
+            final MitoTripFactory tripFactory = Resources.instance.getBoolean(Properties.TRIP_TABLE_COLUMNAR, false) ?
+                    new MitoTripFactory7days(dataSet.getTripTable()) : new MitoTripFactory7days();
 
             List<Purpose> purposes = Purpose.getListedPurposes(Resources.instance.getString(Properties.TRIP_PURPOSES));
             logger.info("Simulating trips for the following purposes: " + purposes.stream().map(Enum::toString).collect(Collectors.joining(",")));
@@ -126,14 +128,14 @@ public final class TravelDemandGenerator7days {
             nonRrtPurposes.remove(RRT);
 
             //from here
-            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, new MitoTripFactory7days());
-            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, new MitoTripFactory7days(), TripGeneratorType.PersonBasedHurdlePolr,new TripGenCalculator7days(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
+            tripGenerationMandatory = new TripGeneration(dataSet, mandatoryPurposes, tripFactory);
+            mandatoryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationMandatory).registerTripGenerator(purpose, tripFactory, TripGeneratorType.PersonBasedHurdlePolr,new TripGenCalculator7days(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
 
             distributionMandatory = new TripDistribution(dataSet, mandatoryPurposes);
             mandatoryPurposes.forEach(purpose -> ((TripDistribution) distributionMandatory).registerDestinationUtilityCalculator(purpose, new DestinationUtilityCalculatorImpl7days(purpose)));
 
-            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, new MitoTripFactory7days());
-            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, new MitoTripFactory7days(),TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculator7days(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
+            tripGenerationDiscretionary = new TripGeneration(dataSet, discretionaryPurposes, tripFactory);
+            discretionaryPurposes.forEach(purpose -> ((TripGeneration) tripGenerationDiscretionary).registerTripGenerator(purpose, tripFactory,TripGeneratorType.PersonBasedHurdleNegBin,new TripGenCalculator7days(dataSet),new AttractionCalculatorImpl(dataSet,purpose)));
 
             modeSetChoice = new ModeSetChoice(dataSet, purposes, new ModeSetCalculator7days(dataSet));
 
@@ -280,7 +282,7 @@ public final class TravelDemandGenerator7days {
 //        travelTimeBudgetDiscretionary.run();
 //        ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
 
-        if(Resources.instance.getBoolean(Properties.RUN_MODESET,false)) {
+        if(Resources.instance.isRunModeSet()) {
             logger.info("Running Module: Mode set choice");
             modeSetChoice.run();
         }
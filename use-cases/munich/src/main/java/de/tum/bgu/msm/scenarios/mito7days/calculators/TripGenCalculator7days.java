@@ -1,13 +1,48 @@
 package de.tum.bgu.msm.scenarios.mito7days.calculators;
 
 import de.tum.bgu.msm.data.*;
-import de.tum.bgu.msm.modules.tripGeneration.TripGenPredictor;
+import de.tum.bgu.msm.modules.tripGeneration.CompiledTripGenPredictor;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
-public class TripGenCalculator7days implements TripGenPredictor {
+public class TripGenCalculator7days implements CompiledTripGenPredictor {
+
+    private static final String[] FEATURE_NAMES = {
+            "(Intercept)",
+            "hh.size_1", "hh.size_2", "hh.size_3", "hh.size_4", "hh.size_5",
+            "hh.children_1", "hh.children_2", "hh.children_3",
+            "hh.urban",
+            "hh.cars_1", "hh.cars_2", "hh.cars_3",
+            "hh.autosPerAdult",
+            "p.age_gr_1", "p.age_gr_2", "p.age_gr_3", "p.age_gr_4", "p.age_gr_5", "p.age_gr_6",
+            "p.female",
+            "p.driversLicense",
+            "p.ownBicycle",
+            "p.occupationStatus_Student", "p.occupationStatus_Unemployed",
+            "p.workTrips_1", "p.workTrips_2", "p.workTrips_3", "p.workTrips_4", "p.workTrips_5",
+            "p.log_km_mean_HBW",
+            "p.eduTrips_1", "p.eduTrips_2", "p.eduTrips_3", "p.eduTrips_4", "p.eduTrips_5",
+            "p.log_km_mean_HBE"
+    };
+
+    private static final int INTERCEPT = 0;
+    private static final int HH_SIZE_1 = 1;
+    private static final int HH_CHILDREN_1 = 6;
+    private static final int HH_URBAN = 9;
+    private static final int HH_CARS_1 = 10;
+    private static final int HH_AUTOS_PER_ADULT = 13;
+    private static final int AGE_GROUP_1 = 14;
+    private static final int FEMALE = 20;
+    private static final int DRIVERS_LICENSE = 21;
+    private static final int OWN_BICYCLE = 22;
+    private static final int STATUS_STUDENT = 23;
+    private static final int STATUS_UNEMPLOYED = 24;
+    private static final int WORK_TRIPS_1 = 25;
+    private static final int LOG_KM_MEAN_HBW = 30;
+    private static final int EDU_TRIPS_1 = 31;
+    private static final int LOG_KM_MEAN_HBE = 36;
 
     private final DataSet dataSet;
 
@@ -15,158 +50,112 @@ public class TripGenCalculator7days implements TripGenPredictor {
         this.dataSet = dataSet;
     }
 
+    @Override
+    public String[] getFeatureNames() {
+        return FEATURE_NAMES;
+    }
 
     @Override
-    public double getPredictor(MitoHousehold hh,MitoPerson pp, Map<String, Double> coefficients) {
-        double predictor = 0.;
+    public void extractFeatures(MitoHousehold hh, MitoPerson pp, double[] features) {
+        Arrays.fill(features, 0.);
 
         // Intercept
-        predictor += coefficients.get("(Intercept)");
+        features[INTERCEPT] = 1.;
 
         // Household size
         int householdSize = hh.getHhSize();
-        if(householdSize == 1) {
-            predictor += coefficients.get("hh.size_1");
-        }
-        else if(householdSize == 2) {
-            predictor += coefficients.get("hh.size_2");
-        }
-        else if(householdSize == 3) {
-            predictor += coefficients.get("hh.size_3");
-        }
-        else if(householdSize == 4) {
-            predictor += coefficients.get("hh.size_4");
+        if(householdSize >= 1 && householdSize <= 4) {
+            features[HH_SIZE_1 + householdSize - 1] = 1.;
         }
         else  {
             assert(householdSize >= 5);
-            predictor += coefficients.get("hh.size_5");
+            features[HH_SIZE_1 + 4] = 1.;
         }
 
         // Number of children in household
         int householdChildren = hh.getChildrenForHousehold();
-        if(householdChildren == 1) {
-            predictor += coefficients.get("hh.children_1");
-        }
-        else if (householdChildren == 2) {
-            predictor += coefficients.get("hh.children_2");
-        }
-        else if (householdChildren >= 3) {
-            predictor += coefficients.get("hh.children_3");
+        if(householdChildren > 0) {
+            features[HH_CHILDREN_1 + Math.min(householdChildren, 3) - 1] = 1.;
         }
 
         // Household in urban region
         if(!(hh.getHomeZone().getAreaTypeR().equals(AreaTypes.RType.RURAL))) {
-            predictor += coefficients.get("hh.urban");
+            features[HH_URBAN] = 1.;
         }
 
         // Household autos
         int householdAutos = hh.getAutos();
-        if(householdAutos == 1) {
-            predictor += coefficients.get("hh.cars_1");
-        }
-        else if(householdAutos == 2) {
-            predictor += coefficients.get("hh.cars_2");
-        }
-        else if(householdAutos >= 3) {
-            predictor += coefficients.get("hh.cars_3");
+        if(householdAutos > 0) {
+            features[HH_CARS_1 + Math.min(householdAutos, 3) - 1] = 1.;
         }
 
         // Autos per adult
         int householdAdults = householdSize - householdChildren;
-        double autosPerAdult = Math.min((double) hh.getAutos() / (double) householdAdults , 1.0);
-        predictor += autosPerAdult * coefficients.get("hh.autosPerAdult");
+        features[HH_AUTOS_PER_ADULT] = Math.min((double) householdAutos / (double) householdAdults , 1.0);
 
         // Age
         int age = pp.getAge();
+        int ageGroup;
         if (age <= 18) {
-            predictor += coefficients.get("p.age_gr_1");
+            ageGroup = 0;
         }
         else if (age <= 29) {
-            predictor += coefficients.get("p.age_gr_2");
+            ageGroup = 1;
         }
         else if (age <= 49) {
-            predictor += coefficients.get("p.age_gr_3");
+            ageGroup = 2;
         }
         else if (age <= 59) {
-            predictor += coefficients.get("p.age_gr_4");
+            ageGroup = 3;
         }
         else if (age <= 69) {
-            predictor += coefficients.get("p.age_gr_5");
+            ageGroup = 4;
         }
         else {
-            predictor += coefficients.get("p.age_gr_6");
+            ageGroup = 5;
         }
+        features[AGE_GROUP_1 + ageGroup] = 1.;
 
         // Female
         if (pp.getMitoGender().equals(MitoGender.FEMALE)) {
-            predictor += coefficients.get("p.female");
+            features[FEMALE] = 1.;
         }
 
         // Has drivers Licence
         if (pp.hasDriversLicense()) {
-            predictor += coefficients.get("p.driversLicense");
+            features[DRIVERS_LICENSE] = 1.;
         }
 
         // Has bicycle
         if (pp.getHasBicycle().get()) {
-            predictor += coefficients.get("p.ownBicycle");
+            features[OWN_BICYCLE] = 1.;
         }
 
         // Mito occupation Status
         MitoOccupationStatus occupationStatus = pp.getMitoOccupationStatus();
         if (occupationStatus.equals(MitoOccupationStatus.STUDENT)) {
-            predictor += coefficients.get("p.occupationStatus_Student");
+            features[STATUS_STUDENT] = 1.;
         } else if (occupationStatus.equals(MitoOccupationStatus.UNEMPLOYED)) {
-            predictor += coefficients.get("p.occupationStatus_Unemployed");
+            features[STATUS_UNEMPLOYED] = 1.;
         }
 
         // Work trips & mean distance
-        List<MitoTrip> workTrips = pp.getTrips().stream().filter(tt -> Purpose.HBW.equals(tt.getTripPurpose())).collect(Collectors.toList());
-        int workTripCount = workTrips.size();
-        if(workTripCount > 0) {
-            if (workTripCount == 1) {
-                predictor += coefficients.get("p.workTrips_1");
-            } else if (workTripCount == 2) {
-                predictor += coefficients.get("p.workTrips_2");
-            } else if (workTripCount == 3) {
-                predictor += coefficients.get("p.workTrips_3");
-            } else if (workTripCount == 4) {
-                predictor += coefficients.get("p.workTrips_4");
-            } else {
-                predictor += coefficients.get("p.workTrips_5");
-            }
-            int homeZoneId = pp.getHousehold().getZoneId();
-            double meanWorkKm = workTrips.stream().
-                    mapToDouble(t -> dataSet.getTravelDistancesNMT().
-                            getTravelDistance(homeZoneId, t.getTripDestination().getZoneId())).average().getAsDouble();
-            predictor += Math.log(meanWorkKm) * coefficients.get("p.log_km_mean_HBW");
-        }
+        extractMandatoryTripFeatures(pp, Purpose.HBW, features, WORK_TRIPS_1, LOG_KM_MEAN_HBW);
 
         // Education trips & mean distance
-        List<MitoTrip> eduTrips = pp.getTrips().stream().filter(tt -> Purpose.HBE.equals(tt.getTripPurpose())).collect(Collectors.toList());
-        int eduTripCount = eduTrips.size();
-        if(eduTripCount > 0) {
-            if (eduTripCount == 1) {
-                predictor += coefficients.get("p.eduTrips_1");
-            } else if (eduTripCount == 2) {
-                predictor += coefficients.get("p.eduTrips_2");
-            } else if (eduTripCount == 3) {
-                predictor += coefficients.get("p.eduTrips_3");
-            } else if (eduTripCount == 4) {
-                predictor += coefficients.get("p.eduTrips_4");
-            } else {
-                predictor += coefficients.get("p.eduTrips_5");
-            }
+        extractMandatoryTripFeatures(pp, Purpose.HBE, features, EDU_TRIPS_1, LOG_KM_MEAN_HBE);
+    }
+
+    private void extractMandatoryTripFeatures(MitoPerson pp, Purpose purpose, double[] features, int tripsSlot, int logKmMeanSlot) {
+        List<MitoTrip> trips = pp.getTrips().stream().filter(tt -> purpose.equals(tt.getTripPurpose())).collect(Collectors.toList());
+        int tripCount = trips.size();
+        if(tripCount > 0) {
+            features[tripsSlot + Math.min(tripCount, 5) - 1] = 1.;
             int homeZoneId = pp.getHousehold().getZoneId();
-            double meanEduKm = eduTrips.stream().
+            double meanKm = trips.stream().
                     mapToDouble(t -> dataSet.getTravelDistancesNMT().
                             getTravelDistance(homeZoneId, t.getTripDestination().getZoneId())).average().getAsDouble();
-            predictor += Math.log(meanEduKm) * coefficients.get("p.log_km_mean_HBE");
+            features[logKmMeanSlot] = Math.log(meanKm);
         }
-
-        return predictor;
     }
-
-
-
 }